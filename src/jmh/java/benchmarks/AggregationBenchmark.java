@@ -0,0 +1,66 @@
+package benchmarks;
+
+import TaskClasses.Transaction;
+import com.viko.parser.AggregateResult;
+import com.viko.parser.Aggregation;
+import com.viko.parser.GenericParser;
+import com.viko.parser.ParseOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Class AggregationBenchmark: Sum, count and max of Transaction.amount per day, grouping the parsed list
+ * against aggregating while parsing, on one thread and on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AggregationBenchmark {
+
+    private static final Aggregation PER_DAY = Aggregation.groupBy("timestamp").count().sum("amount").max("amount");
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private Path file;
+    private GenericParser parser;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        file = Datasets.file("Transaction", rows, 0, 0);
+        parser = new GenericParser(new SilentErrors());
+    }
+
+    @Benchmark
+    public Map<LocalDate, DoubleSummaryStatistics> groupParsedList() throws Exception {
+        return parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT).stream()
+                .collect(Collectors.groupingBy(transaction -> transaction.timestamp,
+                        Collectors.summarizingDouble(transaction -> transaction.amount)));
+    }
+
+    @Benchmark
+    public AggregateResult aggregate() throws Exception {
+        return parser.aggregate(file, Transaction.class, GenericParser.ParsingMode.LENIENT, PER_DAY);
+    }
+
+    @Benchmark
+    public AggregateResult aggregateParallel() throws Exception {
+        return parser.aggregateParallel(file, Transaction.class, GenericParser.ParsingMode.LENIENT, ParseOptions.ALL,
+                PER_DAY, ForkJoinPool.commonPool());
+    }
+}
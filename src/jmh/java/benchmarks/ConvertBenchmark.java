@@ -0,0 +1,70 @@
+package benchmarks;
+
+import com.viko.parser.TypeConverter;
+import com.viko.parser.TypeConverters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class ConvertBenchmark: Cost of converting one value with the built-in converter of each field type.
+ * Values sit inside a longer line, the way the parser hands them over. Time is per value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConvertBenchmark {
+
+    private static final int VALUES = 1024;
+
+    @Param({"int", "long", "double", "boolean", "LocalDate", "String"})
+    public String type;
+
+    private TypeConverter<?> converter;
+    private String[] lines;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Class<?> fieldType = switch (type) {
+            case "int" -> int.class;
+            case "long" -> long.class;
+            case "double" -> double.class;
+            case "boolean" -> boolean.class;
+            case "LocalDate" -> LocalDate.class;
+            default -> String.class;
+        };
+        converter = TypeConverters.find(fieldType);
+        lines = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            String value = switch (type) {
+                case "int" -> String.valueOf(random.nextInt());
+                case "long" -> String.valueOf(random.nextLong());
+                case "double" -> String.valueOf(random.nextInt(10_000_000) / 100.0);
+                case "boolean" -> String.valueOf(random.nextBoolean());
+                case "LocalDate" -> LocalDate.of(2024, 1, 1).plusDays(random.nextInt(730)).toString();
+                default -> "value" + random.nextInt(1000);
+            };
+            lines[i] = "key|" + value + "|rest";
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void convert(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(converter.convert(line, 4, line.length() - 5));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Class Datasets: Generated input files for the benchmarks, one per shape, size and error rates.
+ * Files are written once to target/jmh-data (or -Djmh.data=dir) and reused by later runs.
+ * The same seed is used every time, so runs across releases parse the same data.
+ */
+final class Datasets {
+
+    private static final Path DIR = Path.of(System.getProperty("jmh.data", "target/jmh-data"));
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private Datasets() {}
+
+    /**
+     * Func type: Mapped class of a shape, the test classes Transaction ('|'), Customer (',') and Audit (';').
+     */
+    static Class<?> type(String shape) {
+        try {
+            return Class.forName("TaskClasses." + shape);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown shape " + shape, e);
+        }
+    }
+
+    /**
+     * Func file
+     * @param shape Transaction, Customer or Audit
+     * @param rows Data lines in the file
+     * @param errorRate Share of lines that fail to parse
+     * @param invalidRate Share of lines that parse but break a validation rule
+     * @return Path of the generated file
+     */
+    static synchronized Path file(String shape, int rows, double errorRate, double invalidRate) {
+        Path file = DIR.resolve(String.format(Locale.ROOT, "%s-%d-%s-%s.txt", shape, rows, errorRate, invalidRate));
+        if (Files.exists(file)) return file;
+        try {
+            Files.createDirectories(DIR);
+            Path temp = Files.createTempFile(DIR, shape, ".tmp");
+            Random random = new Random(rows * 31L + shape.hashCode());
+            try (BufferedWriter out = Files.newBufferedWriter(temp)) {
+                out.write("# generated " + shape + " data\n");
+                for (int i = 0; i < rows; i++) {
+                    double roll = random.nextDouble();
+                    out.write(line(shape, i, random, roll < errorRate, roll >= errorRate && roll < errorRate + invalidRate));
+                    out.write('\n');
+                }
+            }
+            Files.move(temp, file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Func lines: Lines of a shape in memory, for benchmarks that skip the file.
+     */
+    static String[] lines(String shape, int count, double invalidRate) {
+        Random random = new Random(shape.hashCode());
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) lines[i] = line(shape, i, random, false, random.nextDouble() < invalidRate);
+        return lines;
+    }
+
+    static String line(String shape, int i, Random random, boolean broken, boolean invalid) {
+        return switch (shape) {
+            case "Transaction" -> "TX" + (100000 + i) + " | "
+                    + (broken ? "12,5x" : String.format(Locale.ROOT, "%.2f", (invalid ? -1 : 1) * random.nextInt(1_000_000) / 100.0))
+                    + " | " + START.plusDays(random.nextInt(730));
+            case "Customer" -> "Name" + i + ","
+                    + (invalid ? "name" + i + "@mail" : "name" + i + "@mail.com") + ","
+                    + (broken ? "abc" : String.valueOf(invalid ? 10 : 18 + random.nextInt(80)));
+            case "Audit" -> (invalid ? " " : "10.0." + random.nextInt(256) + "." + random.nextInt(256)) + ";"
+                    + (broken ? "high" : String.valueOf(random.nextInt(5)));
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import TaskClasses.Transaction;
+import com.viko.parser.DuplicateKeys;
+import com.viko.parser.GenericParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class DuplicateKeyBenchmark: Parsing Transactions while rejecting repeated transactionIds, with the key index
+ * on and off the heap, against parsing and then collecting the ids into a HashSet&lt;String&gt;.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DuplicateKeyBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private Path file;
+    private GenericParser plain;
+    private GenericParser heap;
+    private GenericParser offHeap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        file = Datasets.file("Transaction", rows, 0, 0);
+        plain = new GenericParser(new SilentErrors());
+        heap = new GenericParser(new SilentErrors());
+        heap.setDuplicateKeys(new DuplicateKeys(DuplicateKeys.Action.REJECT));
+        offHeap = new GenericParser(new SilentErrors());
+        offHeap.setDuplicateKeys(new DuplicateKeys(DuplicateKeys.Action.REJECT, true, 0));
+    }
+
+    @Benchmark
+    public List<Transaction> parseOnly() throws Exception {
+        return plain.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT);
+    }
+
+    @Benchmark
+    public Set<String> parseThenHashSet() throws Exception {
+        plain.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT);
+        Set<String> ids = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int end = line.indexOf('|');
+                if (end > 0) ids.add(line.substring(0, end).trim());
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<Transaction> parseRejectingDuplicates() throws Exception {
+        return heap.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT);
+    }
+
+    @Benchmark
+    public List<Transaction> parseRejectingDuplicatesOffHeap() throws Exception {
+        return offHeap.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT);
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import com.viko.parser.GenericParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class ParseBenchmark: Whole file parsing through every entry point, per shape, file size and error rate.
+ * Time is per file, divide by rows for the cost of a line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParseBenchmark {
+
+    @Param({"Transaction", "Customer", "Audit"})
+    public String shape;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"0", "0.01", "0.1"})
+    public double errorRate;
+
+    private Path file;
+    private Class<?> type;
+    private GenericParser parser;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        file = Datasets.file(shape, rows, errorRate, 0);
+        type = Datasets.type(shape);
+        parser = new GenericParser(new SilentErrors());
+    }
+
+    @Benchmark
+    public List<?> parse() throws Exception {
+        return parser.parse(file.toString(), type, GenericParser.ParsingMode.LENIENT);
+    }
+
+    @Benchmark
+    public void forEach(Blackhole blackhole) throws IOException {
+        parser.forEach(file, type, GenericParser.ParsingMode.LENIENT, blackhole::consume);
+    }
+
+    @Benchmark
+    public void forEachReused(Blackhole blackhole) throws IOException {
+        parser.forEachReused(file, type, GenericParser.ParsingMode.LENIENT, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<?> parseParallel() throws IOException {
+        return parser.parseParallel(file, type, GenericParser.ParsingMode.LENIENT);
+    }
+
+    @Benchmark
+    public void forEachBatch(Blackhole blackhole) throws IOException {
+        parser.forEachBatch(file, type, GenericParser.ParsingMode.LENIENT, 8192, blackhole::consume);
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import com.viko.annotations.FileSource;
+import com.viko.parser.GenericParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class ParseLineBenchmark: GenericParser.parseLine on lines already in memory, no I/O. Time is per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParseLineBenchmark {
+
+    private static final int LINES = 1024;
+
+    @Param({"Transaction", "Customer", "Audit"})
+    public String shape;
+
+    private String[] lines;
+    private Class<?> type;
+    private String delimiter;
+    private final GenericParser parser = new GenericParser();
+
+    @Setup
+    public void setup() {
+        lines = Datasets.lines(shape, LINES, 0);
+        type = Datasets.type(shape);
+        delimiter = type.getAnnotation(FileSource.class).delimiter();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseLine(Blackhole blackhole) throws ReflectiveOperationException {
+        for (String line : lines) {
+            blackhole.consume(parser.parseLine(line, type, delimiter));
+        }
+    }
+}
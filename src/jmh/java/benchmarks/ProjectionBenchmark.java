@@ -0,0 +1,60 @@
+package benchmarks;
+
+import TaskClasses.Transaction;
+import com.viko.parser.GenericParser;
+import com.viko.parser.ParseOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class ProjectionBenchmark: Selective query over Transaction files, filtering the built objects
+ * against pushing the projection and the amount filter into the parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    /** Amounts are spread over 0-10000, a limit of 9000 keeps about a tenth of the rows. */
+    @Param({"1000", "9000"})
+    public double minAmount;
+
+    private Path file;
+    private GenericParser parser;
+    private ParseOptions options;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        file = Datasets.file("Transaction", rows, 0, 0);
+        parser = new GenericParser(new SilentErrors());
+        double limit = minAmount;
+        options = ParseOptions.columns("amount")
+                .where("amount", raw -> Double.parseDouble(raw.toString()) > limit);
+    }
+
+    @Benchmark
+    public List<Transaction> filterAfterParse() throws Exception {
+        return parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT).stream()
+                .filter(transaction -> transaction.amount > minAmount)
+                .toList();
+    }
+
+    @Benchmark
+    public List<Transaction> pushedDown() throws Exception {
+        return parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT, options);
+    }
+}
@@ -0,0 +1,105 @@
+package benchmarks;
+
+import TaskClasses.Transaction;
+import com.viko.parser.GenericParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class PublisherBenchmark: Records pushed to a consumer by forEach against the Flow.Publisher views,
+ * one record and one batch per unit of demand, with the subscriber requesting a window of 256 items at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PublisherBenchmark {
+
+    private static final int WINDOW = 256;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private Path file;
+    private GenericParser parser;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        file = Datasets.file("Transaction", rows, 0, 0);
+        parser = new GenericParser(new SilentErrors());
+    }
+
+    @Benchmark
+    public void forEach(Blackhole bh) throws Exception {
+        parser.forEach(file, Transaction.class, GenericParser.ParsingMode.LENIENT, bh::consume);
+    }
+
+    @Benchmark
+    public void publish(Blackhole bh) throws Exception {
+        Windowed<Transaction> subscriber = new Windowed<>(bh);
+        parser.publish(file, Transaction.class, GenericParser.ParsingMode.LENIENT, ForkJoinPool.commonPool())
+                .subscribe(subscriber);
+        subscriber.done.get();
+    }
+
+    @Benchmark
+    public void publishBatches(Blackhole bh) throws Exception {
+        Windowed<List<Transaction>> subscriber = new Windowed<>(bh);
+        parser.publishBatches(file, Transaction.class, GenericParser.ParsingMode.LENIENT, 1024,
+                ForkJoinPool.commonPool()).subscribe(subscriber);
+        subscriber.done.get();
+    }
+
+    /**
+     * Class Windowed: Asks for the next window once half of the current one arrived.
+     */
+    private static final class Windowed<I> implements Flow.Subscriber<I> {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final Blackhole bh;
+        private Flow.Subscription subscription;
+        private int received;
+
+        Windowed(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(WINDOW);
+        }
+
+        @Override
+        public void onNext(I item) {
+            bh.consume(item);
+            if (++received == WINDOW / 2) {
+                received = 0;
+                subscription.request(WINDOW / 2);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package benchmarks;
+
+import com.viko.exception.ErrorCollector;
+import com.viko.exception.ErrorRecord;
+
+/**
+ * Class SilentErrors: Drops failed lines after their ErrorRecord is built,
+ * so the benchmarks measure the parser and not the log appender.
+ */
+final class SilentErrors extends ErrorCollector {
+
+    @Override
+    public void report(ErrorRecord record, Throwable t) {
+    }
+
+    @Override
+    public void flush() {
+    }
+}
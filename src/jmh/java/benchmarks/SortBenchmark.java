@@ -0,0 +1,75 @@
+package benchmarks;
+
+import TaskClasses.Transaction;
+import com.viko.parser.GenericParser;
+import com.viko.parser.Sort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Class SortBenchmark: Transactions ordered by amount, parsed into a list and sorted on the heap against the
+ * external sort with everything in memory and with a small budget that spills runs,
+ * on one thread and on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SortBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private Path file;
+    private GenericParser parser;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        file = Datasets.file("Transaction", rows, 0, 0);
+        parser = new GenericParser(new SilentErrors());
+    }
+
+    @Benchmark
+    public List<Transaction> parseThenListSort() throws Exception {
+        List<Transaction> all = parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT);
+        all.sort(Comparator.comparingDouble(t -> t.amount));
+        return all;
+    }
+
+    @Benchmark
+    public void sortedInMemory(Blackhole bh) throws Exception {
+        drain(parser.sorted(file, Transaction.class, GenericParser.ParsingMode.LENIENT, Sort.by("amount")), bh);
+    }
+
+    @Benchmark
+    public void sortedSpilling(Blackhole bh) throws Exception {
+        drain(parser.sorted(file, Transaction.class, GenericParser.ParsingMode.LENIENT,
+                Sort.by("amount").memoryBytes(4L << 20)), bh);
+    }
+
+    @Benchmark
+    public void sortedParallelSpilling(Blackhole bh) throws Exception {
+        drain(parser.sortedParallel(file, Transaction.class, GenericParser.ParsingMode.LENIENT,
+                Sort.by("amount").memoryBytes(4L << 20), ForkJoinPool.commonPool()), bh);
+    }
+
+    private static void drain(Stream<Transaction> sorted, Blackhole bh) {
+        try (sorted) {
+            sorted.forEach(bh::consume);
+        }
+    }
+}
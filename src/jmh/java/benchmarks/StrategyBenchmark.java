@@ -0,0 +1,98 @@
+package benchmarks;
+
+import com.viko.annotations.NotNull;
+import com.viko.annotations.Range;
+import com.viko.annotations.Regex;
+import com.viko.parser.GenericParser;
+import com.viko.validation.FieldCheck;
+import com.viko.validation.NotNullStrategy;
+import com.viko.validation.RangeStrategy;
+import com.viko.validation.RegexStrategy;
+import com.viko.validation.ValidationStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class StrategyBenchmark: Cost of a single rule on Customer records, compiled check against the
+ * original per call validate(obj, field). Time is per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StrategyBenchmark {
+
+    private static final int RECORDS = 1024;
+
+    @Param({"NotNull", "Regex", "Range"})
+    public String strategy;
+
+    @Param({"0", "0.1"})
+    public double invalidRate;
+
+    private Object[] records;
+    private ValidationStrategy rule;
+    private Field field;
+    private FieldCheck check;
+
+    @Setup
+    public void setup() throws Exception {
+        Class<?> type = Datasets.type("Customer");
+        GenericParser parser = new GenericParser(new SilentErrors());
+        List<Object> parsed = new ArrayList<>();
+        for (String line : Datasets.lines("Customer", RECORDS, invalidRate)) {
+            parsed.add(parser.parseLine(line, type, ","));
+        }
+        records = parsed.toArray();
+
+        Class<? extends Annotation> annotation;
+        switch (strategy) {
+            case "NotNull" -> {
+                rule = new NotNullStrategy();
+                annotation = NotNull.class;
+                field = type.getDeclaredField("name");
+            }
+            case "Regex" -> {
+                rule = new RegexStrategy();
+                annotation = Regex.class;
+                field = type.getDeclaredField("email");
+            }
+            default -> {
+                rule = new RangeStrategy();
+                annotation = Range.class;
+                field = type.getDeclaredField("age");
+            }
+        }
+        if (!field.isAnnotationPresent(annotation)) throw new IllegalStateException(field + " has no " + annotation);
+        check = rule.compile(field);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void compiled(Blackhole blackhole) {
+        for (Object record : records) {
+            blackhole.consume(check.check(record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void reflective(Blackhole blackhole) {
+        for (Object record : records) {
+            blackhole.consume(rule.validate(record, field));
+        }
+    }
+}
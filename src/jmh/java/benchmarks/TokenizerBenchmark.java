@@ -0,0 +1,80 @@
+package benchmarks;
+
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.parser.GenericParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class TokenizerBenchmark: Plain split against the quote aware one, on Customer lines without quotes
+ * and on the same lines with quoted names holding the delimiter and doubled quotes. Time is per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenizerBenchmark {
+
+    private static final int LINES = 1024;
+
+    @FileSource(delimiter = ",")
+    public static class Plain {
+        @Column(index = 0)
+        public String name;
+        @Column(index = 1)
+        public String email;
+        @Column(index = 2)
+        public int age;
+    }
+
+    @FileSource(delimiter = ",", quote = '"')
+    public static class Quoted {
+        @Column(index = 0)
+        public String name;
+        @Column(index = 1)
+        public String email;
+        @Column(index = 2)
+        public int age;
+    }
+
+    private String[] lines;
+    private String[] quotedLines;
+    private final GenericParser parser = new GenericParser();
+
+    @Setup
+    public void setup() {
+        lines = Datasets.lines("Customer", LINES, 0);
+        quotedLines = new String[LINES];
+        for (int i = 0; i < LINES; i++) {
+            int comma = lines[i].indexOf(',');
+            quotedLines[i] = "\"" + lines[i].substring(0, comma) + ", \"\"Jr\"\"\"" + lines[i].substring(comma);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void plainSplit(Blackhole blackhole) throws ReflectiveOperationException {
+        for (String line : lines) blackhole.consume(parser.parseLine(line, Plain.class, ","));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void quoteAwareOnPlainData(Blackhole blackhole) throws ReflectiveOperationException {
+        for (String line : lines) blackhole.consume(parser.parseLine(line, Quoted.class, ","));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void quoteAwareOnQuotedData(Blackhole blackhole) throws ReflectiveOperationException {
+        for (String line : quotedLines) blackhole.consume(parser.parseLine(line, Quoted.class, ","));
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import com.viko.parser.GenericParser;
+import com.viko.validation.ValidationReport;
+import com.viko.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class ValidateBenchmark: Validator.validate and Validator.report over already parsed records,
+ * on the calling thread and on the common pool. Time is per list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValidateBenchmark {
+
+    @Param({"Transaction", "Customer", "Audit"})
+    public String shape;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"0", "0.01", "0.1"})
+    public double invalidRate;
+
+    private List<?> records;
+    private final Validator validator = new Validator();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        GenericParser parser = new GenericParser(new SilentErrors());
+        records = parser.parse(Datasets.file(shape, rows, 0, invalidRate).toString(), Datasets.type(shape),
+                GenericParser.ParsingMode.LENIENT);
+    }
+
+    @Benchmark
+    public Map<?, Set<String>> validate() {
+        return validator.validate(records);
+    }
+
+    @Benchmark
+    public ValidationReport report() {
+        return validator.report(records);
+    }
+
+    @Benchmark
+    public Map<?, Set<String>> validateParallel() {
+        return validator.validateParallel(records, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public ValidationReport reportParallel() {
+        return validator.reportParallel(records, Integer.MAX_VALUE, ForkJoinPool.commonPool());
+    }
+}
@@ -1,5 +1,7 @@
 package com.viko.annotations;
 
+import com.viko.parser.TypeConverter;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -10,4 +12,11 @@ import java.lang.annotation.Target;
 public @interface Column {
     int index();
     String name() default "";
+
+    /**
+     * Converter for this field only, needs a no-args constructor.
+     * The default (TypeConverter itself) means the converter registered for the field type is used.
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends TypeConverter> converter() default TypeConverter.class;
 }
@@ -10,4 +10,21 @@ import java.lang.annotation.Target;
 public @interface FileSource {
     String delimiter();
     String[] commentPrefixes() default {"#"};
+
+    /**
+     * Quote char of RFC 4180 style fields, e.g. '"'. Inside quotes the delimiter is plain text and a doubled
+     * quote stands for one quote. The default '\0' turns quoting off, lines are then split on the raw delimiter.
+     */
+    char quote() default '\0';
+
+    /**
+     * Char that makes the next char inside quotes literal, e.g. '\\'. The default '\0' only allows doubled quotes.
+     */
+    char escape() default '\0';
+
+    /**
+     * Lets a quoted field run over several lines, the line breaks are kept as '\n'. Needs a quote char.
+     * Only the reader based parsing supports it, parseMapped, parseParallel and follow reject such classes.
+     */
+    boolean multiLine() default false;
 }
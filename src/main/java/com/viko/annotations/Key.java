@@ -0,0 +1,15 @@
+package com.viko.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a @Column field as (part of) the key of a row. Several @Key fields form one composite key.
+ * Duplicates are only looked for once GenericParser.setDuplicateKeys is set.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Key {
+}
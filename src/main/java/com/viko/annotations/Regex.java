@@ -10,4 +10,10 @@ import java.lang.annotation.Target;
 public @interface Regex {
     String pattern();
     String message () default "Doesnt match pattern";
+    /**
+     * Match with a hand written, non backtracking matcher instead of java.util.regex.
+     * Only used when the pattern is a plain sequence of literals, '.', classes and quantifiers
+     * (e.g. ^[^\s@]+@[^\s@]+\.[^\s@]+$), other patterns keep using the regex engine.
+     */
+    boolean specialized() default false;
 }
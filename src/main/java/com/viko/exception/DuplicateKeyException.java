@@ -0,0 +1,16 @@
+package com.viko.exception;
+
+/**
+ * Class DuplicateKeyException: A row whose @Key was already seen earlier in the same run.
+ * Reported like any other failed line, so ErrorCollector counts duplicates under their own type.
+ */
+public class DuplicateKeyException extends ParsingException {
+
+    /**
+     * @param message Message naming the key and its columns
+     * @param column Column index of the first key field
+     */
+    public DuplicateKeyException(String message, int column) {
+        super(message, column, null);
+    }
+}
@@ -0,0 +1,180 @@
+package com.viko.exception;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class ErrorCollector: Collects parse errors as structured records and decides which ones are logged.
+ * Every error is counted per cause type. The first samplesPerType errors of a type are logged and kept,
+ * after that at most maxPerSecond errors of that type are logged per second and the rest only counted.
+ * Stack traces are left out unless enabled, the record already says where and why a line failed.
+ * <p>
+ * Safe to share between threads.
+ */
+public class ErrorCollector {
+
+    private static final Logger logger = LogManager.getLogger(ErrorCollector.class);
+
+    public static final int DEFAULT_SAMPLES_PER_TYPE = 10;
+    public static final int DEFAULT_MAX_PER_SECOND = 5;
+
+    private final int samplesPerType;
+    private final int maxPerSecond;
+    private final boolean stackTraces;
+    private final Map<String, TypeStats> stats = new ConcurrentHashMap<>();
+
+    public ErrorCollector() {
+        this(DEFAULT_SAMPLES_PER_TYPE, DEFAULT_MAX_PER_SECOND, false);
+    }
+
+    /**
+     * @param samplesPerType Errors of each cause type that are always logged and kept as samples
+     * @param maxPerSecond Errors of each cause type logged per second once the samples are taken
+     * @param stackTraces Log the stack trace with every logged error
+     */
+    public ErrorCollector(int samplesPerType, int maxPerSecond, boolean stackTraces) {
+        if (samplesPerType < 0 || maxPerSecond < 0) {
+            throw new IllegalArgumentException("samplesPerType and maxPerSecond must not be negative");
+        }
+        this.samplesPerType = samplesPerType;
+        this.maxPerSecond = maxPerSecond;
+        this.stackTraces = stackTraces;
+    }
+
+    /**
+     * Func report: Records a failed line, logging it if its cause type is still within its limits.
+     * @param lineNumber Line number in the file
+     * @param line The line as read from the file
+     * @param t Failure thrown while parsing the line
+     */
+    public void report(long lineNumber, String line, Throwable t) {
+        report(ErrorRecord.of(lineNumber, line, t), t);
+    }
+
+    /**
+     * Func report
+     * @param record Structured error
+     * @param t Failure behind the record, only logged when stack traces are enabled
+     */
+    public void report(ErrorRecord record, Throwable t) {
+        TypeStats type = stats.computeIfAbsent(record.causeType(), key -> new TypeStats());
+        long suppressed = type.admit(record, System.nanoTime());
+        if (suppressed < 0) return;
+        String text = format(record, suppressed);
+        if (stackTraces) logger.error(text, t);
+        else logger.error(text);
+    }
+
+    private String format(ErrorRecord record, long suppressed) {
+        StringBuilder text = new StringBuilder("Parsing failed at line ").append(record.lineNumber());
+        if (record.column() >= 0) text.append(", column ").append(record.column());
+        text.append(" [").append(record.causeType()).append("] ").append(record.message())
+                .append(": ").append(record.line());
+        if (suppressed > 0) {
+            text.append(" (").append(suppressed).append(" more ").append(record.causeType())
+                    .append(" errors not logged)");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Func flush: Logs how many errors of each type were counted but not logged since the last logged one.
+     * Called by the parser when it is done with a file, so the tail of a burst is not lost silently.
+     */
+    public void flush() {
+        stats.forEach((causeType, type) -> {
+            long skipped = type.takePending();
+            if (skipped > 0) logger.error("{} more {} errors not logged", skipped, causeType);
+        });
+    }
+
+    /**
+     * @return Number of errors reported, logged or not.
+     */
+    public long total() {
+        long total = 0;
+        for (TypeStats type : stats.values()) total += type.count();
+        return total;
+    }
+
+    /**
+     * @return Number of errors reported per cause type.
+     */
+    public Map<String, Long> counts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        stats.forEach((causeType, type) -> counts.put(causeType, type.count()));
+        return counts;
+    }
+
+    /**
+     * @return The first errors of every cause type, at most samplesPerType each.
+     */
+    public List<ErrorRecord> samples() {
+        List<ErrorRecord> samples = new ArrayList<>();
+        for (TypeStats type : stats.values()) samples.addAll(type.samples());
+        return samples;
+    }
+
+    /**
+     * Func reset: Drops counts and samples, for example between two files.
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Class TypeStats: Counter, samples and the rate limit window of one cause type.
+     */
+    private final class TypeStats {
+        private long count;
+        private final List<ErrorRecord> samples = new ArrayList<>();
+        private long windowStart;
+        private int loggedInWindow;
+        private long notLogged;
+
+        /**
+         * @return -1 when the error should not be logged, otherwise the number of errors skipped since the last logged one.
+         */
+        synchronized long admit(ErrorRecord record, long now) {
+            count++;
+            if (samples.size() < samplesPerType) {
+                samples.add(record);
+                return takeNotLogged();
+            }
+            if (loggedInWindow == 0 || now - windowStart >= 1_000_000_000L) {
+                windowStart = now;
+                loggedInWindow = 0;
+            }
+            if (loggedInWindow < maxPerSecond) {
+                loggedInWindow++;
+                return takeNotLogged();
+            }
+            notLogged++;
+            return -1;
+        }
+
+        private long takeNotLogged() {
+            long skipped = notLogged;
+            notLogged = 0;
+            return skipped;
+        }
+
+        synchronized long takePending() {
+            return takeNotLogged();
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized List<ErrorRecord> samples() {
+            return new ArrayList<>(samples);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.viko.exception;
+
+/**
+ * Record ErrorRecord: Structured description of a line that failed to parse, kept without a stack trace.
+ * @param lineNumber Line number in the file, starting at 1
+ * @param column Column index of the field that failed, -1 when the failure is not tied to a column
+ * @param causeType Simple class name of the root cause, used to group errors
+ * @param message Most specific message found in the cause chain
+ * @param line The line as read from the file
+ */
+public record ErrorRecord(long lineNumber, int column, String causeType, String message, String line) {
+
+    /**
+     * Func of: Builds a record from a failure, walking the cause chain for the column and the root cause.
+     * @param lineNumber Line number in the file
+     * @param line The line as read from the file
+     * @param t Failure thrown while parsing the line
+     * @return Structured error record
+     */
+    public static ErrorRecord of(long lineNumber, String line, Throwable t) {
+        int column = -1;
+        String message = null;
+        Throwable root = t;
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ParsingException parsing) {
+                if (parsing.getColumn() >= 0) column = parsing.getColumn();
+                //the innermost one is closest to the bad value
+                message = parsing.getMessage();
+            }
+            root = cause;
+            if (cause.getCause() == cause) break;
+        }
+        if (message == null) message = root.getMessage();
+        return new ErrorRecord(lineNumber, column, root.getClass().getSimpleName(), message, line);
+    }
+}
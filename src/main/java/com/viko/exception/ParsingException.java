@@ -1,15 +1,36 @@
 package com.viko.exception;
 
 public class ParsingException extends  RuntimeException{
+    /** Column index of the failing field, -1 when unknown. */
+    private final int column;
+
     /**
      *
      * @param message Message for exception. Passed as props to RuntimeException
      * @param cause Cuase for exception. Passed as props to RuntimeException
      */
     public ParsingException(String message, Throwable cause){
-        super(message, cause);
+        this(message, -1, cause);
     }
     public ParsingException(String message) {
         super(message);
+        this.column = -1;
+    }
+
+    /**
+     * @param message Message for exception
+     * @param column Column index of the field that failed
+     * @param cause Cause for exception
+     */
+    public ParsingException(String message, int column, Throwable cause) {
+        super(message, cause);
+        this.column = column;
+    }
+
+    /**
+     * @return Column index of the failing field, -1 when the failure is not tied to a column.
+     */
+    public int getColumn() {
+        return column;
     }
 }
@@ -0,0 +1,82 @@
+package com.viko.metrics;
+
+/**
+ * Class LatencyHistogram: Counts of durations in power of two buckets, bucket i holds durations
+ * below 2^i nanoseconds. Recording is a few instructions and never allocates.
+ * Not thread safe, every run records into its own histograms.
+ */
+public final class LatencyHistogram {
+
+    private final long[] buckets = new long[64];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Func record
+     * @param nanos Duration of one call
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[64 - Long.numberOfLeadingZeros(nanos) & 63]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    /**
+     * Func merge: Adds the durations recorded by another histogram, e.g. one per worker thread.
+     * @param other Histogram that is no longer recorded into
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < buckets.length; i++) buckets[i] += other.buckets[i];
+        count += other.count;
+        totalNanos += other.totalNanos;
+        if (other.maxNanos > maxNanos) maxNanos = other.maxNanos;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    public long maxNanos() {
+        return maxNanos;
+    }
+
+    public double meanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * Func percentile
+     * @param p Percentile between 0 and 100
+     * @return Upper bound of the bucket holding the percentile, at most 2x the real value.
+     */
+    public long percentileNanos(double p) {
+        if (p < 0 || p > 100) throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        long rank = (long) Math.ceil(p / 100 * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) return Math.min(i == 0 ? 0 : (1L << i) - 1, maxNanos);
+        }
+        return 0;
+    }
+
+    /**
+     * @return Counts per bucket, index i counts durations in [2^(i-1), 2^i) nanoseconds.
+     */
+    public long[] buckets() {
+        return buckets.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + Math.round(meanNanos()) + "ns, p50=" + percentileNanos(50)
+                + "ns, p99=" + percentileNanos(99) + "ns, max=" + maxNanos + "ns";
+    }
+}
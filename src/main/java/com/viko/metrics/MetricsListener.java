@@ -0,0 +1,26 @@
+package com.viko.metrics;
+
+/**
+ * Interface MetricsListener: Receives a summary at the end of every parse or validation run,
+ * to bridge the numbers to an external monitoring system.
+ * Set with GenericParser.setMetricsListener / Validator.setMetricsListener. Without a listener
+ * (and without a JFR recording) nothing is timed, only plain counters are kept.
+ * Called on the thread that ran the parse or validation.
+ */
+public interface MetricsListener {
+
+    /** Listener that ignores everything, the default. */
+    MetricsListener NONE = new MetricsListener() {};
+
+    /**
+     * Func parseFinished: Called once a file was read to the end or the run failed.
+     * @param metrics Counters and timings of the run
+     */
+    default void parseFinished(ParseMetrics metrics) {}
+
+    /**
+     * Func validationFinished: Called after every validate or report call.
+     * @param metrics Counters and per rule latencies of the call
+     */
+    default void validationFinished(ValidationMetrics metrics) {}
+}
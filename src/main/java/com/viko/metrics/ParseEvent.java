@@ -0,0 +1,52 @@
+package com.viko.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Class ParseEvent: JFR event committed at the end of every parse run, same numbers as ParseMetrics.
+ * The event duration covers the whole run.
+ */
+@Name("com.viko.Parse")
+@Label("Parse")
+@Category({"DataEngine", "Parser"})
+@Description("One file parsed into records")
+public final class ParseEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Type")
+    public String type;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Blank Lines")
+    public long blankLines;
+
+    @Label("Comment Lines")
+    public long commentLines;
+
+    @Label("Failed Lines")
+    public long failedLines;
+
+    @Label("Filtered Lines")
+    public long filteredLines;
+
+    @Label("I/O Time")
+    @Timespan
+    public long ioNanos;
+
+    @Label("Parse Time")
+    @Timespan
+    public long parseNanos;
+}
@@ -0,0 +1,36 @@
+package com.viko.metrics;
+
+import java.util.Map;
+
+/**
+ * Record ParseMetrics: Summary of one parse run over a file.
+ * @param source File that was parsed
+ * @param type Name of the mapped class
+ * @param rows Records produced
+ * @param bytes Bytes read. Reader based paths count chars plus line terminator, the same for ASCII files.
+ * @param blankLines Lines skipped as blank
+ * @param commentLines Lines skipped as comments
+ * @param failedLines Lines that failed to parse
+ * @param filteredLines Lines dropped by the ParseOptions filter before a record was created
+ * @param ioNanos Time spent reading lines, 0 where reading and parsing are not separated (mapped files)
+ * @param parseNanos Time spent turning lines into records
+ * @param elapsedNanos Wall time of the whole run
+ * @param conversionFailures Failed lines per column, keyed "field (type)", or "line" for failures
+ *                           not tied to a column (missing columns, constructor errors)
+ */
+public record ParseMetrics(String source, String type, long rows, long bytes, long blankLines, long commentLines,
+                           long failedLines, long filteredLines, long ioNanos, long parseNanos, long elapsedNanos,
+                           Map<String, Long> conversionFailures) {
+
+    public double rowsPerSecond() {
+        return perSecond(rows);
+    }
+
+    public double bytesPerSecond() {
+        return perSecond(bytes);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,22 @@
+package com.viko.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Class ValidationEvent: JFR event committed at the end of every validate or report call.
+ */
+@Name("com.viko.Validation")
+@Label("Validation")
+@Category({"DataEngine", "Validator"})
+@Description("Objects checked against their validation annotations")
+public final class ValidationEvent extends jdk.jfr.Event {
+
+    @Label("Objects")
+    public long objects;
+
+    @Label("Invalid")
+    public long invalid;
+}
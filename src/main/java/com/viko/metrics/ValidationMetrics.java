@@ -0,0 +1,14 @@
+package com.viko.metrics;
+
+import java.util.Map;
+
+/**
+ * Record ValidationMetrics: Summary of one validate or report call.
+ * @param objects Objects validated
+ * @param invalid Objects with at least one violation
+ * @param elapsedNanos Wall time of the call
+ * @param latencies Time of single checks per rule, keyed by the annotation name (NotNull, Regex, Range, ...)
+ */
+public record ValidationMetrics(long objects, long invalid, long elapsedNanos,
+                                Map<String, LatencyHistogram> latencies) {
+}
@@ -0,0 +1,369 @@
+package com.viko.parser;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Class AggregateResult: Groups and aggregates of an Aggregation, kept in primitive arrays.
+ * Keys live in an open addressing GroupIndex (String keys as dictionary codes), aggregates in one double[]
+ * and one long[] with a slot per group and aggregate, so the size depends on the number of groups,
+ * not on the number of rows.
+ * <p>
+ * Groups are numbered from 0 to size() - 1 in the order they were first seen. Sums and averages are
+ * kept as doubles. Partial results of the same Aggregation and class can be merged, e.g. one per file.
+ */
+public final class AggregateResult {
+
+    private final Aggregation.Layout layout;
+    private final int keyCount;
+    private final int kindCount;
+    /** Keys of the groups, one long per key column plus a bitmask of the blank key columns. */
+    private final GroupIndex index;
+    /** Dictionary per STRING key column, null for other columns. */
+    private final StringDictionary[] dictionaries;
+    private long[] counts = new long[16];
+    /** Sum, minimum or maximum per group and aggregate. */
+    private double[] values;
+    /** Non blank values per group and aggregate. */
+    private long[] seen;
+    private long rows;
+
+    //scratch space of the row being added, a row failing halfway leaves the groups as they were
+    private final long[] rowKey;
+    private final double[] rowValues;
+    private final boolean[] rowPresent;
+    private boolean blankKey;
+
+    AggregateResult(Aggregation.Layout layout) {
+        this.layout = layout;
+        this.keyCount = layout.keyColumns.length;
+        this.kindCount = layout.kinds.length;
+        this.index = new GroupIndex(keyCount + 1);
+        this.dictionaries = new StringDictionary[keyCount];
+        for (int k = 0; k < keyCount; k++) {
+            if (layout.keyTypes[k] == Aggregation.Layout.KeyType.STRING) dictionaries[k] = new StringDictionary();
+        }
+        this.values = new double[16 * kindCount];
+        this.seen = new long[16 * kindCount];
+        this.rowKey = new long[keyCount + 1];
+        this.rowValues = new double[kindCount];
+        this.rowPresent = new boolean[kindCount];
+    }
+
+    /**
+     * @return Number of groups.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return Rows folded into the groups.
+     */
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * @return Names of the group columns.
+     */
+    public List<String> keyNames() {
+        return List.of(layout.keyNames);
+    }
+
+    /**
+     * @return Names of the aggregates, e.g. "count" and "sum(amount)".
+     */
+    public List<String> names() {
+        return List.of(layout.names);
+    }
+
+    /**
+     * Func key: Value of a group column.
+     * @param group Group number
+     * @param key Position of the column in groupBy
+     * @return The value as the field type would hold it (boxed), null for a blank value.
+     */
+    public Object key(int group, int key) {
+        Objects.checkIndex(group, size());
+        if ((index.key(group, keyCount) & 1L << key) != 0) return null;
+        long value = index.key(group, key);
+        Class<?> type = layout.keyColumns[key].type;
+        return switch (layout.keyTypes[key]) {
+            case INTEGRAL -> {
+                if (type == int.class || type == Integer.class) yield (int) value;
+                if (type == short.class || type == Short.class) yield (short) value;
+                if (type == byte.class || type == Byte.class) yield (byte) value;
+                yield value;
+            }
+            case BOOLEAN -> value != 0;
+            case FLOATING -> {
+                double decoded = Double.longBitsToDouble(value);
+                yield type == float.class || type == Float.class ? (Object) (float) decoded : (Object) decoded;
+            }
+            case DATE -> LocalDate.ofEpochDay(value);
+            case ENUM -> type.getEnumConstants()[(int) value];
+            case STRING -> dictionaries[key].value((int) value);
+        };
+    }
+
+    /**
+     * @return Rows of a group.
+     */
+    public long count(int group) {
+        return counts[Objects.checkIndex(group, size())];
+    }
+
+    /**
+     * Func value: Aggregate of a group.
+     * @param group Group number
+     * @param aggregate Position of the aggregate
+     * @return count as a double, sum (0 without values), min, max and avg (NaN without values).
+     */
+    public double value(int group, int aggregate) {
+        Objects.checkIndex(group, size());
+        int slot = group * kindCount + Objects.checkIndex(aggregate, kindCount);
+        return switch (layout.kinds[aggregate]) {
+            case COUNT -> counts[group];
+            case SUM -> values[slot];
+            case MIN, MAX -> seen[slot] == 0 ? Double.NaN : values[slot];
+            case AVG -> seen[slot] == 0 ? Double.NaN : values[slot] / seen[slot];
+        };
+    }
+
+    /**
+     * Func value: Same as above, by aggregate name.
+     * @throws IllegalArgumentException When there is no aggregate with that name.
+     */
+    public double value(int group, String name) {
+        for (int i = 0; i < kindCount; i++) {
+            if (layout.names[i].equals(name)) return value(group, i);
+        }
+        throw new IllegalArgumentException("Unknown aggregate '" + name + "', known: " + names());
+    }
+
+    /**
+     * Func find: Group with the given key values, in groupBy order. Values are compared as the field type
+     * holds them, e.g. LocalDate for a date column, null for blank.
+     * @return The group number, -1 when no row had that key.
+     */
+    public int find(Object... keys) {
+        if (keys.length != keyCount) {
+            throw new IllegalArgumentException("Expected " + keyCount + " key values but got " + keys.length);
+        }
+        long[] key = new long[keyCount + 1];
+        for (int k = 0; k < keyCount; k++) {
+            Object value = keys[k];
+            if (value == null) {
+                key[keyCount] |= 1L << k;
+                continue;
+            }
+            if (value instanceof String text) {
+                //a String no row had can't be part of any group
+                int code = dictionaries[k] == null ? -1 : dictionaries[k].find(text, 0, text.length());
+                if (code < 0) return -1;
+                key[k] = code;
+                continue;
+            }
+            key[k] = switch (layout.keyTypes[k]) {
+                case INTEGRAL -> ((Number) value).longValue();
+                case BOOLEAN -> (Boolean) value ? 1 : 0;
+                case FLOATING -> Double.doubleToLongBits(((Number) value).doubleValue());
+                case DATE -> ((LocalDate) value).toEpochDay();
+                case ENUM -> ((Enum<?>) value).ordinal();
+                case STRING -> throw new ClassCastException("Expected a String for '" + layout.keyNames[k] + "'");
+            };
+        }
+        return index.find(key);
+    }
+
+    /**
+     * Func merge: Folds the groups of another result into this one.
+     * @param other Result of the same Aggregation over the same class, e.g. for another file
+     * @return this
+     * @throws IllegalArgumentException When the other result groups or aggregates differently.
+     */
+    public AggregateResult merge(AggregateResult other) {
+        if (!layout.sameAs(other.layout)) {
+            throw new IllegalArgumentException("Cannot merge " + other.keyNames() + " " + other.names()
+                    + " into " + keyNames() + " " + names());
+        }
+        for (int group = 0; group < other.size(); group++) {
+            long nulls = other.index.key(group, keyCount);
+            for (int k = 0; k < keyCount; k++) {
+                long value = other.index.key(group, k);
+                //dictionaries differ between results, Strings get the code they have here
+                if (dictionaries[k] != null && (nulls & 1L << k) == 0) {
+                    String text = other.dictionaries[k].value((int) value);
+                    value = dictionaries[k].code(text, 0, text.length());
+                }
+                rowKey[k] = value;
+            }
+            rowKey[keyCount] = nulls;
+            int target = group(rowKey);
+            counts[target] += other.counts[group];
+            int from = group * kindCount;
+            int to = target * kindCount;
+            for (int i = 0; i < kindCount; i++) {
+                seen[to + i] += other.seen[from + i];
+                values[to + i] = switch (layout.kinds[i]) {
+                    case MIN -> Math.min(values[to + i], other.values[from + i]);
+                    case MAX -> Math.max(values[to + i], other.values[from + i]);
+                    default -> values[to + i] + other.values[from + i];
+                };
+            }
+        }
+        rows += other.rows;
+        return this;
+    }
+
+    /**
+     * Func add: Folds one split line into its group. Keys and values are converted before any group is touched.
+     * @param text Line, named in errors
+     * @param from Start of the trimmed line
+     * @param to End of the trimmed line, exclusive
+     * @param tokens Fields of the line, split up to the last key or aggregated column
+     * @throws com.viko.exception.ParsingException For a missing column or a value that fails to convert.
+     */
+    void add(CharSequence text, int from, int to, RowTokens tokens) {
+        CharSequence line = tokens.text;
+        long nulls = 0;
+        for (int k = 0; k < keyCount; k++) {
+            ParsePlan.ColumnBinding column = layout.keyColumns[k];
+            int start = start(column, text, from, to, tokens);
+            if (start < 0) {
+                nulls |= 1L << k;
+                rowKey[k] = 0;
+                continue;
+            }
+            int end = tokens.trimmedEnd(column.index);
+            blankKey = false;
+            try {
+                rowKey[k] = keyOf(k, line, start, end);
+            } catch (RuntimeException e) {
+                throw ParserSupport.failedField(column.name, column.index, text, from, to,
+                        FieldConverter.invalid(column.type, line, start, end, e));
+            }
+            if (blankKey) nulls |= 1L << k;
+        }
+        rowKey[keyCount] = nulls;
+        for (int i = 0; i < kindCount; i++) {
+            ParsePlan.ColumnBinding column = layout.valueColumns[i];
+            if (column == null) continue;
+            int start = start(column, text, from, to, tokens);
+            rowPresent[i] = start >= 0;
+            if (start < 0) continue;
+            int end = tokens.trimmedEnd(column.index);
+            try {
+                rowValues[i] = layout.valueConverters[i].convertDouble(line, start, end);
+            } catch (RuntimeException e) {
+                throw ParserSupport.failedField(column.name, column.index, text, from, to,
+                        FieldConverter.invalid(column.type, line, start, end, e));
+            }
+        }
+
+        int group = group(rowKey);
+        counts[group]++;
+        int base = group * kindCount;
+        for (int i = 0; i < kindCount; i++) {
+            if (layout.valueColumns[i] == null || !rowPresent[i]) continue;
+            double value = rowValues[i];
+            seen[base + i]++;
+            switch (layout.kinds[i]) {
+                case MIN -> values[base + i] = Math.min(values[base + i], value);
+                case MAX -> values[base + i] = Math.max(values[base + i], value);
+                default -> values[base + i] += value;
+            }
+        }
+        rows++;
+    }
+
+    /**
+     * Func keyOf: Long form of a key value, see Aggregation.Layout.KeyType.
+     * Sets blankKey when a custom converter gave null.
+     */
+    private long keyOf(int k, CharSequence line, int start, int end) {
+        TypeConverter<?> converter = layout.keyConverters[k];
+        switch (layout.keyTypes[k]) {
+            case INTEGRAL:
+                return ((TypeConverter.OfLong) converter).convertLong(line, start, end);
+            case BOOLEAN:
+                return ((TypeConverter.OfBoolean) converter).convertBoolean(line, start, end) ? 1 : 0;
+            case FLOATING:
+                return Double.doubleToLongBits(((TypeConverter.OfDouble) converter).convertDouble(line, start, end));
+            case DATE: {
+                LocalDate date = (LocalDate) converter.convert(line, start, end);
+                if (date == null) return blank();
+                return date.toEpochDay();
+            }
+            case ENUM: {
+                Enum<?> value = (Enum<?>) converter.convert(line, start, end);
+                if (value == null) return blank();
+                return value.ordinal();
+            }
+            default: {
+                if (converter != null) {
+                    String value = (String) converter.convert(line, start, end);
+                    if (value == null) return blank();
+                    return dictionaries[k].code(value, 0, value.length());
+                }
+                //the dictionary compares chars, a mapped line with multi byte chars has to be decoded first
+                if (line instanceof ByteSlice && !isAscii(line, start, end)) {
+                    String value = line.subSequence(start, end).toString();
+                    return dictionaries[k].code(value, 0, value.length());
+                }
+                return dictionaries[k].code(line, start, end);
+            }
+        }
+    }
+
+    private long blank() {
+        blankKey = true;
+        return 0;
+    }
+
+    /**
+     * Func start: Start of the trimmed value, -1 for a blank one.
+     * @throws com.viko.exception.ParsingException For a missing column or a blank value of a primitive field.
+     */
+    private static int start(ParsePlan.ColumnBinding column, CharSequence text, int from, int to, RowTokens tokens) {
+        ParserSupport.checkColumn(tokens, column.index, column.name, text, from, to);
+        int start = tokens.trimmedStart(column.index);
+        if (!Converters.isBlank(tokens.text, start, tokens.trimmedEnd(column.index))) return start;
+        if (column.type.isPrimitive()) {
+            throw ParserSupport.failedField(column.name, column.index, text, from, to,
+                    new NullPointerException("Blank value for primitive field '" + column.name + "'"));
+        }
+        return -1;
+    }
+
+    /**
+     * Func group: Group of the key, a new one starts with empty aggregates.
+     */
+    private int group(long[] key) {
+        int before = index.size();
+        int group = index.add(key);
+        if (group < before) return group;
+        if (group == counts.length) {
+            counts = Arrays.copyOf(counts, group * 2);
+            values = Arrays.copyOf(values, group * 2 * kindCount);
+            seen = Arrays.copyOf(seen, group * 2 * kindCount);
+        }
+        int base = group * kindCount;
+        for (int i = 0; i < kindCount; i++) {
+            Aggregation.Kind kind = layout.kinds[i];
+            values[base + i] = kind == Aggregation.Kind.MIN ? Double.POSITIVE_INFINITY
+                    : kind == Aggregation.Kind.MAX ? Double.NEGATIVE_INFINITY : 0;
+        }
+        return group;
+    }
+
+    private static boolean isAscii(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+}
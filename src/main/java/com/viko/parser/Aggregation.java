@@ -0,0 +1,227 @@
+package com.viko.parser;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Class Aggregation: Group by spec for GenericParser.aggregate. Rows are folded into per group counts, sums,
+ * minimums, maximums and averages while the file is parsed, no record is created or kept.
+ * Instances are immutable, every call returns a new one:
+ * <pre>
+ * Aggregation.groupBy("timestamp").count().sum("amount").max("amount")
+ * </pre>
+ * Aggregates are named after what they compute, e.g. "count" and "sum(amount)".
+ * Key columns may be integral, boolean, floating point, LocalDate, enum or String fields,
+ * aggregated columns any numeric field. Blank values are skipped by sum, min, max and avg.
+ */
+public final class Aggregation {
+
+    public enum Kind {
+        /** Rows of the group. */
+        COUNT,
+        SUM,
+        MIN,
+        MAX,
+        AVG
+    }
+
+    private final String[] keys;
+    private final Kind[] kinds;
+    /** Aggregated column per kind, null for COUNT. */
+    private final String[] columns;
+
+    private Aggregation(String[] keys, Kind[] kinds, String[] columns) {
+        this.keys = keys;
+        this.kinds = kinds;
+        this.columns = columns;
+    }
+
+    /**
+     * Func groupBy: Starts a spec grouping rows by the given columns.
+     * @param columns Field names, none for a single group over the whole file
+     */
+    public static Aggregation groupBy(String... columns) {
+        if (columns.length > 63) {
+            throw new IllegalArgumentException("At most 63 group columns are supported");
+        }
+        return new Aggregation(columns.clone(), new Kind[0], new String[0]);
+    }
+
+    public Aggregation count() {
+        return with(Kind.COUNT, null);
+    }
+
+    public Aggregation sum(String column) {
+        return with(Kind.SUM, column);
+    }
+
+    public Aggregation min(String column) {
+        return with(Kind.MIN, column);
+    }
+
+    public Aggregation max(String column) {
+        return with(Kind.MAX, column);
+    }
+
+    public Aggregation avg(String column) {
+        return with(Kind.AVG, column);
+    }
+
+    private Aggregation with(Kind kind, String column) {
+        Kind[] moreKinds = Arrays.copyOf(kinds, kinds.length + 1);
+        String[] moreColumns = Arrays.copyOf(columns, columns.length + 1);
+        moreKinds[kinds.length] = kind;
+        moreColumns[columns.length] = column;
+        return new Aggregation(keys, moreKinds, moreColumns);
+    }
+
+    /**
+     * @return Names of the group columns.
+     */
+    public List<String> keys() {
+        return List.of(keys);
+    }
+
+    /**
+     * @return Names of the aggregates, in the order they were added.
+     */
+    public List<String> names() {
+        List<String> names = new ArrayList<>(kinds.length);
+        for (int i = 0; i < kinds.length; i++) names.add(name(kinds[i], columns[i]));
+        return names;
+    }
+
+    private static String name(Kind kind, String column) {
+        String kindName = kind.name().toLowerCase(Locale.ROOT);
+        return column == null ? kindName : kindName + "(" + column + ")";
+    }
+
+    /**
+     * Func bind: Resolves the columns against a plan.
+     * @param filters Bound ParseOptions, only its filters are used
+     * @throws IllegalArgumentException For unknown columns and column types that can't be grouped or aggregated.
+     */
+    Layout bind(ParsePlan<?> plan, ParsePlan.Projection filters) {
+        return new Layout(plan, this, filters);
+    }
+
+    /**
+     * Class Layout: Aggregation resolved against a plan, with the converters in the form the groups read them.
+     */
+    static final class Layout {
+
+        enum KeyType {
+            INTEGRAL,
+            BOOLEAN,
+            /** Double.doubleToLongBits of the value */
+            FLOATING,
+            /** LocalDate.toEpochDay */
+            DATE,
+            /** Enum.ordinal */
+            ENUM,
+            /** Code in the dictionary of the key column */
+            STRING
+        }
+
+        final ParsePlan<?> plan;
+        final ParsePlan.ColumnBinding[] keyColumns;
+        final KeyType[] keyTypes;
+        /** Long, boolean or double converters for those key types, null for Strings read straight from the line. */
+        final TypeConverter<?>[] keyConverters;
+        final Kind[] kinds;
+        /** Aggregated column per kind, null for COUNT. */
+        final ParsePlan.ColumnBinding[] valueColumns;
+        final TypeConverter.OfDouble[] valueConverters;
+        final String[] keyNames;
+        final String[] names;
+        /** Key and aggregated columns to split the line up to, with the filters of the ParseOptions. */
+        final ParsePlan.Projection projection;
+
+        private Layout(ParsePlan<?> plan, Aggregation aggregation, ParsePlan.Projection filters) {
+            this.plan = plan;
+            int keyCount = aggregation.keys.length;
+            this.keyColumns = new ParsePlan.ColumnBinding[keyCount];
+            this.keyTypes = new KeyType[keyCount];
+            this.keyConverters = new TypeConverter<?>[keyCount];
+            List<ParsePlan.ColumnBinding> needed = new ArrayList<>();
+            for (int k = 0; k < keyCount; k++) {
+                ParsePlan.ColumnBinding column = plan.column(aggregation.keys[k]);
+                keyColumns[k] = column;
+                keyTypes[k] = keyType(column.type);
+                keyConverters[k] = switch (keyTypes[k]) {
+                    case INTEGRAL -> longs(column.typeConverter);
+                    case BOOLEAN -> ParserSupport.asBoolean(column.typeConverter);
+                    case FLOATING -> doubles(column.typeConverter);
+                    case DATE, ENUM -> column.typeConverter;
+                    case STRING -> column.typeConverter == TypeConverters.find(String.class) ? null : column.typeConverter;
+                };
+                needed.add(column);
+            }
+            this.kinds = aggregation.kinds.clone();
+            this.valueColumns = new ParsePlan.ColumnBinding[kinds.length];
+            this.valueConverters = new TypeConverter.OfDouble[kinds.length];
+            for (int i = 0; i < kinds.length; i++) {
+                if (kinds[i] == Kind.COUNT) continue;
+                ParsePlan.ColumnBinding column = plan.column(aggregation.columns[i]);
+                if (!isNumeric(column.type)) {
+                    throw new IllegalArgumentException("Cannot " + kinds[i].name().toLowerCase(Locale.ROOT)
+                            + " non numeric field '" + column.name + "' of type " + column.type.getName());
+                }
+                valueColumns[i] = column;
+                valueConverters[i] = doubles(column.typeConverter);
+                needed.add(column);
+            }
+            this.keyNames = aggregation.keys.clone();
+            this.names = aggregation.names().toArray(new String[0]);
+            this.projection = new ParsePlan.Projection(plan, needed.toArray(new ParsePlan.ColumnBinding[0]),
+                    filters.filterColumns, filters.filters);
+        }
+
+        /**
+         * Func sameAs: Whether results of both layouts hold the same groups and aggregates and can be merged.
+         */
+        boolean sameAs(Layout other) {
+            return plan == other.plan && Arrays.equals(keyNames, other.keyNames) && Arrays.equals(names, other.names);
+        }
+
+        private static KeyType keyType(Class<?> type) {
+            if (type == int.class || type == Integer.class || type == long.class || type == Long.class
+                    || type == short.class || type == Short.class || type == byte.class || type == Byte.class) {
+                return KeyType.INTEGRAL;
+            }
+            if (type == boolean.class || type == Boolean.class) return KeyType.BOOLEAN;
+            if (type == double.class || type == Double.class || type == float.class || type == Float.class) {
+                return KeyType.FLOATING;
+            }
+            if (type == LocalDate.class) return KeyType.DATE;
+            if (type.isEnum()) return KeyType.ENUM;
+            if (type == String.class) return KeyType.STRING;
+            throw new IllegalArgumentException("Unsupported group column type: " + type.getName());
+        }
+
+        private static boolean isNumeric(Class<?> type) {
+            if (type.isPrimitive()) return type != boolean.class && type != char.class;
+            return Number.class.isAssignableFrom(type);
+        }
+
+        /**
+         * Func longs: Converter in its long form, int converters are widened without boxing.
+         */
+        private static TypeConverter.OfLong longs(TypeConverter<?> converter) {
+            if (converter instanceof TypeConverter.OfInt ints) return ints::convertInt;
+            return ParserSupport.asLong(converter);
+        }
+
+        /**
+         * Func doubles: Converter in its double form, int and long converters are widened without boxing.
+         */
+        private static TypeConverter.OfDouble doubles(TypeConverter<?> converter) {
+            if (converter instanceof TypeConverter.OfInt ints) return ints::convertInt;
+            if (converter instanceof TypeConverter.OfLong longs) return longs::convertLong;
+            return ParserSupport.asDouble(converter);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.viko.parser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class ByteSlice: CharSequence view over a range of raw file bytes, one char per byte.
+ * Lets the tokenizer and the converters work on the file bytes directly, without decoding a line first.
+ * Only text that ends up in a String field is decoded: ASCII goes through the cheap Latin-1 path,
+ * anything with a high byte is decoded as UTF-8.
+ */
+final class ByteSlice implements CharSequence {
+
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    /**
+     * Func wrap: Points this view at bytes[offset, offset + length). The instance is reused for every line.
+     * @return this
+     */
+    ByteSlice wrap(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    /**
+     * Returns the decoded text of the range as a String.
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return decode(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return decode(0, length);
+    }
+
+    private String decode(int start, int end) {
+        int from = offset + start;
+        int to = offset + end;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] < 0) return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+        return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,152 @@
+package com.viko.parser;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class ColumnarBatch: A block of parsed rows stored per column instead of one object per row.
+ * Numbers, booleans and dates are kept in primitive arrays (dates as epoch days), Strings as codes
+ * into a dictionary of the distinct values of the batch. Blank values are marked in a null bitmap.
+ * <p>
+ * Columns are named after the mapped fields. Every array has exactly size() entries.
+ */
+public final class ColumnarBatch {
+
+    public enum ColumnType {
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        /** int[] of LocalDate.toEpochDay */
+        DATE,
+        /** int[] of dictionary codes, -1 for null */
+        STRING
+    }
+
+    private final String[] names;
+    private final ColumnType[] types;
+    /** Primitive array per column, typed by types. */
+    private final Object[] data;
+    /** Bit per row, set when the value is null. */
+    private final long[][] nulls;
+    /** Distinct values per STRING column, null for other columns. */
+    private final String[][] dictionaries;
+    private final int size;
+
+    ColumnarBatch(String[] names, ColumnType[] types, Object[] data, long[][] nulls, String[][] dictionaries, int size) {
+        this.names = names;
+        this.types = types;
+        this.data = data;
+        this.nulls = nulls;
+        this.dictionaries = dictionaries;
+        this.size = size;
+    }
+
+    /**
+     * @return Number of rows in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Column names in field declaration order.
+     */
+    public List<String> columnNames() {
+        return List.of(names);
+    }
+
+    /**
+     * Func columnType
+     * @param name Field name
+     * @return Storage type of the column
+     */
+    public ColumnType columnType(String name) {
+        return types[indexOf(name)];
+    }
+
+    public int[] ints(String name) {
+        return (int[]) data[indexOf(name, ColumnType.INT)];
+    }
+
+    public long[] longs(String name) {
+        return (long[]) data[indexOf(name, ColumnType.LONG)];
+    }
+
+    public double[] doubles(String name) {
+        return (double[]) data[indexOf(name, ColumnType.DOUBLE)];
+    }
+
+    public boolean[] booleans(String name) {
+        return (boolean[]) data[indexOf(name, ColumnType.BOOLEAN)];
+    }
+
+    /**
+     * Func epochDays: Values of a LocalDate column as LocalDate.toEpochDay.
+     */
+    public int[] epochDays(String name) {
+        return (int[]) data[indexOf(name, ColumnType.DATE)];
+    }
+
+    /**
+     * Func codes: Dictionary codes of a String column, -1 for null values.
+     */
+    public int[] codes(String name) {
+        return (int[]) data[indexOf(name, ColumnType.STRING)];
+    }
+
+    /**
+     * Func dictionary: Distinct values of a String column, indexed by code.
+     */
+    public String[] dictionary(String name) {
+        return dictionaries[indexOf(name, ColumnType.STRING)];
+    }
+
+    /**
+     * Func isNull
+     * @param name Field name
+     * @param row Row in the batch
+     * @return true when the value was blank in the file.
+     */
+    public boolean isNull(String name, int row) {
+        return isNull(indexOf(name), row);
+    }
+
+    /**
+     * Func string: Decoded value of a String column.
+     */
+    public String string(String name, int row) {
+        int column = indexOf(name, ColumnType.STRING);
+        int code = ((int[]) data[column])[row];
+        return code < 0 ? null : dictionaries[column][code];
+    }
+
+    /**
+     * Func date: Decoded value of a LocalDate column.
+     */
+    public LocalDate date(String name, int row) {
+        int column = indexOf(name, ColumnType.DATE);
+        return isNull(column, row) ? null : LocalDate.ofEpochDay(((int[]) data[column])[row]);
+    }
+
+    private boolean isNull(int column, int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        return (nulls[column][row >>> 6] & (1L << row)) != 0;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        throw new IllegalArgumentException("No column '" + name + "', columns are " + Arrays.toString(names));
+    }
+
+    private int indexOf(String name, ColumnType type) {
+        int column = indexOf(name);
+        if (types[column] != type) {
+            throw new IllegalArgumentException("Column '" + name + "' is " + types[column] + ", not " + type);
+        }
+        return column;
+    }
+}
@@ -0,0 +1,253 @@
+package com.viko.parser;
+
+import com.viko.exception.DuplicateKeyException;
+import com.viko.exception.ParsingException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Class ColumnarReader: Line loop that writes converted values straight into the column arrays of a batch.
+ * No object is created per row and values never get boxed.
+ * @param <T> Type of the mapped class.
+ */
+final class ColumnarReader<T> implements Closeable {
+
+    private final BufferedReader reader;
+    private final GenericParser parser;
+    private final ParsePlan<T> plan;
+    private final GenericParser.ParsingMode mode;
+    private final int batchSize;
+    private final String delimiter;
+    private final String[] commentPrefixes;
+    private final RowTokens tokens;
+    private final RecordLines lines;
+
+    private final String[] names;
+    private final ColumnarBatch.ColumnType[] types;
+    /** Primitive fields can not hold a blank value, same as when parsing into objects. */
+    private final boolean[] nullable;
+    /** Field converters, adapted to the primitive form of the column type. */
+    private final TypeConverter<?>[] converters;
+
+    private Object[] data;
+    private long[][] nulls;
+    private StringDictionary[] dictionaries;
+    private int size;
+    private int lineNumber = 0;
+    private final ParseRecorder metrics;
+    /** Seen keys of this run, null when duplicates are not looked for. */
+    private final KeyIndex keyIndex;
+    private final KeyIndex.RowKeys keys;
+
+    ColumnarReader(BufferedReader reader, GenericParser parser, ParsePlan<T> plan, GenericParser.ParsingMode mode,
+                   int batchSize, Object source) {
+        this.reader = reader;
+        this.parser = parser;
+        this.plan = plan;
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.delimiter = plan.fileSource.delimiter();
+        this.commentPrefixes = plan.fileSource.commentPrefixes();
+        this.tokens = new RowTokens(plan.fileSource);
+        this.lines = new RecordLines(reader, parser, plan.fileSource, tokens);
+
+        int count = plan.columns.length;
+        this.names = new String[count];
+        this.types = new ColumnarBatch.ColumnType[count];
+        this.nullable = new boolean[count];
+        this.converters = new TypeConverter<?>[count];
+        for (int i = 0; i < count; i++) {
+            ParsePlan.ColumnBinding column = plan.columns[i];
+            names[i] = column.name;
+            types[i] = columnType(column.type);
+            nullable[i] = !column.type.isPrimitive();
+            converters[i] = primitive(types[i], column.typeConverter);
+        }
+        this.metrics = new ParseRecorder(parser, plan, source);
+        this.keyIndex = parser.keyIndex(plan, false);
+        this.keys = keyIndex == null ? null : keyIndex.rowKeys();
+    }
+
+    /**
+     * Func primitive: Adapts a field converter to the primitive form of its column, e.g. a custom converter
+     * on an int field that returns Integer. Built-in converters already have that form.
+     */
+    private static TypeConverter<?> primitive(ColumnarBatch.ColumnType type, TypeConverter<?> converter) {
+        return switch (type) {
+            case INT -> ParserSupport.asInt(converter);
+            case LONG -> ParserSupport.asLong(converter);
+            case DOUBLE -> ParserSupport.asDouble(converter);
+            case BOOLEAN -> ParserSupport.asBoolean(converter);
+            //Strings are looked up in the dictionary straight from the line unless a custom converter is set
+            case STRING -> converter == TypeConverters.find(String.class) ? null : converter;
+            case DATE -> converter;
+        };
+    }
+
+    /**
+     * Func columnType: Storage type for a field type.
+     * @throws IllegalArgumentException For field types that have no columnar form.
+     */
+    static ColumnarBatch.ColumnType columnType(Class<?> type) {
+        if (type == int.class || type == Integer.class) return ColumnarBatch.ColumnType.INT;
+        if (type == long.class || type == Long.class) return ColumnarBatch.ColumnType.LONG;
+        if (type == double.class || type == Double.class) return ColumnarBatch.ColumnType.DOUBLE;
+        if (type == boolean.class || type == Boolean.class) return ColumnarBatch.ColumnType.BOOLEAN;
+        if (type == LocalDate.class) return ColumnarBatch.ColumnType.DATE;
+        if (type == String.class) return ColumnarBatch.ColumnType.STRING;
+        throw new IllegalArgumentException("Unsupported field type for columnar parsing: " + type.getName());
+    }
+
+    /**
+     * Func next: Fills the next batch.
+     * @return Batch of up to batchSize rows, or null once the end of the file is reached.
+     * @throws IOException When reading from the file fails.
+     * @throws ParsingException In STRICT mode, for the first line that fails to parse.
+     */
+    ColumnarBatch next() throws IOException {
+        if (delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter must not be empty");
+        }
+        //a batch that came back empty at the end of the file is kept for the next call
+        if (data == null) allocate();
+        String line;
+        long clock = metrics.now();
+        while (size < batchSize && (line = lines.next()) != null) {
+            clock = metrics.io(clock);
+            lineNumber = lines.recordLine();
+            metrics.bytes += line.length() + 1;
+            //skip \n empty lines
+            if (line.isBlank()) {
+                metrics.blankLines++;
+                continue;
+            }
+            //skip comments
+            if (parser.isComment(line, commentPrefixes)) {
+                metrics.commentLines++;
+                continue;
+            }
+            try {
+                int from = RowTokens.trimStart(line, 0, line.length());
+                int to = RowTokens.trimEnd(line, from, line.length());
+                tokens.split(line, from, to, delimiter);
+                for (int i = 0; i < types.length; i++) {
+                    write(i, line, from, to);
+                }
+                //a rejected duplicate throws, a flagged one is only reported
+                DuplicateKeyException duplicate = keys == null ? null : keys.check(line, from, to, tokens);
+                if (duplicate != null) parser.errors().report(lineNumber, line, duplicate);
+                size++;
+                metrics.rows++;
+            } catch (ParsingException e) {
+                metrics.failed(e);
+                //the row is dropped, bits set for it would leak into the next row at the same position
+                for (long[] bits : nulls) bits[size >>> 6] &= ~(1L << size);
+                //record where error occurred
+                parser.errors().report(lineNumber, line, e);
+                if (mode == GenericParser.ParsingMode.STRICT) {
+                    metrics.finish();
+                    throw new ParsingException("Parsing failed at line " + lineNumber + ": " + line, e);
+                }
+            }
+            clock = metrics.parse(clock);
+        }
+        metrics.io(clock);
+        if (size == 0) {
+            metrics.finish();
+            return null;
+        }
+        return build();
+    }
+
+    private void write(int i, String line, int from, int to) {
+        ParsePlan.ColumnBinding column = plan.columns[i];
+        parser.checkColumn(column, line, from, to, tokens);
+        int start = tokens.trimmedStart(column.index);
+        int end = tokens.trimmedEnd(column.index);
+        //the values may sit in an unescaped copy of the line, messages show the line itself
+        CharSequence text = tokens.text;
+        if (Converters.isBlank(text, start, end)) {
+            if (!nullable[i]) {
+                throw parser.failedField(column, line, from, to,
+                        new ParsingException("Blank value for primitive type " + column.type.getName()));
+            }
+            nulls[i][size >>> 6] |= 1L << size;
+            if (types[i] == ColumnarBatch.ColumnType.STRING) ((int[]) data[i])[size] = -1;
+            return;
+        }
+        try {
+            switch (types[i]) {
+                case INT -> ((int[]) data[i])[size] = ((TypeConverter.OfInt) converters[i]).convertInt(text, start, end);
+                case LONG -> ((long[]) data[i])[size] = ((TypeConverter.OfLong) converters[i]).convertLong(text, start, end);
+                case DOUBLE -> ((double[]) data[i])[size] =
+                        ((TypeConverter.OfDouble) converters[i]).convertDouble(text, start, end);
+                case BOOLEAN -> ((boolean[]) data[i])[size] =
+                        ((TypeConverter.OfBoolean) converters[i]).convertBoolean(text, start, end);
+                case DATE -> ((int[]) data[i])[size] =
+                        Math.toIntExact(((LocalDate) converters[i].convert(text, start, end)).toEpochDay());
+                case STRING -> {
+                    int code = code(i, text, start, end);
+                    ((int[]) data[i])[size] = code;
+                    if (code < 0) nulls[i][size >>> 6] |= 1L << size;
+                }
+            }
+        } catch (RuntimeException e) {
+            throw parser.failedField(column, line, from, to, FieldConverter.invalid(column.type, text, start, end, e));
+        }
+    }
+
+    private int code(int i, CharSequence text, int start, int end) {
+        if (converters[i] == null) return dictionaries[i].code(text, start, end);
+        String value = (String) converters[i].convert(text, start, end);
+        return value == null ? -1 : dictionaries[i].code(value, 0, value.length());
+    }
+
+    private void allocate() {
+        data = new Object[types.length];
+        nulls = new long[types.length][(batchSize + 63) >>> 6];
+        dictionaries = new StringDictionary[types.length];
+        for (int i = 0; i < types.length; i++) {
+            data[i] = switch (types[i]) {
+                case INT, DATE -> new int[batchSize];
+                case LONG -> new long[batchSize];
+                case DOUBLE -> new double[batchSize];
+                case BOOLEAN -> new boolean[batchSize];
+                case STRING -> {
+                    dictionaries[i] = new StringDictionary();
+                    yield new int[batchSize];
+                }
+            };
+        }
+        size = 0;
+    }
+
+    private ColumnarBatch build() {
+        String[][] values = new String[types.length][];
+        for (int i = 0; i < types.length; i++) {
+            if (size < batchSize) data[i] = trim(data[i]);
+            if (dictionaries[i] != null) values[i] = dictionaries[i].values();
+        }
+        ColumnarBatch batch = new ColumnarBatch(names, types, data, nulls, values, size);
+        data = null;
+        return batch;
+    }
+
+    private Object trim(Object array) {
+        if (array instanceof int[] ints) return Arrays.copyOf(ints, size);
+        if (array instanceof long[] longs) return Arrays.copyOf(longs, size);
+        if (array instanceof double[] doubles) return Arrays.copyOf(doubles, size);
+        return Arrays.copyOf((boolean[]) array, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        metrics.finish();
+        parser.errors().flush();
+        if (keyIndex != null) keyIndex.close();
+        reader.close();
+    }
+}
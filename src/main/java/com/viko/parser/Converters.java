@@ -0,0 +1,203 @@
+package com.viko.parser;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Class Converters: Value parsers that read straight from a range of a CharSequence.
+ * Used by the built-in TypeConverters so that neither a substring nor a trimmed copy is needed per value.
+ */
+final class Converters {
+
+    /** Exact powers of ten, used by the fixed-decimal fast path of parseDouble. */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private Converters() {}
+
+    /**
+     * Func isBlank: Range version of String.isBlank.
+     */
+    static boolean isBlank(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Func parseDouble: Parses plain decimals like "20.00" or "-3.5" directly from the chars.
+     * With at most 15 significant digits and 22 decimals both the digits and the power of ten are exact doubles,
+     * so a single division gives the same correctly rounded result as Double.parseDouble.
+     * Anything else (exponents, long values, NaN...) goes through Double.parseDouble.
+     */
+    static double parseDouble(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significant = 0;
+        int decimals = -1;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa != 0 || c != '0') significant++;
+                mantissa = mantissa * 10 + (c - '0');
+                if (decimals >= 0) decimals++;
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == end && digits > 0 && significant <= 15 && decimals <= 22) {
+            double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Func parseBoolean: Same rule as Boolean.parseBoolean, "true" in any case, anything else is false.
+     */
+    static boolean parseBoolean(CharSequence text, int start, int end) {
+        if (end - start != 4) return false;
+        return (text.charAt(start) | 0x20) == 't' && (text.charAt(start + 1) | 0x20) == 'r'
+                && (text.charAt(start + 2) | 0x20) == 'u' && (text.charAt(start + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * Func parseLocalDate: Reads the common yyyy-MM-dd form directly, other ISO forms go through LocalDate.parse.
+     */
+    static LocalDate parseLocalDate(CharSequence text, int start, int end) {
+        if (end - start == 10 && text.charAt(start + 4) == '-' && text.charAt(start + 7) == '-') {
+            int year = digits(text, start, 4);
+            int month = digits(text, start + 5, 2);
+            int day = digits(text, start + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) return LocalDate.of(year, month, day);
+        }
+        return LocalDate.parse(text.subSequence(start, end));
+    }
+
+    /**
+     * Func parseBigDecimal: Plain decimals with up to 18 digits are built from an unscaled long,
+     * giving the same value and scale as new BigDecimal(String). Exponents and longer values go through the String.
+     */
+    static BigDecimal parseBigDecimal(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                unscaled = unscaled * 10 + (c - '0');
+                if (scale >= 0) scale++;
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == end && digits > 0 && digits <= 18) {
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+        return new BigDecimal(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Func parseInstant: Reads the common UTC form yyyy-MM-ddTHH:mm:ss[.fraction]Z directly,
+     * offsets and other ISO forms go through Instant.parse.
+     */
+    static Instant parseInstant(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length >= 20 && text.charAt(end - 1) == 'Z' && text.charAt(start + 4) == '-'
+                && text.charAt(start + 7) == '-' && text.charAt(start + 10) == 'T'
+                && text.charAt(start + 13) == ':' && text.charAt(start + 16) == ':') {
+            int year = digits(text, start, 4);
+            int month = digits(text, start + 5, 2);
+            int day = digits(text, start + 8, 2);
+            int hour = digits(text, start + 11, 2);
+            int minute = digits(text, start + 14, 2);
+            int second = digits(text, start + 17, 2);
+            int nanos = fraction(text, start + 19, end - 1);
+            //second 60 (leap second) is left to Instant.parse
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && hour < 24 && minute >= 0 && minute < 60
+                    && second >= 0 && second < 60 && nanos >= 0) {
+                long epochDay = LocalDate.of(year, month, day).toEpochDay();
+                return Instant.ofEpochSecond(epochDay * 86_400 + hour * 3_600L + minute * 60L + second, nanos);
+            }
+        }
+        return Instant.parse(text.subSequence(start, end));
+    }
+
+    /**
+     * Func fraction: Nanoseconds of an optional ".digits" part, -1 when the range is not one.
+     */
+    private static int fraction(CharSequence text, int from, int to) {
+        if (from == to) return 0;
+        int count = to - from - 1;
+        if (text.charAt(from) != '.' || count < 1 || count > 9) return -1;
+        int value = digits(text, from + 1, count);
+        if (value < 0) return -1;
+        for (int i = count; i < 9; i++) value *= 10;
+        return value;
+    }
+
+    /**
+     * Func parseUUID: Reads the canonical 36 char form into two longs, other forms go through UUID.fromString.
+     */
+    static UUID parseUUID(CharSequence text, int start, int end) {
+        if (end - start == 36 && text.charAt(start + 8) == '-' && text.charAt(start + 13) == '-'
+                && text.charAt(start + 18) == '-' && text.charAt(start + 23) == '-') {
+            long a = hex(text, start, 8);
+            long b = hex(text, start + 9, 4);
+            long c = hex(text, start + 14, 4);
+            long d = hex(text, start + 19, 4);
+            long e = hex(text, start + 24, 12);
+            if ((a | b | c | d | e) >= 0) {
+                return new UUID(a << 32 | b << 16 | c, d << 48 | e);
+            }
+        }
+        return UUID.fromString(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Func hex: Value of count hex digits, -1 when one of them is not a hex digit.
+     */
+    private static long hex(CharSequence text, int from, int count) {
+        long value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            //Character.digit also accepts non ASCII digits
+            if (digit < 0 || text.charAt(i) > 'f') return -1;
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,58 @@
+package com.viko.parser;
+
+import java.util.Objects;
+
+/**
+ * Class DuplicateKeys: How GenericParser treats a row whose @Key was already seen in the same run.
+ * Seen keys are kept as two longs each in an open addressing table, see KeyIndex, so memory is about
+ * 32 bytes per distinct key whatever the key looks like, on or off the heap. Parallel runs also keep the
+ * position of the first row of every key, about 48 bytes per key.
+ * <pre>
+ * parser.setDuplicateKeys(new DuplicateKeys(DuplicateKeys.Action.REJECT, true, 300_000_000L));
+ * </pre>
+ */
+public final class DuplicateKeys {
+
+    public enum Action {
+        /** The row fails like a bad value: logged and skipped in LENIENT mode, a ParsingException in STRICT mode. */
+        REJECT,
+        /** The row is kept and the duplicate is reported to the ErrorCollector, in either mode. */
+        FLAG
+    }
+
+    private final Action action;
+    private final boolean offHeap;
+    private final long expectedKeys;
+
+    /**
+     * @param action What happens to a duplicate row
+     */
+    public DuplicateKeys(Action action) {
+        this(action, false, 0);
+    }
+
+    /**
+     * @param action What happens to a duplicate row
+     * @param offHeap Keeps the seen keys in direct buffers instead of long[] pages, the memory is given back
+     *                once the index of the run is garbage collected
+     * @param expectedKeys Distinct keys the table is sized for up front, 0 to start small and grow
+     */
+    public DuplicateKeys(Action action, boolean offHeap, long expectedKeys) {
+        if (expectedKeys < 0) throw new IllegalArgumentException("expectedKeys must not be negative");
+        this.action = Objects.requireNonNull(action);
+        this.offHeap = offHeap;
+        this.expectedKeys = expectedKeys;
+    }
+
+    public Action action() {
+        return action;
+    }
+
+    public boolean offHeap() {
+        return offHeap;
+    }
+
+    public long expectedKeys() {
+        return expectedKeys;
+    }
+}
@@ -0,0 +1,546 @@
+package com.viko.parser;
+
+import com.viko.exception.ParsingException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Class ExternalSorter: Sort of a file that does not have to fit in memory.
+ * Parsed rows are encoded with RecordCodec into a buffer; once the buffer reaches its budget the rows are sorted
+ * by their keys and written out as a run file. After the last row every run (the last ones may still be in memory)
+ * is merged k ways into a lazy stream. With more than MAX_FAN_IN runs the oldest are merged into bigger runs first.
+ * Runs are sorted stably, so a sequential sort keeps file order for equal keys.
+ * @param <T> Type of the mapped class.
+ */
+final class ExternalSorter<T> implements Closeable {
+
+    /** Runs merged at once, every open run holds a read buffer. */
+    static final int MAX_FAN_IN = 64;
+    private static final int READ_BUFFER = 64 << 10;
+
+    private final GenericParser parser;
+    private final ParsePlan<T> plan;
+    private final GenericParser.ParsingMode mode;
+    private final Sort.Layout layout;
+    private final RecordCodec<T> codec;
+    private final List<Run> runs = Collections.synchronizedList(new ArrayList<>());
+    private Path directory;
+
+    /**
+     * @throws IllegalArgumentException For unknown sort columns and field types that can't be sorted or encoded.
+     */
+    ExternalSorter(GenericParser parser, ParsePlan<T> plan, GenericParser.ParsingMode mode, Sort sort) {
+        this.parser = parser;
+        this.plan = plan;
+        this.mode = mode;
+        this.layout = sort.bind(plan);
+        this.codec = new RecordCodec<>(plan);
+    }
+
+    /**
+     * Func sort: Reads the whole file into sorted runs on the calling thread and returns the merge of them.
+     * @return Records in sort order, the stream deletes the run files when closed.
+     * @throws IOException When the file can't be read or a run can't be written.
+     * @throws ParsingException In STRICT mode, for the first line that fails to parse.
+     */
+    Stream<T> sort(Path path) throws IOException {
+        try {
+            RunBuilder builder = new RunBuilder(layout.sort.memoryBytes());
+            try (RecordReader<T> reader =
+                         new RecordReader<>(Files.newBufferedReader(path), parser, plan, plan.all, mode, path)) {
+                T record;
+                while ((record = reader.read()) != null) builder.add(record);
+            }
+            builder.finish();
+            return merge();
+        } catch (UncheckedIOException e) {
+            close();
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Func sort: Reads the file in chunks on the pool, every pool thread builds and spills runs of its own.
+     * The budget is split between the threads. Equal keys come out in no particular order.
+     */
+    Stream<T> sort(Path path, ForkJoinPool pool) throws IOException {
+        List<RunBuilder> builders = Collections.synchronizedList(new ArrayList<>());
+        long budget = Math.max(1, layout.sort.memoryBytes() / pool.getParallelism());
+        ThreadLocal<RunBuilder> local = ThreadLocal.withInitial(() -> {
+            RunBuilder builder = new RunBuilder(budget);
+            builders.add(builder);
+            return builder;
+        });
+        try {
+            new MappedFileParser<>(parser, plan, plan.all, mode).forEach(path, pool, 0,
+                    record -> local.get().add(record));
+            for (RunBuilder builder : builders) builder.finish();
+            return merge();
+        } catch (UncheckedIOException e) {
+            close();
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        } finally {
+            //the builders are cleared by finish, a pool thread keeping one only keeps its empty arrays
+            for (RunBuilder builder : builders) builder.release();
+        }
+    }
+
+    /**
+     * Func merge: Cuts the runs down to MAX_FAN_IN, then streams the merge of the rest.
+     */
+    private Stream<T> merge() throws IOException {
+        //one level at a time, neighbouring runs are merged so earlier rows stay in earlier runs
+        while (runs.size() > MAX_FAN_IN) {
+            for (int at = 0; at + 1 < runs.size(); at++) {
+                int end = Math.min(at + MAX_FAN_IN, runs.size());
+                List<Run> group = new ArrayList<>(runs.subList(at, end));
+                Run merged = mergeToFile(group);
+                runs.subList(at, end).clear();
+                runs.add(at, merged);
+            }
+        }
+        Merge merge = new Merge(new ArrayList<>(runs));
+        long rows = 0;
+        for (Run run : runs) rows += run.rows();
+        Spliterator<T> records = new Spliterators.AbstractSpliterator<>(rows,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                T record;
+                try {
+                    record = merge.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (record == null) return false;
+                action.accept(record);
+                return true;
+            }
+        };
+        return StreamSupport.stream(records, false).onClose(() -> {
+            merge.close();
+            close();
+        });
+    }
+
+    /**
+     * Func mergeToFile: Merges the runs into a new run file, their own files are deleted as they are used up.
+     */
+    private Run mergeToFile(List<Run> group) throws IOException {
+        Path file = newRunFile();
+        RecordCodec.Bytes buffer = new RecordCodec.Bytes(256);
+        long rows = 0;
+        try (Merge merge = new Merge(group);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file),
+                     READ_BUFFER))) {
+            T record;
+            while ((record = merge.next()) != null) {
+                buffer.clear();
+                codec.encode(record, buffer);
+                out.writeInt(buffer.size);
+                out.write(buffer.bytes, 0, buffer.size);
+                rows++;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new FileRun(file, rows);
+    }
+
+    private Path newRunFile() throws IOException {
+        synchronized (runs) {
+            if (directory == null) {
+                Path parent = layout.sort.tempDirectory();
+                directory = parent == null ? Files.createTempDirectory("sort")
+                        : Files.createTempDirectory(Files.createDirectories(parent), "sort");
+            }
+        }
+        return Files.createTempFile(directory, "run", ".bin");
+    }
+
+    /**
+     * Func close: Deletes the run files that are left and the spill directory.
+     */
+    @Override
+    public void close() {
+        List<Run> left;
+        synchronized (runs) {
+            left = new ArrayList<>(runs);
+            runs.clear();
+        }
+        for (Run run : left) run.delete();
+        if (directory != null) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                //left for the OS to clean up, the runs in it are gone
+            }
+        }
+    }
+
+    /**
+     * Func compare: Compares the keys of row a with those of row b.
+     * @param nullsA Null bitmask of row a, see Sort.Layout.readKeys
+     */
+    private int compare(long[] longsA, Object[] objectsA, long nullsA, long[] longsB, Object[] objectsB, long nullsB) {
+        for (int k = 0; k < longsA.length; k++) {
+            int c = layout.compare(k, longsA[k], objectsA[k], (nullsA >>> k & 1) != 0,
+                    longsB[k], objectsB[k], (nullsB >>> k & 1) != 0);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    /**
+     * Interface Run: Sorted rows, in memory or in a file.
+     */
+    private interface Run {
+        long rows();
+
+        /**
+         * Func open: Reader of the rows of the run in order.
+         */
+        RunReader open() throws IOException;
+
+        void delete();
+    }
+
+    private interface RunReader extends Closeable {
+        /**
+         * Func next: Positions the reader on the next encoded row.
+         * @return false once the run is done.
+         */
+        boolean next(RecordCodec.Bytes.Reader into) throws IOException;
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Class MemoryRun: The rows a builder had left at the end, sorted but never written out.
+     */
+    private record MemoryRun(byte[] bytes, int[] offsets, int[] order) implements Run {
+        @Override
+        public long rows() {
+            return order.length;
+        }
+
+        @Override
+        public RunReader open() {
+            return new RunReader() {
+                private int next;
+
+                @Override
+                public boolean next(RecordCodec.Bytes.Reader into) {
+                    if (next == order.length) return false;
+                    into.reset(bytes, offsets[order[next++]]);
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void delete() {
+        }
+    }
+
+    /**
+     * Class FileRun: Rows spilled to a file, each as an int length and its encoded bytes.
+     */
+    private record FileRun(Path file, long rows) implements Run {
+        @Override
+        public RunReader open() throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), READ_BUFFER));
+            return new RunReader() {
+                private byte[] row = new byte[256];
+
+                @Override
+                public boolean next(RecordCodec.Bytes.Reader into) throws IOException {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        return false;
+                    }
+                    if (length > row.length) row = new byte[Math.max(length, row.length * 2)];
+                    in.readFully(row, 0, length);
+                    into.reset(row, 0);
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        //read only, nothing is lost
+                    }
+                    //consumed or abandoned, either way the file is not read again
+                    delete();
+                }
+            };
+        }
+
+        @Override
+        public void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                //left for the OS to clean up with the temp directory
+            }
+        }
+    }
+
+    /**
+     * Class RunBuilder: Encodes rows into one buffer with their sort keys in columns, sorts and spills
+     * them once the budget is used.
+     */
+    private final class RunBuilder {
+        private final long budget;
+        private RecordCodec.Bytes bytes = new RecordCodec.Bytes(64 << 10);
+        private int[] offsets = new int[1024];
+        private long[][] longs = new long[layout.keyCount()][1024];
+        private Object[][] objects = new Object[layout.keyCount()][1024];
+        private long[] nulls = new long[1024];
+        private final long[] rowLongs = new long[layout.keyCount()];
+        private final Object[] rowObjects = new Object[layout.keyCount()];
+        /** Estimated heap used by Comparable keys, Strings count with their chars. */
+        private long objectBytes;
+        private int rows;
+
+        RunBuilder(long budget) {
+            this.budget = budget;
+        }
+
+        void add(T record) {
+            if (rows == offsets.length) grow();
+            nulls[rows] = layout.readKeys(record, rowLongs, rowObjects);
+            for (int k = 0; k < rowLongs.length; k++) {
+                if (layout.longKeys[k]) {
+                    longs[k][rows] = rowLongs[k];
+                } else if ((nulls[rows] >>> k & 1) == 0) {
+                    Object key = rowObjects[k];
+                    objects[k][rows] = key;
+                    objectBytes += key instanceof String s ? 40 + 2L * s.length() : 32;
+                }
+            }
+            offsets[rows] = bytes.size;
+            codec.encode(record, bytes);
+            rows++;
+            //offsets, null masks and long keys per row on top of the encoded rows
+            long used = bytes.size + objectBytes + (long) rows * (12 + 8 * rowLongs.length);
+            if (used >= budget) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        /**
+         * Func spill: Writes the rows in sort order to a new run file and starts over.
+         */
+        private void spill() throws IOException {
+            int[] order = order();
+            Path file = newRunFile();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file),
+                    READ_BUFFER))) {
+                for (int row : order) {
+                    int end = row + 1 < rows ? offsets[row + 1] : bytes.size;
+                    out.writeInt(end - offsets[row]);
+                    out.write(bytes.bytes, offsets[row], end - offsets[row]);
+                }
+            }
+            runs.add(new FileRun(file, rows));
+            reset();
+        }
+
+        /**
+         * Func finish: Keeps the rows that are left as an in-memory run.
+         */
+        void finish() {
+            if (rows == 0) return;
+            int[] order = order();
+            runs.add(new MemoryRun(bytes.bytes, Arrays.copyOf(offsets, rows), order));
+            bytes = new RecordCodec.Bytes(16);
+            reset();
+        }
+
+        void release() {
+            bytes = new RecordCodec.Bytes(16);
+            offsets = new int[0];
+            longs = new long[rowLongs.length][0];
+            objects = new Object[rowLongs.length][0];
+            nulls = new long[0];
+            rows = 0;
+        }
+
+        private void reset() {
+            bytes.clear();
+            for (Object[] keys : objects) Arrays.fill(keys, 0, rows, null);
+            objectBytes = 0;
+            rows = 0;
+        }
+
+        /**
+         * Func order: Row numbers in sort order, equal rows keep the order they were added in.
+         */
+        private int[] order() {
+            int[] order = new int[rows];
+            for (int i = 0; i < rows; i++) order[i] = i;
+            int[] scratch = new int[rows];
+            mergeSort(order, scratch, 0, rows);
+            return order;
+        }
+
+        private void mergeSort(int[] order, int[] scratch, int from, int to) {
+            if (to - from <= 16) {
+                //insertion sort, stable
+                for (int i = from + 1; i < to; i++) {
+                    int row = order[i];
+                    int j = i - 1;
+                    while (j >= from && compareRows(order[j], row) > 0) {
+                        order[j + 1] = order[j];
+                        j--;
+                    }
+                    order[j + 1] = row;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(order, scratch, from, middle);
+            mergeSort(order, scratch, middle, to);
+            //already in order, e.g. a file that is mostly sorted
+            if (compareRows(order[middle - 1], order[middle]) <= 0) return;
+            System.arraycopy(order, from, scratch, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || left < middle && compareRows(scratch[left], scratch[right]) <= 0) {
+                    order[i] = scratch[left++];
+                } else {
+                    order[i] = scratch[right++];
+                }
+            }
+        }
+
+        private int compareRows(int a, int b) {
+            for (int k = 0; k < rowLongs.length; k++) {
+                int c = layout.compare(k, longs[k][a], objects[k][a], (nulls[a] >>> k & 1) != 0,
+                        longs[k][b], objects[k][b], (nulls[b] >>> k & 1) != 0);
+                if (c != 0) return c;
+            }
+            return 0;
+        }
+
+        private void grow() {
+            int capacity = offsets.length * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            nulls = Arrays.copyOf(nulls, capacity);
+            for (int k = 0; k < rowLongs.length; k++) {
+                longs[k] = Arrays.copyOf(longs[k], capacity);
+                objects[k] = Arrays.copyOf(objects[k], capacity);
+            }
+        }
+    }
+
+    /**
+     * Class Merge: K way merge of sorted runs, a heap of cursors ordered by the keys of their current row.
+     * Ties go to the earlier run, which keeps a sequential sort stable.
+     */
+    private final class Merge implements Closeable {
+        private final PriorityQueue<Cursor> heap;
+        private final List<Cursor> cursors = new ArrayList<>();
+
+        Merge(List<Run> runs) throws IOException {
+            Comparator<Cursor> order = (a, b) -> {
+                int c = compare(a.longs, a.objects, a.nulls, b.longs, b.objects, b.nulls);
+                return c != 0 ? c : Integer.compare(a.index, b.index);
+            };
+            this.heap = new PriorityQueue<>(Math.max(1, runs.size()), order);
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    Cursor cursor = new Cursor(i, runs.get(i).open());
+                    cursors.add(cursor);
+                    if (cursor.advance()) heap.add(cursor);
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return Next record in sort order, null once every run is done.
+         */
+        T next() throws IOException {
+            Cursor cursor = heap.poll();
+            if (cursor == null) return null;
+            T record = cursor.current;
+            if (cursor.advance()) heap.add(cursor);
+            else cursor.reader.close();
+            return record;
+        }
+
+        @Override
+        public void close() {
+            for (Cursor cursor : cursors) cursor.reader.close();
+            heap.clear();
+        }
+    }
+
+    private final class Cursor {
+        final int index;
+        final RunReader reader;
+        final RecordCodec.Bytes.Reader in = new RecordCodec.Bytes.Reader();
+        final long[] longs = new long[layout.keyCount()];
+        final Object[] objects = new Object[layout.keyCount()];
+        long nulls;
+        T current;
+
+        Cursor(int index, RunReader reader) {
+            this.index = index;
+            this.reader = reader;
+        }
+
+        boolean advance() throws IOException {
+            if (!reader.next(in)) return false;
+            current = codec.decode(in);
+            nulls = layout.readKeys(current, longs, objects);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.viko.parser;
+
+import com.viko.exception.ParsingException;
+
+/**
+ * Interface FieldConverter: Turns a slice of a line into a field value.
+ * Works on a range of a CharSequence, so the line (or the mapped bytes behind it) never has to be
+ * split into intermediate Strings.
+ */
+@FunctionalInterface
+interface FieldConverter {
+
+    /**
+     * Func convert
+     * @param text Line or byte view holding the value
+     * @param start First char of the trimmed value
+     * @param end End of the trimmed value, exclusive
+     * @return Converted value
+     */
+    Object convert(CharSequence text, int start, int end);
+
+    /**
+     * Func of: Wraps the converter resolved for a field once, instead of walking the type chain per value.
+     * Blank values become null, bad values are rethrown as ParsingException.
+     * @param type Field type
+     * @param parse Converter for the type, null when the type is not supported
+     * @return Converter for the field.
+     */
+    static FieldConverter of(Class<?> type, TypeConverter<?> parse) {
+        if (parse == null) {
+            return (text, start, end) -> {
+                if (Converters.isBlank(text, start, end)) return null;
+                throw new ParsingException("Unsupported field type: " + type.getName());
+            };
+        }
+        return (text, start, end) -> {
+            if (Converters.isBlank(text, start, end)) return null;
+            try {
+                return parse.convert(text, start, end);
+            } catch (Exception e) {
+                //reported once by the reader with the line number, logging here too doubled every error
+                throw invalid(type, text, start, end, e);
+            }
+        };
+    }
+
+    /**
+     * Func invalid: Error for a value the converter of the type rejected.
+     */
+    static ParsingException invalid(Class<?> type, CharSequence text, int start, int end, Exception e) {
+        return new ParsingException("Invalid value '" + text.subSequence(start, end) +
+                "' for type " + type.getSimpleName(), e);
+    }
+}
@@ -0,0 +1,223 @@
+package com.viko.parser;
+
+import com.viko.exception.DuplicateKeyException;
+import com.viko.exception.ParsingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Class FileFollower: Parses the lines appended to a growing file, like tail -f.
+ * Each poll reads from the last checkpoint to the end of the file and stops before a line that is not
+ * terminated by '\n' yet, so a line that is still being written is parsed once it is complete.
+ * <p>
+ * The checkpoint (byte offset and line number after the last handled line) is written to the checkpoint file
+ * after every poll, a new follower on the same files resumes from there. Records handled after the last
+ * successful save are delivered again after a crash. A file shorter than the checkpoint is taken as
+ * truncated and read from the start.
+ * @param <T> Type of the mapped class.
+ */
+public final class FileFollower<T> implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(FileFollower.class);
+
+    static final int BUFFER_BYTES = 64 << 10;
+
+    /**
+     * Record Checkpoint
+     * @param offset Bytes of the file that were handled, always at the start of a line
+     * @param lineNumber Lines handled, the next line has number lineNumber + 1
+     */
+    public record Checkpoint(long offset, long lineNumber) {
+    }
+
+    private final Path file;
+    /** Null when the position is only kept in memory. */
+    private final Path checkpointFile;
+    private final GenericParser parser;
+    private final ParsePlan<T> plan;
+    private final GenericParser.ParsingMode mode;
+    private final String delimiter;
+    private final String[] commentPrefixes;
+    private final RowTokens tokens;
+    /** Keys seen since the follower was created, not kept in the checkpoint. Null when duplicates are not looked for. */
+    private final KeyIndex.RowKeys keys;
+
+    private byte[] data = new byte[BUFFER_BYTES];
+    private long offset;
+    private long lineNumber;
+    private volatile boolean closed;
+
+    FileFollower(Path file, Path checkpointFile, GenericParser parser, ParsePlan<T> plan,
+                 GenericParser.ParsingMode mode) throws IOException {
+        this.file = file;
+        this.checkpointFile = checkpointFile;
+        this.parser = parser;
+        this.plan = plan;
+        this.mode = mode;
+        this.delimiter = plan.fileSource.delimiter();
+        this.commentPrefixes = plan.fileSource.commentPrefixes();
+        if (delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter must not be empty");
+        }
+        //a checkpoint always sits at the start of a line, a record spanning lines could be cut in two
+        if (plan.fileSource.multiLine()) {
+            throw new IllegalArgumentException("multiLine records of " + plan.type.getName() + " can't be followed");
+        }
+        this.tokens = new RowTokens(plan.fileSource);
+        KeyIndex keyIndex = parser.keyIndex(plan, false);
+        this.keys = keyIndex == null ? null : keyIndex.rowKeys();
+        Checkpoint start = load(checkpointFile);
+        this.offset = start.offset();
+        this.lineNumber = start.lineNumber();
+    }
+
+    /**
+     * @return Position after the last handled line.
+     */
+    public synchronized Checkpoint checkpoint() {
+        return new Checkpoint(offset, lineNumber);
+    }
+
+    /**
+     * Func poll: Parses the complete lines appended since the last poll and saves the checkpoint.
+     * @param action Receives every parsed record, in file order
+     * @return Number of lines handled, 0 when nothing new was complete.
+     * @throws IOException When reading the file or writing the checkpoint fails.
+     * @throws ParsingException In STRICT mode, for the first line that fails to parse. The checkpoint stays before that line.
+     */
+    public synchronized int poll(Consumer<? super T> action) throws IOException {
+        int handled = 0;
+        ParseRecorder metrics = new ParseRecorder(parser, plan, file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < offset) {
+                logger.warn("{} is shorter than its checkpoint ({} bytes), reading it from the start", file, offset);
+                offset = 0;
+                lineNumber = 0;
+            }
+            long readPosition = offset;
+            int filled = 0;
+            int n;
+            while ((n = channel.read(ByteBuffer.wrap(data, filled, data.length - filled), readPosition)) > 0) {
+                readPosition += n;
+                int scanFrom = filled;
+                filled += n;
+                int lineStart = 0;
+                for (int i = scanFrom; i < filled; i++) {
+                    if (data[i] != '\n') continue;
+                    handle(lineStart, i, action, metrics);
+                    handled++;
+                    lineStart = i + 1;
+                }
+                //keep the unterminated tail for the next read, a line longer than the buffer grows it
+                filled -= lineStart;
+                System.arraycopy(data, lineStart, data, 0, filled);
+                if (filled == data.length) data = Arrays.copyOf(data, data.length * 2);
+            }
+        } finally {
+            //polls that found nothing are not reported
+            if (handled > 0 || metrics.failedLines > 0) metrics.finish();
+            if (handled > 0) save();
+        }
+        return handled;
+    }
+
+    /**
+     * Func follow: Polls until the follower is closed or the thread is interrupted,
+     * sleeping for the interval whenever no new line was complete.
+     * @param action Receives every parsed record, in file order
+     * @param interval Wait between polls that found nothing
+     * @throws InterruptedException When the thread is interrupted while waiting.
+     */
+    public void follow(Consumer<? super T> action, Duration interval) throws IOException, InterruptedException {
+        while (!closed) {
+            try {
+                if (poll(action) > 0) continue;
+            } catch (NoSuchFileException e) {
+                //rotated away or not created yet, picked up again once it exists
+            }
+            Thread.sleep(interval.toMillis());
+        }
+    }
+
+    /**
+     * Func handle: Parses one line and moves the checkpoint past it, but only once the action accepted the record.
+     */
+    private void handle(int start, int end, Consumer<? super T> action, ParseRecorder metrics) {
+        long next = offset + (end - start) + 1;
+        metrics.bytes += next - offset;
+        //\r\n files, the same lines readLine would give
+        if (end > start && data[end - 1] == '\r') end--;
+        String line = new String(data, start, end - start, StandardCharsets.UTF_8);
+        if (line.isBlank()) {
+            metrics.blankLines++;
+        } else if (parser.isComment(line, commentPrefixes)) {
+            metrics.commentLines++;
+        } else {
+            T record;
+            try {
+                int from = RowTokens.trimStart(line, 0, line.length());
+                int to = RowTokens.trimEnd(line, from, line.length());
+                record = parser.parseLine(line, from, to, plan, delimiter, tokens);
+                //a rejected duplicate throws, a flagged one is only reported
+                DuplicateKeyException duplicate = keys == null ? null : keys.check(line, from, to, tokens);
+                if (duplicate != null) parser.errors().report(lineNumber + 1, line, duplicate);
+                metrics.rows++;
+            } catch (ReflectiveOperationException | ParsingException e) {
+                metrics.failed(e);
+                //record where error occurred
+                parser.errors().report(lineNumber + 1, line, e);
+                if (mode == GenericParser.ParsingMode.STRICT) {
+                    throw new ParsingException("Parsing failed at line " + (lineNumber + 1) + ": " + line, e);
+                }
+                record = null;
+            }
+            if (record != null) action.accept(record);
+        }
+        offset = next;
+        lineNumber++;
+    }
+
+    private void save() throws IOException {
+        if (checkpointFile == null) return;
+        //written next to the checkpoint and moved over it, so a crash never leaves half a checkpoint
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.writeString(temp, offset + " " + lineNumber + "\n");
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Checkpoint load(Path checkpointFile) throws IOException {
+        if (checkpointFile == null || !Files.exists(checkpointFile)) return new Checkpoint(0, 0);
+        String text = Files.readString(checkpointFile).trim();
+        String[] parts = text.split(" ");
+        try {
+            Checkpoint checkpoint = new Checkpoint(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            if (checkpoint.offset() < 0 || checkpoint.lineNumber() < 0) throw new NumberFormatException(text);
+            return checkpoint;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Invalid checkpoint in " + checkpointFile + ": " + text, e);
+        }
+    }
+
+    /**
+     * Func close: Stops follow after its current poll. The checkpoint is already saved.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        parser.errors().flush();
+    }
+}
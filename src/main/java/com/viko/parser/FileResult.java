@@ -0,0 +1,25 @@
+package com.viko.parser;
+
+import com.viko.exception.ErrorRecord;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Record FileResult: Outcome of one file parsed by parseAll.
+ * @param file The parsed file
+ * @param records Parsed entries in file order, empty when the file failed
+ * @param failedLines Lines of this file that failed to parse, skipped in LENIENT mode
+ * @param errors What was reported to errors() for this file, its failed lines and flagged duplicates
+ * @param error Why the file failed (ParsingException in STRICT mode, IOException, ...), null when it was read to the end
+ * @param <T> Type of the mapped class.
+ */
+public record FileResult<T>(Path file, List<T> records, long failedLines, List<ErrorRecord> errors, Throwable error) {
+
+    /**
+     * @return true when the whole file was read and none of its lines failed.
+     */
+    public boolean isSuccess() {
+        return error == null && failedLines == 0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.viko.parser;
+
+/**
+ * Interface GeneratedParser: Implemented by the {@code <Type>Parser} classes the annotation processor writes
+ * for every @FileSource class. GenericParser uses the generated class instead of reflection when it is present.
+ * @param <T> Type of the mapped class.
+ */
+public interface GeneratedParser<T> {
+
+    /**
+     * @return The mapped class the parser was generated for.
+     */
+    Class<T> type();
+
+    /**
+     * Func parse: Builds a record from a line the caller already split.
+     * Must fail exactly like the reflective parser, with a ParsingException naming the field and column.
+     * @param text Line being parsed
+     * @param from Start of the trimmed line
+     * @param to End of the trimmed line, exclusive
+     * @param tokens Field boundaries of the line
+     * @return New record
+     */
+    T parse(CharSequence text, int from, int to, RowTokens tokens);
+
+    /**
+     * Func fill: Same as parse, but sets every column on an existing instance, for the reused instance of forEachReused.
+     * @param instance Record to overwrite
+     */
+    void fill(T instance, CharSequence text, int from, int to, RowTokens tokens);
+}
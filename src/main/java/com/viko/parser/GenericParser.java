@@ -1,20 +1,26 @@
 package com.viko.parser;
 
-import com.viko.annotations.Column;
-import com.viko.annotations.FileSource;
-import com.viko.exception.GlobalErrorHandler;
+import com.viko.exception.ErrorCollector;
 import com.viko.exception.ParsingException;
+import com.viko.metrics.MetricsListener;
+import com.viko.validation.Validator;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class GenericParser {
 
@@ -22,6 +28,87 @@ public class GenericParser {
         STRICT,
         LENIENT
     }
+
+    /** Files parseAll works on at the same time unless told otherwise. */
+    public static final int DEFAULT_FILES_IN_FLIGHT = 16;
+
+    /**
+     * Collects the lines that failed to parse, see ErrorCollector for what gets logged.
+     */
+    private final ErrorCollector errors;
+
+    private volatile MetricsListener metricsListener = MetricsListener.NONE;
+
+    /** Null unless snapshots were turned on. */
+    private volatile SnapshotCache snapshotCache;
+
+    /** Null unless duplicate keys are looked for. */
+    private volatile DuplicateKeys duplicateKeys;
+
+    public GenericParser() {
+        this(new ErrorCollector());
+    }
+
+    /**
+     * @param errors Collector receiving every line that fails to parse
+     */
+    public GenericParser(ErrorCollector errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * @return Collector with the counts and samples of failed lines seen by this parser.
+     */
+    public ErrorCollector errors() {
+        return errors;
+    }
+
+    /**
+     * Func setMetricsListener: Receives a ParseMetrics summary after every file this parser reads.
+     * Runs are only timed while a listener is set or the com.viko.Parse JFR event is enabled.
+     * @param listener Listener, MetricsListener.NONE (or null) to turn it off
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        this.metricsListener = listener == null ? MetricsListener.NONE : listener;
+    }
+
+    MetricsListener metricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Func setSnapshotCache: Lets parse keep binary snapshots of the files it read cleanly
+     * and load them instead of the text while the file and the class stay the same.
+     * Only parse without ParseOptions uses the cache.
+     * @param cache Cache, null to turn it off
+     */
+    public void setSnapshotCache(SnapshotCache cache) {
+        this.snapshotCache = cache;
+    }
+
+    /**
+     * Func setDuplicateKeys: Looks for rows repeating the @Key of an earlier row while a file is parsed.
+     * Every run (a parse, forEach, aggregate, ... call, or a follower) has its own index of seen keys.
+     * Rows of classes without a @Key field, and rows with a blank key, are never duplicates.
+     * The first row of a key in the file is the one kept, also by the parallel calls, which read the file
+     * twice for it. For classes with a @Key parse then reads the text even when a snapshot cache is set.
+     * @param duplicateKeys What to do with a duplicate, null to stop looking for them
+     */
+    public void setDuplicateKeys(DuplicateKeys duplicateKeys) {
+        this.duplicateKeys = duplicateKeys;
+    }
+
+    /**
+     * Func keyIndex: Fresh index of seen keys for one run.
+     * @param concurrent Whether chunk tasks add to it from several threads
+     * @return The index, null when duplicates are not looked for or the class has no @Key.
+     */
+    KeyIndex keyIndex(ParsePlan<?> plan, boolean concurrent) {
+        DuplicateKeys settings = duplicateKeys;
+        if (settings == null || plan.keys.length == 0) return null;
+        return new KeyIndex(plan, settings, concurrent);
+    }
+
     /**
      * Func parse: Parses through a given file, based on passed class type.
      * @param filePath Specifies the path to the file
@@ -34,14 +121,23 @@ public class GenericParser {
      */
     public <T> List<T> parse(String filePath, Class<T> clazz, ParsingMode mode)
             throws IOException, ReflectiveOperationException {
+        return parse(filePath, clazz, mode, ParseOptions.ALL);
+    }
 
-        FileSource fileSource = clazz.getAnnotation(FileSource.class);
-        if (fileSource == null) {
-            throw new IllegalArgumentException("Missing @FileSource annotation");
-        }
+    /**
+     * Func parse: Same as above, converting only the projected columns of the rows that pass the filters.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     * @throws IllegalArgumentException When options name a field that is not a @Column of the class.
+     */
+    public <T> List<T> parse(String filePath, Class<T> clazz, ParsingMode mode, ParseOptions options)
+            throws IOException, ReflectiveOperationException {
 
-        String delimiter = fileSource.delimiter();
-        String[] commentPrefixes = fileSource.commentPrefixes();
+        SnapshotCache cache = snapshotCache;
+        if (cache != null && options == ParseOptions.ALL) {
+            ParsePlan<T> plan = checkedPlan(clazz);
+            //a snapshot holds no keys, duplicates can only be found in the text
+            if (duplicateKeys == null || plan.keys.length == 0) return cache.parse(this, Path.of(filePath), plan, mode);
+        }
         List<T> result = new ArrayList<>();
 
         //Uses Stream (Buffer would also work here) to optimize code during runtime.
@@ -59,32 +155,446 @@ public class GenericParser {
 //            });
 //        }
         //Changed to bufferReader for more flexibility, retaining speed and control.
-        try (BufferedReader reader = Files.newBufferedReader(Path.of(filePath))) {
-            //split into lines
-            String line;
-            //start from line 0
-            int lineNumber = 0;
-            //while valid lines ->
-            while ((line = reader.readLine()) != null) {
-                //added line numbering counter
-                lineNumber++;
-                //skip \n empty lines
-                if (line.isBlank()) continue;
-                //skip comments
-                if(isComment(line, commentPrefixes)) continue;
+        try (RecordReader<T> reader = open(Path.of(filePath), clazz, mode, options)) {
+            T record;
+            while ((record = reader.read()) != null) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Func parseStream: Lazy version of parse. Records are read from the file only as the stream is consumed,
+     * so memory use stays the same no matter how large the file is.
+     * The stream holds the file open, use it in a try-with-resources block.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT stops the stream with a ParsingException on the first bad line, LENIENT logs and skips it.
+     * @return Stream of parsed entries, in file order.
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException When the file cannot be opened. Later read errors surface as UncheckedIOException.
+     */
+    public <T> Stream<T> parseStream(Path path, Class<T> clazz, ParsingMode mode) throws IOException {
+        return parseStream(path, clazz, mode, ParseOptions.ALL);
+    }
+
+    /**
+     * Func parseStream: Same as above, converting only the projected columns of the rows that pass the filters.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     */
+    public <T> Stream<T> parseStream(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options)
+            throws IOException {
+        RecordReader<T> reader = open(path, clazz, mode, options);
+        Spliterator<T> records = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
                 try {
-                    result.add(parseLine(line.trim(), clazz, delimiter));
-                } catch (ReflectiveOperationException | ParsingException e) {
-                    //log where error occurred
-
-                    GlobalErrorHandler.log("Parsing failed at line " + lineNumber + ": " + line, e);
-                    if(mode == ParsingMode.STRICT) {
-                        throw new ParsingException("Parsing failed at line " + lineNumber + ": " + line, e);
-                    }
+                    T record = reader.read();
+                    if (record == null) return false;
+                    action.accept(record);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Reading failed after line " + reader.lineNumber(), e);
                 }
             }
+        };
+        return StreamSupport.stream(records, false).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Func publish: Reactive view of a parse, every subscriber reads the file on its own.
+     * Lines are only read as far as the subscriber requested, so a slow subscriber holds back the reading
+     * instead of records piling up. Signals are delivered on the executor, the file is opened at the first request
+     * and closed on completion, error and cancel.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT ends the subscription with onError(ParsingException) at the first bad line,
+     * LENIENT skips bad lines and reports them to errors() only.
+     * @param executor Runs the reading and the subscriber callbacks
+     * @return Publisher of the records in file order.
+     * @param <T> Generic type allowing for work with any class/type.
+     */
+    public <T> Flow.Publisher<T> publish(Path path, Class<T> clazz, ParsingMode mode, Executor executor) {
+        return publish(path, clazz, mode, ParseOptions.ALL, executor);
+    }
+
+    /**
+     * Func publish: Same as above, converting only the projected columns of the rows that pass the filters.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     */
+    public <T> Flow.Publisher<T> publish(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options,
+                                         Executor executor) {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        return RecordPublisher.records(this, plan, options.bind(plan), mode, path, Objects.requireNonNull(executor));
+    }
+
+    /**
+     * Func publishBatches: Same as publish, with one item per batchSize records so the per item overhead of the
+     * subscriber is paid once per batch. One unit of demand is one batch, the last batch may be smaller.
+     * A batch cut short by a STRICT failure is not delivered.
+     * @param batchSize Records per batch
+     */
+    public <T> Flow.Publisher<List<T>> publishBatches(Path path, Class<T> clazz, ParsingMode mode, int batchSize,
+                                                      Executor executor) {
+        return publishBatches(path, clazz, mode, ParseOptions.ALL, batchSize, executor);
+    }
+
+    /**
+     * Func publishBatches: Same as above, converting only the projected columns of the rows that pass the filters.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     */
+    public <T> Flow.Publisher<List<T>> publishBatches(Path path, Class<T> clazz, ParsingMode mode,
+                                                      ParseOptions options, int batchSize, Executor executor) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        ParsePlan<T> plan = checkedPlan(clazz);
+        return RecordPublisher.batches(this, plan, options.bind(plan), mode, path, Objects.requireNonNull(executor),
+                batchSize);
+    }
+
+    /**
+     * Func forEach: Parses the file in STRICT mode and hands every record to the action as soon as it is read.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed.
+     * @param action Called once per record, in file order.
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException Exception when an error occurs during reading the file.
+     */
+    public <T> void forEach(Path path, Class<T> clazz, Consumer<? super T> action) throws IOException {
+        forEach(path, clazz, ParsingMode.STRICT, action);
+    }
+
+    /**
+     * Func forEach: Parses the file and hands every record to the action as soon as it is read.
+     * No records are kept, the file is closed when the method returns or throws.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT or LENIENT handling of lines that fail to parse.
+     * @param action Called once per record, in file order.
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException Exception when an error occurs during reading the file.
+     */
+    public <T> void forEach(Path path, Class<T> clazz, ParsingMode mode, Consumer<? super T> action)
+            throws IOException {
+        forEach(path, clazz, mode, ParseOptions.ALL, action);
+    }
+
+    /**
+     * Func forEach: Same as above, converting only the projected columns of the rows that pass the filters.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     */
+    public <T> void forEach(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options,
+                            Consumer<? super T> action) throws IOException {
+        try (RecordReader<T> reader = open(path, clazz, mode, options)) {
+            T record;
+            while ((record = reader.read()) != null) {
+                action.accept(record);
+            }
         }
-        return result;
+    }
+
+    /**
+     * Func parseAndValidate: Parses and validates the file in a single pass, without building a list.
+     * Column values are checked as soon as they are converted, so rows breaking a @NotNull, @Range or @Regex
+     * rule are rejected before their object is created. Rules that need the object run right after it is built.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT throws for the first line that fails to parse, LENIENT logs it and sends it to rejected.
+     * Validation failures never throw, they always go to rejected.
+     * @param validator Validator holding the rules, its FAIL_FAST mode stops at the first broken rule of a row
+     * @param accepted Receives every record that parsed and passed validation, in file order
+     * @param rejected Receives every rejected line with its line number and messages, in file order
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException Exception when an error occurs during reading the file.
+     */
+    public <T> void parseAndValidate(Path path, Class<T> clazz, ParsingMode mode, Validator validator,
+                                     Consumer<? super T> accepted, Consumer<? super RejectedRecord> rejected)
+            throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        try (ValidatingRecordReader<T> reader =
+                     new ValidatingRecordReader<>(Files.newBufferedReader(path), this, plan, mode, validator, path)) {
+            reader.run(accepted, rejected);
+        }
+    }
+
+    /**
+     * Func forEachBatch: Parses the file into column batches instead of one object per row.
+     * Primitive and date columns are stored in primitive arrays, String columns are dictionary encoded,
+     * so parsing a file this way creates almost no per row garbage.
+     * Supports int, long, double, boolean (and their boxed forms), LocalDate and String fields.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT throws for the first line that fails to parse, LENIENT reports it and drops the row.
+     * @param batchSize Rows per batch, only the last batch may be smaller
+     * @param action Receives every batch in file order, the batches are not reused
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException Exception when an error occurs during reading the file.
+     */
+    public <T> void forEachBatch(Path path, Class<T> clazz, ParsingMode mode, int batchSize,
+                                 Consumer<? super ColumnarBatch> action) throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        //fail on unsupported fields before opening the file
+        for (ParsePlan.ColumnBinding column : plan.columns) ColumnarReader.columnType(column.type);
+        try (ColumnarReader<T> batches =
+                     new ColumnarReader<>(Files.newBufferedReader(path), this, plan, mode, batchSize, path)) {
+            ColumnarBatch batch;
+            while ((batch = batches.next()) != null) {
+                action.accept(batch);
+            }
+        }
+    }
+
+    /**
+     * Func parseMapped: Same result as parse, but reads the file through memory mapped windows
+     * and splits and converts fields straight from the bytes instead of decoding every line into a String.
+     * ASCII text is handled without any UTF-8 decoding, String fields with other characters are decoded as UTF-8.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT throws for the first bad line, LENIENT logs and skips bad lines.
+     * @return Records in file order.
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException Exception when an error occurs during reading the file.
+     */
+    public <T> List<T> parseMapped(Path path, Class<T> clazz, ParsingMode mode) throws IOException {
+        return parseMapped(path, clazz, mode, ParseOptions.ALL);
+    }
+
+    /**
+     * Func parseMapped: Same as above, converting only the projected columns of the rows that pass the filters.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     */
+    public <T> List<T> parseMapped(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options)
+            throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        return new MappedFileParser<>(this, plan, options.bind(plan), mode).parse(path);
+    }
+
+    /**
+     * Func parseParallel: Parses a single large file on all cores of the common ForkJoinPool.
+     * The file is split into byte ranges on line boundaries, results are merged back in source order
+     * and error messages carry the same absolute line numbers as parse.
+     * @param path Path to the file, expected to be UTF-8 like for parse
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT throws for the first bad line in the file, LENIENT logs and skips bad lines.
+     * @return Records in file order.
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException Exception when an error occurs during reading the file.
+     */
+    public <T> List<T> parseParallel(Path path, Class<T> clazz, ParsingMode mode) throws IOException {
+        return parseParallel(path, clazz, mode, ForkJoinPool.commonPool(), 0);
+    }
+
+    /**
+     * Func parseParallel: Same as above, on a given pool and with a given chunk size.
+     * @param pool Pool running the chunk tasks
+     * @param chunkBytes Target chunk size in bytes, 0 lets the parser pick one from the file size and parallelism.
+     */
+    public <T> List<T> parseParallel(Path path, Class<T> clazz, ParsingMode mode, ForkJoinPool pool, long chunkBytes)
+            throws IOException {
+        return parseParallel(path, clazz, mode, ParseOptions.ALL, pool, chunkBytes);
+    }
+
+    /**
+     * Func parseParallel: Same as above, converting only the projected columns of the rows that pass the filters.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     */
+    public <T> List<T> parseParallel(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options,
+                                     ForkJoinPool pool, long chunkBytes) throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        return new MappedFileParser<>(this, plan, options.bind(plan), mode).parse(path, pool, chunkBytes);
+    }
+
+    /**
+     * Func forEachReused: Streams the file into a single reused instance instead of a new object per row.
+     * The instance is filled from the mapped bytes and handed to the action, the next line overwrites it,
+     * so the action must copy out whatever it keeps. With primitive fields nothing is allocated per row,
+     * String and date fields still create their values.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed, needs a no-args constructor.
+     * @param mode STRICT throws for the first bad line after the records before it were handed out, LENIENT logs and skips it.
+     * @param action Receives the reused instance once per record, in file order
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException Exception when an error occurs during reading the file.
+     */
+    public <T> void forEachReused(Path path, Class<T> clazz, ParsingMode mode, Consumer<? super T> action)
+            throws IOException {
+        forEachReused(path, clazz, mode, ParseOptions.ALL, action);
+    }
+
+    /**
+     * Func forEachReused: Same as above, filling only the projected columns of the rows that pass the filters.
+     * Fields outside the projection are never written, they keep whatever the action left in them.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     */
+    public <T> void forEachReused(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options,
+                                  Consumer<? super T> action) throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        new MappedFileParser<>(this, plan, options.bind(plan), mode).forEach(path, action);
+    }
+
+    /**
+     * Func forEachReusedParallel: Parallel version of forEachReused on the given pool.
+     * Every chunk of the file is filled into its own reused instance, so the action is called from several
+     * threads at once, each with its own instance, and records arrive in no particular order.
+     * Failures are reported after all chunks are done, in STRICT mode records after the bad line may
+     * already have been handed out when the exception is thrown.
+     * @param options Projection and filters, ParseOptions.ALL for every column and row
+     * @param pool Pool running the chunk tasks
+     * @param action Thread safe consumer, receives one instance per record
+     */
+    public <T> void forEachReusedParallel(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options,
+                                          ForkJoinPool pool, Consumer<? super T> action) throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        new MappedFileParser<>(this, plan, options.bind(plan), mode).forEach(path, pool, 0, action);
+    }
+
+    /**
+     * Func aggregate: Groups the rows of the file and computes the aggregates while parsing, without creating
+     * or keeping a record per row. Memory use depends on the number of groups only. The file is read from
+     * memory mapped chunks on the calling thread, multiLine classes are not supported.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed
+     * @param mode STRICT throws for the first bad line, LENIENT logs and skips it.
+     * @param aggregation Group columns and aggregates
+     * @param <T> Generic type allowing for work with any class/type.
+     * @return Groups with their aggregates
+     * @throws IOException Exception when an error occurs during reading the file.
+     */
+    public <T> AggregateResult aggregate(Path path, Class<T> clazz, ParsingMode mode, Aggregation aggregation)
+            throws IOException {
+        return aggregate(path, clazz, mode, ParseOptions.ALL, aggregation);
+    }
+
+    /**
+     * Func aggregate: Same as above, only rows passing the filters of the options are aggregated.
+     * @param options Filters, the column projection is taken from the aggregation
+     */
+    public <T> AggregateResult aggregate(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options,
+                                         Aggregation aggregation) throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        Aggregation.Layout layout = aggregation.bind(plan, options.bind(plan));
+        return new MappedFileParser<>(this, plan, plan.all, mode).aggregate(path, layout, null);
+    }
+
+    /**
+     * Func aggregateParallel: Parallel version of aggregate on the given pool. Every chunk of the file is
+     * aggregated into a partial result of its own, the partials are merged once all chunks are done.
+     * @param options Filters, the column projection is taken from the aggregation
+     * @param pool Pool running the chunk tasks
+     */
+    public <T> AggregateResult aggregateParallel(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options,
+                                                 Aggregation aggregation, ForkJoinPool pool) throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        Aggregation.Layout layout = aggregation.bind(plan, options.bind(plan));
+        return new MappedFileParser<>(this, plan, plan.all, mode).aggregate(path, layout, pool);
+    }
+
+    /**
+     * Func sorted: Parses the file and streams its records ordered by the Sort columns, also when the file is
+     * larger than the heap. Rows are buffered up to the memory budget of the Sort, sorted and spilled to temp files,
+     * then merged while the stream is consumed. Equal rows keep their file order.
+     * The whole file is read before this returns, so parse failures surface here like in parse.
+     * The stream holds the run files, use it in a try-with-resources block to delete them.
+     * @param sort Columns and budget
+     * @throws IllegalArgumentException For unknown sort columns and field types that can't be sorted or spilled.
+     * @throws IOException When the file can't be read or a run can't be written.
+     */
+    public <T> Stream<T> sorted(Path path, Class<T> clazz, ParsingMode mode, Sort sort) throws IOException {
+        return new ExternalSorter<>(this, checkedPlan(clazz), mode, sort).sort(path);
+    }
+
+    /**
+     * Func sortedParallel: Same as above, the file is parsed in mapped chunks on the pool and every pool thread
+     * sorts and spills runs of its own, with its share of the memory budget.
+     * Equal rows come out in no particular order.
+     * @param pool Pool parsing the chunks
+     */
+    public <T> Stream<T> sortedParallel(Path path, Class<T> clazz, ParsingMode mode, Sort sort, ForkJoinPool pool)
+            throws IOException {
+        return new ExternalSorter<>(this, checkedPlan(clazz), mode, sort).sort(path, pool);
+    }
+
+    /**
+     * Func parseAll: Parses every file in a directory matching the glob, each on its own virtual thread.
+     * A failed file does not stop the others, its error is returned in its FileResult.
+     * @param dir Directory holding the files
+     * @param glob File name pattern, e.g. "*.txt"
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT fails a file at its first bad line, LENIENT logs and skips bad lines and keeps them
+     *             in the FileResult of their file.
+     * @return One result per file, sorted by file name.
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException When the directory cannot be listed.
+     */
+    public <T> List<FileResult<T>> parseAll(Path dir, String glob, Class<T> clazz, ParsingMode mode)
+            throws IOException {
+        List<FileResult<T>> results = new ArrayList<>();
+        parseAll(dir, glob, clazz, mode, DEFAULT_FILES_IN_FLIGHT, false, results::add);
+        results.sort(Comparator.comparing(FileResult::file));
+        return results;
+    }
+
+    /**
+     * Func parseAll: Same as above, handing every result to a consumer on the calling thread as soon as its file is done.
+     * A new file is only started once a slot is free, so a slow consumer holds back the parsing
+     * and at most maxInFlight parsed files are kept in memory.
+     * @param maxInFlight Files parsed or waiting for the consumer at the same time
+     * @param stopOnFailure Throw for the first file that could not be read to the end and interrupt the running ones,
+     *                      instead of passing it on
+     * @param consumer Receives one result per file, in the order the files finish
+     * @throws ParsingException When stopOnFailure is set and a file fails.
+     */
+    public <T> void parseAll(Path dir, String glob, Class<T> clazz, ParsingMode mode, int maxInFlight,
+                             boolean stopOnFailure, Consumer<? super FileResult<T>> consumer) throws IOException {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        ParsePlan<T> plan = checkedPlan(clazz);
+        new MultiFileParser<>(this, plan, mode, maxInFlight, stopOnFailure)
+                .parse(MultiFileParser.files(dir, glob), consumer);
+    }
+
+    /**
+     * Func follow: Follower over a file that keeps growing, parsing only the lines appended since the checkpoint.
+     * @param path Path to the file
+     * @param clazz Reference to the class to be parsed.
+     * @param mode STRICT throws for a bad line and keeps the checkpoint before it, LENIENT logs and skips it.
+     * @param checkpointFile Where the position is persisted, read on creation when it exists. Null keeps it in memory.
+     * @return Follower to poll, or to run with follow(action, interval) until closed.
+     * @param <T> Generic type allowing for work with any class/type.
+     * @throws IOException When the checkpoint file can't be read.
+     */
+    public <T> FileFollower<T> follow(Path path, Class<T> clazz, ParsingMode mode, Path checkpointFile)
+            throws IOException {
+        return new FileFollower<>(path, checkpointFile, this, checkedPlan(clazz), mode);
+    }
+
+    /**
+     * Func open: Checks the mapping and opens a record reader over the file.
+     */
+    private <T> RecordReader<T> open(Path path, Class<T> clazz, ParsingMode mode, ParseOptions options)
+            throws IOException {
+        ParsePlan<T> plan = checkedPlan(clazz);
+        //bound before opening, a bad field name fails without touching the file
+        ParsePlan.Projection projection = options.bind(plan);
+        return new RecordReader<>(Files.newBufferedReader(path), this, plan, projection, mode, path);
+    }
+
+    private <T> ParsePlan<T> checkedPlan(Class<T> clazz) {
+        //Reflection is resolved once per class and reused for every line
+        ParsePlan<T> plan = ParsePlan.of(clazz);
+        if (plan.fileSource == null) {
+            throw new IllegalArgumentException("Missing @FileSource annotation");
+        }
+        return plan;
     }
     /**
      * isComment is a function that checks if the line begins with one of the following characters
@@ -92,7 +602,7 @@ public class GenericParser {
      * @param line --> Current line being iterated
      * @return boolean value (true or false) acting as a flag to show if current line is a comment
      */
-    private boolean isComment(String line, String[] prefixes) {
+    boolean isComment(String line, String[] prefixes) {
         String trimmed = line.trim();
         for (String prefix : prefixes) {
             if (trimmed.startsWith(prefix)) {
@@ -101,26 +611,6 @@ public class GenericParser {
         }
         return false;
     }
-    /**
-     * Func convert: Takes in a value as an input and a Class type and returns the value in the correct type format.
-     * @param value Value to be converted
-     * @param type Class instance using that value/field
-     * @return Returns the input value parsed to the correct data type.
-     */
-    private Object convert(String value, Class<?> type) {
-        if (value == null || value.isBlank()) return null;
-        try {
-            if (type == String.class) return value;
-            if (type == int.class || type == Integer.class) return Integer.parseInt(value);
-            if (type == double.class || type == Double.class) return Double.parseDouble(value);
-            if (type == boolean.class || type == Boolean.class) return Boolean.parseBoolean(value);
-            if (type == LocalDate.class) return LocalDate.parse(value);
-        } catch (Exception e) {
-            GlobalErrorHandler.log("Invalid value format found. Error: ", e);
-            throw new ParsingException("Invalid value '" + value + "' for type " + type.getSimpleName(), e);
-        }
-        throw new ParsingException("Unsupported field type: " + type.getName());
-    }
     /**
      * Func parseLine: Takes current line from input file, and returns a Java object of type T
      * @param line Current line passed from the input file
@@ -134,42 +624,176 @@ public class GenericParser {
     public <T> T parseLine(String line, Class<T> clazz, String delimiter)
             throws ReflectiveOperationException {
 
-        String[] tokens = line.split("\\Q" + delimiter + "\\E");
+        ParsePlan<T> plan = ParsePlan.of(clazz);
+        return parseLine(line, 0, line.length(), plan, delimiter, new RowTokens(plan.fileSource));
+    }
+
+    /**
+     * Func parseLine: Same as above, converting only the projected columns.
+     * @param options Projection and filters
+     * @return Java object of type T, or null when the line fails a filter.
+     */
+    public <T> T parseLine(String line, Class<T> clazz, String delimiter, ParseOptions options)
+            throws ReflectiveOperationException {
+        ParsePlan<T> plan = ParsePlan.of(clazz);
+        return parseLine(line, 0, line.length(), plan, options.bind(plan), delimiter, new RowTokens(plan.fileSource));
+    }
+
+    /**
+     * Func parseLine: Range version used by the readers. Fields are located with a reusable RowTokens
+     * and converted straight from the text, no String[] or trimmed copies are made.
+     * @param text Line, or a byte view over the line in a mapped file
+     * @param from Start of the trimmed line
+     * @param to End of the trimmed line, exclusive
+     * @param tokens Reused field boundaries
+     */
+    <T> T parseLine(CharSequence text, int from, int to, ParsePlan<T> plan, String delimiter, RowTokens tokens)
+            throws ReflectiveOperationException {
+
+        if (delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter must not be empty");
+        }
+        tokens.split(text, from, to, delimiter);
+        //generated by the annotation processor: direct field access, no reflection
+        if (plan.generated != null) return plan.generated.parse(text, from, to, tokens);
         //Creates anew object of type T (class instance)
-        T instance = clazz.getDeclaredConstructor().newInstance();
-
-        for (Field field : clazz.getDeclaredFields()) {
-            //If a field doesnt have mapping/annotation -> ignore it.
-            Column column = field.getAnnotation(Column.class);
-            if (column == null) continue;
-
-            int index = column.index();
-
-            if (index >= tokens.length) {
-                throw new ParsingException(
-                        "Column index " + index +
-                                " out of bounds for field '" + field.getName() +
-                                "'. Expected at least " + (index + 1) +
-                                " columns but found " + tokens.length +
-                                ". Line: " + line
-                );
-            }
+        T instance = plan.newInstance();
 
-            field.setAccessible(true);
+        for (ParsePlan.ColumnBinding column : plan.columns) {
+            readColumn(column, instance, text, from, to, tokens);
+        }
+        return instance;
+    }
+
+    /**
+     * Func parseLine: Projected version, only the fields up to the last needed column are located
+     * and only projected columns are converted. The filters run on the raw values first.
+     * @param projection Bound ParseOptions, plan.all goes the full way (and through a generated parser if there is one)
+     * @return The record, or null when a filter dropped the row.
+     */
+    <T> T parseLine(CharSequence text, int from, int to, ParsePlan<T> plan, ParsePlan.Projection projection,
+                    String delimiter, RowTokens tokens) throws ReflectiveOperationException {
+
+        if (projection == plan.all) return parseLine(text, from, to, plan, delimiter, tokens);
+        if (!splitAndFilter(text, from, to, projection, delimiter, tokens)) return null;
+        T instance = plan.newInstance();
+        for (ParsePlan.ColumnBinding column : projection.columns) {
+            readColumn(column, instance, text, from, to, tokens);
+        }
+        return instance;
+    }
+
+    /**
+     * Func fillLine: Same as the projected parseLine, but overwrites the columns of an existing instance
+     * instead of creating one. Every projected column is set, blank values included, so nothing of the
+     * previous line is left behind. On a failure the instance is left partly overwritten.
+     * @param instance Reused instance
+     * @return false when a filter dropped the row, the instance is then left as it was.
+     */
+    <T> boolean fillLine(CharSequence text, int from, int to, ParsePlan<T> plan, ParsePlan.Projection projection,
+                         T instance, String delimiter, RowTokens tokens) {
+
+        if (projection == plan.all && plan.generated != null) {
+            if (delimiter.isEmpty()) {
+                throw new IllegalArgumentException("Delimiter must not be empty");
+            }
+            tokens.split(text, from, to, delimiter);
+            plan.generated.fill(instance, text, from, to, tokens);
+            return true;
+        }
+        if (!splitAndFilter(text, from, to, projection, delimiter, tokens)) return false;
+        for (ParsePlan.ColumnBinding column : projection.columns) {
+            readColumn(column, instance, text, from, to, tokens);
+        }
+        return true;
+    }
 
+    /**
+     * Func splitAndFilter: Splits the line up to the last column the projection needs and runs its filters.
+     * Aggregating chunks call it and fold the split line into their groups, no object is created.
+     * @return false when a filter dropped the row.
+     */
+    boolean splitAndFilter(CharSequence text, int from, int to, ParsePlan.Projection projection,
+                                   String delimiter, RowTokens tokens) {
+        if (delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter must not be empty");
+        }
+        tokens.split(text, from, to, delimiter, projection.fields);
+        for (int i = 0; i < projection.filters.length; i++) {
+            ParsePlan.ColumnBinding column = projection.filterColumns[i];
+            checkColumn(column, text, from, to, tokens);
+            boolean keep;
             try {
-                //trim value so values like "  20 " work and get parsed coprrectly
-                String rawValue = tokens[index].trim();
-                Object converted = convert(rawValue, field.getType());
-                field.set(instance, converted);
-            } catch (Exception e) {
-                throw new ParsingException(
-                        "Failed parsing field '" + field.getName() +
-                                "' at column index " + index +
-                                " in line: " + line, e);
+                keep = projection.filters[i].test(tokens.value(column.index));
+            } catch (RuntimeException e) {
+                throw failedField(column, text, from, to, e);
             }
+            //dropped before the object exists
+            if (!keep) return false;
         }
-        return instance;
+        return true;
     }
-}
 
+    /**
+     * Func readColumn: Converts one column and sets it on the instance, without boxing primitive values.
+     */
+    private void readColumn(ParsePlan.ColumnBinding column, Object instance, CharSequence text, int from, int to,
+                            RowTokens tokens) {
+        checkColumn(column, text, from, to, tokens);
+        int index = column.index;
+        try {
+            //trim value so values like "  20 " work and get parsed coprrectly
+            column.read(instance, tokens.text, tokens.trimmedStart(index), tokens.trimmedEnd(index));
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw failedField(column, text, from, to, e);
+        }
+    }
+
+    /**
+     * Func convertColumn: Converts the value of one column of an already split line.
+     * @param column Column to convert
+     * @param text Line being parsed, used for error messages. The value comes from tokens.text
+     * @param from Start of the trimmed line, used for error messages
+     * @param to End of the trimmed line, used for error messages
+     * @param tokens Field boundaries of the line
+     * @return Converted value, null for a blank value
+     */
+    Object convertColumn(ParsePlan.ColumnBinding column, CharSequence text, int from, int to, RowTokens tokens) {
+        checkColumn(column, text, from, to, tokens);
+        int index = column.index;
+
+        try {
+            //trim value so values like "  20 " work and get parsed coprrectly
+            return column.converter.convert(tokens.text, tokens.trimmedStart(index), tokens.trimmedEnd(index));
+        } catch (RuntimeException e) {
+            throw failedField(column, text, from, to, e);
+        }
+    }
+
+    /**
+     * Func checkColumn: Fails when the line has fewer fields than the column index needs.
+     */
+    void checkColumn(ParsePlan.ColumnBinding column, CharSequence text, int from, int to, RowTokens tokens) {
+        ParserSupport.checkColumn(tokens, column.index, column.name, text, from, to);
+    }
+
+    /**
+     * Func assignColumn: Sets a converted value, e.g. fails for null on a primitive field.
+     */
+    void assignColumn(ParsePlan.ColumnBinding column, Object instance, Object value, CharSequence text, int from, int to) {
+        try {
+            column.assign(instance, value);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw failedField(column, text, from, to, e);
+        }
+    }
+
+    ParsingException failedField(ParsePlan.ColumnBinding column, CharSequence text, int from, int to,
+                                 Throwable e) {
+        return ParserSupport.failedField(column.name, column.index, text, from, to, e);
+    }
+}
@@ -0,0 +1,111 @@
+package com.viko.parser;
+
+import java.util.Arrays;
+
+/**
+ * Class GroupIndex: Open addressing hash map from a fixed width tuple of longs to a dense group number.
+ * Keys are stored back to back in one long[], the table only holds group numbers, so no object is
+ * created per key or per lookup. Group numbers follow the order in which keys were first seen.
+ */
+final class GroupIndex {
+
+    private final int width;
+    private long[] keys;
+    private int[] hashes;
+    /** Open addressing table of group + 1, 0 marks a free slot. */
+    private int[] table = new int[32];
+    private int size;
+
+    /**
+     * @param width Longs per key, at least 1
+     */
+    GroupIndex(int width) {
+        this.width = width;
+        this.keys = new long[16 * width];
+        this.hashes = new int[16];
+    }
+
+    /**
+     * @return Number of groups.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Func key: One long of the key of a group.
+     */
+    long key(int group, int slot) {
+        return keys[group * width + slot];
+    }
+
+    /**
+     * Func find: Group of the key.
+     * @return The group, -1 when the key was never added.
+     */
+    int find(long[] key) {
+        int hash = hash(key);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) return -1;
+            int group = entry - 1;
+            if (hashes[group] == hash && matches(group, key)) return group;
+        }
+    }
+
+    /**
+     * Func add: Group of the key, a new group numbered size() - 1 is created for a key not seen before.
+     */
+    int add(long[] key) {
+        int hash = hash(key);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        for (int entry; (entry = table[slot]) != 0; slot = (slot + 1) & mask) {
+            int group = entry - 1;
+            if (hashes[group] == hash && matches(group, key)) return group;
+        }
+        if (size == hashes.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        System.arraycopy(key, 0, keys, size * width, width);
+        hashes[size] = hash;
+        table[slot] = size + 1;
+        size++;
+        //keep the table at most half full
+        if (size * 2 > table.length) rehash();
+        return size - 1;
+    }
+
+    private boolean matches(int group, long[] key) {
+        int base = group * width;
+        for (int i = 0; i < width; i++) {
+            if (keys[base + i] != key[i]) return false;
+        }
+        return true;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int group = 0; group < size; group++) {
+            int slot = hashes[group] & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = group + 1;
+        }
+    }
+
+    /**
+     * Func hash: Mixes every long of the key, so keys that differ in low bits only (e.g. consecutive days)
+     * still spread over the table.
+     */
+    private int hash(long[] key) {
+        long h = 0;
+        for (int i = 0; i < width; i++) {
+            h = (h + key[i]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+        }
+        return (int) (h ^ (h >>> 29));
+    }
+}
@@ -0,0 +1,486 @@
+package com.viko.parser;
+
+import com.viko.exception.DuplicateKeyException;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.UUID;
+
+/**
+ * Class KeyIndex: Set of the @Key values seen in one run, for DuplicateKeys.
+ * Every key is reduced to two longs: a UUID key (a UUID field, or a String holding a lowercase canonical UUID)
+ * is stored as its own bits and a single integral key as its value, so those never collide. Other keys are
+ * stored as a 128 bit MurmurHash3 of the trimmed text of their columns, two different keys are only taken
+ * for the same one when all 128 bits collide.
+ * <p>
+ * The longs live in an open addressing table with linear probing, split into pages of 2^20 slots, so the
+ * table can outgrow the 2^31 element limit of a single array. Pages are long[] or, off-heap, direct buffers.
+ * Nothing is allocated per key. With concurrent set the table is split into 64 segments, each with its own
+ * lock, picked by the top bits of the hash, and every slot also keeps the smallest file position the key was
+ * added at: chunk tasks first add the keys of all their rows, then keep a row only when its key was first
+ * added at that row, so the first occurrence in the file wins whichever chunk got to it first.
+ */
+final class KeyIndex implements Closeable {
+
+    private static final int PAGE_SHIFT = 20;
+    private static final long PAGE_MASK = (1L << PAGE_SHIFT) - 1;
+    private static final int SEGMENT_BITS = 6;
+    private static final int MIN_SLOTS = 64;
+
+    private final ParsePlan<?> plan;
+    private final DuplicateKeys.Action action;
+    private final boolean concurrent;
+    private final Segment[] segments;
+
+    /**
+     * @param concurrent Whether several chunk tasks add keys at the same time, with their positions
+     */
+    KeyIndex(ParsePlan<?> plan, DuplicateKeys settings, boolean concurrent) {
+        this.plan = plan;
+        this.action = settings.action();
+        this.concurrent = concurrent;
+        this.segments = new Segment[concurrent ? 1 << SEGMENT_BITS : 1];
+        //sized so the expected keys fill at most three quarters of the slots
+        long slots = Math.max(MIN_SLOTS, Long.highestOneBit(
+                Math.max(1, settings.expectedKeys() / segments.length * 4 / 3)) << 1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(settings.offHeap(), concurrent ? 3 : 2, slots);
+        }
+    }
+
+    /**
+     * @return Distinct keys added so far.
+     */
+    long size() {
+        long size = 0;
+        for (Segment segment : segments) size += segment.size;
+        return size;
+    }
+
+    /**
+     * Func rowKeys: Reader of the keys of a row, one per reader or chunk task as it holds the state of the row.
+     */
+    RowKeys rowKeys() {
+        return new RowKeys();
+    }
+
+    /**
+     * Func add: Adds a key to an index that is not concurrent.
+     * @return false when the key was already in the index.
+     */
+    boolean add(long hi, long lo) {
+        return segments[0].add(hi, lo, hash(hi, lo));
+    }
+
+    /**
+     * Func addAt: Adds a key to a concurrent index, keeping the smallest position it was added at.
+     * @param position Where the row holding the key starts in the file
+     */
+    void addAt(long hi, long lo, long position) {
+        long hash = hash(hi, lo);
+        Segment segment = segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+        synchronized (segment) {
+            segment.addAt(hi, lo, hash, position);
+        }
+    }
+
+    /**
+     * Func isFirst: Whether a key of a concurrent index was first added at the given position.
+     * Only called once every addAt is done, the join of the tasks that added the keys orders them before,
+     * so nothing is locked.
+     */
+    boolean isFirst(long hi, long lo, long position) {
+        long hash = hash(hi, lo);
+        long first = segments[(int) (hash >>> (64 - SEGMENT_BITS))].first(hi, lo, hash);
+        //a key that was never added belongs to a row the first pass did not reach
+        return first < 0 || first == position;
+    }
+
+    /**
+     * Func close: Drops the pages, off-heap ones are freed once the buffers are garbage collected.
+     */
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            if (!concurrent) {
+                segment.release();
+                continue;
+            }
+            synchronized (segment) {
+                segment.release();
+            }
+        }
+    }
+
+    private static long hash(long hi, long lo) {
+        return fmix(hi * 0x9E3779B97F4A7C15L ^ lo);
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Class Segment: One open addressing table of (hi, lo) or (hi, lo, position) slots, (0, 0) marks a free slot
+     * and the key (0, 0) itself is kept as a flag.
+     */
+    private static final class Segment {
+        private final boolean offHeap;
+        /** Longs per slot, 3 when the slots keep a position. */
+        private final int width;
+        private long[][] heapPages;
+        private LongBuffer[] directPages;
+        private long slots;
+        private long size;
+        private boolean zero;
+        private long zeroPosition;
+
+        Segment(boolean offHeap, int width, long slots) {
+            this.offHeap = offHeap;
+            this.width = width;
+            allocate(slots);
+        }
+
+        boolean add(long hi, long lo, long hash) {
+            if ((hi | lo) == 0) {
+                if (zero) return false;
+                zero = true;
+                size++;
+                return true;
+            }
+            long mask = slots - 1;
+            for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+                long seenHi = get(slot, 0);
+                long seenLo = get(slot, 1);
+                if (seenHi == hi && seenLo == lo) return false;
+                if ((seenHi | seenLo) == 0) {
+                    set(slot, hi, lo);
+                    //at most three quarters full, probe runs stay short
+                    if (++size > slots - (slots >>> 2)) grow();
+                    return true;
+                }
+            }
+        }
+
+        void addAt(long hi, long lo, long hash, long position) {
+            if ((hi | lo) == 0) {
+                if (!zero) {
+                    zero = true;
+                    size++;
+                    zeroPosition = position;
+                } else if (position < zeroPosition) {
+                    zeroPosition = position;
+                }
+                return;
+            }
+            long mask = slots - 1;
+            for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+                long seenHi = get(slot, 0);
+                long seenLo = get(slot, 1);
+                if (seenHi == hi && seenLo == lo) {
+                    if (position < get(slot, 2)) setPosition(slot, position);
+                    return;
+                }
+                if ((seenHi | seenLo) == 0) {
+                    set(slot, hi, lo);
+                    setPosition(slot, position);
+                    if (++size > slots - (slots >>> 2)) grow();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return Position the key was first added at, -1 when it is not in the table.
+         */
+        long first(long hi, long lo, long hash) {
+            if ((hi | lo) == 0) return zero ? zeroPosition : -1;
+            long mask = slots - 1;
+            for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+                long seenHi = get(slot, 0);
+                long seenLo = get(slot, 1);
+                if (seenHi == hi && seenLo == lo) return get(slot, 2);
+                if ((seenHi | seenLo) == 0) return -1;
+            }
+        }
+
+        private void grow() {
+            long[][] oldHeap = heapPages;
+            LongBuffer[] oldDirect = directPages;
+            long oldSlots = slots;
+            allocate(oldSlots << 1);
+            long mask = slots - 1;
+            for (long old = 0; old < oldSlots; old++) {
+                int page = (int) (old >>> PAGE_SHIFT);
+                int at = (int) (old & PAGE_MASK) * width;
+                long hi = offHeap ? oldDirect[page].get(at) : oldHeap[page][at];
+                long lo = offHeap ? oldDirect[page].get(at + 1) : oldHeap[page][at + 1];
+                if ((hi | lo) == 0) continue;
+                long slot = hash(hi, lo) & mask;
+                while ((get(slot, 0) | get(slot, 1)) != 0) slot = (slot + 1) & mask;
+                set(slot, hi, lo);
+                if (width == 3) setPosition(slot, offHeap ? oldDirect[page].get(at + 2) : oldHeap[page][at + 2]);
+            }
+        }
+
+        private void allocate(long slots) {
+            this.slots = slots;
+            int pageSlots = (int) Math.min(slots, 1L << PAGE_SHIFT);
+            int pages = (int) (slots / pageSlots);
+            if (offHeap) {
+                directPages = new LongBuffer[pages];
+                for (int i = 0; i < pages; i++) {
+                    //direct memory starts zeroed, same as a new long[]
+                    directPages[i] = ByteBuffer.allocateDirect(pageSlots * 8 * width).order(ByteOrder.nativeOrder())
+                            .asLongBuffer();
+                }
+            } else {
+                heapPages = new long[pages][pageSlots * width];
+            }
+        }
+
+        private long get(long slot, int part) {
+            int page = (int) (slot >>> PAGE_SHIFT);
+            int at = (int) (slot & PAGE_MASK) * width + part;
+            return offHeap ? directPages[page].get(at) : heapPages[page][at];
+        }
+
+        private void setPosition(long slot, long position) {
+            int page = (int) (slot >>> PAGE_SHIFT);
+            int at = (int) (slot & PAGE_MASK) * width + 2;
+            if (offHeap) directPages[page].put(at, position);
+            else heapPages[page][at] = position;
+        }
+
+        private void set(long slot, long hi, long lo) {
+            int page = (int) (slot >>> PAGE_SHIFT);
+            int at = (int) (slot & PAGE_MASK) * width;
+            if (offHeap) {
+                directPages[page].put(at, hi).put(at + 1, lo);
+            } else {
+                heapPages[page][at] = hi;
+                heapPages[page][at + 1] = lo;
+            }
+        }
+
+        private void release() {
+            heapPages = null;
+            directPages = null;
+        }
+    }
+
+    /**
+     * Class RowKeys: Reduces the key columns of a split line to two longs and adds them to the index.
+     */
+    final class RowKeys {
+
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final ParsePlan.ColumnBinding[] columns = plan.keys;
+        /** Value of a single integral key column, null for other keys. */
+        private final TypeConverter.OfLong integral;
+        private final boolean uuidField;
+        private final boolean stringField;
+
+        private long hi;
+        private long lo;
+        //MurmurHash3 x64 128 state, fed with the UTF-16 units of the key
+        private long h1;
+        private long h2;
+        private long k1;
+        private long k2;
+        private int pending;
+        private long units;
+
+        private RowKeys() {
+            Class<?> type = columns.length == 1 ? columns[0].type : null;
+            this.uuidField = type == UUID.class;
+            this.stringField = type == String.class;
+            boolean isIntegral = type == int.class || type == Integer.class || type == long.class || type == Long.class
+                    || type == short.class || type == Short.class || type == byte.class || type == Byte.class;
+            TypeConverter<?> converter = isIntegral ? columns[0].typeConverter : null;
+            if (converter instanceof TypeConverter.OfInt ints) this.integral = ints::convertInt;
+            else this.integral = converter == null ? null : ParserSupport.asLong(converter);
+        }
+
+        /**
+         * Func check: Adds the key of the line, which tokens was split for, to the index.
+         * Rows with a blank (or missing) key column are not checked.
+         * @param text Line, named in errors
+         * @param from Start of the trimmed line
+         * @param to End of the trimmed line, exclusive
+         * @return null for a new key, the DuplicateKeyException to report when the row is only flagged.
+         * @throws com.viko.exception.DuplicateKeyException For a duplicate that rejects its row.
+         */
+        DuplicateKeyException check(CharSequence text, int from, int to, RowTokens tokens) {
+            return check(text, from, to, tokens, -1);
+        }
+
+        /**
+         * Func check: Same as above, a concurrent index is only read, once addAt was called for every row of the run.
+         * @param position Where the line starts in the file, for a concurrent index the key is new when it was
+         *                 first added there
+         */
+        DuplicateKeyException check(CharSequence text, int from, int to, RowTokens tokens, long position) {
+            if (!hasKey(tokens)) return null;
+            read(text, from, to, tokens);
+            boolean first = concurrent ? isFirst(hi, lo, position) : add(hi, lo);
+            return first ? null : duplicate(tokens);
+        }
+
+        /**
+         * Func addAt: Adds the key of the line to a concurrent index, see check.
+         * @param position Where the line starts in the file
+         */
+        void addAt(CharSequence text, int from, int to, RowTokens tokens, long position) {
+            if (!hasKey(tokens)) return;
+            read(text, from, to, tokens);
+            KeyIndex.this.addAt(hi, lo, position);
+        }
+
+        private boolean hasKey(RowTokens tokens) {
+            for (ParsePlan.ColumnBinding column : columns) {
+                int index = column.index;
+                if (index >= tokens.count
+                        || Converters.isBlank(tokens.text, tokens.trimmedStart(index), tokens.trimmedEnd(index))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void read(CharSequence text, int from, int to, RowTokens tokens) {
+            ParsePlan.ColumnBinding first = columns[0];
+            CharSequence value = tokens.text;
+            int start = tokens.trimmedStart(first.index);
+            int end = tokens.trimmedEnd(first.index);
+            try {
+                if (integral != null) {
+                    hi = integral.convertLong(value, start, end);
+                    lo = 0;
+                    return;
+                }
+                if ((uuidField || stringField) && uuid(value, start, end, uuidField)) return;
+                if (uuidField) {
+                    //a non canonical form like "1-2-3-4-5", compared by value
+                    UUID uuid = (UUID) first.converter.convert(value, start, end);
+                    hi = uuid.getMostSignificantBits();
+                    lo = uuid.getLeastSignificantBits();
+                    return;
+                }
+            } catch (RuntimeException e) {
+                //only happens for a key column outside the projection, which was not converted yet
+                throw ParserSupport.failedField(first.name, first.index, text, from, to, e);
+            }
+            h1 = h2 = k1 = k2 = 0;
+            pending = 0;
+            units = 0;
+            for (ParsePlan.ColumnBinding column : columns) {
+                int s = tokens.trimmedStart(column.index);
+                int e = tokens.trimmedEnd(column.index);
+                for (int i = s; i < e; i++) unit(value.charAt(i));
+                //the length ends every part, so "ab","c" and "a","bc" differ
+                unit((e - s) & 0xFFFF);
+                unit((e - s) >>> 16);
+            }
+            finish();
+        }
+
+        /**
+         * Func uuid: Reads a canonical 8-4-4-4-12 UUID straight from the chars.
+         * @param anyCase Whether upper case hex digits count, only for UUID fields where case doesn't matter
+         * @return false when the value has another shape.
+         */
+        private boolean uuid(CharSequence text, int start, int end, boolean anyCase) {
+            if (end - start != 36) return false;
+            long high = 0;
+            long low = 0;
+            int digits = 0;
+            for (int i = 0; i < 36; i++) {
+                char c = text.charAt(start + i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') return false;
+                    continue;
+                }
+                int digit;
+                if (c >= '0' && c <= '9') digit = c - '0';
+                else if (c >= 'a' && c <= 'f') digit = c - 'a' + 10;
+                else if (anyCase && c >= 'A' && c <= 'F') digit = c - 'A' + 10;
+                else return false;
+                if (digits++ < 16) high = high << 4 | digit;
+                else low = low << 4 | digit;
+            }
+            hi = high;
+            lo = low;
+            return true;
+        }
+
+        private void unit(int unit) {
+            if (pending < 4) k1 |= (long) unit << (pending << 4);
+            else k2 |= (long) unit << ((pending - 4) << 4);
+            units++;
+            if (++pending < 8) return;
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+            k1 = k2 = 0;
+            pending = 0;
+        }
+
+        private void finish() {
+            if (pending > 4) h2 ^= mixK2(k2);
+            if (pending > 0) h1 ^= mixK1(k1);
+            long length = units << 1;
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            hi = h1;
+            lo = h2;
+        }
+
+        private static long mixK1(long k) {
+            return Long.rotateLeft(k * C1, 31) * C2;
+        }
+
+        private static long mixK2(long k) {
+            return Long.rotateLeft(k * C2, 33) * C1;
+        }
+
+        /**
+         * @return The DuplicateKeyException to report when the row is only flagged.
+         * @throws DuplicateKeyException When the row is rejected.
+         */
+        private DuplicateKeyException duplicate(RowTokens tokens) {
+            StringBuilder key = new StringBuilder();
+            StringBuilder names = new StringBuilder();
+            for (ParsePlan.ColumnBinding column : columns) {
+                if (!key.isEmpty()) {
+                    key.append(", ");
+                    names.append(", ");
+                }
+                key.append('\'').append(tokens.value(column.index)).append('\'');
+                names.append(column.name);
+            }
+            DuplicateKeyException duplicate = new DuplicateKeyException("Duplicate key " + key + " of " + names,
+                    columns[0].index);
+            if (action == DuplicateKeys.Action.REJECT) throw duplicate;
+            return duplicate;
+        }
+    }
+}
@@ -0,0 +1,565 @@
+package com.viko.parser;
+
+import com.viko.exception.DuplicateKeyException;
+import com.viko.exception.ParsingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Class MappedFileParser: Splits a file into byte ranges that start and end on line boundaries,
+ * memory maps each range and parses it straight from the bytes.
+ * Ranges are parsed either one after the other or on a ForkJoinPool.
+ * Chunks only know their own line count, so errors are collected per chunk with relative line numbers
+ * and logged after the merge, once the absolute numbers are known.
+ * Chunk tasks of one run share its index of seen keys. On a pool the chunks first go through a key pass that
+ * only adds the key of every row with its position, so the row kept for a key is the first one in the file,
+ * the same as on the calling thread, whichever chunk is parsed first. Rows are parsed twice when keys are checked.
+ * @param <T> Type of the mapped class.
+ */
+final class MappedFileParser<T> {
+
+    /** Chunks below this size are not worth a task of their own. */
+    static final long MIN_CHUNK_BYTES = 1 << 20;
+    /** Keeps a single mapping well below the 2GB MappedByteBuffer limit. */
+    static final long MAX_CHUNK_BYTES = 64L << 20;
+    /** Mapped bytes are copied into a reused block of this size and scanned there. */
+    static final int BLOCK_BYTES = 64 << 10;
+
+    private final GenericParser parser;
+    private final ParsePlan<T> plan;
+    private final ParsePlan.Projection projection;
+    private final GenericParser.ParsingMode mode;
+
+    /**
+     * @param projection Columns to convert and rows to keep, plan.all for everything
+     */
+    MappedFileParser(GenericParser parser, ParsePlan<T> plan, ParsePlan.Projection projection,
+                     GenericParser.ParsingMode mode) {
+        //chunks start at line breaks, which may sit inside a quoted field of a multi-line record
+        if (plan.fileSource.multiLine()) {
+            throw new IllegalArgumentException("multiLine records of " + plan.type.getName()
+                    + " can't be parsed from a mapped file, use parse or forEach");
+        }
+        this.parser = parser;
+        this.plan = plan;
+        this.projection = projection;
+        this.mode = mode;
+    }
+
+    /**
+     * Func parse: Parses the whole file on the given pool and merges the chunks back in source order.
+     * @param path File to parse
+     * @param pool Pool running the chunk tasks
+     * @param chunkBytes Target size of a chunk. 0 picks one based on file size and pool parallelism.
+     * @return Records in the same order as in the file.
+     * @throws IOException When the file cannot be read.
+     */
+    List<T> parse(Path path, ForkJoinPool pool, long chunkBytes) throws IOException {
+        ParseRecorder metrics = new ParseRecorder(parser, plan, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            metrics.bytes = size;
+            if (chunkBytes <= 0) {
+                chunkBytes = Math.min(MAX_CHUNK_BYTES,
+                        Math.max(MIN_CHUNK_BYTES, size / (pool.getParallelism() * 4L)));
+            }
+            List<Long> bounds = chunkBounds(channel, size, chunkBytes);
+            KeyIndex keys = firstKeys(channel, bounds, pool, null, null);
+
+            List<ForkJoinTask<Chunk<T>>> tasks = new ArrayList<>(bounds.size() - 1);
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                tasks.add(pool.submit(new ChunkTask(channel, bounds.get(i), bounds.get(i + 1), null, null, keys,
+                        false)));
+            }
+
+            List<Chunk<T>> chunks = new ArrayList<>(tasks.size());
+            int total = 0;
+            for (ForkJoinTask<Chunk<T>> task : tasks) {
+                Chunk<T> chunk = task.join();
+                chunks.add(chunk);
+                total += chunk.records.size();
+            }
+            return merge(chunks, total, metrics);
+        } finally {
+            metrics.finish();
+        }
+    }
+
+    /**
+     * Func parse: Parses the whole file on the calling thread, one mapped window at a time.
+     * @param path File to parse
+     * @return Records in the same order as in the file.
+     * @throws IOException When the file cannot be read.
+     */
+    List<T> parse(Path path) throws IOException {
+        ParseRecorder metrics = new ParseRecorder(parser, plan, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            metrics.bytes = channel.size();
+            List<Long> bounds = chunkBounds(channel, metrics.bytes, MAX_CHUNK_BYTES);
+            KeyIndex keys = parser.keyIndex(plan, false);
+            List<Chunk<T>> chunks = new ArrayList<>(bounds.size() - 1);
+            int total = 0;
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                Chunk<T> chunk = new ChunkTask(channel, bounds.get(i), bounds.get(i + 1), null, null, keys, false)
+                        .compute();
+                chunks.add(chunk);
+                total += chunk.records.size();
+                //no point reading further, this failure is the first one in the file
+                if (mode == GenericParser.ParsingMode.STRICT && !chunk.failures.isEmpty()) break;
+            }
+            return merge(chunks, total, metrics);
+        } finally {
+            metrics.finish();
+        }
+    }
+
+    /**
+     * Func forEach: Streams the file on the calling thread, filling one reused instance per chunk
+     * and handing it to the action before the next line overwrites it.
+     * @param path File to parse
+     * @param action Receives the reused instance once per record, in file order
+     * @throws IOException When the file cannot be read.
+     */
+    void forEach(Path path, Consumer<? super T> action) throws IOException {
+        ParseRecorder metrics = new ParseRecorder(parser, plan, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            metrics.bytes = channel.size();
+            List<Long> bounds = chunkBounds(channel, metrics.bytes, MAX_CHUNK_BYTES);
+            KeyIndex keys = parser.keyIndex(plan, false);
+            int lineOffset = 0;
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                Chunk<T> chunk = new ChunkTask(channel, bounds.get(i), bounds.get(i + 1), action, null, keys, false)
+                        .compute();
+                //STRICT throws here, right after the records before the bad line were handed out
+                report(chunk, lineOffset, metrics);
+                lineOffset += chunk.lineCount;
+            }
+            parser.errors().flush();
+        } finally {
+            metrics.finish();
+        }
+    }
+
+    /**
+     * Func forEach: Streams the file on the given pool, every chunk task fills its own reused instance.
+     * The action is called from several threads at once and records come in no particular order.
+     * Failures are reported once every chunk is done, so in STRICT mode records after the bad line
+     * may already have been handed out when the exception is thrown.
+     * @param chunkBytes Target size of a chunk. 0 picks one based on file size and pool parallelism.
+     */
+    void forEach(Path path, ForkJoinPool pool, long chunkBytes, Consumer<? super T> action) throws IOException {
+        ParseRecorder metrics = new ParseRecorder(parser, plan, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            metrics.bytes = size;
+            if (chunkBytes <= 0) {
+                chunkBytes = Math.min(MAX_CHUNK_BYTES,
+                        Math.max(MIN_CHUNK_BYTES, size / (pool.getParallelism() * 4L)));
+            }
+            List<Long> bounds = chunkBounds(channel, size, chunkBytes);
+            KeyIndex keys = firstKeys(channel, bounds, pool, action, null);
+            List<ForkJoinTask<Chunk<T>>> tasks = new ArrayList<>(bounds.size() - 1);
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                tasks.add(pool.submit(new ChunkTask(channel, bounds.get(i), bounds.get(i + 1), action, null, keys,
+                        false)));
+            }
+            int lineOffset = 0;
+            for (ForkJoinTask<Chunk<T>> task : tasks) {
+                Chunk<T> chunk = task.join();
+                report(chunk, lineOffset, metrics);
+                lineOffset += chunk.lineCount;
+            }
+            parser.errors().flush();
+        } finally {
+            metrics.finish();
+        }
+    }
+
+    /**
+     * Func aggregate: Folds the rows of the file into groups, every chunk into a partial result of its own.
+     * The partials are merged in file order, so failures are reported the same way as for parse.
+     * @param layout Bound Aggregation
+     * @param pool Pool running the chunk tasks, null to aggregate the chunks one after the other on the calling thread
+     * @return Merged result
+     * @throws IOException When the file cannot be read.
+     */
+    AggregateResult aggregate(Path path, Aggregation.Layout layout, ForkJoinPool pool) throws IOException {
+        ParseRecorder metrics = new ParseRecorder(parser, plan, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            metrics.bytes = size;
+            long chunkBytes = pool == null ? MAX_CHUNK_BYTES
+                    : Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, size / (pool.getParallelism() * 4L)));
+            List<Long> bounds = chunkBounds(channel, size, chunkBytes);
+            KeyIndex keys = pool == null ? parser.keyIndex(plan, false) : firstKeys(channel, bounds, pool, null, layout);
+            List<ForkJoinTask<Chunk<T>>> tasks = new ArrayList<>(bounds.size() - 1);
+            if (pool != null) {
+                for (int i = 0; i + 1 < bounds.size(); i++) {
+                    tasks.add(pool.submit(new ChunkTask(channel, bounds.get(i), bounds.get(i + 1), null, layout, keys,
+                            false)));
+                }
+            }
+            AggregateResult result = new AggregateResult(layout);
+            int lineOffset = 0;
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                Chunk<T> chunk = pool != null ? tasks.get(i).join()
+                        : new ChunkTask(channel, bounds.get(i), bounds.get(i + 1), null, layout, keys, false).compute();
+                report(chunk, lineOffset, metrics);
+                lineOffset += chunk.lineCount;
+                result.merge(chunk.groups);
+            }
+            parser.errors().flush();
+            return result;
+        } finally {
+            metrics.finish();
+        }
+    }
+
+    /**
+     * Func firstKeys: Runs the key pass of a pool run, every chunk adds the keys of the rows it would keep
+     * together with where they start, so each key ends up with the position of its first row in the file.
+     * @param action Action of the run, the key pass fills the reused instance the same way without calling it
+     * @param layout Aggregation of the run, null when not aggregating
+     * @return Concurrent index for the chunk tasks of the run, null when duplicates are not looked for.
+     */
+    private KeyIndex firstKeys(FileChannel channel, List<Long> bounds, ForkJoinPool pool,
+                               Consumer<? super T> action, Aggregation.Layout layout) {
+        KeyIndex keys = parser.keyIndex(plan, true);
+        if (keys == null) return null;
+        List<ForkJoinTask<Chunk<T>>> tasks = new ArrayList<>(bounds.size() - 1);
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            tasks.add(pool.submit(new ChunkTask(channel, bounds.get(i), bounds.get(i + 1), action, layout, keys,
+                    true)));
+        }
+        //failures are left to the second pass, which reports them in file order
+        for (ForkJoinTask<Chunk<T>> task : tasks) task.join();
+        return keys;
+    }
+
+    /**
+     * Func merge: Concatenates chunk results in order and reports failures with absolute line numbers.
+     */
+    private List<T> merge(List<Chunk<T>> chunks, int total, ParseRecorder metrics) {
+        List<T> result = new ArrayList<>(total);
+        int lineOffset = 0;
+        for (Chunk<T> chunk : chunks) {
+            report(chunk, lineOffset, metrics);
+            result.addAll(chunk.records);
+            lineOffset += chunk.lineCount;
+        }
+        parser.errors().flush();
+        return result;
+    }
+
+    /**
+     * Func report: Adds the chunk counters to the metrics and reports its failures with absolute line numbers.
+     * Reading and parsing overlap so no time split is kept.
+     * @param lineOffset Lines in the chunks before this one
+     * @throws ParsingException In STRICT mode, for the first failure of the chunk.
+     */
+    private void report(Chunk<T> chunk, int lineOffset, ParseRecorder metrics) {
+        metrics.blankLines += chunk.blankLines;
+        metrics.commentLines += chunk.commentLines;
+        metrics.filteredLines += chunk.filteredLines;
+        //flagged duplicates keep their rows, they are only reported
+        for (Failure duplicate : chunk.duplicates) {
+            parser.errors().report(lineOffset + duplicate.relativeLine, duplicate.line, duplicate.cause);
+        }
+        for (Failure failure : chunk.failures) {
+            metrics.failed(failure.cause);
+            int lineNumber = lineOffset + failure.relativeLine;
+            //record where error occurred
+            parser.errors().report(lineNumber, failure.line, failure.cause);
+            if (mode == GenericParser.ParsingMode.STRICT) {
+                throw new ParsingException("Parsing failed at line " + lineNumber + ": " + failure.line,
+                        failure.cause);
+            }
+        }
+        metrics.rows += chunk.rows;
+    }
+
+    /**
+     * Func chunkBounds: Picks chunk start offsets, each moved forward to the byte after the next line feed.
+     * @return Sorted offsets, starting with 0 and ending with the file size.
+     */
+    static List<Long> chunkBounds(FileChannel channel, long size, long chunkBytes) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long next = chunkBytes;
+        while (next < size) {
+            long bound = nextLineStart(channel, next - 1, size, buffer);
+            if (bound >= size) break;
+            bounds.add(bound);
+            next = Math.max(bound + chunkBytes, next + 1);
+        }
+        bounds.add(size);
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer buffer)
+            throws IOException {
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Class ChunkTask: Parses the lines of one byte range with line numbers relative to the range start.
+     */
+    private final class ChunkTask extends RecursiveTask<Chunk<T>> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        /** Receives the reused instance for every record, null to collect new records in the chunk. */
+        private final Consumer<? super T> action;
+        /** Set to fold the rows into the groups of the chunk instead. */
+        private final Aggregation.Layout aggregation;
+        /** Seen keys of the run, null when duplicates are not looked for. */
+        private final KeyIndex keyIndex;
+        /** Only adds the keys of the rows to the index, the rows themselves are dropped. */
+        private final boolean keyPass;
+        private KeyIndex.RowKeys keys;
+        private T reused;
+        /** Where the current line starts in the file. */
+        private long position;
+
+        ChunkTask(FileChannel channel, long start, long end, Consumer<? super T> action,
+                  Aggregation.Layout aggregation, KeyIndex keyIndex, boolean keyPass) {
+            this.aggregation = aggregation;
+            this.keyIndex = keyIndex;
+            this.keyPass = keyPass;
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.action = action;
+        }
+
+        @Override
+        protected Chunk<T> compute() {
+            Chunk<T> chunk = new Chunk<>();
+            MappedByteBuffer bytes;
+            try {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new ParsingException("Failed mapping bytes " + start + "-" + end, e);
+            }
+            if (aggregation != null) chunk.groups = new AggregateResult(aggregation);
+            if (keyIndex != null) keys = keyIndex.rowKeys();
+            if (action != null) {
+                try {
+                    reused = plan.newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new ParsingException("Failed creating " + plan.type.getName(), e);
+                }
+            }
+            String delimiter = plan.fileSource.delimiter();
+            String[] commentPrefixes = plan.fileSource.commentPrefixes();
+            byte[][] prefixBytes = new byte[commentPrefixes.length][];
+            for (int i = 0; i < commentPrefixes.length; i++) {
+                prefixBytes[i] = commentPrefixes[i].getBytes(StandardCharsets.UTF_8);
+            }
+            //non ASCII delimiters can't be matched byte by byte, those lines are decoded first
+            boolean asciiDelimiter = isAscii(delimiter);
+            ByteSlice line = new ByteSlice();
+            RowTokens tokens = new RowTokens(plan.fileSource);
+            //single bytes reads from a mapping are bounds and session checked, bulk copies into a reused block are not
+            byte[] block = new byte[(int) Math.min(BLOCK_BYTES, Math.max(1, end - start))];
+            int limit = bytes.limit();
+            int base = 0;
+            while (base < limit) {
+                int filled = Math.min(block.length, limit - base);
+                bytes.get(base, block, 0, filled);
+                boolean last = base + filled == limit;
+                int lineStart = 0;
+                while (lineStart < filled) {
+                    //find the end of the line, accepting \n, \r\n and \r like BufferedReader does
+                    int lineEnd = lineStart;
+                    byte b;
+                    while (lineEnd < filled && (b = block[lineEnd]) != '\n' && b != '\r') lineEnd++;
+                    //line (or the \n of a \r\n) continues in the next block
+                    if (!last && (lineEnd == filled || (lineEnd == filled - 1 && block[lineEnd] == '\r'))) break;
+                    int next = lineEnd + 1;
+                    if (lineEnd < filled && block[lineEnd] == '\r' && next < filled && block[next] == '\n') next++;
+
+                    chunk.lineCount++;
+                    line.wrap(block, lineStart, lineEnd - lineStart);
+                    position = start + base + lineStart;
+                    lineStart = next;
+                    if (!parseLine(chunk, line, delimiter, asciiDelimiter, prefixBytes, tokens)) return chunk;
+                }
+                if (lineStart == 0 && !last) {
+                    //a single line longer than the block
+                    block = new byte[block.length * 2];
+                }
+                base += Math.min(lineStart, filled);
+            }
+            return chunk;
+        }
+
+        /**
+         * Func parseLine: Skips blank and comment lines, parses the rest into the chunk unless a filter drops them.
+         * @return false once the chunk should stop, after the first failure in STRICT mode.
+         */
+        private boolean parseLine(Chunk<T> chunk, ByteSlice line, String delimiter, boolean asciiDelimiter,
+                                  byte[][] prefixBytes, RowTokens tokens) {
+            boolean quoted = plan.fileSource.quote() != '\0';
+            int from = RowTokens.trimStart(line, 0, line.length());
+            int to = RowTokens.trimEnd(line, from, line.length());
+            //skip \n empty lines
+            if (from == to || isBlank(line, from, to)) {
+                chunk.blankLines++;
+                return true;
+            }
+            //skip comments
+            if (isComment(line, from, to, prefixBytes)) {
+                chunk.commentLines++;
+                return true;
+            }
+            try {
+                CharSequence text = line;
+                //unescaping copies chars one by one, which would split multi byte chars apart
+                if (!asciiDelimiter || quoted && !isAscii(line, from, to)) {
+                    text = line.subSequence(from, to).toString();
+                    from = 0;
+                    to = text.length();
+                }
+                if (chunk.groups != null) {
+                    if (parser.splitAndFilter(text, from, to, aggregation.projection, delimiter, tokens)) {
+                        //a duplicate is rejected before it is counted
+                        if (checkKey(chunk, line, text, from, to, tokens)) {
+                            chunk.groups.add(text, from, to, tokens);
+                            chunk.rows++;
+                        }
+                    } else {
+                        chunk.filteredLines++;
+                    }
+                    return true;
+                }
+                if (action != null) {
+                    if (parser.fillLine(text, from, to, plan, projection, reused, delimiter, tokens)) {
+                        if (checkKey(chunk, line, text, from, to, tokens)) {
+                            chunk.rows++;
+                            action.accept(reused);
+                        }
+                    } else {
+                        chunk.filteredLines++;
+                    }
+                    return true;
+                }
+                T record = parser.parseLine(text, from, to, plan, projection, delimiter, tokens);
+                if (record != null) {
+                    if (checkKey(chunk, line, text, from, to, tokens)) {
+                        chunk.records.add(record);
+                        chunk.rows++;
+                    }
+                } else {
+                    chunk.filteredLines++;
+                }
+            } catch (ReflectiveOperationException | ParsingException e) {
+                chunk.failures.add(new Failure(chunk.lineCount, line.toString(), e));
+                //only the first failure in source order matters for STRICT, the rest of the chunk can go
+                return mode != GenericParser.ParsingMode.STRICT;
+            }
+            return true;
+        }
+
+        /**
+         * Func checkKey: Adds the key of the split line to the index of the run, on a pool checks that the row
+         * is the first one of its key after the key pass added them all.
+         * @return false in the key pass, which keeps no rows.
+         * @throws DuplicateKeyException For a duplicate that rejects its row, a flagged one is kept in the chunk.
+         */
+        private boolean checkKey(Chunk<T> chunk, ByteSlice line, CharSequence text, int from, int to,
+                                 RowTokens tokens) {
+            if (keys == null) return true;
+            if (keyPass) {
+                keys.addAt(text, from, to, tokens, position);
+                return false;
+            }
+            DuplicateKeyException duplicate = keys.check(text, from, to, tokens, position);
+            if (duplicate != null) chunk.duplicates.add(new Failure(chunk.lineCount, line.toString(), duplicate));
+            return true;
+        }
+    }
+
+    /**
+     * Func isBlank: Whitespace that is not a control char (e.g. a multi byte unicode space) needs the decoded line.
+     */
+    private static boolean isBlank(ByteSlice line, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (line.charAt(i) >= 0x80) return line.subSequence(from, to).toString().isBlank();
+        }
+        return false;
+    }
+
+    /**
+     * Func isComment: Byte version of GenericParser.isComment, compares the UTF-8 prefixes with the trimmed line.
+     */
+    private static boolean isComment(ByteSlice line, int from, int to, byte[][] prefixes) {
+        for (byte[] prefix : prefixes) {
+            if (prefix.length > to - from) continue;
+            boolean matches = true;
+            for (int i = 0; i < prefix.length && matches; i++) {
+                matches = (byte) line.charAt(from + i) == prefix[i];
+            }
+            if (matches) return true;
+        }
+        return false;
+    }
+
+    private static boolean isAscii(CharSequence value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Class Chunk: Parsed records, failures and the number of lines seen in one byte range.
+     */
+    private static final class Chunk<T> {
+        final List<T> records = new ArrayList<>();
+        final List<Failure> failures = new ArrayList<>();
+        /** Flagged duplicate keys, their rows were kept. */
+        final List<Failure> duplicates = new ArrayList<>();
+        int lineCount = 0;
+        int blankLines = 0;
+        int commentLines = 0;
+        int filteredLines = 0;
+        /** Records collected, handed to the action or aggregated. */
+        int rows = 0;
+        /** Partial groups of the chunk when aggregating, null otherwise. */
+        AggregateResult groups;
+    }
+
+    private record Failure(int relativeLine, String line, Exception cause) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.viko.parser;
+
+import com.viko.exception.ErrorRecord;
+import com.viko.exception.ParsingException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Class MultiFileParser: Parses every file of a directory on its own virtual thread.
+ * At most maxInFlight files are parsed or waiting for the consumer at the same time, a new file is only
+ * started once the consumer took the result of an earlier one. Results are handed to the consumer
+ * on the calling thread, in the order the files finish.
+ * @param <T> Type of the mapped class.
+ */
+final class MultiFileParser<T> {
+
+    private final GenericParser parser;
+    private final ParsePlan<T> plan;
+    private final GenericParser.ParsingMode mode;
+    private final int maxInFlight;
+    private final boolean stopOnFailure;
+
+    MultiFileParser(GenericParser parser, ParsePlan<T> plan, GenericParser.ParsingMode mode, int maxInFlight,
+                    boolean stopOnFailure) {
+        this.parser = parser;
+        this.plan = plan;
+        this.mode = mode;
+        this.maxInFlight = maxInFlight;
+        this.stopOnFailure = stopOnFailure;
+    }
+
+    /**
+     * Func files: Regular files of the directory matching the glob, sorted by name.
+     */
+    static List<Path> files(Path dir, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, glob)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry)) files.add(entry);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Func parse
+     * @param files Files to parse
+     * @param consumer Receives one result per file
+     * @throws ParsingException When stopOnFailure is set, for the first failed file. Files still running are interrupted.
+     * @throws InterruptedIOException When the calling thread is interrupted while waiting for a file.
+     */
+    void parse(List<Path> files, Consumer<? super FileResult<T>> consumer) throws IOException {
+        //each running file holds a slot until its result is consumed, so put never blocks
+        BlockingQueue<FileResult<T>> done = new ArrayBlockingQueue<>(maxInFlight);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        int running = 0;
+        try {
+            for (Path file : files) {
+                if (running == maxInFlight) {
+                    deliver(done, consumer);
+                    running--;
+                }
+                executor.execute(() -> done.add(parseFile(file)));
+                running++;
+            }
+            for (; running > 0; running--) {
+                deliver(done, consumer);
+            }
+        } finally {
+            //only interrupts anything when the loop above stopped early
+            executor.shutdownNow();
+            executor.close();
+        }
+    }
+
+    private void deliver(BlockingQueue<FileResult<T>> done, Consumer<? super FileResult<T>> consumer)
+            throws InterruptedIOException {
+        FileResult<T> result;
+        try {
+            result = done.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for parsed files");
+        }
+        //lines skipped in LENIENT mode don't stop the others, only a file that could not be read to the end
+        if (stopOnFailure && result.error() != null) {
+            throw new ParsingException("Parsing failed for file " + result.file(), result.error());
+        }
+        consumer.accept(result);
+    }
+
+    private FileResult<T> parseFile(Path file) {
+        List<T> records = new ArrayList<>();
+        List<ErrorRecord> errors = new ArrayList<>();
+        RecordReader<T> reader = null;
+        try (RecordReader<T> opened = new RecordReader<>(Files.newBufferedReader(file), parser, plan, plan.all, mode,
+                file).keepErrors(errors)) {
+            reader = opened;
+            T record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+            return new FileResult<>(file, records, reader.failedLines(), errors, null);
+        } catch (IOException | RuntimeException e) {
+            return new FileResult<>(file, List.of(), failedLines(reader), errors, e);
+        } catch (Error e) {
+            //still reported, otherwise the caller would wait for this file forever
+            return new FileResult<>(file, List.of(), failedLines(reader), errors, e);
+        }
+    }
+
+    private static long failedLines(RecordReader<?> reader) {
+        return reader == null ? 0 : reader.failedLines();
+    }
+}
@@ -0,0 +1,94 @@
+package com.viko.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Class ParseOptions: Which columns to convert and which rows to keep, checked before any record is created.
+ * Fields outside the projection keep their default value. A line is only split up to the last column
+ * the projection or a filter needs, and a row failing a filter is dropped before its object is created.
+ * Immutable, where returns a copy with the extra filter.
+ * <pre>
+ * ParseOptions.columns("amount", "timestamp")
+ *         .where("amount", raw -> Double.parseDouble(raw.toString()) > 1000)
+ * </pre>
+ */
+public final class ParseOptions {
+
+    /** Every column, no filter. Same as the overloads without options. */
+    public static final ParseOptions ALL = new ParseOptions(null, List.of());
+
+    /** Field names to convert, null for every @Column field. */
+    private final Set<String> columns;
+    private final List<Filter> filters;
+
+    private ParseOptions(Set<String> columns, List<Filter> filters) {
+        this.columns = columns;
+        this.filters = filters;
+    }
+
+    /**
+     * Func columns: Converts only the given fields.
+     * @param names Names of @Column fields
+     * @return Options with the projection and no filter
+     */
+    public static ParseOptions columns(String... names) {
+        return new ParseOptions(Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(names))), List.of());
+    }
+
+    /**
+     * Func where: Keeps only rows whose raw value of the column passes the test.
+     * The value is the trimmed text of the column, empty when blank. It is a view over the line that is only valid
+     * during the call, use toString to keep it. Several filters must all pass, they run in the order they were added.
+     * An exception thrown by the test fails the line like a conversion error.
+     * @param column Name of a @Column field, it does not have to be part of the projection
+     * @param test Test on the raw value
+     * @return Copy of these options with the filter added
+     */
+    public ParseOptions where(String column, Predicate<? super CharSequence> test) {
+        List<Filter> added = new ArrayList<>(filters);
+        added.add(new Filter(Objects.requireNonNull(column), Objects.requireNonNull(test)));
+        return new ParseOptions(columns, List.copyOf(added));
+    }
+
+    /**
+     * @return Projected field names, null when every column is converted.
+     */
+    public Set<String> columns() {
+        return columns;
+    }
+
+    /**
+     * Func bind: Resolves the names against a mapped class.
+     * @throws IllegalArgumentException For a name that is not a @Column field of the class.
+     */
+    <T> ParsePlan.Projection bind(ParsePlan<T> plan) {
+        if (this == ALL) return plan.all;
+        ParsePlan.ColumnBinding[] projected = plan.columns;
+        if (columns != null) {
+            List<ParsePlan.ColumnBinding> selected = new ArrayList<>();
+            //declaration order, like the full parse
+            for (ParsePlan.ColumnBinding column : plan.columns) {
+                if (columns.contains(column.name)) selected.add(column);
+            }
+            for (String name : columns) plan.column(name);
+            projected = selected.toArray(new ParsePlan.ColumnBinding[0]);
+        }
+        ParsePlan.ColumnBinding[] filterColumns = new ParsePlan.ColumnBinding[filters.size()];
+        Predicate<? super CharSequence>[] tests = ParsePlan.Projection.filters(filters.size());
+        for (int i = 0; i < tests.length; i++) {
+            filterColumns[i] = plan.column(filters.get(i).column);
+            tests[i] = filters.get(i).test;
+        }
+        return new ParsePlan.Projection(plan, projected, filterColumns, tests);
+    }
+
+    private record Filter(String column, Predicate<? super CharSequence> test) {
+    }
+}
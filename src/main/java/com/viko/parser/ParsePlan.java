@@ -0,0 +1,282 @@
+package com.viko.parser;
+
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.annotations.Key;
+import com.viko.exception.ParsingException;
+import com.viko.util.GeneratedClasses;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Class ParsePlan: Everything the parser needs to know about a mapped class.
+ * Reflection is done once per class, the result is cached in a ClassValue and reused for every line.
+ * @param <T> Type of the mapped class.
+ */
+final class ParsePlan<T> {
+
+    private static final ClassValue<ParsePlan<?>> PLANS = new ClassValue<>() {
+        @Override
+        protected ParsePlan<?> computeValue(Class<?> type) {
+            return new ParsePlan<>(type);
+        }
+    };
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType INT_SETTER_TYPE = MethodType.methodType(void.class, Object.class, int.class);
+    private static final MethodType LONG_SETTER_TYPE = MethodType.methodType(void.class, Object.class, long.class);
+    private static final MethodType DOUBLE_SETTER_TYPE = MethodType.methodType(void.class, Object.class, double.class);
+    private static final MethodType BOOLEAN_SETTER_TYPE = MethodType.methodType(void.class, Object.class, boolean.class);
+
+    final Class<T> type;
+    /** Null when the class is not annotated, parseLine can still be used with an explicit delimiter. */
+    final FileSource fileSource;
+    /** Mapped columns in field declaration order. */
+    final ColumnBinding[] columns;
+    /** @Key columns in field declaration order, empty when the class has no key. */
+    final ColumnBinding[] keys;
+
+    /** Parser written by the annotation processor, null when the class was not processed. */
+    final GeneratedParser<T> generated;
+
+    /** Every column without filters, what ParseOptions.ALL binds to. */
+    final Projection all;
+
+    private final MethodHandle constructor;
+    /** Kept so the original reflective error is reported for every line, same as before caching. */
+    private final ReflectiveOperationException constructorError;
+
+    private ParsePlan(Class<T> type) {
+        this.type = type;
+        this.fileSource = type.getAnnotation(FileSource.class);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle ctor = null;
+        ReflectiveOperationException ctorError = null;
+        try {
+            Constructor<T> declared = type.getDeclaredConstructor();
+            declared.setAccessible(true);
+            ctor = lookup.unreflectConstructor(declared).asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException e) {
+            ctorError = e;
+        }
+        this.constructor = ctor;
+        this.constructorError = ctorError;
+
+        List<ColumnBinding> bindings = new ArrayList<>();
+        List<ColumnBinding> keyBindings = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            //If a field doesnt have mapping/annotation -> ignore it.
+            Column column = field.getAnnotation(Column.class);
+            if (column == null) {
+                if (field.isAnnotationPresent(Key.class)) {
+                    throw new IllegalArgumentException("@Key field '" + field.getName() + "' of " + type.getName()
+                            + " needs a @Column");
+                }
+                continue;
+            }
+            field.setAccessible(true);
+            try {
+                MethodHandle setter = lookup.unreflectSetter(field);
+                ColumnBinding binding = new ColumnBinding(field, column.index(), setter, ParserSupport.converter(field.getType(), column.converter(), field.getName()));
+                bindings.add(binding);
+                if (field.isAnnotationPresent(Key.class)) keyBindings.add(binding);
+            } catch (IllegalAccessException e) {
+                throw new ParsingException("Cannot access field '" + field.getName() + "' of " + type.getName(), e);
+            }
+        }
+        this.columns = bindings.toArray(new ColumnBinding[0]);
+        this.keys = keyBindings.toArray(new ColumnBinding[0]);
+        this.generated = generatedParser(type);
+        this.all = new Projection(this, columns, new ColumnBinding[0], Projection.filters(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> GeneratedParser<T> generatedParser(Class<T> type) {
+        GeneratedParser<?> parser = GeneratedClasses.find(type, "Parser", GeneratedParser.class);
+        return parser != null && parser.type() == type ? (GeneratedParser<T>) parser : null;
+    }
+
+    /**
+     * Func of: Returns the cached plan for the given class, building it on first use.
+     * @param clazz Mapped class
+     * @return Plan shared by every parser working with this class.
+     * @param <T> Type of the mapped class.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ParsePlan<T> of(Class<T> clazz) {
+        return (ParsePlan<T>) PLANS.get(clazz);
+    }
+
+    /**
+     * Func column: Finds a mapped field by name.
+     * @throws IllegalArgumentException When the class has no @Column field with that name.
+     */
+    ColumnBinding column(String name) {
+        for (ColumnBinding column : columns) {
+            if (column.name.equals(name)) return column;
+        }
+        throw new IllegalArgumentException("No @Column field '" + name + "' in " + type.getName());
+    }
+
+    /**
+     * Func newInstance: Creates an empty instance through the cached no-args constructor.
+     * @return New instance of T
+     * @throws ReflectiveOperationException When the class has no usable no-args constructor.
+     */
+    @SuppressWarnings("unchecked")
+    T newInstance() throws ReflectiveOperationException {
+        if (constructor == null) throw constructorError;
+        try {
+            return (T) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InstantiationException("Failed creating " + type.getName() + ": " + t);
+        }
+    }
+
+    /**
+     * Class Projection: ParseOptions resolved against a plan, the columns to convert and the filters to run first.
+     */
+    static final class Projection {
+        final ColumnBinding[] columns;
+        final ColumnBinding[] filterColumns;
+        final Predicate<? super CharSequence>[] filters;
+        /**
+         * Fields a line has to be split into, every field after the last needed column is left alone.
+         * @Key columns count as needed, duplicates are looked for on the split line.
+         */
+        final int fields;
+
+        /**
+         * @param plan Plan of the class, for its @Key columns
+         */
+        Projection(ParsePlan<?> plan, ColumnBinding[] columns, ColumnBinding[] filterColumns,
+                   Predicate<? super CharSequence>[] filters) {
+            this.columns = columns;
+            this.filterColumns = filterColumns;
+            this.filters = filters;
+            int last = 0;
+            for (ColumnBinding column : columns) last = Math.max(last, column.index);
+            for (ColumnBinding column : filterColumns) last = Math.max(last, column.index);
+            for (ColumnBinding column : plan.keys) last = Math.max(last, column.index);
+            this.fields = last + 1;
+        }
+
+        /**
+         * Func filters: Empty filter array, the one place a generic array is created.
+         */
+        @SuppressWarnings("unchecked")
+        static Predicate<? super CharSequence>[] filters(int size) {
+            return (Predicate<? super CharSequence>[]) new Predicate<?>[size];
+        }
+    }
+
+    /**
+     * Class ColumnBinding: A single @Column field with its setter and converter already resolved.
+     * Primitive fields with a primitive converter also get a setter that takes the primitive,
+     * so read never boxes their values.
+     */
+    static final class ColumnBinding {
+        final Field field;
+        final String name;
+        final int index;
+        final Class<?> type;
+        final MethodHandle setter;
+        /** Converter resolved for the field, null when the type has none. */
+        final TypeConverter<?> typeConverter;
+        final FieldConverter converter;
+        /** Setter taking the primitive value, null when values go through converter and setter. */
+        private final MethodHandle primitiveSetter;
+        /** Setter taking the field's own primitive type whatever the converter, null for reference fields. */
+        private final MethodHandle exactSetter;
+
+        ColumnBinding(Field field, int index, MethodHandle setter, TypeConverter<?> typeConverter) {
+            this.field = field;
+            this.name = field.getName();
+            this.index = index;
+            this.type = field.getType();
+            this.setter = setter.asType(SETTER_TYPE);
+            this.typeConverter = typeConverter;
+            this.converter = FieldConverter.of(type, typeConverter);
+            this.primitiveSetter = primitiveSetter(setter, type, typeConverter);
+            this.exactSetter = type.isPrimitive() ? setter.asType(MethodType.methodType(void.class, Object.class, type)) : null;
+        }
+
+        private static MethodHandle primitiveSetter(MethodHandle setter, Class<?> type, TypeConverter<?> converter) {
+            if (type == int.class && converter instanceof TypeConverter.OfInt) return setter.asType(INT_SETTER_TYPE);
+            if (type == long.class && converter instanceof TypeConverter.OfLong) return setter.asType(LONG_SETTER_TYPE);
+            if (type == double.class && converter instanceof TypeConverter.OfDouble) return setter.asType(DOUBLE_SETTER_TYPE);
+            if (type == boolean.class && converter instanceof TypeConverter.OfBoolean) {
+                return setter.asType(BOOLEAN_SETTER_TYPE);
+            }
+            return null;
+        }
+
+        /**
+         * Func assign: Sets an already converted value on the target.
+         * @param target Instance being filled
+         * @param value Converted value
+         */
+        void assign(Object target, Object value) throws Throwable {
+            setter.invokeExact(target, value);
+        }
+
+        /**
+         * Func assignInt: Sets an int field without boxing, the same for long, double and boolean below.
+         * Only valid for a field of that primitive type.
+         */
+        void assignInt(Object target, int value) throws Throwable {
+            exactSetter.invokeExact(target, value);
+        }
+
+        void assignLong(Object target, long value) throws Throwable {
+            exactSetter.invokeExact(target, value);
+        }
+
+        void assignDouble(Object target, double value) throws Throwable {
+            exactSetter.invokeExact(target, value);
+        }
+
+        void assignBoolean(Object target, boolean value) throws Throwable {
+            exactSetter.invokeExact(target, value);
+        }
+
+        /**
+         * Func read: Converts text[start, end) and sets it on the target in one step.
+         * @param target Instance being filled
+         * @param text Line holding the trimmed value
+         * @param start First char of the value
+         * @param end End of the value, exclusive
+         */
+        void read(Object target, CharSequence text, int start, int end) throws Throwable {
+            //blank goes the generic way, so a primitive field fails the same as before
+            if (primitiveSetter == null || Converters.isBlank(text, start, end)) {
+                assign(target, converter.convert(text, start, end));
+                return;
+            }
+            try {
+                if (type == int.class) {
+                    primitiveSetter.invokeExact(target, ((TypeConverter.OfInt) typeConverter).convertInt(text, start, end));
+                } else if (type == long.class) {
+                    primitiveSetter.invokeExact(target, ((TypeConverter.OfLong) typeConverter).convertLong(text, start, end));
+                } else if (type == double.class) {
+                    primitiveSetter.invokeExact(target, ((TypeConverter.OfDouble) typeConverter).convertDouble(text, start, end));
+                } else {
+                    primitiveSetter.invokeExact(target, ((TypeConverter.OfBoolean) typeConverter).convertBoolean(text, start, end));
+                }
+            } catch (RuntimeException e) {
+                throw FieldConverter.invalid(type, text, start, end, e);
+            }
+        }
+    }
+}
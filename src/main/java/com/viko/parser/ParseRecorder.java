@@ -0,0 +1,133 @@
+package com.viko.parser;
+
+import com.viko.exception.ParsingException;
+import com.viko.metrics.MetricsListener;
+import com.viko.metrics.ParseEvent;
+import com.viko.metrics.ParseMetrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class ParseRecorder: Counters and timings of one parse run, reported to the parser's MetricsListener
+ * and as a ParseEvent when the run finishes.
+ * Counting is always on, it's a few increments per line. Clock reads and the failure breakdown only happen
+ * when a listener is set or the JFR event is enabled, so a run nobody watches pays close to nothing.
+ * Used by a single thread.
+ */
+final class ParseRecorder {
+
+    private final MetricsListener listener;
+    private final ParsePlan<?> plan;
+    private final String source;
+    private final ParseEvent event;
+    /** Someone is watching, read the clock and keep the failure breakdown. */
+    final boolean timed;
+
+    private final long start;
+    long rows;
+    long bytes;
+    long blankLines;
+    long commentLines;
+    long failedLines;
+    long filteredLines;
+    private long ioNanos;
+    private long parseNanos;
+    private Map<String, Long> failures;
+    private boolean finished;
+
+    ParseRecorder(GenericParser parser, ParsePlan<?> plan, Object source) {
+        this.listener = parser.metricsListener();
+        this.plan = plan;
+        this.source = String.valueOf(source);
+        ParseEvent event = new ParseEvent();
+        this.event = event.isEnabled() ? event : null;
+        this.timed = listener != MetricsListener.NONE || this.event != null;
+        if (this.event != null) this.event.begin();
+        this.start = timed ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Func now
+     * @return Clock for the next io / parse call, 0 when not timed.
+     */
+    long now() {
+        return timed ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Func io: Adds the time since the given clock to reading.
+     * @return The current clock, for the next call.
+     */
+    long io(long since) {
+        if (!timed) return 0;
+        long now = System.nanoTime();
+        ioNanos += now - since;
+        return now;
+    }
+
+    /**
+     * Func parse: Adds the time since the given clock to parsing.
+     * @return The current clock, for the next call.
+     */
+    long parse(long since) {
+        if (!timed) return 0;
+        long now = System.nanoTime();
+        parseNanos += now - since;
+        return now;
+    }
+
+    /**
+     * Func failed: Counts a failed line, per column when the failure came from converting one.
+     */
+    void failed(Throwable e) {
+        failedLines++;
+        if (!timed) return;
+        if (failures == null) failures = new LinkedHashMap<>();
+        failures.merge(failureKey(e), 1L, Long::sum);
+    }
+
+    private String failureKey(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ParsingException parsing && parsing.getColumn() >= 0) {
+                for (ParsePlan.ColumnBinding column : plan.columns) {
+                    if (column.index == parsing.getColumn()) {
+                        return column.name + " (" + column.type.getSimpleName() + ")";
+                    }
+                }
+            }
+        }
+        return "line";
+    }
+
+    /**
+     * Func finish: Reports the run, only the first call counts.
+     */
+    void finish() {
+        if (finished || !timed) return;
+        finished = true;
+        long elapsed = System.nanoTime() - start;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.source = source;
+                event.type = plan.type.getName();
+                event.rows = rows;
+                event.bytes = bytes;
+                event.blankLines = blankLines;
+                event.commentLines = commentLines;
+                event.failedLines = failedLines;
+                event.filteredLines = filteredLines;
+                event.ioNanos = ioNanos;
+                event.parseNanos = parseNanos;
+                event.commit();
+            }
+        }
+        if (listener != MetricsListener.NONE) {
+            listener.parseFinished(new ParseMetrics(source, plan.type.getName(), rows, bytes, blankLines,
+                    commentLines, failedLines, filteredLines, ioNanos, parseNanos, elapsed,
+                    failures == null ? Map.of() : Collections.unmodifiableMap(failures)));
+        }
+    }
+}
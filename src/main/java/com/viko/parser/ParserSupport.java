@@ -0,0 +1,174 @@
+package com.viko.parser;
+
+import com.viko.exception.ParsingException;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Class ParserSupport: Helpers called by generated parsers.
+ * Keeps conversion and error reporting in one place, so generated and reflective parsing fail the same way.
+ * Not meant to be called directly.
+ */
+public final class ParserSupport {
+
+    private ParserSupport() {}
+
+    /**
+     * Func converter: The converter set on the @Column, otherwise the one registered for the field type.
+     * @param type Field type
+     * @param custom Converter class from @Column, TypeConverter.class or null when none is set
+     * @param field Field name, used in the error message
+     * @return Converter, null when the field type has none
+     */
+    @SuppressWarnings("rawtypes")
+    public static TypeConverter<?> converter(Class<?> type, Class<? extends TypeConverter> custom, String field) {
+        if (custom == null || custom == TypeConverter.class) return TypeConverters.find(type);
+        try {
+            Constructor<?> constructor = custom.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return (TypeConverter<?>) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ParsingException("Cannot create converter " + custom.getName() + " for field '" + field + "'", e);
+        }
+    }
+
+    /**
+     * Func asInt: Converter in its primitive form, converters that return Integer are unboxed.
+     */
+    public static TypeConverter.OfInt asInt(TypeConverter<?> converter) {
+        if (converter instanceof TypeConverter.OfInt ints) return ints;
+        return (text, start, end) -> ((Number) converter.convert(text, start, end)).intValue();
+    }
+
+    public static TypeConverter.OfLong asLong(TypeConverter<?> converter) {
+        if (converter instanceof TypeConverter.OfLong longs) return longs;
+        return (text, start, end) -> ((Number) converter.convert(text, start, end)).longValue();
+    }
+
+    public static TypeConverter.OfDouble asDouble(TypeConverter<?> converter) {
+        if (converter instanceof TypeConverter.OfDouble doubles) return doubles;
+        return (text, start, end) -> ((Number) converter.convert(text, start, end)).doubleValue();
+    }
+
+    public static TypeConverter.OfBoolean asBoolean(TypeConverter<?> converter) {
+        if (converter instanceof TypeConverter.OfBoolean booleans) return booleans;
+        return (text, start, end) -> (Boolean) converter.convert(text, start, end);
+    }
+
+    /**
+     * Func read: Converts one column of a split line for an object field.
+     * @param converter Converter of the field, null when the type has none
+     * @param type Field type
+     * @param field Field name
+     * @param index Column index
+     * @param text Line being parsed, named in errors. The value is read from tokens.text, which is an unescaped
+     *             copy when the line had quoted fields with escapes
+     * @param from Start of the trimmed line
+     * @param to End of the trimmed line, exclusive
+     * @param tokens Field boundaries of the line
+     * @return Converted value, null for a blank value
+     */
+    public static <V> V read(TypeConverter<?> converter, Class<V> type, String field, int index,
+                             CharSequence text, int from, int to, RowTokens tokens) {
+        checkColumn(tokens, index, field, text, from, to);
+        int start = tokens.trimmedStart(index);
+        int end = tokens.trimmedEnd(index);
+        if (Converters.isBlank(tokens.text, start, end)) return null;
+        try {
+            if (converter == null) throw new ParsingException("Unsupported field type: " + type.getName());
+            Object value;
+            try {
+                value = converter.convert(tokens.text, start, end);
+            } catch (Exception e) {
+                throw FieldConverter.invalid(type, tokens.text, start, end, e);
+            }
+            return type.cast(value);
+        } catch (RuntimeException e) {
+            throw failedField(field, index, text, from, to, e);
+        }
+    }
+
+    public static int readInt(TypeConverter.OfInt converter, String field, int index,
+                              CharSequence text, int from, int to, RowTokens tokens) {
+        int start = primitiveStart(field, index, text, from, to, tokens);
+        int end = tokens.trimmedEnd(index);
+        try {
+            return converter.convertInt(tokens.text, start, end);
+        } catch (RuntimeException e) {
+            throw failedField(field, index, text, from, to, FieldConverter.invalid(int.class, tokens.text, start, end, e));
+        }
+    }
+
+    public static long readLong(TypeConverter.OfLong converter, String field, int index,
+                                CharSequence text, int from, int to, RowTokens tokens) {
+        int start = primitiveStart(field, index, text, from, to, tokens);
+        int end = tokens.trimmedEnd(index);
+        try {
+            return converter.convertLong(tokens.text, start, end);
+        } catch (RuntimeException e) {
+            throw failedField(field, index, text, from, to, FieldConverter.invalid(long.class, tokens.text, start, end, e));
+        }
+    }
+
+    public static double readDouble(TypeConverter.OfDouble converter, String field, int index,
+                                    CharSequence text, int from, int to, RowTokens tokens) {
+        int start = primitiveStart(field, index, text, from, to, tokens);
+        int end = tokens.trimmedEnd(index);
+        try {
+            return converter.convertDouble(tokens.text, start, end);
+        } catch (RuntimeException e) {
+            throw failedField(field, index, text, from, to, FieldConverter.invalid(double.class, tokens.text, start, end, e));
+        }
+    }
+
+    public static boolean readBoolean(TypeConverter.OfBoolean converter, String field, int index,
+                                      CharSequence text, int from, int to, RowTokens tokens) {
+        int start = primitiveStart(field, index, text, from, to, tokens);
+        int end = tokens.trimmedEnd(index);
+        try {
+            return converter.convertBoolean(tokens.text, start, end);
+        } catch (RuntimeException e) {
+            throw failedField(field, index, text, from, to, FieldConverter.invalid(boolean.class, tokens.text, start, end, e));
+        }
+    }
+
+    /**
+     * Func primitiveStart: Start of the trimmed value, fails for a missing column or a blank value
+     * the same way setting null on a primitive field does.
+     */
+    private static int primitiveStart(String field, int index, CharSequence text, int from, int to, RowTokens tokens) {
+        checkColumn(tokens, index, field, text, from, to);
+        int start = tokens.trimmedStart(index);
+        if (Converters.isBlank(tokens.text, start, tokens.trimmedEnd(index))) {
+            throw failedField(field, index, text, from, to,
+                    new NullPointerException("Blank value for primitive field '" + field + "'"));
+        }
+        return start;
+    }
+
+    /**
+     * Func checkColumn: Fails when the line has fewer fields than the column index needs.
+     */
+    public static void checkColumn(RowTokens tokens, int index, String field, CharSequence text, int from, int to) {
+        if (index >= tokens.count) {
+            throw new ParsingException(
+                    "Column index " + index +
+                            " out of bounds for field '" + field +
+                            "'. Expected at least " + (index + 1) +
+                            " columns but found " + tokens.count +
+                            ". Line: " + text.subSequence(from, to)
+            );
+        }
+    }
+
+    /**
+     * Func failedField: Error for a field that could not be converted or set.
+     */
+    public static ParsingException failedField(String field, int index, CharSequence text, int from, int to,
+                                               Throwable e) {
+        return new ParsingException(
+                "Failed parsing field '" + field +
+                        "' at column index " + index +
+                        " in line: " + text.subSequence(from, to), index, e);
+    }
+}
@@ -0,0 +1,310 @@
+package com.viko.parser;
+
+import com.viko.exception.ParsingException;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Class RecordCodec: Compact row oriented binary form of the @Column fields of a record, used for sort runs.
+ * A record is a null bitmap followed by the values of its non null fields in declaration order:
+ * integral values, dates and enum ordinals as zigzag varints, floating point values as their bits,
+ * Strings as a varint length and UTF-8, Instants as seconds and nanos, BigDecimals as scale and unscaled bytes
+ * and UUIDs as two longs. Fields not read from the file are not stored and keep their default.
+ * @param <T> Type of the mapped class.
+ */
+final class RecordCodec<T> {
+
+    private enum Kind {
+        INT,
+        LONG,
+        SHORT,
+        BYTE,
+        CHAR,
+        DOUBLE,
+        FLOAT,
+        BOOLEAN,
+        STRING,
+        DATE,
+        INSTANT,
+        DECIMAL,
+        UUID,
+        ENUM
+    }
+
+    private final ParsePlan<T> plan;
+    private final ParsePlan.ColumnBinding[] columns;
+    private final Kind[] kinds;
+    private final Object[][] constants;
+    private final int nullBytes;
+
+    /**
+     * @throws IllegalArgumentException When a field has a type without a binary form.
+     */
+    RecordCodec(ParsePlan<T> plan) {
+        this.plan = plan;
+        this.columns = plan.columns;
+        this.kinds = new Kind[columns.length];
+        this.constants = new Object[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            kinds[i] = kind(columns[i].type);
+            if (kinds[i] == Kind.ENUM) constants[i] = columns[i].type.getEnumConstants();
+        }
+        this.nullBytes = (columns.length + 7) >>> 3;
+    }
+
+    private static Kind kind(Class<?> type) {
+        if (type == int.class || type == Integer.class) return Kind.INT;
+        if (type == long.class || type == Long.class) return Kind.LONG;
+        if (type == short.class || type == Short.class) return Kind.SHORT;
+        if (type == byte.class || type == Byte.class) return Kind.BYTE;
+        if (type == char.class || type == Character.class) return Kind.CHAR;
+        if (type == double.class || type == Double.class) return Kind.DOUBLE;
+        if (type == float.class || type == Float.class) return Kind.FLOAT;
+        if (type == boolean.class || type == Boolean.class) return Kind.BOOLEAN;
+        if (type == String.class) return Kind.STRING;
+        if (type == LocalDate.class) return Kind.DATE;
+        if (type == Instant.class) return Kind.INSTANT;
+        if (type == BigDecimal.class) return Kind.DECIMAL;
+        if (type == UUID.class) return Kind.UUID;
+        if (type.isEnum()) return Kind.ENUM;
+        throw new IllegalArgumentException("Unsupported field type for sorting: " + type.getName());
+    }
+
+    /**
+     * Func encode: Appends the record to the buffer.
+     */
+    void encode(T record, Bytes out) {
+        int bitmap = out.size;
+        for (int i = 0; i < nullBytes; i++) out.put(0);
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                Field field = columns[i].field;
+                if (field.getType().isPrimitive()) {
+                    switch (kinds[i]) {
+                        case DOUBLE -> out.putLong(Double.doubleToRawLongBits(field.getDouble(record)));
+                        case FLOAT -> out.putInt(Float.floatToRawIntBits(field.getFloat(record)));
+                        case BOOLEAN -> out.put(field.getBoolean(record) ? 1 : 0);
+                        default -> out.putVarLong(field.getLong(record));
+                    }
+                    continue;
+                }
+                Object value = field.get(record);
+                if (value == null) {
+                    out.bytes[bitmap + (i >>> 3)] |= (byte) (1 << (i & 7));
+                    continue;
+                }
+                switch (kinds[i]) {
+                    case INT, LONG, SHORT, BYTE -> out.putVarLong(((Number) value).longValue());
+                    case CHAR -> out.putVarLong((Character) value);
+                    case DOUBLE -> out.putLong(Double.doubleToRawLongBits((Double) value));
+                    case FLOAT -> out.putInt(Float.floatToRawIntBits((Float) value));
+                    case BOOLEAN -> out.put((Boolean) value ? 1 : 0);
+                    case STRING -> out.putString((String) value);
+                    case DATE -> out.putVarLong(((LocalDate) value).toEpochDay());
+                    case INSTANT -> {
+                        out.putVarLong(((Instant) value).getEpochSecond());
+                        out.putVarLong(((Instant) value).getNano());
+                    }
+                    case DECIMAL -> {
+                        byte[] unscaled = ((BigDecimal) value).unscaledValue().toByteArray();
+                        out.putVarLong(((BigDecimal) value).scale());
+                        out.putVarLong(unscaled.length);
+                        out.put(unscaled, 0, unscaled.length);
+                    }
+                    case UUID -> {
+                        out.putLong(((UUID) value).getMostSignificantBits());
+                        out.putLong(((UUID) value).getLeastSignificantBits());
+                    }
+                    case ENUM -> out.putVarLong(((Enum<?>) value).ordinal());
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new ParsingException("Cannot read the fields of " + plan.type.getName(), e);
+        }
+    }
+
+    /**
+     * Func decode: Rebuilds a record written by encode.
+     * @param in Positioned at the start of the record, left after its end
+     */
+    T decode(Bytes.Reader in) {
+        T record;
+        try {
+            record = plan.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ParsingException("Failed creating " + plan.type.getName(), e);
+        }
+        int bitmap = in.position;
+        in.position += nullBytes;
+        for (int i = 0; i < columns.length; i++) {
+            if ((in.bytes[bitmap + (i >>> 3)] & (1 << (i & 7))) != 0) continue;
+            ParsePlan.ColumnBinding column = columns[i];
+            boolean primitive = column.type.isPrimitive();
+            try {
+                switch (kinds[i]) {
+                    case INT -> {
+                        int value = (int) in.varLong();
+                        if (primitive) column.assignInt(record, value);
+                        else column.assign(record, value);
+                    }
+                    case LONG -> {
+                        long value = in.varLong();
+                        if (primitive) column.assignLong(record, value);
+                        else column.assign(record, value);
+                    }
+                    case SHORT -> column.assign(record, (short) in.varLong());
+                    case BYTE -> column.assign(record, (byte) in.varLong());
+                    case CHAR -> column.assign(record, (char) in.varLong());
+                    case DOUBLE -> {
+                        double value = Double.longBitsToDouble(in.getLong());
+                        if (primitive) column.assignDouble(record, value);
+                        else column.assign(record, value);
+                    }
+                    case FLOAT -> column.assign(record, Float.intBitsToFloat(in.getInt()));
+                    case BOOLEAN -> {
+                        boolean value = in.bytes[in.position++] != 0;
+                        if (primitive) column.assignBoolean(record, value);
+                        else column.assign(record, value);
+                    }
+                    case STRING -> column.assign(record, in.string());
+                    case DATE -> column.assign(record, LocalDate.ofEpochDay(in.varLong()));
+                    case INSTANT -> column.assign(record, Instant.ofEpochSecond(in.varLong(), in.varLong()));
+                    case DECIMAL -> {
+                        int scale = (int) in.varLong();
+                        int length = (int) in.varLong();
+                        byte[] unscaled = Arrays.copyOfRange(in.bytes, in.position, in.position + length);
+                        in.position += length;
+                        column.assign(record, new BigDecimal(new BigInteger(unscaled), scale));
+                    }
+                    case UUID -> column.assign(record, new UUID(in.getLong(), in.getLong()));
+                    case ENUM -> column.assign(record, constants[i][(int) in.varLong()]);
+                }
+            } catch (Error | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ParsingException("Failed setting field '" + column.name + "' of " + plan.type.getName(), e);
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Class Bytes: Growable byte buffer records are encoded into.
+     */
+    static final class Bytes {
+        byte[] bytes;
+        int size;
+
+        Bytes(int capacity) {
+            this.bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void put(int b) {
+            if (size == bytes.length) grow(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void put(byte[] source, int from, int length) {
+            if (size + length > bytes.length) grow(length);
+            System.arraycopy(source, from, bytes, size, length);
+            size += length;
+        }
+
+        void putInt(int value) {
+            if (size + 4 > bytes.length) grow(4);
+            for (int shift = 24; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        void putLong(long value) {
+            if (size + 8 > bytes.length) grow(8);
+            for (int shift = 56; shift >= 0; shift -= 8) bytes[size++] = (byte) (value >>> shift);
+        }
+
+        /**
+         * Func putVarLong: Zigzag varint, small values of either sign take one byte.
+         */
+        void putVarLong(long value) {
+            if (size + 10 > bytes.length) grow(10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[size++] = (byte) zigzag;
+        }
+
+        void putString(String value) {
+            int length = value.length();
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) ascii = value.charAt(i) < 0x80;
+            if (!ascii) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                putVarLong(utf8.length);
+                put(utf8, 0, utf8.length);
+                return;
+            }
+            putVarLong(length);
+            if (size + length > bytes.length) grow(length);
+            for (int i = 0; i < length; i++) bytes[size++] = (byte) value.charAt(i);
+        }
+
+        private void grow(int needed) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + needed));
+        }
+
+        /**
+         * Class Reader: Cursor over encoded bytes.
+         */
+        static final class Reader {
+            byte[] bytes;
+            int position;
+
+            void reset(byte[] bytes, int position) {
+                this.bytes = bytes;
+                this.position = position;
+            }
+
+            int getInt() {
+                int value = 0;
+                for (int i = 0; i < 4; i++) value = value << 8 | (bytes[position++] & 0xFF);
+                return value;
+            }
+
+            long getLong() {
+                long value = 0;
+                for (int i = 0; i < 8; i++) value = value << 8 | (bytes[position++] & 0xFF);
+                return value;
+            }
+
+            long varLong() {
+                long zigzag = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    zigzag |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+
+            String string() {
+                int length = (int) varLong();
+                String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+                position += length;
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.viko.parser;
+
+import com.viko.annotations.FileSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Class RecordLines: Records of a reader, one per line unless the FileSource allows multi-line records.
+ * Then a line that ends inside a quoted field is joined with '\n' to the lines after it until the quote is closed.
+ * Without multiLine this is a plain readLine loop.
+ */
+final class RecordLines {
+
+    private final BufferedReader reader;
+    private final GenericParser parser;
+    private final RowTokens tokens;
+    private final String delimiter;
+    private final String[] commentPrefixes;
+    private final boolean multiLine;
+    private final StringBuilder joined = new StringBuilder();
+    private int lineNumber;
+    private int recordLine;
+
+    /**
+     * @param tokens Tokens of the reader, they know the quote and escape chars
+     */
+    RecordLines(BufferedReader reader, GenericParser parser, FileSource source, RowTokens tokens) {
+        this.reader = reader;
+        this.parser = parser;
+        this.tokens = tokens;
+        this.delimiter = source.delimiter();
+        this.commentPrefixes = source.commentPrefixes();
+        //an empty delimiter fails in the split
+        this.multiLine = source.multiLine() && !delimiter.isEmpty();
+    }
+
+    /**
+     * Func next: Reads the next record.
+     * @return The record without its last line break, or null at the end of the file.
+     * A quoted field still open at the end of the file is returned as is, the split reports it.
+     */
+    String next() throws IOException {
+        String line = reader.readLine();
+        if (line == null) return null;
+        lineNumber++;
+        recordLine = lineNumber;
+        if (!multiLine || line.isBlank() || parser.isComment(line, commentPrefixes)
+                || !tokens.endsInQuotes(line, delimiter, false)) {
+            return line;
+        }
+        joined.setLength(0);
+        joined.append(line);
+        boolean open = true;
+        while (open && (line = reader.readLine()) != null) {
+            lineNumber++;
+            joined.append('\n').append(line);
+            open = tokens.endsInQuotes(line, delimiter, true);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * @return Number of the first line of the last record, starting at 1.
+     */
+    int recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * @return Lines read so far, a multi-line record counts all of its lines.
+     */
+    int lineNumber() {
+        return lineNumber;
+    }
+}
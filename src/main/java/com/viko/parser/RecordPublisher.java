@@ -0,0 +1,199 @@
+package com.viko.parser;
+
+import com.viko.exception.GlobalErrorHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class RecordPublisher: Flow.Publisher over the records of a file, read only as far as subscribers ask for.
+ * Every subscriber gets its own reader, opened on the executor at its first request. Signals to one subscriber
+ * come from one drain loop at a time, so they never overlap; the loop reads one item per unit of demand and
+ * stops when demand runs out, which keeps at most the requested items in flight whatever the file size.
+ * @param <T> Type of the mapped class.
+ * @param <I> Type of a published item, a record or a batch of them.
+ */
+final class RecordPublisher<T, I> implements Flow.Publisher<I> {
+
+    /**
+     * Interface Items: Reads the next item of a subscription from its reader.
+     */
+    private interface Items<T, I> {
+        /**
+         * @return Next item, null once the file is done.
+         */
+        I next(RecordReader<T> reader) throws IOException;
+    }
+
+    private final GenericParser parser;
+    private final ParsePlan<T> plan;
+    private final ParsePlan.Projection projection;
+    private final GenericParser.ParsingMode mode;
+    private final Path path;
+    private final Executor executor;
+    private final Items<T, I> items;
+
+    private RecordPublisher(GenericParser parser, ParsePlan<T> plan, ParsePlan.Projection projection,
+                            GenericParser.ParsingMode mode, Path path, Executor executor, Items<T, I> items) {
+        this.parser = parser;
+        this.plan = plan;
+        this.projection = projection;
+        this.mode = mode;
+        this.path = path;
+        this.executor = executor;
+        this.items = items;
+    }
+
+    /**
+     * Func records: Publisher with one item per record.
+     */
+    static <T> RecordPublisher<T, T> records(GenericParser parser, ParsePlan<T> plan,
+                                             ParsePlan.Projection projection, GenericParser.ParsingMode mode,
+                                             Path path, Executor executor) {
+        return new RecordPublisher<>(parser, plan, projection, mode, path, executor, RecordReader::read);
+    }
+
+    /**
+     * Func batches: Publisher with one item per batchSize records, the last batch may be smaller.
+     */
+    static <T> RecordPublisher<T, List<T>> batches(GenericParser parser, ParsePlan<T> plan,
+                                                   ParsePlan.Projection projection, GenericParser.ParsingMode mode,
+                                                   Path path, Executor executor, int batchSize) {
+        return new RecordPublisher<>(parser, plan, projection, mode, path, executor, reader -> {
+            List<T> batch = new ArrayList<>(Math.min(batchSize, 1024));
+            T record;
+            while (batch.size() < batchSize && (record = reader.read()) != null) batch.add(record);
+            return batch.isEmpty() ? null : batch;
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super I> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+        subscriber.onSubscribe(new Subscription(subscriber));
+    }
+
+    /**
+     * Class Subscription: Demand and reader of one subscriber. Requests and cancels only count up and schedule
+     * the drain loop; the reader is only touched inside the loop.
+     */
+    private final class Subscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super I> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        /** Signals since the loop last looked, the loop runs while it is above zero. */
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException badRequest;
+        private RecordReader<T> reader;
+        /** Set once the terminal signal is due, read by schedule when the executor rejects the loop. */
+        private volatile boolean done;
+
+        Subscription(Flow.Subscriber<? super I> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Requested " + n + " items, the demand must be positive");
+            } else {
+                //unbounded once it overflows
+                demand.accumulateAndGet(n, (current, more) -> current + more < 0 ? Long.MAX_VALUE : current + more);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() != 0) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                //no loop is running or will run, so the reader can be closed here;
+                //a subscription that already ended got its terminal signal
+                if (finish()) subscriber.onError(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            while (!done) {
+                if (cancelled) {
+                    finish();
+                    return;
+                }
+                if (badRequest != null) {
+                    finish();
+                    subscriber.onError(badRequest);
+                    return;
+                }
+                if (demand.get() == 0) return;
+                I item;
+                try {
+                    if (reader == null) {
+                        reader = new RecordReader<>(Files.newBufferedReader(path), parser, plan, projection, mode,
+                                path);
+                    }
+                    item = items.next(reader);
+                } catch (IOException | RuntimeException e) {
+                    //STRICT parse failures and read errors end the subscription, LENIENT ones only reach errors()
+                    finish();
+                    subscriber.onError(e);
+                    return;
+                }
+                if (item == null) {
+                    finish();
+                    subscriber.onComplete();
+                    return;
+                }
+                if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+                try {
+                    subscriber.onNext(item);
+                } catch (RuntimeException e) {
+                    //a subscriber may not throw, treat it as cancelled
+                    finish();
+                    GlobalErrorHandler.log("Subscriber failed in onNext, its subscription is cancelled", e);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Func finish: Ends the subscription and closes the file, at most once.
+         * @return true when this call ended it, false when it had already ended.
+         */
+        private boolean finish() {
+            if (done) return false;
+            done = true;
+            cancelled = true;
+            if (reader == null) return true;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                GlobalErrorHandler.log("Failed closing " + path, e);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.viko.parser;
+
+import com.viko.exception.DuplicateKeyException;
+import com.viko.exception.ErrorRecord;
+import com.viko.exception.ParsingException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Class RecordReader: Pull based line loop shared by parse, parseStream and forEach.
+ * Reads one record at a time, so memory use does not depend on the size of the file.
+ * @param <T> Type of the mapped class.
+ */
+final class RecordReader<T> implements Closeable {
+
+    private final BufferedReader reader;
+    private final RecordLines lines;
+    private final GenericParser parser;
+    private final ParsePlan<T> plan;
+    private final ParsePlan.Projection projection;
+    private final GenericParser.ParsingMode mode;
+    private final String delimiter;
+    private final String[] commentPrefixes;
+    private final RowTokens tokens;
+    private final ParseRecorder metrics;
+    /** Seen keys of this run, null when duplicates are not looked for. */
+    private final KeyIndex keyIndex;
+    private final KeyIndex.RowKeys keys;
+    /** Also gets every error reported for this file, null when only errors() should. */
+    private List<ErrorRecord> errors;
+    private int lineNumber = 0;
+
+    /**
+     * @param projection Columns to convert and rows to keep, plan.all for everything
+     * @param source File being read, named in the metrics
+     */
+    RecordReader(BufferedReader reader, GenericParser parser, ParsePlan<T> plan, ParsePlan.Projection projection,
+                 GenericParser.ParsingMode mode, Object source) {
+        this.reader = reader;
+        this.parser = parser;
+        this.plan = plan;
+        this.projection = projection;
+        this.mode = mode;
+        this.delimiter = plan.fileSource.delimiter();
+        this.commentPrefixes = plan.fileSource.commentPrefixes();
+        this.tokens = new RowTokens(plan.fileSource);
+        this.lines = new RecordLines(reader, parser, plan.fileSource, tokens);
+        this.metrics = new ParseRecorder(parser, plan, source);
+        this.keyIndex = parser.keyIndex(plan, false);
+        this.keys = keyIndex == null ? null : keyIndex.rowKeys();
+    }
+
+    /**
+     * Func read: Advances to the next line that parses into a record.
+     * Blank lines, comments and rows dropped by a filter are skipped, failing lines are logged and skipped in LENIENT mode.
+     * @return Next record, or null once the end of the file is reached.
+     * @throws IOException When reading from the file fails.
+     * @throws ParsingException In STRICT mode, for the first line that fails to parse.
+     */
+    T read() throws IOException {
+        String line;
+        long clock = metrics.now();
+        //while valid lines ->
+        while ((line = lines.next()) != null) {
+            clock = metrics.io(clock);
+            //added line numbering counter, a multi-line record is named by its first line
+            lineNumber = lines.recordLine();
+            metrics.bytes += line.length() + 1;
+            //skip \n empty lines
+            if (line.isBlank()) {
+                metrics.blankLines++;
+                continue;
+            }
+            //skip comments
+            if (parser.isComment(line, commentPrefixes)) {
+                metrics.commentLines++;
+                continue;
+            }
+            try {
+                int from = RowTokens.trimStart(line, 0, line.length());
+                int to = RowTokens.trimEnd(line, from, line.length());
+                T record = parser.parseLine(line, from, to, plan, projection, delimiter, tokens);
+                if (record != null) {
+                    //a rejected duplicate throws, a flagged one is only reported
+                    DuplicateKeyException duplicate = keys == null ? null : keys.check(line, from, to, tokens);
+                    if (duplicate != null) report(line, duplicate);
+                    metrics.parse(clock);
+                    metrics.rows++;
+                    return record;
+                }
+                metrics.filteredLines++;
+            } catch (ReflectiveOperationException | ParsingException e) {
+                metrics.failed(e);
+                //record where error occurred
+                report(line, e);
+                if (mode == GenericParser.ParsingMode.STRICT) {
+                    metrics.finish();
+                    throw new ParsingException("Parsing failed at line " + lineNumber + ": " + line, e);
+                }
+            }
+            clock = metrics.parse(clock);
+        }
+        metrics.io(clock);
+        metrics.finish();
+        return null;
+    }
+
+    private void report(String line, Throwable t) {
+        ErrorRecord error = ErrorRecord.of(lineNumber, line, t);
+        if (errors != null) errors.add(error);
+        parser.errors().report(error, t);
+    }
+
+    /**
+     * Func keepErrors: Adds the errors of this file to a list as well as reporting them to errors().
+     * @param errors List the errors are added to, in line order
+     * @return this
+     */
+    RecordReader<T> keepErrors(List<ErrorRecord> errors) {
+        this.errors = errors;
+        return this;
+    }
+
+    /**
+     * @return Number of the last line read from the file, starting at 1.
+     */
+    int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return Lines that failed to parse so far.
+     */
+    long failedLines() {
+        return metrics.failedLines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        //a stream closed before its end still reports what it read
+        metrics.finish();
+        parser.errors().flush();
+        if (keyIndex != null) keyIndex.close();
+        reader.close();
+    }
+}
@@ -0,0 +1,13 @@
+package com.viko.parser;
+
+import java.util.List;
+
+/**
+ * Record RejectedRecord: A line that did not make it into the accepted records,
+ * either because it failed to parse (LENIENT mode) or because it broke a validation rule.
+ * @param lineNumber Line number in the file, starting at 1
+ * @param line The line as read from the file
+ * @param messages Parsing error or validation messages, in the order they were found
+ */
+public record RejectedRecord(int lineNumber, String line, List<String> messages) {
+}
@@ -0,0 +1,382 @@
+package com.viko.parser;
+
+import com.viko.annotations.FileSource;
+import com.viko.exception.ParsingException;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Class RowTokens: Field boundaries of one line, found without regex and without a String[].
+ * One instance is reused for every line of a reader, the arrays only grow when a wider line shows up.
+ * Public so generated parsers can read the fields of a line the parser already split.
+ * <p>
+ * With a quote char set on the FileSource, fields are found by a single pass state machine instead:
+ * quoted fields may hold the delimiter, doubled quotes and escaped chars. Their boundaries point inside the quotes,
+ * and a line with a doubled quote or an escape is rewritten into a reused buffer, which text then points at.
+ */
+public final class RowTokens {
+
+    CharSequence text;
+    int[] starts = new int[16];
+    int[] ends = new int[16];
+    int count;
+    private final Value value = new Value();
+    /** '\0' when quoting is off. */
+    private final char quote;
+    private final char escape;
+    /** Set for fields that were quoted, their value is not trimmed and they are never dropped as trailing empty. */
+    private boolean[] quoted;
+    private boolean anyQuoted;
+    private StringBuilder unescaped;
+
+    RowTokens() {
+        this.quote = '\0';
+        this.escape = '\0';
+    }
+
+    /**
+     * @param source FileSource of the mapped class, null for plain splitting
+     * @throws IllegalArgumentException When the delimiter contains the quote char or multiLine is set without one.
+     */
+    RowTokens(FileSource source) {
+        this.quote = source == null ? '\0' : source.quote();
+        this.escape = source == null ? '\0' : source.escape();
+        if (source == null) return;
+        if (quote == '\0' && source.multiLine()) {
+            throw new IllegalArgumentException("multiLine records need a quote char");
+        }
+        if (quote != '\0') {
+            if (source.delimiter().indexOf(quote) >= 0) {
+                throw new IllegalArgumentException("Delimiter must not contain the quote char " + quote);
+            }
+            quoted = new boolean[starts.length];
+        }
+    }
+
+    /**
+     * @return Number of fields in the last split line.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Func split: Finds the fields of text[from, to) separated by the delimiter.
+     * Matches the String.split rules used before: a leading empty field is kept,
+     * trailing empty fields are dropped and a line without any delimiter is a single field.
+     * @param text Line to split
+     * @param from Start of the line
+     * @param to End of the line, exclusive
+     * @param delimiter Non empty delimiter, may be longer than a single char
+     */
+    void split(CharSequence text, int from, int to, String delimiter) {
+        split(text, from, to, delimiter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Func split: Same as above, but stops scanning once the first fields fields are found.
+     * The fields found are the same as with a full split, count is capped at fields.
+     * @param fields Fields the caller needs, at least 1
+     */
+    void split(CharSequence text, int from, int to, String delimiter, int fields) {
+        if (quote != '\0') {
+            splitQuoted(text, from, to, delimiter, fields);
+            return;
+        }
+        this.text = text;
+        this.count = 0;
+        int length = delimiter.length();
+        char first = delimiter.charAt(0);
+        int tokenStart = from;
+        int last = to - length;
+        boolean matched = false;
+        for (int i = from; i <= last; ) {
+            if (text.charAt(i) == first && regionMatches(text, i, delimiter, length)) {
+                add(tokenStart, i);
+                i += length;
+                tokenStart = i;
+                matched = true;
+                if (count == fields) {
+                    //empty fields found so far are only trailing ones if nothing but delimiters follows
+                    if (onlyDelimiters(text, i, to, delimiter)) dropTrailingEmpty();
+                    return;
+                }
+            } else {
+                i++;
+            }
+        }
+        add(tokenStart, to);
+        if (!matched) return;
+        dropTrailingEmpty();
+    }
+
+    /**
+     * Func splitQuoted: Quote aware split, one pass over the line without backtracking.
+     * Unquoted fields are scanned like in the plain split and keep a quote inside them as text.
+     * A field is quoted when its first char after leading spaces is the quote char, only spaces may follow
+     * its closing quote. Everything else matches the plain split, including the trailing empty field rules.
+     * @throws ParsingException For an unterminated quoted field or text after a closing quote.
+     */
+    private void splitQuoted(CharSequence text, int from, int to, String delimiter, int fields) {
+        this.text = text;
+        this.count = 0;
+        this.anyQuoted = false;
+        int length = delimiter.length();
+        char first = delimiter.charAt(0);
+        //once a field needs unescaping the rest of the line is copied, positions then refer to the copy
+        StringBuilder out = null;
+        boolean matched = false;
+        int i = from;
+        while (true) {
+            int lead = i;
+            char c;
+            while (lead < to && (c = text.charAt(lead)) <= ' ' && c != first) lead++;
+            int fieldEnd;
+            if (lead < to && text.charAt(lead) == quote) {
+                int k = lead + 1;
+                int start = out == null ? k : out.length();
+                boolean open = true;
+                while (k < to) {
+                    c = text.charAt(k);
+                    char literal;
+                    if (c == quote) {
+                        if (k + 1 < to && text.charAt(k + 1) == quote) {
+                            literal = quote;
+                        } else {
+                            open = false;
+                            break;
+                        }
+                    } else if (c == escape && escape != '\0' && k + 1 < to) {
+                        literal = text.charAt(k + 1);
+                    } else {
+                        if (out != null) out.append(c);
+                        k++;
+                        continue;
+                    }
+                    if (out == null) out = unescape(text, k);
+                    out.append(literal);
+                    k += 2;
+                }
+                if (open) {
+                    throw new ParsingException("Unterminated quoted field at column index " + count
+                            + ". Line: " + text.subSequence(from, to));
+                }
+                addQuoted(start, out == null ? k : out.length());
+                //only spaces may sit between the closing quote and the next delimiter
+                k++;
+                while (k < to && (c = text.charAt(k)) <= ' ' && c != first) k++;
+                if (k < to && !(text.charAt(k) == first && regionMatches(text, k, delimiter, length))) {
+                    throw new ParsingException("Unexpected '" + text.charAt(k) + "' after the closing quote at column index "
+                            + (count - 1) + ". Line: " + text.subSequence(from, to));
+                }
+                fieldEnd = k;
+            } else {
+                int k = i;
+                int last = to - length;
+                while (k <= last && !(text.charAt(k) == first && regionMatches(text, k, delimiter, length))) k++;
+                fieldEnd = k <= last ? k : to;
+                if (out == null) {
+                    add(i, fieldEnd);
+                } else {
+                    int start = out.length();
+                    out.append(text, i, fieldEnd);
+                    add(start, out.length());
+                }
+            }
+            if (fieldEnd == to) break;
+            i = fieldEnd + length;
+            matched = true;
+            if (count == fields) {
+                if (onlyDelimiters(text, i, to, delimiter)) dropTrailingEmpty();
+                if (out != null) this.text = out;
+                return;
+            }
+            if (i == to) {
+                //a line ending in a delimiter has an empty last field
+                add(out == null ? i : out.length(), out == null ? i : out.length());
+                break;
+            }
+        }
+        if (out != null) this.text = out;
+        if (matched) dropTrailingEmpty();
+    }
+
+    /**
+     * Func endsInQuotes: Tells whether a quoted field is still open at the end of a physical line,
+     * the readers use it to join the lines of a multi-line record. Follows the rules of the quote aware split.
+     * @param line Physical line, without its line break
+     * @param delimiter Non empty delimiter
+     * @param open Whether the line starts inside a quoted field left open by the lines before it
+     */
+    boolean endsInQuotes(CharSequence line, String delimiter, boolean open) {
+        int length = delimiter.length();
+        char first = delimiter.charAt(0);
+        int to = line.length();
+        int last = to - length;
+        int k = 0;
+        while (true) {
+            char c;
+            if (!open) {
+                while (k < to && (c = line.charAt(k)) <= ' ' && c != first) k++;
+                if (k < to && line.charAt(k) == quote) {
+                    open = true;
+                    k++;
+                } else {
+                    //unquoted field, runs to the next delimiter
+                    while (k <= last && !(line.charAt(k) == first && regionMatches(line, k, delimiter, length))) k++;
+                    if (k > last) return false;
+                    k += length;
+                    continue;
+                }
+            }
+            while (k < to) {
+                c = line.charAt(k);
+                if (c == quote) {
+                    if (k + 1 < to && line.charAt(k + 1) == quote) k += 2;
+                    else break;
+                } else if (c == escape && escape != '\0' && k + 1 < to) {
+                    k += 2;
+                } else {
+                    k++;
+                }
+            }
+            if (k >= to) return true;
+            open = false;
+            //text after the closing quote is for the split to report
+            k++;
+            while (k <= last && !(line.charAt(k) == first && regionMatches(line, k, delimiter, length))) k++;
+            if (k > last) return false;
+            k += length;
+        }
+    }
+
+    /**
+     * Func unescape: Starts the rewritten copy of the line, with the same positions as the line up to at.
+     */
+    private StringBuilder unescape(CharSequence text, int at) {
+        if (unescaped == null) unescaped = new StringBuilder(text.length());
+        unescaped.setLength(0);
+        unescaped.append(text, 0, at);
+        return unescaped;
+    }
+
+    /**
+     * Func dropTrailingEmpty: Drops trailing empty fields, a quoted empty field is a value and stays.
+     */
+    private void dropTrailingEmpty() {
+        while (count > 0 && starts[count - 1] == ends[count - 1] && !(anyQuoted && quoted[count - 1])) count--;
+    }
+
+    private static boolean onlyDelimiters(CharSequence text, int from, int to, String delimiter) {
+        int length = delimiter.length();
+        while (from + length <= to && text.charAt(from) == delimiter.charAt(0)
+                && regionMatches(text, from, delimiter, length)) {
+            from += length;
+        }
+        return from == to;
+    }
+
+    /**
+     * Func trimmedStart: Start of field index with leading spaces and control chars skipped, like String.trim.
+     */
+    public int trimmedStart(int index) {
+        if (anyQuoted && quoted[index]) return starts[index];
+        return trimStart(text, starts[index], ends[index]);
+    }
+
+    /**
+     * Func trimmedEnd: End of field index with trailing spaces and control chars skipped, like String.trim.
+     * Never before trimmedStart, a blank field is empty at its end.
+     */
+    public int trimmedEnd(int index) {
+        if (anyQuoted && quoted[index]) return ends[index];
+        return trimEnd(text, trimStart(text, starts[index], ends[index]), ends[index]);
+    }
+
+    /**
+     * Func value: Trimmed text of field index as a view over the line.
+     * The view is reused, it is only valid until the next call.
+     */
+    CharSequence value(int index) {
+        value.start = trimmedStart(index);
+        //trimmed from the start, so a blank field gives an empty view
+        value.end = anyQuoted && quoted[index] ? ends[index] : trimEnd(text, value.start, ends[index]);
+        return value;
+    }
+
+    /**
+     * Func trimStart: First index of text[from, to) that is not a space or control char.
+     */
+    static int trimStart(CharSequence text, int from, int to) {
+        while (from < to && text.charAt(from) <= ' ') from++;
+        return from;
+    }
+
+    /**
+     * Func trimEnd: End of text[from, to) with trailing spaces and control chars skipped.
+     */
+    static int trimEnd(CharSequence text, int from, int to) {
+        while (to > from && text.charAt(to - 1) <= ' ') to--;
+        return to;
+    }
+
+    private static boolean regionMatches(CharSequence text, int at, String delimiter, int length) {
+        for (int k = 1; k < length; k++) {
+            if (text.charAt(at + k) != delimiter.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private void add(int start, int end) {
+        if (count == starts.length) grow();
+        if (quote != '\0') quoted[count] = false;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private void addQuoted(int start, int end) {
+        if (count == starts.length) grow();
+        quoted[count] = true;
+        anyQuoted = true;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private void grow() {
+        starts = Arrays.copyOf(starts, count * 2);
+        ends = Arrays.copyOf(ends, count * 2);
+        if (quoted != null) quoted = Arrays.copyOf(quoted, count * 2);
+    }
+
+    /**
+     * Class Value: Window over the current text, handed to ParseOptions filters without copying the field.
+     */
+    private final class Value implements CharSequence {
+        int start;
+        int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return text.charAt(start + Objects.checkIndex(index, end - start));
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            Objects.checkFromToIndex(from, to, end - start);
+            return text.subSequence(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return text.subSequence(start, end).toString();
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.viko.parser;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Class SnapshotCache: Opt in cache of parsed files as binary, column oriented snapshots.
+ * After a parse without failed lines the records are written column by column to the cache directory.
+ * The next parse of the same file memory maps the snapshot and fills the objects from it, no text is parsed.
+ * <p>
+ * A snapshot is keyed by the absolute path, size and modification time of the source and by the column schema
+ * of the class (names, indexes, types, converters and the class file itself), a change to any of them makes
+ * the next parse read the text again and replace the snapshot.
+ * Snapshots use at most maxBytes of disk, the least recently used ones are deleted first.
+ * Last use is kept as the snapshot's modification time, so it survives restarts and is shared by processes
+ * using the same directory.
+ * <p>
+ * Only classes whose fields all have a columnar type (see forEachBatch) are cached, others are always parsed.
+ */
+public final class SnapshotCache {
+
+    private static final Logger logger = LogManager.getLogger(SnapshotCache.class);
+
+    private static final int MAGIC = 0x56534E50; //"VSNP"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".snap";
+
+    /** Schema per class, the class file is only read once. */
+    private static final ClassValue<String> SCHEMAS = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return schema(ParsePlan.of(type));
+        }
+    };
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory Where snapshots are kept, created when missing
+     * @param maxBytes Disk budget for all snapshots in the directory
+     * @throws IOException When the directory can't be created.
+     */
+    public SnapshotCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive");
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Func clear: Deletes every snapshot in the directory.
+     */
+    public void clear() throws IOException {
+        for (Path snapshot : snapshots()) Files.deleteIfExists(snapshot);
+    }
+
+    /**
+     * Func parse: Loads the file from its snapshot when there is a valid one, otherwise parses it and,
+     * when no line failed, writes a snapshot for the next time.
+     * @return Records in file order.
+     */
+    <T> List<T> parse(GenericParser parser, Path source, ParsePlan<T> plan, GenericParser.ParsingMode mode)
+            throws IOException {
+        Key key = key(source, plan);
+        if (key == null) return read(parser, source, plan, mode, null, null);
+        Path snapshot = directory.resolve(UUID.nameUUIDFromBytes(
+                (key.source + '\0' + plan.type.getName()).getBytes(StandardCharsets.UTF_8)) + SUFFIX);
+        if (Files.exists(snapshot)) {
+            try {
+                List<T> records = load(parser, snapshot, key, plan);
+                if (records != null) return records;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Dropping unreadable snapshot {} of {}: {}", snapshot, source, e.toString());
+            }
+            Files.deleteIfExists(snapshot);
+        }
+        return read(parser, source, plan, mode, snapshot, key);
+    }
+
+    /**
+     * Func read: Parses the text, then writes the snapshot when a target is given.
+     * @param snapshot Where the snapshot goes, null to only parse
+     * @param key Key of the source taken before reading
+     */
+    private <T> List<T> read(GenericParser parser, Path source, ParsePlan<T> plan, GenericParser.ParsingMode mode,
+                             Path snapshot, Key key) throws IOException {
+        List<T> records = new ArrayList<>();
+        try (RecordReader<T> reader =
+                     new RecordReader<>(Files.newBufferedReader(source), parser, plan, plan.all, mode, source)) {
+            T record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+            //a snapshot can't replay the error reports, files with failed lines are always parsed
+            if (snapshot == null || reader.failedLines() > 0) return records;
+        }
+        //changed while it was read, the records may not match the key
+        if (!key.equals(key(source, plan))) return records;
+        try {
+            write(snapshot, key, plan, records);
+            evict(snapshot);
+        } catch (IOException | ReflectiveOperationException e) {
+            logger.warn("Failed writing snapshot of {}: {}", source, e.toString());
+        }
+        return records;
+    }
+
+    /**
+     * Func key: What a snapshot has to match to stand for the source.
+     * @return Key, or null when the class has a field that can't be stored in columns.
+     */
+    private static Key key(Path source, ParsePlan<?> plan) throws IOException {
+        String schema = SCHEMAS.get(plan.type);
+        if (schema.isEmpty()) return null;
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        return new Key(source.toAbsolutePath().normalize().toString(), attributes.size(),
+                attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), schema);
+    }
+
+    /**
+     * Func schema: Column names, indexes, types and converters plus a checksum of the class file.
+     * @return Schema, empty when a field has no columnar type.
+     */
+    private static String schema(ParsePlan<?> plan) {
+        StringBuilder schema = new StringBuilder(plan.type.getName());
+        for (ParsePlan.ColumnBinding column : plan.columns) {
+            try {
+                ColumnarReader.columnType(column.type);
+            } catch (IllegalArgumentException e) {
+                return "";
+            }
+            schema.append(';').append(column.name).append(':').append(column.index).append(':')
+                    .append(column.type.getName()).append(':')
+                    .append(column.typeConverter == null ? "" : column.typeConverter.getClass().getName());
+        }
+        return schema.append(';').append(classChecksum(plan.type)).toString();
+    }
+
+    /**
+     * Func classChecksum: CRC of the class file, so a recompiled class with changed code gets a new schema.
+     */
+    private static long classChecksum(Class<?> type) {
+        String name = type.getName();
+        try (InputStream in = type.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            if (in == null) return 0;
+            CRC32 crc = new CRC32();
+            crc.update(in.readAllBytes());
+            return crc.getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Func write: Writes the snapshot next to its final name and moves it over, readers never see half a file.
+     * Layout: header, then per column its type, the null bitmap and the values
+     * (epoch days for dates, a dictionary and codes for Strings).
+     */
+    private static <T> void write(Path snapshot, Key key, ParsePlan<T> plan, List<T> records)
+            throws IOException, ReflectiveOperationException {
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        int rows = records.size();
+        try (Output out = new Output(FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))) {
+            out.putInt(MAGIC).putInt(VERSION).putString(key.source).putLong(key.size).putLong(key.modified)
+                    .putString(key.schema).putInt(rows);
+            for (ParsePlan.ColumnBinding column : plan.columns) {
+                ColumnarBatch.ColumnType type = ColumnarReader.columnType(column.type);
+                Object[] values = new Object[rows];
+                long[] nulls = new long[(rows + 63) >>> 6];
+                for (int r = 0; r < rows; r++) {
+                    values[r] = column.field.get(records.get(r));
+                    if (values[r] == null) nulls[r >>> 6] |= 1L << r;
+                }
+                out.put((byte) type.ordinal());
+                for (long bits : nulls) out.putLong(bits);
+                writeValues(out, type, values);
+            }
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeValues(Output out, ColumnarBatch.ColumnType type, Object[] values) throws IOException {
+        switch (type) {
+            case INT -> {
+                for (Object value : values) out.putInt(value == null ? 0 : (Integer) value);
+            }
+            case LONG -> {
+                for (Object value : values) out.putLong(value == null ? 0 : (Long) value);
+            }
+            case DOUBLE -> {
+                for (Object value : values) out.putDouble(value == null ? 0 : (Double) value);
+            }
+            case BOOLEAN -> {
+                for (Object value : values) out.put((byte) (Boolean.TRUE.equals(value) ? 1 : 0));
+            }
+            case DATE -> {
+                for (Object value : values) {
+                    out.putInt(value == null ? 0 : Math.toIntExact(((LocalDate) value).toEpochDay()));
+                }
+            }
+            case STRING -> {
+                StringDictionary dictionary = new StringDictionary();
+                int[] codes = new int[values.length];
+                for (int r = 0; r < values.length; r++) {
+                    String value = (String) values[r];
+                    codes[r] = value == null ? -1 : dictionary.code(value, 0, value.length());
+                }
+                String[] distinct = dictionary.values();
+                out.putInt(distinct.length);
+                for (String value : distinct) out.putString(value);
+                for (int code : codes) out.putInt(code);
+            }
+        }
+    }
+
+    /**
+     * Func load: Rebuilds the records from a mapped snapshot and marks it as used.
+     * @return Records, or null when the snapshot belongs to another version of the source or class.
+     */
+    private static <T> List<T> load(GenericParser parser, Path snapshot, Key key, ParsePlan<T> plan)
+            throws IOException {
+        ParseRecorder metrics = new ParseRecorder(parser, plan, key.source);
+        List<T> records;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            metrics.bytes = channel.size();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            if (!readString(buffer).equals(key.source) || buffer.getLong() != key.size
+                    || buffer.getLong() != key.modified || !readString(buffer).equals(key.schema)) {
+                return null;
+            }
+            int rows = buffer.getInt();
+            Column[] columns = new Column[plan.columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                ColumnarBatch.ColumnType type = ColumnarBatch.ColumnType.values()[buffer.get()];
+                if (type != ColumnarReader.columnType(plan.columns[i].type)) return null;
+                columns[i] = readColumn(buffer, type, rows);
+            }
+            //columns are read in bulk, objects are filled a row at a time while they are still in cache
+            records = new ArrayList<>(rows);
+            for (int r = 0; r < rows; r++) {
+                T record = plan.newInstance();
+                for (int i = 0; i < columns.length; i++) {
+                    fill(plan.columns[i], columns[i], record, r);
+                }
+                records.add(record);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Failed rebuilding " + plan.type.getName() + " from " + snapshot, e);
+        }
+        //the modification time is the LRU clock
+        Files.setLastModifiedTime(snapshot, FileTime.fromMillis(System.currentTimeMillis()));
+        metrics.rows = records.size();
+        metrics.finish();
+        return records;
+    }
+
+    /**
+     * Func readColumn: Copies the null bitmap and the values of one column out of the mapping.
+     */
+    private static Column readColumn(ByteBuffer buffer, ColumnarBatch.ColumnType type, int rows) {
+        long[] nulls = new long[(rows + 63) >>> 6];
+        buffer.asLongBuffer().get(nulls);
+        skip(buffer, nulls.length * 8L);
+        String[] dictionary = null;
+        Object values;
+        switch (type) {
+            case INT, DATE -> {
+                int[] ints = new int[rows];
+                buffer.asIntBuffer().get(ints);
+                skip(buffer, rows * 4L);
+                values = ints;
+            }
+            case LONG -> {
+                long[] longs = new long[rows];
+                buffer.asLongBuffer().get(longs);
+                skip(buffer, rows * 8L);
+                values = longs;
+            }
+            case DOUBLE -> {
+                double[] doubles = new double[rows];
+                buffer.asDoubleBuffer().get(doubles);
+                skip(buffer, rows * 8L);
+                values = doubles;
+            }
+            case BOOLEAN -> {
+                byte[] bytes = new byte[rows];
+                buffer.get(bytes);
+                values = bytes;
+            }
+            default -> {
+                dictionary = new String[buffer.getInt()];
+                for (int i = 0; i < dictionary.length; i++) dictionary[i] = readString(buffer);
+                int[] codes = new int[rows];
+                buffer.asIntBuffer().get(codes);
+                skip(buffer, rows * 4L);
+                values = codes;
+            }
+        }
+        return new Column(type, nulls, values, dictionary);
+    }
+
+    /**
+     * Func fill: Sets the value of row r on the record, primitive fields without boxing.
+     */
+    private static void fill(ParsePlan.ColumnBinding binding, Column column, Object record, int r)
+            throws ReflectiveOperationException {
+        try {
+            if ((column.nulls[r >>> 6] & (1L << r)) != 0) {
+                binding.assign(record, null);
+                return;
+            }
+            boolean primitive = binding.type.isPrimitive();
+            switch (column.type) {
+                case INT -> {
+                    int value = ((int[]) column.values)[r];
+                    if (primitive) binding.assignInt(record, value);
+                    else binding.assign(record, value);
+                }
+                case LONG -> {
+                    long value = ((long[]) column.values)[r];
+                    if (primitive) binding.assignLong(record, value);
+                    else binding.assign(record, value);
+                }
+                case DOUBLE -> {
+                    double value = ((double[]) column.values)[r];
+                    if (primitive) binding.assignDouble(record, value);
+                    else binding.assign(record, value);
+                }
+                case BOOLEAN -> {
+                    boolean value = ((byte[]) column.values)[r] != 0;
+                    if (primitive) binding.assignBoolean(record, value);
+                    else binding.assign(record, value);
+                }
+                case DATE -> binding.assign(record, LocalDate.ofEpochDay(((int[]) column.values)[r]));
+                case STRING -> binding.assign(record, column.dictionary[((int[]) column.values)[r]]);
+            }
+        } catch (ReflectiveOperationException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InstantiationException("Failed setting " + binding.name + ": " + t);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skip(ByteBuffer buffer, long bytes) {
+        buffer.position(Math.toIntExact(buffer.position() + bytes));
+    }
+
+    /**
+     * Func evict: Deletes the least recently used snapshots until the directory fits the budget.
+     * @param written Snapshot just written, only deleted when it alone is over the budget
+     */
+    private void evict(Path written) throws IOException {
+        List<Path> snapshots = snapshots();
+        List<Entry> entries = new ArrayList<>(snapshots.size());
+        long total = 0;
+        for (Path snapshot : snapshots) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(snapshot, BasicFileAttributes.class);
+                //the one just written counts as the most recent, whatever the clock granularity says
+                long used = snapshot.equals(written) ? Long.MAX_VALUE : attributes.lastModifiedTime().toMillis();
+                entries.add(new Entry(snapshot, attributes.size(), used));
+                total += attributes.size();
+            } catch (IOException e) {
+                //deleted by another process in the meantime
+            }
+        }
+        entries.sort(Comparator.comparingLong(Entry::used));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) break;
+            Files.deleteIfExists(entry.snapshot);
+            total -= entry.size;
+            logger.debug("Evicted snapshot {} ({} bytes)", entry.snapshot, entry.size);
+        }
+    }
+
+    private List<Path> snapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) snapshots.add(file);
+        }
+        return snapshots;
+    }
+
+    private record Key(String source, long size, long modified, String schema) {
+    }
+
+    private record Entry(Path snapshot, long size, long used) {
+    }
+
+    /**
+     * Class Output: Buffered big endian writer over a channel, same layout as DataOutputStream
+     * without its per call locking. Strings are length prefixed UTF-8, writeUTF would stop at 64KB.
+     */
+    private static final class Output implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private ByteBuffer room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+            return buffer;
+        }
+
+        Output put(byte value) throws IOException {
+            room(1).put(value);
+            return this;
+        }
+
+        Output putInt(int value) throws IOException {
+            room(4).putInt(value);
+            return this;
+        }
+
+        Output putLong(long value) throws IOException {
+            room(8).putLong(value);
+            return this;
+        }
+
+        Output putDouble(double value) throws IOException {
+            room(8).putDouble(value);
+            return this;
+        }
+
+        Output putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int i = 0; i < bytes.length; ) {
+                int n = Math.min(bytes.length - i, room(1).remaining());
+                buffer.put(bytes, i, n);
+                i += n;
+            }
+            return this;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Record Column: One column read from a snapshot, values is the primitive array of its type
+     * (epoch days for dates, dictionary codes for Strings, one byte per boolean).
+     */
+    private record Column(ColumnarBatch.ColumnType type, long[] nulls, Object values, String[] dictionary) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.viko.parser;
+
+import com.viko.exception.ParsingException;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Class Sort: Order spec for GenericParser.sorted, by one or more @Column fields.
+ * Instances are immutable, every call returns a new one:
+ * <pre>
+ * Sort.by("timestamp").thenDescending("amount").memoryBytes(256L &lt;&lt; 20)
+ * </pre>
+ * Rows are collected in memory up to the budget, sorted and spilled to a temp file as one run, the runs are
+ * merged once the file is read. Numbers, booleans, dates and enums (by ordinal) sort by value, other fields
+ * need a Comparable type (String, BigDecimal, Instant, UUID, ...). Blank values sort last in both directions.
+ */
+public final class Sort {
+
+    /** Memory for buffered rows when no budget is set. */
+    public static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+
+    private final String[] columns;
+    private final boolean[] descending;
+    private final long memoryBytes;
+    /** Null for java.io.tmpdir. */
+    private final Path tempDirectory;
+
+    private Sort(String[] columns, boolean[] descending, long memoryBytes, Path tempDirectory) {
+        this.columns = columns;
+        this.descending = descending;
+        this.memoryBytes = memoryBytes;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Func by: Starts a spec sorting by the column, smallest first.
+     * @param column Name of a @Column field
+     */
+    public static Sort by(String column) {
+        return new Sort(new String[0], new boolean[0], DEFAULT_MEMORY_BYTES, null).then(column);
+    }
+
+    public static Sort byDescending(String column) {
+        return new Sort(new String[0], new boolean[0], DEFAULT_MEMORY_BYTES, null).thenDescending(column);
+    }
+
+    /**
+     * Func then: Sorts rows that are equal so far by another column, smallest first.
+     */
+    public Sort then(String column) {
+        return with(column, false);
+    }
+
+    public Sort thenDescending(String column) {
+        return with(column, true);
+    }
+
+    private Sort with(String column, boolean down) {
+        if (columns.length == 64) throw new IllegalArgumentException("At most 64 sort columns are supported");
+        String[] moreColumns = Arrays.copyOf(columns, columns.length + 1);
+        boolean[] moreDescending = Arrays.copyOf(descending, descending.length + 1);
+        moreColumns[columns.length] = Objects.requireNonNull(column);
+        moreDescending[descending.length] = down;
+        return new Sort(moreColumns, moreDescending, memoryBytes, tempDirectory);
+    }
+
+    /**
+     * Func memoryBytes: Budget for the rows buffered before a run is spilled, shared by the threads of a parallel sort.
+     * The rows are counted in their encoded form plus their sort keys.
+     */
+    public Sort memoryBytes(long bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("memoryBytes must be positive");
+        return new Sort(columns, descending, bytes, tempDirectory);
+    }
+
+    /**
+     * Func tempDirectory: Where the runs are spilled, java.io.tmpdir unless set.
+     */
+    public Sort tempDirectory(Path directory) {
+        return new Sort(columns, descending, memoryBytes, Objects.requireNonNull(directory));
+    }
+
+    /**
+     * @return Names of the sort columns, in order.
+     */
+    public List<String> columns() {
+        return List.of(columns);
+    }
+
+    public long memoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * @return Spill directory, null for java.io.tmpdir.
+     */
+    public Path tempDirectory() {
+        return tempDirectory;
+    }
+
+    /**
+     * Func bind: Resolves the columns against a plan.
+     * @throws IllegalArgumentException For unknown columns and field types that can't be ordered.
+     */
+    Layout bind(ParsePlan<?> plan) {
+        return new Layout(plan, this);
+    }
+
+    /**
+     * Class Layout: Sort resolved against a plan. Every sort key is read from a record either as a long
+     * that orders the same way as the value, or as a Comparable.
+     */
+    static final class Layout {
+
+        final Sort sort;
+        final Field[] fields;
+        /** Whether the key of a column is a long, otherwise it is a Comparable. */
+        final boolean[] longKeys;
+        final boolean[] descending;
+
+        private Layout(ParsePlan<?> plan, Sort sort) {
+            this.sort = sort;
+            int count = sort.columns.length;
+            this.fields = new Field[count];
+            this.longKeys = new boolean[count];
+            this.descending = sort.descending.clone();
+            for (int k = 0; k < count; k++) {
+                ParsePlan.ColumnBinding column = plan.column(sort.columns[k]);
+                Class<?> type = column.type;
+                fields[k] = column.field;
+                longKeys[k] = isLongKey(type);
+                if (!longKeys[k] && !Comparable.class.isAssignableFrom(type)) {
+                    throw new IllegalArgumentException("Cannot sort by field '" + column.name + "' of type "
+                            + type.getName());
+                }
+            }
+        }
+
+        private static boolean isLongKey(Class<?> type) {
+            if (type.isPrimitive()) return true;
+            return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+                    || type == Double.class || type == Float.class || type == Boolean.class
+                    || type == Character.class || type == LocalDate.class || type.isEnum();
+        }
+
+        int keyCount() {
+            return fields.length;
+        }
+
+        /**
+         * Func readKeys: Reads the sort keys of a record.
+         * @param longs Receives the long keys
+         * @param objects Receives the Comparable keys
+         * @return Bitmask of the keys that are null.
+         */
+        long readKeys(Object record, long[] longs, Object[] objects) {
+            long nulls = 0;
+            try {
+                for (int k = 0; k < fields.length; k++) {
+                    Field field = fields[k];
+                    Class<?> type = field.getType();
+                    if (type.isPrimitive()) {
+                        if (type == double.class || type == float.class) longs[k] = sortable(field.getDouble(record));
+                        else if (type == boolean.class) longs[k] = field.getBoolean(record) ? 1 : 0;
+                        else longs[k] = field.getLong(record);
+                        continue;
+                    }
+                    Object value = field.get(record);
+                    if (value == null) {
+                        nulls |= 1L << k;
+                    } else if (!longKeys[k]) {
+                        objects[k] = value;
+                    } else if (value instanceof Double || value instanceof Float) {
+                        longs[k] = sortable(((Number) value).doubleValue());
+                    } else if (value instanceof Number number) {
+                        longs[k] = number.longValue();
+                    } else if (value instanceof Boolean bool) {
+                        longs[k] = bool ? 1 : 0;
+                    } else if (value instanceof Character c) {
+                        longs[k] = c;
+                    } else if (value instanceof LocalDate date) {
+                        longs[k] = date.toEpochDay();
+                    } else {
+                        longs[k] = ((Enum<?>) value).ordinal();
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new ParsingException("Cannot read sort keys of " + record.getClass().getName(), e);
+            }
+            return nulls;
+        }
+
+        /**
+         * Func compare: Compares key k of two rows, nulls last whatever the direction.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        int compare(int k, long longA, Object objectA, boolean nullA, long longB, Object objectB, boolean nullB) {
+            if (nullA || nullB) return nullA == nullB ? 0 : nullA ? 1 : -1;
+            int c = longKeys[k] ? Long.compare(longA, longB) : ((Comparable) objectA).compareTo(objectB);
+            return descending[k] ? -c : c;
+        }
+
+        /**
+         * Func sortable: Bits of a double that order like Double.compare when compared as longs.
+         */
+        private static long sortable(double value) {
+            long bits = Double.doubleToLongBits(value);
+            return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+    }
+}
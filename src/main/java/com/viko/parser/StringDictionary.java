@@ -0,0 +1,98 @@
+package com.viko.parser;
+
+import java.util.Arrays;
+
+/**
+ * Class StringDictionary: Codes for the distinct values of a String column.
+ * Looks values up straight from the line, so a String is only created the first time a value is seen.
+ */
+final class StringDictionary {
+
+    private String[] values = new String[16];
+    private int[] hashes = new int[16];
+    private int size = 0;
+    /** Open addressing table of code + 1, 0 marks a free slot. */
+    private int[] table = new int[32];
+
+    /**
+     * Func code: Returns the code of text[start, end), adding the value when it is new.
+     */
+    int code(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int found = find(text, start, end, hash);
+        if (found >= 0) return found;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        values[size] = text.subSequence(start, end).toString();
+        hashes[size] = hash;
+        insert(size, hash);
+        size++;
+        //keep the table at most half full
+        if (size * 2 > table.length) rehash();
+        return size - 1;
+    }
+
+    /**
+     * Func find: Code of text[start, end) without adding it.
+     * @return The code, -1 when the value was never seen.
+     */
+    int find(CharSequence text, int start, int end) {
+        return find(text, start, end, hash(text, start, end));
+    }
+
+    private int find(CharSequence text, int start, int end, int hash) {
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) return -1;
+            int code = entry - 1;
+            if (hashes[code] == hash && equals(values[code], text, start, end)) return code;
+        }
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + text.charAt(i);
+        return hash;
+    }
+
+    /**
+     * @return Value of a code.
+     */
+    String value(int code) {
+        return values[code];
+    }
+
+    /**
+     * @return Distinct values, indexed by code.
+     */
+    String[] values() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void insert(int code, int hash) {
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) slot = (slot + 1) & mask;
+        table[slot] = code + 1;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        for (int code = 0; code < size; code++) insert(code, hashes[code]);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(String value, CharSequence text, int start, int end) {
+        if (value.length() != end - start) return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != text.charAt(start + i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+package com.viko.parser;
+
+/**
+ * Interface TypeConverter: Turns the text of one column into a field value.
+ * Converters read a range of a CharSequence (a line or the bytes of a mapped file), so no substring is needed.
+ * The range is already trimmed and never blank, blank values become null before a converter is called.
+ * <p>
+ * Register converters for new types with TypeConverters.register, or set one on a single field
+ * with {@code @Column(converter = ...)}. Converters are shared between threads and must not keep state.
+ * @param <T> Type produced by the converter.
+ */
+@FunctionalInterface
+public interface TypeConverter<T> {
+
+    /**
+     * Func convert
+     * @param text Line holding the value
+     * @param start First char of the value
+     * @param end End of the value, exclusive
+     * @return Converted value
+     * @throws RuntimeException When the text is not a valid value, the parser reports it with line and column.
+     */
+    T convert(CharSequence text, int start, int end);
+
+    /**
+     * Interface OfInt: Converter for int fields that never boxes.
+     */
+    @FunctionalInterface
+    interface OfInt extends TypeConverter<Integer> {
+        int convertInt(CharSequence text, int start, int end);
+
+        @Override
+        default Integer convert(CharSequence text, int start, int end) {
+            return convertInt(text, start, end);
+        }
+    }
+
+    /**
+     * Interface OfLong: Converter for long fields that never boxes.
+     */
+    @FunctionalInterface
+    interface OfLong extends TypeConverter<Long> {
+        long convertLong(CharSequence text, int start, int end);
+
+        @Override
+        default Long convert(CharSequence text, int start, int end) {
+            return convertLong(text, start, end);
+        }
+    }
+
+    /**
+     * Interface OfDouble: Converter for double fields that never boxes.
+     */
+    @FunctionalInterface
+    interface OfDouble extends TypeConverter<Double> {
+        double convertDouble(CharSequence text, int start, int end);
+
+        @Override
+        default Double convert(CharSequence text, int start, int end) {
+            return convertDouble(text, start, end);
+        }
+    }
+
+    /**
+     * Interface OfBoolean: Converter for boolean fields that never boxes.
+     */
+    @FunctionalInterface
+    interface OfBoolean extends TypeConverter<Boolean> {
+        boolean convertBoolean(CharSequence text, int start, int end);
+
+        @Override
+        default Boolean convert(CharSequence text, int start, int end) {
+            return convertBoolean(text, start, end);
+        }
+    }
+}
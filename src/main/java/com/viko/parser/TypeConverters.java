@@ -0,0 +1,93 @@
+package com.viko.parser;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class TypeConverters: Registry of the converter used for each field type.
+ * The converter of a field is looked up once, when the parse plan of its class is built.
+ * <p>
+ * Built in: String, int, long, double, boolean (and their boxed forms), BigDecimal, LocalDate, Instant, UUID
+ * and every enum (by constant name).
+ */
+public final class TypeConverters {
+
+    private static final Map<Class<?>, TypeConverter<?>> CONVERTERS = new ConcurrentHashMap<>();
+
+    static {
+        TypeConverter<String> string = (text, start, end) -> text.subSequence(start, end).toString();
+        TypeConverter.OfInt ints = (text, start, end) -> Integer.parseInt(text, start, end, 10);
+        TypeConverter.OfLong longs = (text, start, end) -> Long.parseLong(text, start, end, 10);
+        TypeConverter.OfDouble doubles = Converters::parseDouble;
+        TypeConverter.OfBoolean booleans = Converters::parseBoolean;
+
+        CONVERTERS.put(String.class, string);
+        CONVERTERS.put(int.class, ints);
+        CONVERTERS.put(Integer.class, ints);
+        CONVERTERS.put(long.class, longs);
+        CONVERTERS.put(Long.class, longs);
+        CONVERTERS.put(double.class, doubles);
+        CONVERTERS.put(Double.class, doubles);
+        CONVERTERS.put(boolean.class, booleans);
+        CONVERTERS.put(Boolean.class, booleans);
+        CONVERTERS.put(BigDecimal.class, (TypeConverter<BigDecimal>) Converters::parseBigDecimal);
+        CONVERTERS.put(LocalDate.class, (TypeConverter<LocalDate>) Converters::parseLocalDate);
+        CONVERTERS.put(Instant.class, (TypeConverter<Instant>) Converters::parseInstant);
+        CONVERTERS.put(UUID.class, (TypeConverter<UUID>) Converters::parseUUID);
+    }
+
+    private TypeConverters() {}
+
+    /**
+     * Func register: Sets the converter for a field type, replacing a built-in one if present.
+     * Classes that were already parsed keep the converter they resolved, so register before the first parse.
+     * @param type Field type
+     * @param converter Converter producing values of the type
+     * @param <T> Field type
+     */
+    public static <T> void register(Class<T> type, TypeConverter<? extends T> converter) {
+        if (type == null || converter == null) throw new IllegalArgumentException("type and converter are required");
+        CONVERTERS.put(type, converter);
+    }
+
+    /**
+     * Func find
+     * @param type Field type
+     * @return Converter for the type, or null when there is none.
+     */
+    public static TypeConverter<?> find(Class<?> type) {
+        TypeConverter<?> converter = CONVERTERS.get(type);
+        if (converter == null && type.isEnum()) {
+            converter = CONVERTERS.computeIfAbsent(type, TypeConverters::enumConverter);
+        }
+        return converter;
+    }
+
+    /**
+     * Func enumConverter: Matches the text against the constant names without creating a String,
+     * same result as Enum.valueOf.
+     */
+    private static TypeConverter<?> enumConverter(Class<?> type) {
+        Object[] constants = type.getEnumConstants();
+        String[] names = new String[constants.length];
+        for (int i = 0; i < constants.length; i++) names[i] = ((Enum<?>) constants[i]).name();
+        return (text, start, end) -> {
+            for (int i = 0; i < names.length; i++) {
+                if (matches(names[i], text, start, end)) return constants[i];
+            }
+            throw new IllegalArgumentException("No enum constant " + type.getName() + "." + text.subSequence(start, end));
+        };
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) return false;
+        }
+        return true;
+    }
+}
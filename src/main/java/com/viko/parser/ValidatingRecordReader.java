@@ -0,0 +1,166 @@
+package com.viko.parser;
+
+import com.viko.exception.DuplicateKeyException;
+import com.viko.exception.ParsingException;
+import com.viko.validation.RecordValidator;
+import com.viko.validation.Validator;
+import com.viko.validation.ValueCheck;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Class ValidatingRecordReader: Single pass parse and validate.
+ * Each column is checked right after it is converted, so a row breaking a @NotNull, @Range or @Regex rule
+ * is rejected before its object is built. Rules that need the object run once it exists.
+ * Nothing is collected, every row ends up in either the accepted or the rejected sink.
+ * @param <T> Type of the mapped class.
+ */
+final class ValidatingRecordReader<T> implements Closeable {
+
+    private final BufferedReader reader;
+    private final GenericParser parser;
+    private final ParsePlan<T> plan;
+    private final GenericParser.ParsingMode mode;
+    private final RecordValidator validator;
+    /** Value checks per column of the plan. */
+    private final ValueCheck[][] columnChecks;
+    private final RowTokens tokens;
+    private final RecordLines lines;
+    private final Object[] values;
+    private final ParseRecorder metrics;
+    /** Seen keys of this run, null when duplicates are not looked for. */
+    private final KeyIndex keyIndex;
+    private final KeyIndex.RowKeys keys;
+    private int lineNumber = 0;
+
+    ValidatingRecordReader(BufferedReader reader, GenericParser parser, ParsePlan<T> plan,
+                           GenericParser.ParsingMode mode, Validator validator, Object source) {
+        this.reader = reader;
+        this.parser = parser;
+        this.plan = plan;
+        this.mode = mode;
+        List<Field> fields = new ArrayList<>();
+        for (ParsePlan.ColumnBinding column : plan.columns) fields.add(column.field);
+        this.validator = validator.recordValidator(plan.type, fields);
+        this.columnChecks = new ValueCheck[plan.columns.length][];
+        for (int i = 0; i < plan.columns.length; i++) {
+            columnChecks[i] = this.validator.valueChecks(plan.columns[i].field);
+        }
+        this.values = new Object[plan.columns.length];
+        this.tokens = new RowTokens(plan.fileSource);
+        this.lines = new RecordLines(reader, parser, plan.fileSource, tokens);
+        this.metrics = new ParseRecorder(parser, plan, source);
+        this.keyIndex = parser.keyIndex(plan, false);
+        this.keys = keyIndex == null ? null : keyIndex.rowKeys();
+    }
+
+    /**
+     * Func run: Reads the whole file, routing every record to one of the sinks.
+     * @param accepted Receives records that parsed and passed every rule
+     * @param rejected Receives lines that broke a rule, and in LENIENT mode lines that failed to parse
+     * @throws IOException When reading from the file fails.
+     * @throws ParsingException In STRICT mode, for the first line that fails to parse.
+     */
+    void run(Consumer<? super T> accepted, Consumer<? super RejectedRecord> rejected) throws IOException {
+        String delimiter = plan.fileSource.delimiter();
+        String[] commentPrefixes = plan.fileSource.commentPrefixes();
+        String line;
+        long clock = metrics.now();
+        while ((line = lines.next()) != null) {
+            clock = metrics.io(clock);
+            lineNumber = lines.recordLine();
+            metrics.bytes += line.length() + 1;
+            //skip \n empty lines
+            if (line.isBlank()) {
+                metrics.blankLines++;
+                continue;
+            }
+            //skip comments
+            if (parser.isComment(line, commentPrefixes)) {
+                metrics.commentLines++;
+                continue;
+            }
+            try {
+                int from = RowTokens.trimStart(line, 0, line.length());
+                int to = RowTokens.trimEnd(line, from, line.length());
+                if (delimiter.isEmpty()) {
+                    throw new IllegalArgumentException("Delimiter must not be empty");
+                }
+                tokens.split(line, from, to, delimiter);
+                List<String> messages = convertAndCheck(line, from, to);
+                if (messages != null) {
+                    metrics.rows++;
+                    clock = metrics.parse(clock);
+                    rejected.accept(new RejectedRecord(lineNumber, line, messages));
+                    clock = metrics.now();
+                    continue;
+                }
+                T instance = plan.newInstance();
+                for (int i = 0; i < values.length; i++) {
+                    parser.assignColumn(plan.columns[i], instance, values[i], line, from, to);
+                }
+                messages = new ArrayList<>(0);
+                validator.checkObject(instance, messages);
+                //only accepted rows take their key, a rejected duplicate goes the way of a failed line
+                if (messages.isEmpty() && keys != null) {
+                    DuplicateKeyException duplicate = keys.check(line, from, to, tokens);
+                    if (duplicate != null) parser.errors().report(lineNumber, line, duplicate);
+                }
+                metrics.rows++;
+                clock = metrics.parse(clock);
+                if (messages.isEmpty()) accepted.accept(instance);
+                else rejected.accept(new RejectedRecord(lineNumber, line, messages));
+            } catch (ReflectiveOperationException | ParsingException e) {
+                metrics.failed(e);
+                //record where error occurred
+                parser.errors().report(lineNumber, line, e);
+                if (mode == GenericParser.ParsingMode.STRICT) {
+                    metrics.finish();
+                    throw new ParsingException("Parsing failed at line " + lineNumber + ": " + line, e);
+                }
+                clock = metrics.parse(clock);
+                rejected.accept(new RejectedRecord(lineNumber, line, List.of(e.getMessage())));
+            } finally {
+                Arrays.fill(values, null);
+            }
+            //the sinks are not part of the run
+            clock = metrics.now();
+        }
+        metrics.io(clock);
+        metrics.finish();
+    }
+
+    /**
+     * Func convertAndCheck: Converts the columns one by one and runs their value checks straight away.
+     * @return Messages of the broken rules, or null when every value passed.
+     */
+    private List<String> convertAndCheck(String line, int from, int to) {
+        List<String> messages = null;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parser.convertColumn(plan.columns[i], line, from, to, tokens);
+            for (ValueCheck check : columnChecks[i]) {
+                String message = check.check(values[i]);
+                if (message == null) continue;
+                if (messages == null) messages = new ArrayList<>();
+                messages.add(message);
+                if (validator.isFailFast()) return messages;
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public void close() throws IOException {
+        metrics.finish();
+        parser.errors().flush();
+        if (keyIndex != null) keyIndex.close();
+        reader.close();
+    }
+}
@@ -0,0 +1,398 @@
+package com.viko.processor;
+
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.annotations.NotNull;
+import com.viko.annotations.Range;
+import com.viko.annotations.Regex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class DataEngineProcessor: Writes a parser for every @FileSource class and a validator for every class with
+ * @NotNull, @Regex or @Range fields. The generated classes set and read the fields directly, so the parser and
+ * the Validator skip reflection and method handles for them.
+ * <p>
+ * Classes the generated code can not reach (private or generic classes, inner classes, private or final
+ * @Column fields, no accessible no-args constructor) are skipped with a note and keep using reflection.
+ * Generated classes are named after the class, e.g. parser.MockClassParser, nested classes join the names
+ * with '_' (Outer_InnerParser).
+ */
+@SupportedAnnotationTypes({
+        "com.viko.annotations.FileSource",
+        "com.viko.annotations.NotNull",
+        "com.viko.annotations.Regex",
+        "com.viko.annotations.Range"
+})
+public class DataEngineProcessor extends AbstractProcessor {
+
+    private static final String GENERATED = "@javax.annotation.processing.Generated(\"" +
+            DataEngineProcessor.class.getName() + "\")";
+    private static final String SUPPORT = "com.viko.parser.ParserSupport";
+    private static final String CONVERTER = "com.viko.parser.TypeConverter";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> parsers = new LinkedHashSet<>();
+        Set<TypeElement> validators = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(FileSource.class)) {
+            if (element.getKind() == ElementKind.CLASS) parsers.add((TypeElement) element);
+        }
+        for (Class<? extends Annotation> rule : List.of(NotNull.class, Regex.class, Range.class)) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(rule)) {
+                if (element.getKind() == ElementKind.FIELD
+                        && element.getEnclosingElement().getKind() == ElementKind.CLASS) {
+                    validators.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement type : parsers) writeParser(type);
+        for (TypeElement type : validators) writeValidator(type);
+        //the annotations are read at runtime too, leave them to other processors
+        return false;
+    }
+
+    private void writeParser(TypeElement type) {
+        String reason = unreachable(type);
+        if (reason == null) reason = constructorProblem(type);
+        List<VariableElement> columns = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (reason != null) break;
+            if (field.getAnnotation(Column.class) == null) continue;
+            reason = columnProblem(field);
+            columns.add(field);
+        }
+        String name = generatedName(type, "Parser");
+        if (reason == null) reason = nameTaken(type, name);
+        if (reason != null) {
+            skip(type, "parser", reason);
+            return;
+        }
+
+        String typeName = type.getQualifiedName().toString();
+        StringBuilder constants = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        for (VariableElement field : columns) {
+            Column column = field.getAnnotation(Column.class);
+            String fieldName = field.getSimpleName().toString();
+            String constant = "C_" + fieldName;
+            TypeMirror fieldType = processingEnv.getTypeUtils().erasure(field.asType());
+            String lookup = SUPPORT + ".converter(" + fieldType + ".class, " + customConverter(column) + ", "
+                    + literal(fieldName) + ")";
+            String arguments = literal(fieldName) + ", " + column.index() + ", text, from, to, tokens);\n";
+            String primitive = primitiveName(fieldType.getKind());
+            if (primitive != null) {
+                constants.append("    private static final ").append(CONVERTER).append(".Of").append(primitive)
+                        .append(' ').append(constant).append(" = ").append(SUPPORT).append(".as").append(primitive)
+                        .append('(').append(lookup).append(");\n");
+                body.append("        instance.").append(fieldName).append(" = ").append(SUPPORT).append(".read")
+                        .append(primitive).append('(').append(constant).append(", ").append(arguments);
+            } else {
+                constants.append("    private static final ").append(CONVERTER).append("<?> ").append(constant)
+                        .append(" = ").append(lookup).append(";\n");
+                body.append("        instance.").append(fieldName).append(" = ").append(SUPPORT).append(".read(")
+                        .append(constant).append(", ").append(fieldType).append(".class, ").append(arguments);
+            }
+        }
+
+        String source = header(type, name, "com.viko.parser.GeneratedParser<" + typeName + ">")
+                + constants + (constants.isEmpty() ? "" : "\n")
+                + typeMethod(typeName)
+                + "    @Override\n"
+                + "    public " + typeName + " parse(CharSequence text, int from, int to, com.viko.parser.RowTokens tokens) {\n"
+                + "        " + typeName + " instance = new " + typeName + "();\n"
+                + "        fill(instance, text, from, to, tokens);\n"
+                + "        return instance;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Override\n"
+                + "    @SuppressWarnings(\"unchecked\")\n"
+                + "    public void fill(" + typeName + " instance, CharSequence text, int from, int to, com.viko.parser.RowTokens tokens) {\n"
+                + body
+                + "    }\n"
+                + "}\n";
+        write(type, name, source);
+    }
+
+    private void writeValidator(TypeElement type) {
+        String reason = unreachable(type);
+        String name = generatedName(type, "Validator");
+        if (reason == null) reason = nameTaken(type, name);
+        if (reason != null) {
+            skip(type, "validator", reason);
+            return;
+        }
+
+        String typeName = type.getQualifiedName().toString();
+        StringBuilder constants = new StringBuilder();
+        StringBuilder cases = new StringBuilder();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            //private and static fields are left to the reflective checks
+            if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            String fieldName = field.getSimpleName().toString();
+            String value = "((" + typeName + ") o)." + fieldName;
+            TypeKind kind = field.asType().getKind();
+            StringBuilder checks = new StringBuilder();
+
+            NotNull notNull = field.getAnnotation(NotNull.class);
+            if (notNull != null) {
+                //primitives are never null
+                String check = kind.isPrimitive() ? "o -> null"
+                        : "o -> " + value + " == null ? " + literal(notNull.message()) + " : null";
+                checks.append(rule("NotNull", check));
+            }
+            Regex regex = field.getAnnotation(Regex.class);
+            if (regex != null) {
+                String constant = "REGEX_" + fieldName;
+                constants.append("    private static final com.viko.validation.ValueCheck ").append(constant)
+                        .append(" = com.viko.validation.RegexStrategy.valueCheck(").append(literal(regex.pattern()))
+                        .append(", ").append(literal(regex.message())).append(", ").append(regex.specialized())
+                        .append(");\n");
+                checks.append(rule("Regex", "o -> " + constant + ".check(" + value + ")"));
+            }
+            Range range = field.getAnnotation(Range.class);
+            if (range != null) {
+                String outside = "v < " + literal(range.min()) + " || v > " + literal(range.max()) + " ? "
+                        + literal(range.message()) + " : null";
+                String check;
+                //not a Number once boxed, so never out of range
+                if (kind == TypeKind.BOOLEAN || kind == TypeKind.CHAR) check = "o -> null";
+                else if (kind.isPrimitive()) check = "o -> {\n                    double v = " + value + ";\n"
+                        + "                    return " + outside + ";\n                }";
+                else check = "o -> {\n                    if (!((Object) " + value + " instanceof Number num)) return null;\n"
+                        + "                    double v = num.doubleValue();\n"
+                        + "                    return " + outside + ";\n                }";
+                checks.append(rule("Range", check));
+            }
+            if (checks.isEmpty()) continue;
+            cases.append("            case ").append(literal(fieldName)).append(" -> {\n").append(checks)
+                    .append("            }\n");
+        }
+
+        String source = header(type, name, "com.viko.validation.GeneratedValidator<" + typeName + ">")
+                + constants + (constants.isEmpty() ? "" : "\n")
+                + typeMethod(typeName)
+                + "    @Override\n"
+                + "    public com.viko.validation.FieldCheck check(String field, Class<? extends java.lang.annotation.Annotation> rule) {\n"
+                + "        switch (field) {\n"
+                + cases
+                + "            default -> { }\n"
+                + "        }\n"
+                + "        return null;\n"
+                + "    }\n"
+                + "}\n";
+        write(type, name, source);
+    }
+
+    private static String rule(String annotation, String check) {
+        return "                if (rule == com.viko.annotations." + annotation + ".class) return " + check + ";\n";
+    }
+
+    private String header(TypeElement type, String name, String implemented) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        return (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n")
+                + GENERATED + "\n"
+                + "public final class " + name + " implements " + implemented + " {\n\n";
+    }
+
+    private static String typeMethod(String typeName) {
+        return "    @Override\n"
+                + "    public Class<" + typeName + "> type() {\n"
+                + "        return " + typeName + ".class;\n"
+                + "    }\n\n";
+    }
+
+    private void write(TypeElement type, String name, String source) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        Filer filer = processingEnv.getFiler();
+        try (Writer writer = filer.createSourceFile(packageName.isEmpty() ? name : packageName + "." + name, type)
+                .openWriter()) {
+            writer.write(source);
+        } catch (FilerException e) {
+            skip(type, name, e.getMessage());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + name + ": " + e, type);
+        }
+    }
+
+    private void skip(TypeElement type, String what, String reason) {
+        Messager messager = processingEnv.getMessager();
+        messager.printMessage(Diagnostic.Kind.NOTE, "No generated " + what + " for " + type.getQualifiedName()
+                + " (" + reason + "), reflection is used instead", type);
+    }
+
+    /**
+     * Func generatedName: Simple names from the outermost class down, joined with '_', plus the suffix.
+     * Same naming as GeneratedClasses.name at runtime.
+     */
+    static String generatedName(TypeElement type, String suffix) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement outer; e = e.getEnclosingElement()) {
+            name.insert(0, outer.getSimpleName() + "_");
+        }
+        return name.append(suffix).toString();
+    }
+
+    /**
+     * Func unreachable
+     * @return Why code in the same package can't use the class, null when it can.
+     */
+    private static String unreachable(TypeElement type) {
+        if (!type.getTypeParameters().isEmpty()) return "generic class";
+        for (Element e = type; e instanceof TypeElement current; e = e.getEnclosingElement()) {
+            if (current.getNestingKind() == NestingKind.LOCAL || current.getNestingKind() == NestingKind.ANONYMOUS) {
+                return "local class";
+            }
+            if (current.getModifiers().contains(Modifier.PRIVATE)) return "private class";
+            if (current.getNestingKind() == NestingKind.MEMBER && !current.getModifiers().contains(Modifier.STATIC)
+                    && current.getKind() == ElementKind.CLASS) {
+                return "inner class";
+            }
+        }
+        return null;
+    }
+
+    private static String constructorProblem(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) return "abstract class";
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return null;
+            }
+        }
+        return "no accessible no-args constructor";
+    }
+
+    private String columnProblem(VariableElement field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        String name = "field '" + field.getSimpleName() + "'";
+        if (modifiers.contains(Modifier.PRIVATE)) return "private " + name;
+        if (modifiers.contains(Modifier.FINAL)) return "final " + name;
+        if (modifiers.contains(Modifier.STATIC)) return "static " + name;
+        TypeMirror type = processingEnv.getTypeUtils().erasure(field.asType());
+        if (type.getKind().isPrimitive() && primitiveName(type.getKind()) == null) {
+            return "unsupported type of " + name;
+        }
+        if (!accessible(type)) return "private type of " + name;
+        TypeMirror converter = converterType(field.getAnnotation(Column.class));
+        if (!accessible(converter)) return "private converter of " + name;
+        return null;
+    }
+
+    /**
+     * Func accessible: The field compiles in its own class, so only private nested types can't be named
+     * from the generated class.
+     */
+    private static boolean accessible(TypeMirror type) {
+        if (type == null || type.getKind() != TypeKind.DECLARED) return true;
+        for (Element e = ((DeclaredType) type).asElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) return false;
+        }
+        return true;
+    }
+
+    private String nameTaken(TypeElement type, String name) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String qualified = packageName.isEmpty() ? name : packageName + "." + name;
+        return processingEnv.getElementUtils().getTypeElement(qualified) == null ? null : qualified + " already exists";
+    }
+
+    /**
+     * Func converterType
+     * @return The converter class set on the @Column, null when the default is used.
+     */
+    private TypeMirror converterType(Column column) {
+        TypeMirror type;
+        try {
+            //only works when the class is already compiled
+            type = processingEnv.getElementUtils().getTypeElement(column.converter().getCanonicalName()).asType();
+        } catch (MirroredTypeException e) {
+            type = e.getTypeMirror();
+        }
+        TypeMirror none = processingEnv.getElementUtils().getTypeElement(CONVERTER).asType();
+        return processingEnv.getTypeUtils().isSameType(processingEnv.getTypeUtils().erasure(type),
+                processingEnv.getTypeUtils().erasure(none)) ? null : type;
+    }
+
+    private String customConverter(Column column) {
+        TypeMirror type = converterType(column);
+        return type == null ? "null" : processingEnv.getTypeUtils().erasure(type) + ".class";
+    }
+
+    /**
+     * Func primitiveName
+     * @return Suffix of the matching TypeConverter / ParserSupport methods, null for types without one.
+     */
+    private static String primitiveName(TypeKind kind) {
+        return switch (kind) {
+            case INT -> "Int";
+            case LONG -> "Long";
+            case DOUBLE -> "Double";
+            case BOOLEAN -> "Boolean";
+            default -> null;
+        };
+    }
+
+    private static String literal(double value) {
+        if (Double.isNaN(value)) return "Double.NaN";
+        if (value == Double.POSITIVE_INFINITY) return "Double.POSITIVE_INFINITY";
+        if (value == Double.NEGATIVE_INFINITY) return "Double.NEGATIVE_INFINITY";
+        return Double.toString(value);
+    }
+
+    /**
+     * Func literal: Java source form of a String, octal escapes for control chars so no unicode escape
+     * can end the line early.
+     */
+    static String literal(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20 || c == 0x7f) out.append(String.format("\\%03o", (int) c));
+                    else if (c > 0x7e) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.viko.util;
+
+import com.viko.exception.GlobalErrorHandler;
+
+/**
+ * Class GeneratedClasses: Finds the classes the annotation processor generated for a mapped class.
+ * A nested class Outer.Inner gets Outer_InnerParser, in the package of Outer.
+ */
+public final class GeneratedClasses {
+
+    private GeneratedClasses() {}
+
+    /**
+     * Func name: Name of the generated class for a type.
+     * @param type Mapped class
+     * @param suffix "Parser" or "Validator"
+     * @return Binary name of the generated class
+     */
+    public static String name(Class<?> type, String suffix) {
+        String packageName = type.getPackageName();
+        String simple = packageName.isEmpty() ? type.getName() : type.getName().substring(packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + simple.replace('$', '_') + suffix;
+    }
+
+    /**
+     * Func find: Loads and creates the generated class.
+     * @param type Mapped class
+     * @param suffix "Parser" or "Validator"
+     * @param kind Interface the generated class implements
+     * @return New instance, null when nothing was generated (or a class of that name is not a generated one).
+     */
+    public static <G> G find(Class<?> type, String suffix, Class<G> kind) {
+        Class<?> generated;
+        try {
+            generated = Class.forName(name(type, suffix), true, type.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+        if (!kind.isAssignableFrom(generated)) return null;
+        try {
+            return kind.cast(generated.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            GlobalErrorHandler.log("Cannot use generated " + generated.getName() + ", falling back to reflection", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.viko.validation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Class CompiledRegex: A @Regex pattern compiled once, with a Matcher per thread that is reset for every value.
+ * Patterns in the SimpleRegex subset also get a prefilter that rejects values which are too short, too long
+ * or miss a required literal (like the '@' of an email) before the regex engine runs.
+ * With specialized set, such patterns are matched by SimpleRegex alone and never reach java.util.regex.
+ */
+final class CompiledRegex {
+
+    private static final Map<String, CompiledRegex> CACHE = new ConcurrentHashMap<>();
+
+    private final Pattern pattern;
+    private final ThreadLocal<Matcher> matchers;
+    /** Null when the pattern is outside the supported subset. */
+    private final SimpleRegex simple;
+    private final boolean specialized;
+
+    private CompiledRegex(String regex, boolean specialized) {
+        this.pattern = Pattern.compile(regex);
+        this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        this.simple = SimpleRegex.parse(regex);
+        this.specialized = specialized && simple != null;
+    }
+
+    /**
+     * Func of: Returns the shared compiled form of a pattern.
+     * @param regex Pattern as written in @Regex
+     * @param specialized Use the hand written matcher when the pattern allows it
+     * @return Compiled pattern, safe to use from several threads
+     */
+    static CompiledRegex of(String regex, boolean specialized) {
+        return CACHE.computeIfAbsent((specialized ? "S:" : "R:") + regex,
+                key -> new CompiledRegex(regex, specialized));
+    }
+
+    /**
+     * Func matches: Same result as Pattern.matches(regex, value).
+     */
+    boolean matches(CharSequence value) {
+        if (simple != null) {
+            if (!simple.mayMatch(value)) return false;
+            if (specialized) return simple.matches(value);
+        }
+        Matcher matcher = matchers.get();
+        boolean matches = matcher.reset(value).matches();
+        //don't keep the last value reachable from the thread
+        matcher.reset("");
+        return matches;
+    }
+}
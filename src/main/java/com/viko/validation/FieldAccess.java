@@ -0,0 +1,36 @@
+package com.viko.validation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Class FieldAccess: Getter handles used by the compiled checks of the built in strategies.
+ */
+final class FieldAccess {
+
+    private FieldAccess() {}
+
+    /**
+     * Func getter: Read access to a field, adapted to (Object) -> type.
+     * Asking for double on a primitive numeric field widens the value without boxing it.
+     * @param field Field to read
+     * @param type Type the value should be returned as
+     * @return Getter handle, called with invokeExact
+     * @throws IllegalAccessException When the field cannot be made accessible.
+     */
+    static MethodHandle getter(Field field, Class<?> type) throws IllegalAccessException {
+        field.setAccessible(true);
+        return MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(type, Object.class));
+    }
+
+    /**
+     * Func readFailed: Wraps a failure of a getter handle, e.g. a check used with an object of another class.
+     */
+    static RuntimeException readFailed(Field field, Throwable cause) {
+        if (cause instanceof RuntimeException runtime) return runtime;
+        if (cause instanceof Error error) throw error;
+        return new IllegalStateException("Failed reading field '" + field.getName() + "'", cause);
+    }
+}
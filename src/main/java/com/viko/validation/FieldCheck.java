@@ -0,0 +1,16 @@
+package com.viko.validation;
+
+/**
+ * Interface FieldCheck: A validation rule compiled for one field.
+ * Everything the rule needs (accessor, annotation values) is resolved when it is created,
+ * so checking an object is a plain field read and comparison.
+ */
+@FunctionalInterface
+public interface FieldCheck {
+    /**
+     * Func check
+     * @param obj Object to check
+     * @return Error message, or null when the value is valid.
+     */
+    String check(Object obj);
+}
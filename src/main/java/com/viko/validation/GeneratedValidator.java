@@ -0,0 +1,25 @@
+package com.viko.validation;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Interface GeneratedValidator: Implemented by the {@code <Type>Validator} classes the annotation processor writes
+ * for every @FileSource class. Provides the built-in checks with direct field access, Validator uses them
+ * instead of the reflective ones when the generated class is present.
+ * @param <T> Type of the validated class.
+ */
+public interface GeneratedValidator<T> {
+
+    /**
+     * @return The class the validator was generated for.
+     */
+    Class<T> type();
+
+    /**
+     * Func check
+     * @param field Field name
+     * @param rule NotNull, Regex or Range
+     * @return Check with the same result and message as the reflective one, null when none was generated for the field.
+     */
+    FieldCheck check(String field, Class<? extends Annotation> rule);
+}
@@ -5,6 +5,7 @@ import com.viko.exception.GlobalErrorHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.util.Optional;
 
@@ -23,7 +24,6 @@ public class NotNullStrategy implements ValidationStrategy {
     public Optional<String> validate(Object obj, Field field) {
         //Surrounded with try catch for proper error catch & handle
         try{
-            logger.info("validating NotNull for field:", field);
             field.setAccessible(true);
             Object value = field.get(obj);
             NotNull annotation = field.getAnnotation(NotNull.class);
@@ -38,6 +38,52 @@ public class NotNullStrategy implements ValidationStrategy {
         return Optional.empty();
     }
 
+    /**
+     * Func compile: Reads the message once and checks the value through a getter handle.
+     * @param field Field annotated with @NotNull
+     * @return Compiled check
+     */
+    @Override
+    public FieldCheck compile(Field field) {
+        String message = field.getAnnotation(NotNull.class).message();
+        //primitives are never null
+        if (field.getType().isPrimitive()) return obj -> null;
+        MethodHandle getter;
+        try {
+            getter = FieldAccess.getter(field, Object.class);
+        } catch (IllegalAccessException e) {
+            GlobalErrorHandler.log("Error occurred compiling NotNull for Field: ", e);
+            return ValidationStrategy.super.compile(field);
+        }
+        return obj -> {
+            try {
+                return (Object) getter.invokeExact(obj) == null ? message : null;
+            } catch (Throwable t) {
+                throw FieldAccess.readFailed(field, t);
+            }
+        };
+    }
+
+    /**
+     * Func compileValue: A blank column converts to null, so the row can be rejected before the object is built.
+     * Unlike the object check this also covers primitives, where null would otherwise fail the conversion.
+     * @param field Field annotated with @NotNull
+     * @return Check on the converted value
+     */
+    @Override
+    public ValueCheck compileValue(Field field) {
+        String message = field.getAnnotation(NotNull.class).message();
+        return value -> value == null ? message : null;
+    }
+
+    /**
+     * Func isThreadSafe: Compiled checks only read the field, nothing is shared between calls.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /*
     Basically can also do with:
     if(value == null) -> early return, since no data -> do nothing
@@ -5,6 +5,7 @@ import com.viko.exception.GlobalErrorHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.util.Optional;
 
@@ -19,7 +20,6 @@ public class RangeStrategy implements ValidationStrategy{
     @Override
     public Optional<String> validate(Object obj, Field field) {
         try{
-            logger.info("validating Range for field:", field);
             field.setAccessible(true);
             Object value = field.get(obj);
             Range annotation = field.getAnnotation(Range.class);
@@ -36,4 +36,77 @@ public class RangeStrategy implements ValidationStrategy{
         }
         return Optional.empty();
     }
+
+    /**
+     * Func compile: Reads min, max and message once.
+     * Primitive numeric fields are read as a double straight from the field, so the value is never boxed.
+     * @param field Field annotated with @Range
+     * @return Compiled check
+     */
+    @Override
+    public FieldCheck compile(Field field) {
+        Range annotation = field.getAnnotation(Range.class);
+        double min = annotation.min();
+        double max = annotation.max();
+        String message = annotation.message();
+        Class<?> type = field.getType();
+        //not a Number once boxed, so never out of range
+        if (type == boolean.class || type == char.class) return obj -> null;
+        try {
+            if (type.isPrimitive()) {
+                MethodHandle getter = FieldAccess.getter(field, double.class);
+                return obj -> {
+                    try {
+                        double v = (double) getter.invokeExact(obj);
+                        return v < min || v > max ? message : null;
+                    } catch (Throwable t) {
+                        throw FieldAccess.readFailed(field, t);
+                    }
+                };
+            }
+            MethodHandle getter = FieldAccess.getter(field, Object.class);
+            return obj -> {
+                try {
+                    if ((Object) getter.invokeExact(obj) instanceof Number num) {
+                        double v = num.doubleValue();
+                        return v < min || v > max ? message : null;
+                    }
+                    return null;
+                } catch (Throwable t) {
+                    throw FieldAccess.readFailed(field, t);
+                }
+            };
+        } catch (IllegalAccessException e) {
+            GlobalErrorHandler.log("Error occurred compiling Range: ", e);
+            return ValidationStrategy.super.compile(field);
+        }
+    }
+
+    /**
+     * Func compileValue: Checks the converted number before the object is built.
+     * @param field Field annotated with @Range
+     * @return Check on the converted value
+     */
+    @Override
+    public ValueCheck compileValue(Field field) {
+        Range annotation = field.getAnnotation(Range.class);
+        double min = annotation.min();
+        double max = annotation.max();
+        String message = annotation.message();
+        return value -> {
+            if (value instanceof Number num) {
+                double v = num.doubleValue();
+                return v < min || v > max ? message : null;
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Func isThreadSafe: Bounds are read once when compiling, checks only read the field.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -0,0 +1,68 @@
+package com.viko.validation;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Class RecordValidator: The checks of one class split the way a parser needs them.
+ * Value checks run on each converted column before the object exists, the remaining object checks
+ * run once the object is built. Together they cover the same rules as Validator.validate.
+ */
+public final class RecordValidator {
+
+    private static final ValueCheck[] NONE = new ValueCheck[0];
+
+    private final ValidationPlan plan;
+    private final boolean failFast;
+    /** Checks left for the built object: the ones without a value check or on a field the parser doesn't fill. */
+    private final boolean[] onObject;
+
+    RecordValidator(ValidationPlan plan, boolean failFast, Collection<Field> columns) {
+        this.plan = plan;
+        this.failFast = failFast;
+        this.onObject = new boolean[plan.checks.length];
+        for (int i = 0; i < onObject.length; i++) {
+            onObject[i] = plan.valueChecks[i] == null || !columns.contains(plan.fields[i]);
+        }
+    }
+
+    /**
+     * @return true when validation should stop at the first violation of a record.
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * Func valueChecks: Checks that can run on the converted value of a field.
+     * @param field Mapped field
+     * @return Checks for the field, empty when it has none
+     */
+    public ValueCheck[] valueChecks(Field field) {
+        List<ValueCheck> result = null;
+        for (int i = 0; i < plan.fields.length; i++) {
+            if (plan.fields[i].equals(field) && plan.valueChecks[i] != null) {
+                if (result == null) result = new ArrayList<>();
+                result.add(plan.valueChecks[i]);
+            }
+        }
+        return result == null ? NONE : result.toArray(NONE);
+    }
+
+    /**
+     * Func checkObject: Runs the checks that are not covered by valueChecks of the column fields.
+     * @param obj Built object
+     * @param messages Messages found so far, new messages are appended
+     */
+    public void checkObject(Object obj, List<String> messages) {
+        for (int i = 0; i < plan.checks.length; i++) {
+            if (!onObject[i]) continue;
+            String message = plan.checks[i].check(obj);
+            if (message == null) continue;
+            messages.add(message);
+            if (failFast) return;
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package com.viko.validation;
 
 import com.viko.annotations.Regex;
+import com.viko.exception.GlobalErrorHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 public class RegexStrategy implements ValidationStrategy{
 
@@ -20,7 +21,6 @@ public class RegexStrategy implements ValidationStrategy{
     @Override
     public Optional<String> validate(Object obj, Field field){
         try{
-            logger.info("validating Regex for field:", field.getName());
             field.setAccessible(true);
             Object value = field.get(obj);
             Regex annotation = field.getAnnotation(Regex.class);
@@ -29,7 +29,7 @@ public class RegexStrategy implements ValidationStrategy{
                 return Optional.empty();
             }
 
-            if (!Pattern.matches(annotation.pattern(), value.toString())) {
+            if (!CompiledRegex.of(annotation.pattern(), annotation.specialized()).matches(value.toString())) {
                 return Optional.of(annotation.message());
             }
         }catch (IllegalAccessException e){
@@ -37,4 +37,65 @@ public class RegexStrategy implements ValidationStrategy{
         }
         return Optional.empty();
     }
+
+    /**
+     * Func compile: Compiles the pattern and reads the message once, checks the value through a getter handle.
+     * @param field Field annotated with @Regex
+     * @return Compiled check
+     */
+    @Override
+    public FieldCheck compile(Field field) {
+        Regex annotation = field.getAnnotation(Regex.class);
+        CompiledRegex pattern = CompiledRegex.of(annotation.pattern(), annotation.specialized());
+        String message = annotation.message();
+        MethodHandle getter;
+        try {
+            getter = FieldAccess.getter(field, Object.class);
+        } catch (IllegalAccessException e) {
+            GlobalErrorHandler.log("Error occurred compiling Regex: ", e);
+            return ValidationStrategy.super.compile(field);
+        }
+        return obj -> {
+            Object value;
+            try {
+                value = (Object) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw FieldAccess.readFailed(field, t);
+            }
+            if (value == null) return null;
+            return pattern.matches(value.toString()) ? null : message;
+        };
+    }
+
+    /**
+     * Func compileValue: Matches the converted value before the object is built.
+     * @param field Field annotated with @Regex
+     * @return Check on the converted value
+     */
+    @Override
+    public ValueCheck compileValue(Field field) {
+        Regex annotation = field.getAnnotation(Regex.class);
+        return valueCheck(annotation.pattern(), annotation.message(), annotation.specialized());
+    }
+
+    /**
+     * Func valueCheck: Check matching the String form of a value, null values pass.
+     * Also used by generated validators, so the pattern is compiled the same way.
+     * @param regex Pattern as written in @Regex
+     * @param message Message for values that don't match
+     * @param specialized Same as @Regex specialized
+     * @return Check on a value
+     */
+    public static ValueCheck valueCheck(String regex, String message, boolean specialized) {
+        CompiledRegex pattern = CompiledRegex.of(regex, specialized);
+        return value -> value == null || pattern.matches(value.toString()) ? null : message;
+    }
+
+    /**
+     * Func isThreadSafe: Compiled patterns are shared, each thread matches with its own Matcher.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
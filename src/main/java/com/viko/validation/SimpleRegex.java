@@ -0,0 +1,378 @@
+package com.viko.validation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class SimpleRegex: Understands the small regex subset most @Regex patterns are written in:
+ * a sequence of literals, '.', character classes and \s \d \w (and their negations),
+ * each with an optional ?, *, +, {n}, {n,} or {n,m} quantifier, optionally wrapped in ^ and $.
+ * Groups, alternation, back references, lookarounds and flags are not supported; parse returns null for them.
+ * <p>
+ * From the parsed shape it derives a cheap prefilter (length bounds and literal chars every match must contain)
+ * and a matcher that tracks all positions of the pattern at once, so it never backtracks.
+ */
+final class SimpleRegex {
+
+    /** Element matches exactly once. */
+    private static final int ONE = 0;
+    /** Element matches zero or one time. */
+    private static final int OPTIONAL = 1;
+    /** Element matches any number of times. */
+    private static final int STAR = 2;
+
+    /** The bit set of active positions is a long, the accepting position needs a bit too. */
+    private static final int MAX_ELEMENTS = 63;
+
+    private final CharClass[] classes;
+    private final int[] kinds;
+    private final int minLength;
+    /** -1 when unbounded. */
+    private final int maxLength;
+    private final char[] requiredChars;
+
+    private SimpleRegex(List<CharClass> classes, List<Integer> kinds, int minLength, int maxLength,
+                        Set<Character> requiredChars) {
+        this.classes = classes.toArray(new CharClass[0]);
+        this.kinds = kinds.stream().mapToInt(Integer::intValue).toArray();
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.requiredChars = new char[requiredChars.size()];
+        int i = 0;
+        for (char c : requiredChars) this.requiredChars[i++] = c;
+    }
+
+    /**
+     * Func parse
+     * @param pattern Regex as written in @Regex
+     * @return Parsed pattern, or null when it uses anything outside the supported subset.
+     */
+    static SimpleRegex parse(String pattern) {
+        try {
+            return new Parser(pattern).parse();
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    /**
+     * Func mayMatch: Prefilter, false means the value can not match the pattern.
+     * True only means the full match still has to be run.
+     */
+    boolean mayMatch(CharSequence value) {
+        int length = value.length();
+        if (length < minLength || (maxLength >= 0 && length > maxLength)) return false;
+        for (char required : requiredChars) {
+            if (!contains(value, required)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Func matches: Full match of the value, same result as Pattern.matches for the supported subset.
+     * All pattern positions that can be reached are tracked in a bit set and advanced one code point at a time.
+     */
+    boolean matches(CharSequence value) {
+        int n = classes.length;
+        long active = closure(1L);
+        int length = value.length();
+        for (int i = 0; i < length && active != 0; ) {
+            int cp = Character.codePointAt(value, i);
+            i += Character.charCount(cp);
+            long next = 0;
+            long remaining = active & ~(1L << n);
+            while (remaining != 0) {
+                int position = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                if (classes[position].matches(cp)) {
+                    next |= kinds[position] == STAR ? 1L << position : 1L << (position + 1);
+                }
+            }
+            active = closure(next);
+        }
+        return (active & (1L << n)) != 0;
+    }
+
+    /**
+     * Func closure: Adds the positions reachable by skipping optional and starred elements.
+     */
+    private long closure(long positions) {
+        for (int position = 0; position < classes.length; position++) {
+            if ((positions & (1L << position)) != 0 && kinds[position] != ONE) {
+                positions |= 1L << (position + 1);
+            }
+        }
+        return positions;
+    }
+
+    private static boolean contains(CharSequence value, char c) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == c) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Class CharClass: Set of code points matched by one element.
+     * ASCII membership is a table lookup, everything above is described by ranges.
+     */
+    private static final class CharClass {
+        private final boolean[] ascii = new boolean[128];
+        private final List<int[]> ranges = new ArrayList<>();
+        private boolean negated;
+        /** Set for a single literal char, used for the required chars of the prefilter. */
+        private int literal = -1;
+
+        void add(int from, int to) {
+            for (int c = from; c <= to && c < 128; c++) ascii[c] = true;
+            if (to >= 128) ranges.add(new int[]{Math.max(from, 128), to});
+        }
+
+        void addAll(CharClass other) {
+            for (int c = 0; c < 128; c++) ascii[c] |= other.ascii[c] != other.negated;
+            if (other.negated) {
+                //the negated shorthands only list ASCII chars, so they match everything above
+                ranges.add(new int[]{128, Character.MAX_CODE_POINT});
+            } else {
+                ranges.addAll(other.ranges);
+            }
+        }
+
+        boolean matches(int cp) {
+            boolean member;
+            if (cp < 128) {
+                member = ascii[cp];
+            } else {
+                member = false;
+                for (int[] range : ranges) {
+                    if (cp >= range[0] && cp <= range[1]) {
+                        member = true;
+                        break;
+                    }
+                }
+            }
+            return member != negated;
+        }
+
+        static CharClass literal(int c) {
+            CharClass single = new CharClass();
+            single.add(c, c);
+            single.literal = c;
+            return single;
+        }
+
+        static CharClass dot() {
+            //everything but line terminators, as '.' without DOTALL
+            CharClass dot = new CharClass();
+            dot.add('\n', '\n');
+            dot.add('\r', '\r');
+            dot.add('\u0085', '\u0085');
+            dot.add('\u2028', '\u2029');
+            dot.negated = true;
+            return dot;
+        }
+
+        static CharClass shorthand(char type) {
+            CharClass shorthand = new CharClass();
+            switch (Character.toLowerCase(type)) {
+                case 's' -> {
+                    shorthand.add(' ', ' ');
+                    shorthand.add('\t', '\r');
+                }
+                case 'd' -> shorthand.add('0', '9');
+                case 'w' -> {
+                    shorthand.add('a', 'z');
+                    shorthand.add('A', 'Z');
+                    shorthand.add('0', '9');
+                    shorthand.add('_', '_');
+                }
+                default -> throw new Unsupported();
+            }
+            shorthand.negated = Character.isUpperCase(type);
+            return shorthand;
+        }
+    }
+
+    /**
+     * Class Parser: Single pass over the pattern, gives up with Unsupported on anything outside the subset.
+     */
+    private static final class Parser {
+        private final String pattern;
+        private int pos;
+        private int end;
+
+        private final List<CharClass> classes = new ArrayList<>();
+        private final List<Integer> kinds = new ArrayList<>();
+        private final Set<Character> requiredChars = new LinkedHashSet<>();
+        private int minLength = 0;
+        private int maxLength = 0;
+
+        Parser(String pattern) {
+            this.pattern = pattern;
+            this.end = pattern.length();
+        }
+
+        SimpleRegex parse() {
+            //anchors don't change a full match
+            if (pos < end && pattern.charAt(pos) == '^') pos++;
+            if (end > pos && pattern.charAt(end - 1) == '$' && !escaped(end - 1)) end--;
+            while (pos < end) {
+                CharClass atom = atom();
+                int[] bounds = quantifier();
+                add(atom, bounds[0], bounds[1]);
+            }
+            return new SimpleRegex(classes, kinds, minLength, maxLength, requiredChars);
+        }
+
+        private boolean escaped(int index) {
+            int backslashes = 0;
+            for (int i = index - 1; i >= 0 && pattern.charAt(i) == '\\'; i--) backslashes++;
+            return backslashes % 2 == 1;
+        }
+
+        private CharClass atom() {
+            char c = pattern.charAt(pos++);
+            switch (c) {
+                case '[':
+                    return charClass();
+                case '.':
+                    return CharClass.dot();
+                case '\\':
+                    return escape();
+                case '(': case ')': case '|': case '{': case '}': case '*': case '+': case '?': case '^': case '$':
+                    throw new Unsupported();
+                default:
+                    if (Character.isSurrogate(c)) throw new Unsupported();
+                    return CharClass.literal(c);
+            }
+        }
+
+        private CharClass escape() {
+            if (pos >= end) throw new Unsupported();
+            char c = pattern.charAt(pos++);
+            switch (c) {
+                case 's': case 'S': case 'd': case 'D': case 'w': case 'W':
+                    return CharClass.shorthand(c);
+                case 't':
+                    return CharClass.literal('\t');
+                case 'n':
+                    return CharClass.literal('\n');
+                case 'r':
+                    return CharClass.literal('\r');
+                case 'f':
+                    return CharClass.literal('\f');
+                default:
+                    //escaped punctuation is a literal, escaped letters and digits have other meanings
+                    if (c < 128 && !Character.isLetterOrDigit(c)) return CharClass.literal(c);
+                    throw new Unsupported();
+            }
+        }
+
+        private CharClass charClass() {
+            CharClass result = new CharClass();
+            if (pos < end && pattern.charAt(pos) == '^') {
+                result.negated = true;
+                pos++;
+            }
+            if (pos < end && pattern.charAt(pos) == ']') throw new Unsupported();
+            while (true) {
+                if (pos >= end) throw new Unsupported();
+                char c = pattern.charAt(pos++);
+                if (c == ']') return result;
+                if (c == '[' || Character.isSurrogate(c)) throw new Unsupported();
+                if (c == '&' && pos < end && pattern.charAt(pos) == '&') throw new Unsupported();
+                int from;
+                if (c == '\\') {
+                    CharClass escaped = escape();
+                    if (escaped.literal < 0) {
+                        result.addAll(escaped);
+                        continue;
+                    }
+                    from = escaped.literal;
+                } else {
+                    from = c;
+                }
+                if (pos + 1 < end && pattern.charAt(pos) == '-' && pattern.charAt(pos + 1) != ']') {
+                    char to = pattern.charAt(pos + 1);
+                    if (to == '\\' || to == '[' || Character.isSurrogate(to) || to < from) throw new Unsupported();
+                    pos += 2;
+                    result.add(from, to);
+                } else {
+                    result.add(from, from);
+                }
+            }
+        }
+
+        /**
+         * @return min and max repetitions of the atom before, max is -1 when unbounded
+         */
+        private int[] quantifier() {
+            int[] bounds = {1, 1};
+            if (pos >= end) return bounds;
+            char c = pattern.charAt(pos);
+            if (c == '?') bounds = new int[]{0, 1};
+            else if (c == '*') bounds = new int[]{0, -1};
+            else if (c == '+') bounds = new int[]{1, -1};
+            else if (c == '{') bounds = counted();
+            else return bounds;
+            if (c != '{') pos++;
+            if (pos < end) {
+                char modifier = pattern.charAt(pos);
+                //a lazy quantifier matches the same full strings, a possessive one doesn't
+                if (modifier == '?') pos++;
+                else if (modifier == '+') throw new Unsupported();
+            }
+            return bounds;
+        }
+
+        private int[] counted() {
+            int close = pattern.indexOf('}', pos);
+            if (close < 0 || close >= end) throw new Unsupported();
+            String body = pattern.substring(pos + 1, close);
+            pos = close + 1;
+            try {
+                int comma = body.indexOf(',');
+                if (comma < 0) {
+                    int count = Integer.parseInt(body);
+                    return new int[]{count, count};
+                }
+                int min = Integer.parseInt(body.substring(0, comma));
+                int max = comma == body.length() - 1 ? -1 : Integer.parseInt(body.substring(comma + 1));
+                if (max >= 0 && max < min) throw new Unsupported();
+                return new int[]{min, max};
+            } catch (NumberFormatException e) {
+                throw new Unsupported();
+            }
+        }
+
+        private void add(CharClass atom, int min, int max) {
+            for (int i = 0; i < min; i++) element(atom, ONE);
+            if (max < 0) {
+                element(atom, STAR);
+                maxLength = -1;
+            } else {
+                for (int i = min; i < max; i++) element(atom, OPTIONAL);
+            }
+            if (atom.literal >= 0 && min > 0) requiredChars.add((char) atom.literal);
+            minLength += min;
+            if (maxLength >= 0 && max >= 0) {
+                //anything but a literal may match a supplementary code point, which takes two chars
+                maxLength += max * (atom.literal >= 0 ? 1 : 2);
+            }
+        }
+
+        private void element(CharClass atom, int kind) {
+            if (classes.size() == MAX_ELEMENTS) throw new Unsupported();
+            classes.add(atom);
+            kinds.add(kind);
+        }
+    }
+
+    private static final class Unsupported extends RuntimeException {
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.viko.validation;
+
+import com.viko.util.GeneratedClasses;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class ValidationPlan: Compiled checks of one class, in field declaration order.
+ * Built once per class by the Validator, so annotations and strategies are only looked up once.
+ */
+final class ValidationPlan {
+
+    final FieldCheck[] checks;
+    /** Same as checks for validation from several threads, checks of strategies that aren't thread safe take a lock. */
+    final FieldCheck[] sharedChecks;
+    /** Field of every check, same order as checks. */
+    final Field[] fields;
+    /** Value version of every check, null where the strategy needs the whole object. */
+    final ValueCheck[] valueChecks;
+    /** Annotation name of every check, the key of its latency histogram. */
+    final String[] rules;
+
+    ValidationPlan(Class<?> type, Map<Class<? extends Annotation>, ValidationStrategy> strategies) {
+        List<FieldCheck> compiled = new ArrayList<>();
+        List<FieldCheck> shared = new ArrayList<>();
+        List<Field> checkedFields = new ArrayList<>();
+        List<ValueCheck> compiledValues = new ArrayList<>();
+        List<String> ruleNames = new ArrayList<>();
+        GeneratedValidator<?> generated = generatedValidator(type);
+        for (Field field : type.getDeclaredFields()) {
+            for (var entry : strategies.entrySet()) {
+                if (field.isAnnotationPresent(entry.getKey())) {
+                    ValidationStrategy strategy = entry.getValue();
+                    FieldCheck check = generated != null && isBuiltIn(strategy)
+                            ? generated.check(field.getName(), entry.getKey()) : null;
+                    if (check == null) check = strategy.compile(field);
+                    compiled.add(check);
+                    shared.add(strategy.isThreadSafe() ? check : locked(check, strategy));
+                    checkedFields.add(field);
+                    compiledValues.add(strategy.compileValue(field));
+                    ruleNames.add(entry.getKey().getSimpleName());
+                }
+            }
+        }
+        this.checks = compiled.toArray(new FieldCheck[0]);
+        this.sharedChecks = shared.toArray(new FieldCheck[0]);
+        this.fields = checkedFields.toArray(new Field[0]);
+        this.valueChecks = compiledValues.toArray(new ValueCheck[0]);
+        this.rules = ruleNames.toArray(new String[0]);
+    }
+
+    private static GeneratedValidator<?> generatedValidator(Class<?> type) {
+        GeneratedValidator<?> generated = GeneratedClasses.find(type, "Validator", GeneratedValidator.class);
+        return generated != null && generated.type() == type ? generated : null;
+    }
+
+    /**
+     * Func locked: Runs the check holding the lock of its strategy, so a strategy with state is used by one
+     * thread at a time.
+     */
+    private static FieldCheck locked(FieldCheck check, ValidationStrategy strategy) {
+        return obj -> {
+            synchronized (strategy) {
+                return check.check(obj);
+            }
+        };
+    }
+
+    /**
+     * Func isBuiltIn: Generated checks are only used while the built-in strategy is registered,
+     * a replaced strategy is always compiled.
+     */
+    private static boolean isBuiltIn(ValidationStrategy strategy) {
+        Class<?> type = strategy.getClass();
+        return type == NotNullStrategy.class || type == RegexStrategy.class || type == RangeStrategy.class;
+    }
+
+    /**
+     * Func check: Runs the compiled checks against one object.
+     * @param obj Object to validate
+     * @param failFast Stop at the first violation
+     * @param shared Whether other threads validate with this plan at the same time
+     * @param metrics Recorder timing the checks, null when validation is not watched
+     * @return Error messages, or null when the object is valid. No set is created for valid objects.
+     */
+    Set<String> check(Object obj, boolean failFast, boolean shared, ValidationRecorder metrics) {
+        FieldCheck[] checks = shared ? sharedChecks : this.checks;
+        Set<String> messages = null;
+        for (int i = 0; i < checks.length; i++) {
+            String message = run(checks, i, obj, metrics);
+            if (message == null) continue;
+            if (messages == null) messages = new HashSet<>();
+            messages.add(message);
+            if (failFast) break;
+        }
+        return messages;
+    }
+
+    /**
+     * Func report: Runs the compiled checks against one object, adding violations to the report.
+     * @param obj Object to validate
+     * @param row Index of the object in the validated list
+     * @param failFast Stop at the first violation
+     * @param shared Whether other threads validate with this plan at the same time
+     * @param report Report receiving the violations
+     * @param metrics Recorder timing the checks, null when validation is not watched
+     */
+    void report(Object obj, int row, boolean failFast, boolean shared, ValidationReport report,
+                ValidationRecorder metrics) {
+        FieldCheck[] checks = shared ? sharedChecks : this.checks;
+        for (int i = 0; i < checks.length; i++) {
+            String message = run(checks, i, obj, metrics);
+            if (message == null) continue;
+            report.add(row, fields[i], message);
+            if (failFast) return;
+        }
+    }
+
+    private String run(FieldCheck[] checks, int i, Object obj, ValidationRecorder metrics) {
+        if (metrics == null) return checks[i].check(obj);
+        long start = System.nanoTime();
+        String message = checks[i].check(obj);
+        metrics.record(rules[i], System.nanoTime() - start);
+        return message;
+    }
+}
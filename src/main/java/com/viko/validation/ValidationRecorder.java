@@ -0,0 +1,72 @@
+package com.viko.validation;
+
+import com.viko.metrics.LatencyHistogram;
+import com.viko.metrics.MetricsListener;
+import com.viko.metrics.ValidationEvent;
+import com.viko.metrics.ValidationMetrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class ValidationRecorder: Per rule check timings of one validate or report call,
+ * reported to the MetricsListener and as a ValidationEvent at the end.
+ * Only created when someone is watching, validation without metrics does not read the clock.
+ */
+final class ValidationRecorder {
+
+    private final MetricsListener listener;
+    private final ValidationEvent event;
+    private final long start = System.nanoTime();
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+
+    private ValidationRecorder(MetricsListener listener, ValidationEvent event) {
+        this.listener = listener;
+        this.event = event;
+        if (event != null) event.begin();
+    }
+
+    /**
+     * Func start
+     * @return Recorder for a new call, null when there is no listener and the JFR event is disabled.
+     */
+    static ValidationRecorder start(MetricsListener listener) {
+        ValidationEvent event = new ValidationEvent();
+        if (listener == MetricsListener.NONE && !event.isEnabled()) return null;
+        return new ValidationRecorder(listener, event.isEnabled() ? event : null);
+    }
+
+    /**
+     * Func fork: Recorder for one worker of a parallel call, its timings are added back with merge.
+     */
+    ValidationRecorder fork() {
+        return new ValidationRecorder(MetricsListener.NONE, null);
+    }
+
+    void merge(ValidationRecorder worker) {
+        for (var entry : worker.latencies.entrySet()) {
+            latencies.computeIfAbsent(entry.getKey(), key -> new LatencyHistogram()).merge(entry.getValue());
+        }
+    }
+
+    void record(String rule, long nanos) {
+        latencies.computeIfAbsent(rule, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    void finish(long objects, long invalid) {
+        long elapsed = System.nanoTime() - start;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.objects = objects;
+                event.invalid = invalid;
+                event.commit();
+            }
+        }
+        if (listener != MetricsListener.NONE) {
+            listener.validationFinished(new ValidationMetrics(objects, invalid, elapsed,
+                    Collections.unmodifiableMap(latencies)));
+        }
+    }
+}
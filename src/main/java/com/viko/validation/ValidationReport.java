@@ -0,0 +1,284 @@
+package com.viko.validation;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Class ValidationReport: Violations found by Validator.report, kept in primitive arrays.
+ * Every violation is a row index (position in the validated list), a field id and a message id.
+ * Fields and messages are interned, so a million violations of the same rule cost three ints each
+ * instead of a map entry, a set and a String.
+ * <p>
+ * Counts always cover every violation, even when the report stopped keeping them because of the cap.
+ */
+public final class ValidationReport implements Iterable<ValidationReport.Violation> {
+
+    /**
+     * Record Violation: One broken rule, created while iterating the report.
+     * @param row Index of the object in the validated list
+     * @param field Name of the field breaking the rule
+     * @param message Message of the broken rule
+     */
+    public record Violation(int row, String field, String message) {
+    }
+
+    /**
+     * Record RuleCount: Number of violations of one rule, a rule being a field and its message.
+     */
+    public record RuleCount(String field, String message, int count) {
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxViolations;
+
+    private int[] rows = new int[INITIAL_CAPACITY];
+    private int[] fieldIds = new int[INITIAL_CAPACITY];
+    private int[] messageIds = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private final List<Field> fields = new ArrayList<>();
+    private final Map<Field, Integer> fieldIndex = new HashMap<>();
+    private final List<String> messages = new ArrayList<>();
+    private final Map<String, Integer> messageIndex = new HashMap<>();
+    /** Counts per rule, indexed by field id then message id, grown on demand. */
+    private int[][] ruleCounts = new int[0][];
+
+    private int totalViolations = 0;
+    private int rowsWithViolations = 0;
+    private int lastRow = -1;
+
+    /**
+     * @param maxViolations Most violations kept for iteration, counts keep going past it
+     */
+    ValidationReport(int maxViolations) {
+        if (maxViolations < 0) throw new IllegalArgumentException("maxViolations must not be negative");
+        this.maxViolations = maxViolations;
+    }
+
+    /**
+     * Func add: Records one violation. Rows have to be added in increasing order.
+     * @param row Index of the object
+     * @param field Field of the broken check
+     * @param message Message of the broken check
+     */
+    void add(int row, Field field, String message) {
+        int fieldId = intern(field, fields, fieldIndex);
+        int messageId = intern(message, messages, messageIndex);
+        countRule(fieldId, messageId, 1);
+        totalViolations++;
+        if (row != lastRow) {
+            rowsWithViolations++;
+            lastRow = row;
+        }
+        if (size == maxViolations) return;
+        if (size == rows.length) {
+            int capacity = Math.min(maxViolations, size + (size >> 1) + 1);
+            rows = Arrays.copyOf(rows, capacity);
+            fieldIds = Arrays.copyOf(fieldIds, capacity);
+            messageIds = Arrays.copyOf(messageIds, capacity);
+        }
+        rows[size] = row;
+        fieldIds[size] = fieldId;
+        messageIds[size] = messageId;
+        size++;
+    }
+
+    /**
+     * Func append: Adds the violations of a report on later rows, e.g. the next chunk of a parallel run.
+     * The result is the same as if its rows had been added to this report one by one.
+     * @param other Report whose first row comes after the last row of this one
+     */
+    void append(ValidationReport other) {
+        //interned in the other report's order, so first appearance order is kept
+        int[] fieldMap = new int[other.fields.size()];
+        for (int id = 0; id < fieldMap.length; id++) fieldMap[id] = intern(other.fields.get(id), fields, fieldIndex);
+        int[] messageMap = new int[other.messages.size()];
+        for (int id = 0; id < messageMap.length; id++) {
+            messageMap[id] = intern(other.messages.get(id), messages, messageIndex);
+        }
+        for (int fieldId = 0; fieldId < other.ruleCounts.length; fieldId++) {
+            int[] byMessage = other.ruleCounts[fieldId];
+            if (byMessage == null) continue;
+            for (int messageId = 0; messageId < byMessage.length; messageId++) {
+                if (byMessage[messageId] == 0) continue;
+                countRule(fieldMap[fieldId], messageMap[messageId], byMessage[messageId]);
+            }
+        }
+        totalViolations += other.totalViolations;
+        rowsWithViolations += other.rowsWithViolations;
+        if (other.lastRow >= 0) lastRow = other.lastRow;
+        int kept = Math.min(other.size, maxViolations - size);
+        if (size + kept > rows.length) {
+            rows = Arrays.copyOf(rows, size + kept);
+            fieldIds = Arrays.copyOf(fieldIds, size + kept);
+            messageIds = Arrays.copyOf(messageIds, size + kept);
+        }
+        for (int i = 0; i < kept; i++) {
+            rows[size] = other.rows[i];
+            fieldIds[size] = fieldMap[other.fieldIds[i]];
+            messageIds[size] = messageMap[other.messageIds[i]];
+            size++;
+        }
+    }
+
+    private static <K> int intern(K key, List<K> table, Map<K, Integer> index) {
+        Integer id = index.get(key);
+        if (id != null) return id;
+        table.add(key);
+        index.put(key, table.size() - 1);
+        return table.size() - 1;
+    }
+
+    private void countRule(int fieldId, int messageId, int violations) {
+        if (fieldId >= ruleCounts.length) ruleCounts = Arrays.copyOf(ruleCounts, fieldId + 1);
+        int[] counts = ruleCounts[fieldId];
+        if (counts == null) counts = ruleCounts[fieldId] = new int[messageId + 1];
+        else if (messageId >= counts.length) counts = ruleCounts[fieldId] = Arrays.copyOf(counts, messageId + 1);
+        counts[messageId] += violations;
+    }
+
+    /**
+     * @return true when no violation was found.
+     */
+    public boolean isValid() {
+        return totalViolations == 0;
+    }
+
+    /**
+     * @return Number of violations kept in the report, at most the cap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of violations found, including the ones dropped because of the cap.
+     */
+    public int totalViolations() {
+        return totalViolations;
+    }
+
+    /**
+     * @return Number of objects with at least one violation.
+     */
+    public int rowsWithViolations() {
+        return rowsWithViolations;
+    }
+
+    /**
+     * @return true when violations were dropped because of the cap.
+     */
+    public boolean isTruncated() {
+        return totalViolations > size;
+    }
+
+    /**
+     * Func row: Row index of the i-th kept violation.
+     */
+    public int row(int i) {
+        checkIndex(i);
+        return rows[i];
+    }
+
+    /**
+     * Func field: Field name of the i-th kept violation.
+     */
+    public String field(int i) {
+        checkIndex(i);
+        return fields.get(fieldIds[i]).getName();
+    }
+
+    /**
+     * Func message: Message of the i-th kept violation.
+     */
+    public String message(int i) {
+        checkIndex(i);
+        return messages.get(messageIds[i]);
+    }
+
+    /**
+     * Func messagesOf: Messages of one object, found by binary search on the row index.
+     * @param row Index of the object in the validated list
+     * @return Messages in check order, empty when the object is valid or its violations were dropped.
+     */
+    public List<String> messagesOf(int row) {
+        int i = Arrays.binarySearch(rows, 0, size, row);
+        if (i < 0) return List.of();
+        //binary search can land anywhere in the run of equal rows
+        while (i > 0 && rows[i - 1] == row) i--;
+        List<String> result = new ArrayList<>();
+        for (; i < size && rows[i] == row; i++) result.add(messages.get(messageIds[i]));
+        return result;
+    }
+
+    /**
+     * Func countsByMessage: Violations per message, in order of first appearance.
+     * @return Map of message to number of violations
+     */
+    public Map<String, Integer> countsByMessage() {
+        int[] counts = new int[messages.size()];
+        for (int[] byMessage : ruleCounts) {
+            if (byMessage == null) continue;
+            for (int id = 0; id < byMessage.length; id++) counts[id] += byMessage[id];
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int id = 0; id < counts.length; id++) result.put(messages.get(id), counts[id]);
+        return result;
+    }
+
+    /**
+     * Func topRules: Rules broken most often.
+     * @param n Maximum number of rules returned
+     * @return Rules sorted by number of violations, descending
+     */
+    public List<RuleCount> topRules(int n) {
+        List<RuleCount> result = new ArrayList<>();
+        for (int fieldId = 0; fieldId < ruleCounts.length; fieldId++) {
+            int[] byMessage = ruleCounts[fieldId];
+            if (byMessage == null) continue;
+            for (int messageId = 0; messageId < byMessage.length; messageId++) {
+                if (byMessage[messageId] == 0) continue;
+                result.add(new RuleCount(fields.get(fieldId).getName(), messages.get(messageId), byMessage[messageId]));
+            }
+        }
+        result.sort((a, b) -> Integer.compare(b.count(), a.count()));
+        return result.subList(0, Math.min(n, result.size()));
+    }
+
+    @Override
+    public Iterator<Violation> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Violation next() {
+                if (next >= size) throw new NoSuchElementException();
+                int i = next++;
+                return new Violation(rows[i], fields.get(fieldIds[i]).getName(), messages.get(messageIds[i]));
+            }
+        };
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Violation " + i + " of " + size);
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationReport{violations=" + totalViolations + ", rows=" + rowsWithViolations +
+                ", kept=" + size + "}";
+    }
+}
@@ -5,4 +5,35 @@ import java.util.Optional;
 
 public interface ValidationStrategy {
     Optional<String> validate(Object obj, Field field);
+
+    /**
+     * Func compile: Builds the check for a single field once, so the Validator does not have to
+     * go through reflection for every object.
+     * The default wraps validate(obj, field), so custom strategies work without overriding it.
+     * @param field Field carrying the strategy annotation
+     * @return Compiled check for the field
+     */
+    default FieldCheck compile(Field field) {
+        return obj -> validate(obj, field).orElse(null);
+    }
+
+    /**
+     * Func compileValue: Builds a check that works on the converted value alone, before the object exists.
+     * Returns null by default, meaning the strategy needs the whole object and compile(field) is used instead.
+     * @param field Field carrying the strategy annotation
+     * @return Check on the value, or null
+     */
+    default ValueCheck compileValue(Field field) {
+        return null;
+    }
+
+    /**
+     * Func isThreadSafe: Whether the checks of this strategy can run on several threads at once.
+     * False by default, so Validator.validateParallel runs the checks of a custom strategy one at a time
+     * (holding the strategy's lock) unless it says otherwise. The built-in strategies are thread safe.
+     * @return true when validate and the compiled checks keep no shared mutable state
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
@@ -5,12 +5,15 @@ import com.viko.annotations.Range;
 import com.viko.annotations.Regex;
 
 import com.viko.exception.GlobalErrorHandler;
+import com.viko.metrics.MetricsListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Validation Class:
@@ -21,14 +24,82 @@ public class Validator {
 
     public static Logger logger = LogManager.getLogger(NotNullStrategy.class);
 
-    private final Map<Class<? extends Annotation>, ValidationStrategy> strategies = Map.of(
-            NotNull.class, new NotNullStrategy(),
-            Regex.class, new RegexStrategy(),
-            Range.class, new RangeStrategy()
-    );
+    public enum ValidationMode {
+        COLLECT_ALL,
+        FAIL_FAST
+    }
+
+    /**
+     * Kept in a fixed order (NotNull, Regex, Range, then registered ones), so FAIL_FAST always reports
+     * the same violation. Replaced as a whole by register, never changed in place.
+     */
+    private volatile Map<Class<? extends Annotation>, ValidationStrategy> strategies;
+
+    /**
+     * Compiled checks per validated class, built on first use and dropped when a strategy is registered.
+     */
+    private volatile ClassValue<ValidationPlan> plans;
+
+    /** Fewest objects validated by one worker of a parallel call. */
+    private static final int MIN_CHUNK = 1024;
+
+    private final ValidationMode mode;
+
+    private volatile MetricsListener metricsListener = MetricsListener.NONE;
+
+    public Validator() {
+        this(ValidationMode.COLLECT_ALL);
+    }
+
+    /**
+     * @param mode COLLECT_ALL reports every violation of an object, FAIL_FAST stops at the first one.
+     */
+    public Validator(ValidationMode mode) {
+        this.mode = mode;
+        Map<Class<? extends Annotation>, ValidationStrategy> builtIn = new LinkedHashMap<>();
+        builtIn.put(NotNull.class, new NotNullStrategy());
+        builtIn.put(Regex.class, new RegexStrategy());
+        builtIn.put(Range.class, new RangeStrategy());
+        use(builtIn);
+    }
+
+    /**
+     * Func register: Adds a strategy for a custom annotation, or replaces the one of a built-in annotation.
+     * Classes validated before are compiled again with the new strategy.
+     * A strategy that is not thread safe (see ValidationStrategy.isThreadSafe) still works with validateParallel,
+     * its checks just run one at a time.
+     * @param annotation Annotation marking the fields the strategy checks
+     * @param strategy Strategy checking them
+     */
+    public synchronized void register(Class<? extends Annotation> annotation, ValidationStrategy strategy) {
+        Map<Class<? extends Annotation>, ValidationStrategy> copy = new LinkedHashMap<>(strategies);
+        copy.put(Objects.requireNonNull(annotation), Objects.requireNonNull(strategy));
+        use(copy);
+    }
+
+    private void use(Map<Class<? extends Annotation>, ValidationStrategy> strategies) {
+        this.strategies = strategies;
+        this.plans = new ClassValue<>() {
+            @Override
+            protected ValidationPlan computeValue(Class<?> type) {
+                return new ValidationPlan(type, strategies);
+            }
+        };
+    }
+
+    /**
+     * Func setMetricsListener: Receives a ValidationMetrics summary with per rule latencies after every
+     * validate and report call. Checks are only timed while a listener is set or the com.viko.Validation
+     * JFR event is enabled.
+     * @param listener Listener, MetricsListener.NONE (or null) to turn it off
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        this.metricsListener = listener == null ? MetricsListener.NONE : listener;
+    }
 
     /**
      * Func validate: Validates all fields of passed objects based on the annotations they have.
+     * Checks are compiled once per class and reused for every object.
      * @param objects Input List of type T objects to validate.
      * @return errors: Returns errors object if any errors are present.
      * @param <T> Generic Template type, allowing for a wide range of input types.
@@ -37,23 +108,157 @@ public class Validator {
     public <T> Map<T, Set<String>> validate(List<T> objects) {
         Map<T, Set<String>> errors = new HashMap<>();
 
+        ClassValue<ValidationPlan> plans = this.plans;
+        boolean failFast = mode == ValidationMode.FAIL_FAST;
+        ValidationRecorder metrics = ValidationRecorder.start(metricsListener);
+
         for (T obj : objects) {
-            Set<String> messages = new HashSet<>();
-            logger.info("mapping through object: {}", obj);
-            for (Field field : obj.getClass().getDeclaredFields()) {
-                for (var entry : strategies.entrySet()) {
-                    if (field.isAnnotationPresent(entry.getKey())) {
-                        entry.getValue()
-                                .validate(obj, field)
-                                .ifPresent(messages::add);
-                    }
-                }
-            }
-            if (!messages.isEmpty()) {
-                GlobalErrorHandler.log("Errors found during validation");
+            Set<String> messages = plans.get(obj.getClass()).check(obj, failFast, false, metrics);
+            if (messages != null) {
                 errors.put(obj, messages);
             }
         }
+        if (metrics != null) metrics.finish(objects.size(), errors.size());
+        //once per call instead of once per invalid object
+        if (!errors.isEmpty()) {
+            GlobalErrorHandler.log("Errors found during validation of " + errors.size() + " objects");
+        }
         return errors;
     }
+
+    /**
+     * Func report: Validates the objects into a compact report instead of a map keyed by the objects.
+     * Violations are kept by row index, so records don't need equals/hashCode and valid ones cost nothing.
+     * @param objects Objects to validate
+     * @return Report with every violation
+     * @param <T> Type of the objects
+     */
+    public <T> ValidationReport report(List<T> objects) {
+        return report(objects, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Func report: Same as report(objects), keeping at most maxViolations violations.
+     * Counts and summaries still cover every violation found.
+     * @param objects Objects to validate
+     * @param maxViolations Most violations kept in the report
+     * @return Report with the first maxViolations violations
+     * @param <T> Type of the objects
+     */
+    public <T> ValidationReport report(List<T> objects, int maxViolations) {
+        ValidationReport report = new ValidationReport(maxViolations);
+        ClassValue<ValidationPlan> plans = this.plans;
+        boolean failFast = mode == ValidationMode.FAIL_FAST;
+        ValidationRecorder metrics = ValidationRecorder.start(metricsListener);
+        int row = 0;
+        for (T obj : objects) {
+            plans.get(obj.getClass()).report(obj, row++, failFast, false, report, metrics);
+        }
+        if (metrics != null) metrics.finish(objects.size(), report.rowsWithViolations());
+        return report;
+    }
+
+    /**
+     * Func validateParallel: Parallel version of validate on the given pool. The list is cut into chunks,
+     * every chunk collects its own errors and timings and the chunks are merged in list order,
+     * so the result is the same whatever the pool size.
+     * @param objects Objects to validate, the list must support fast random access and not change meanwhile
+     * @param pool Pool validating the chunks
+     * @return Errors of the invalid objects, in list order.
+     * @param <T> Type of the objects
+     */
+    public <T> Map<T, Set<String>> validateParallel(List<T> objects, ForkJoinPool pool) {
+        ClassValue<ValidationPlan> plans = this.plans;
+        boolean failFast = mode == ValidationMode.FAIL_FAST;
+        ValidationRecorder metrics = ValidationRecorder.start(metricsListener);
+        List<ForkJoinTask<Chunk<Map<T, Set<String>>>>> tasks = new ArrayList<>();
+        for (int from = 0, size = chunkSize(objects.size(), pool); from < objects.size(); from += size) {
+            List<T> chunk = objects.subList(from, Math.min(from + size, objects.size()));
+            tasks.add(pool.submit(() -> {
+                Map<T, Set<String>> errors = new LinkedHashMap<>();
+                ValidationRecorder worker = metrics == null ? null : metrics.fork();
+                for (T obj : chunk) {
+                    Set<String> messages = plans.get(obj.getClass()).check(obj, failFast, true, worker);
+                    if (messages != null) errors.put(obj, messages);
+                }
+                return new Chunk<>(errors, worker);
+            }));
+        }
+        Map<T, Set<String>> errors = new LinkedHashMap<>();
+        for (ForkJoinTask<Chunk<Map<T, Set<String>>>> task : tasks) {
+            Chunk<Map<T, Set<String>>> chunk = task.join();
+            errors.putAll(chunk.result());
+            if (metrics != null) metrics.merge(chunk.metrics());
+        }
+        if (metrics != null) metrics.finish(objects.size(), errors.size());
+        if (!errors.isEmpty()) {
+            GlobalErrorHandler.log("Errors found during validation of " + errors.size() + " objects");
+        }
+        return errors;
+    }
+
+    /**
+     * Func reportParallel: Parallel version of report(objects, maxViolations) on the given pool.
+     * Every chunk fills its own report, they are appended in list order, so the kept violations are the same
+     * as those of report.
+     * @param objects Objects to validate, the list must support fast random access and not change meanwhile
+     * @param maxViolations Most violations kept in the report
+     * @param pool Pool validating the chunks
+     * @return Report with the first maxViolations violations
+     * @param <T> Type of the objects
+     */
+    public <T> ValidationReport reportParallel(List<T> objects, int maxViolations, ForkJoinPool pool) {
+        ValidationReport report = new ValidationReport(maxViolations);
+        ClassValue<ValidationPlan> plans = this.plans;
+        boolean failFast = mode == ValidationMode.FAIL_FAST;
+        ValidationRecorder metrics = ValidationRecorder.start(metricsListener);
+        List<ForkJoinTask<Chunk<ValidationReport>>> tasks = new ArrayList<>();
+        for (int from = 0, size = chunkSize(objects.size(), pool); from < objects.size(); from += size) {
+            int first = from;
+            List<T> chunk = objects.subList(from, Math.min(from + size, objects.size()));
+            tasks.add(pool.submit(() -> {
+                //no chunk keeps more than the whole report could
+                ValidationReport part = new ValidationReport(maxViolations);
+                ValidationRecorder worker = metrics == null ? null : metrics.fork();
+                int row = first;
+                for (T obj : chunk) {
+                    plans.get(obj.getClass()).report(obj, row++, failFast, true, part, worker);
+                }
+                return new Chunk<>(part, worker);
+            }));
+        }
+        for (ForkJoinTask<Chunk<ValidationReport>> task : tasks) {
+            Chunk<ValidationReport> chunk = task.join();
+            report.append(chunk.result());
+            if (metrics != null) metrics.merge(chunk.metrics());
+        }
+        if (metrics != null) metrics.finish(objects.size(), report.rowsWithViolations());
+        return report;
+    }
+
+    /**
+     * Func chunkSize: About four chunks per pool thread, so a slow chunk doesn't hold up the rest,
+     * but never so small that merging costs more than checking.
+     */
+    private static int chunkSize(int objects, ForkJoinPool pool) {
+        return Math.max(MIN_CHUNK, (int) Math.ceil(objects / (pool.getParallelism() * 4.0)));
+    }
+
+    /**
+     * Record Chunk: What one worker of a parallel call found.
+     * @param metrics Timings of the worker, null when validation is not watched
+     */
+    private record Chunk<R>(R result, ValidationRecorder metrics) {
+    }
+
+    /**
+     * Func recordValidator: Checks of a class split into value and object checks, used by the parser
+     * to validate rows while they are parsed.
+     * @param type Validated class
+     * @param columns Fields the parser fills from columns, their value checks run before the object is built
+     * @return Checks sharing the compiled plan of this validator
+     */
+    public RecordValidator recordValidator(Class<?> type, Collection<Field> columns) {
+        return new RecordValidator(plans.get(type), mode == ValidationMode.FAIL_FAST, columns);
+    }
 }
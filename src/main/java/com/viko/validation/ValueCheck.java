@@ -0,0 +1,15 @@
+package com.viko.validation;
+
+/**
+ * Interface ValueCheck: A validation rule that only needs the converted value of a field.
+ * Lets the parser reject a row before the object is built.
+ */
+@FunctionalInterface
+public interface ValueCheck {
+    /**
+     * Func check
+     * @param value Converted field value, null for a blank column
+     * @return Error message, or null when the value is valid.
+     */
+    String check(Object value);
+}
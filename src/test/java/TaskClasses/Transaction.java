@@ -2,6 +2,7 @@ package TaskClasses;
 
 import com.viko.annotations.Column;
 import com.viko.annotations.FileSource;
+import com.viko.annotations.Key;
 import com.viko.annotations.NotNull;
 import com.viko.annotations.Range;
 
@@ -10,6 +11,7 @@ import java.time.LocalDate;
 @FileSource(delimiter = "|")
 public class Transaction {
     @NotNull
+    @Key
     @Column(index = 0, name = "transactionId")
     private String transactionId;
 
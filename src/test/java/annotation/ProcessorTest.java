@@ -0,0 +1,124 @@
+package annotation;
+
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.annotations.NotNull;
+import com.viko.annotations.Range;
+import com.viko.annotations.Regex;
+import com.viko.exception.ParsingException;
+import com.viko.parser.GeneratedParser;
+import com.viko.parser.GenericParser;
+import com.viko.validation.GeneratedValidator;
+import com.viko.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProcessorTest {
+
+    /** Public fields, gets a generated parser and validator. */
+    @FileSource(delimiter = ";")
+    public static class Person {
+        @NotNull(message = "name is required")
+        @Column(index = 0)
+        public String name;
+
+        @Regex(pattern = "^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$", message = "bad \"email\"", specialized = true)
+        @Column(index = 1)
+        public String email;
+
+        @Range(min = 18, max = 50, message = "age out of range")
+        @Column(index = 2)
+        public int age;
+
+        @Range(min = 0, message = "negative score")
+        @Column(index = 3)
+        public Double score;
+    }
+
+    /** Same mapping with private fields, parsed and validated through reflection. */
+    @FileSource(delimiter = ";")
+    public static class PrivatePerson {
+        @NotNull(message = "name is required")
+        @Column(index = 0)
+        private String name;
+
+        @Regex(pattern = "^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$", message = "bad \"email\"", specialized = true)
+        @Column(index = 1)
+        private String email;
+
+        @Range(min = 18, max = 50, message = "age out of range")
+        @Column(index = 2)
+        private int age;
+
+        @Range(min = 0, message = "negative score")
+        @Column(index = 3)
+        private Double score;
+    }
+
+    private static final List<String> LINES = List.of(
+            "John; john@mail.com; 30; 1.5",
+            " ; not-an-email; 70; -2",
+            "Ann; ann@mail.com; 20; ",
+            "Bob; bob@mail.com; abc; 1",
+            "Eve; eve@mail.com; ; 1",
+            "Max; max@mail.com"
+    );
+
+    @Test
+    void generatesClassesForAccessibleTypes() throws Exception {
+        Class<?> parser = Class.forName("annotation.ProcessorTest_PersonParser");
+        Class<?> validator = Class.forName("annotation.ProcessorTest_PersonValidator");
+        assertTrue(GeneratedParser.class.isAssignableFrom(parser));
+        assertTrue(GeneratedValidator.class.isAssignableFrom(validator));
+        assertEquals(Person.class, ((GeneratedParser<?>) parser.getDeclaredConstructor().newInstance()).type());
+        assertNotNull(Class.forName("parser.MockClassParser"));
+        assertNotNull(Class.forName("parser.MockClassValidator"));
+
+        //private @Column fields can't be set from another class
+        assertThrows(ClassNotFoundException.class, () -> Class.forName("annotation.ProcessorTest_PrivatePersonParser"));
+    }
+
+    @Test
+    void generatedParserMatchesReflection() throws Exception {
+        GenericParser parser = new GenericParser();
+        for (String line : LINES) {
+            String generated;
+            String reflective;
+            try {
+                Person person = parser.parseLine(line, Person.class, ";");
+                generated = person.name + "|" + person.email + "|" + person.age + "|" + person.score;
+            } catch (ParsingException e) {
+                generated = e.getMessage() + " @" + e.getColumn();
+            }
+            try {
+                PrivatePerson person = parser.parseLine(line, PrivatePerson.class, ";");
+                reflective = person.name + "|" + person.email + "|" + person.age + "|" + person.score;
+            } catch (ParsingException e) {
+                reflective = e.getMessage() + " @" + e.getColumn();
+            }
+            assertEquals(reflective, generated, line);
+        }
+    }
+
+    @Test
+    void generatedValidatorMatchesReflection() throws Exception {
+        GenericParser parser = new GenericParser();
+        Validator validator = new Validator();
+        for (String line : LINES.subList(0, 3)) {
+            Person person = parser.parseLine(line, Person.class, ";");
+            PrivatePerson privatePerson = parser.parseLine(line, PrivatePerson.class, ";");
+            Map<Person, Set<String>> generated = validator.validate(List.of(person));
+            Map<PrivatePerson, Set<String>> reflective = validator.validate(List.of(privatePerson));
+            assertEquals(reflective.get(privatePerson), generated.get(person), line);
+        }
+
+        Person invalid = parser.parseLine(" ; not-an-email; 70; -2", Person.class, ";");
+        assertEquals(Set.of("name is required", "bad \"email\"", "age out of range", "negative score"),
+                validator.validate(List.of(invalid)).get(invalid));
+    }
+}
@@ -0,0 +1,116 @@
+package metrics;
+
+import com.viko.metrics.LatencyHistogram;
+import com.viko.metrics.MetricsListener;
+import com.viko.metrics.ParseMetrics;
+import com.viko.metrics.ValidationMetrics;
+import com.viko.parser.GenericParser;
+import com.viko.validation.Validator;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import parser.MockClass;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    private static final String DATA = """
+            # comment
+            John,john@mail.com,30
+
+            Ann,ann@mail,20
+            Bad,bad@mail.com,NOT_A_NUMBER
+            Old,old@mail.com,70
+            """;
+
+    @Test
+    void shouldReportParseCountersAndFailuresPerColumn() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("metrics", ".txt"), DATA);
+        List<ParseMetrics> runs = new ArrayList<>();
+        GenericParser parser = new GenericParser();
+        parser.setMetricsListener(new MetricsListener() {
+            @Override
+            public void parseFinished(ParseMetrics metrics) {
+                runs.add(metrics);
+            }
+        });
+
+        parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.LENIENT);
+        parser.parseMapped(file, MockClass.class, GenericParser.ParsingMode.LENIENT);
+
+        assertEquals(2, runs.size());
+        for (ParseMetrics run : runs) {
+            assertEquals(MockClass.class.getName(), run.type());
+            assertEquals(3, run.rows());
+            assertEquals(1, run.blankLines());
+            assertEquals(1, run.commentLines());
+            assertEquals(1, run.failedLines());
+            assertEquals(Files.size(file), run.bytes());
+            assertEquals(1L, run.conversionFailures().get("age (int)"));
+            assertTrue(run.elapsedNanos() > 0);
+            assertTrue(run.rowsPerSecond() > 0);
+        }
+        assertTrue(runs.get(0).ioNanos() > 0 && runs.get(0).parseNanos() > 0);
+    }
+
+    @Test
+    void shouldTimeEveryRule() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("metrics", ".txt"), DATA);
+        List<MockClass> records = new GenericParser().parse(file.toString(), MockClass.class,
+                GenericParser.ParsingMode.LENIENT);
+        List<ValidationMetrics> runs = new ArrayList<>();
+        Validator validator = new Validator();
+        validator.setMetricsListener(new MetricsListener() {
+            @Override
+            public void validationFinished(ValidationMetrics metrics) {
+                runs.add(metrics);
+            }
+        });
+
+        validator.validate(records);
+        validator.report(records);
+
+        assertEquals(2, runs.size());
+        for (ValidationMetrics run : runs) {
+            assertEquals(3, run.objects());
+            assertEquals(2, run.invalid());
+            assertEquals(List.of("NotNull", "Regex", "Range"), List.copyOf(run.latencies().keySet()));
+            for (LatencyHistogram histogram : run.latencies().values()) {
+                assertEquals(3, histogram.count());
+                assertTrue(histogram.percentileNanos(99) <= histogram.maxNanos());
+            }
+        }
+    }
+
+    @Test
+    void shouldEmitJfrEvents() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("metrics", ".txt"), DATA);
+        Path dump = Files.createTempFile("metrics", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.viko.Parse");
+            recording.enable("com.viko.Validation");
+            recording.start();
+            List<MockClass> records = new GenericParser().parse(file.toString(), MockClass.class,
+                    GenericParser.ParsingMode.LENIENT);
+            new Validator().validate(records);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        RecordedEvent parse = events.stream().filter(e -> e.getEventType().getName().equals("com.viko.Parse"))
+                .findFirst().orElseThrow();
+        assertEquals(3, parse.getLong("rows"));
+        assertEquals(1, parse.getLong("failedLines"));
+        RecordedEvent validation = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.viko.Validation")).findFirst().orElseThrow();
+        assertEquals(2, validation.getLong("invalid"));
+    }
+}
@@ -0,0 +1,164 @@
+package parser;
+
+import TaskClasses.Transaction;
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.exception.ParsingException;
+import com.viko.parser.AggregateResult;
+import com.viko.parser.Aggregation;
+import com.viko.parser.GenericParser;
+import com.viko.parser.ParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AggregationTest {
+
+    private static final Aggregation PER_DAY = Aggregation.groupBy("timestamp")
+            .count().sum("amount").min("amount").max("amount").avg("amount");
+
+    @FileSource(delimiter = ",")
+    public static class Event {
+        @Column(index = 0)
+        public String ip;
+        @Column(index = 1)
+        public Integer status;
+        @Column(index = 2)
+        public long bytes;
+        @Column(index = 3)
+        public Double latency;
+    }
+
+    private static Path writeTransactions(int rows) throws Exception {
+        return TransactionFiles.write(rows, i -> i % 997 + "." + i % 100 / 10,
+                i -> LocalDate.of(2024, 1, 1).plusDays(i % 40));
+    }
+
+    @Test
+    void shouldMatchGroupingTheParsedRecords() throws Exception {
+        //a few MB, so the parallel run gets several chunks
+        Path file = writeTransactions(120_000);
+        GenericParser parser = new GenericParser();
+        Map<LocalDate, DoubleSummaryStatistics> expected = parser.parse(file.toString(), Transaction.class,
+                GenericParser.ParsingMode.STRICT).stream().collect(Collectors.groupingBy(t -> t.timestamp,
+                Collectors.summarizingDouble(t -> t.amount)));
+
+        AggregateResult sequential = parser.aggregate(file, Transaction.class, GenericParser.ParsingMode.STRICT, PER_DAY);
+        AggregateResult parallel = parser.aggregateParallel(file, Transaction.class, GenericParser.ParsingMode.STRICT,
+                ParseOptions.ALL, PER_DAY, new ForkJoinPool(4));
+
+        assertEquals(List.of("count", "sum(amount)", "min(amount)", "max(amount)", "avg(amount)"), sequential.names());
+        for (AggregateResult result : List.of(sequential, parallel)) {
+            assertEquals(120_000, result.rows());
+            assertEquals(expected.size(), result.size());
+            for (int group = 0; group < result.size(); group++) {
+                DoubleSummaryStatistics stats = expected.get((LocalDate) result.key(group, 0));
+                assertEquals(stats.getCount(), result.count(group));
+                assertEquals(stats.getCount(), result.value(group, "count"));
+                assertEquals(stats.getSum(), result.value(group, "sum(amount)"), 1e-6);
+                assertEquals(stats.getMin(), result.value(group, "min(amount)"));
+                assertEquals(stats.getMax(), result.value(group, "max(amount)"));
+                assertEquals(stats.getAverage(), result.value(group, 4), 1e-9);
+            }
+        }
+        assertEquals(sequential.key(0, 0), LocalDate.of(2024, 1, 1));
+        assertEquals(3000, sequential.count(sequential.find(LocalDate.of(2024, 2, 9))));
+        assertEquals(-1, sequential.find(LocalDate.of(2025, 1, 1)));
+    }
+
+    @Test
+    void stringKeysBlankValuesAndFilters() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("events", ".txt"), """
+                10.0.0.1, 200, 512, 0.5, GET
+                Zoë-host, 200, 100, , GET
+                10.0.0.1, 404, 0, 1.5, GET
+                , 500, 7, 2.0, POST
+                Zoë-host, , 50, 4.0, GET
+                10.0.0.2, 200, , 1.0, GET
+                """);
+        GenericParser parser = new GenericParser();
+        Aggregation perHost = Aggregation.groupBy("ip", "status").count().sum("bytes").avg("latency").min("latency");
+
+        AggregateResult result = parser.aggregate(file, Event.class, GenericParser.ParsingMode.LENIENT, perHost);
+        //the blank bytes of a primitive field fails its line
+        assertEquals(5, result.rows());
+        assertEquals(1, parser.errors().total());
+        int zoe = result.find("Zoë-host", 200);
+        assertEquals(100, result.value(zoe, "sum(bytes)"));
+        //no latency in the group
+        assertTrue(Double.isNaN(result.value(zoe, "avg(latency)")));
+        assertTrue(Double.isNaN(result.value(zoe, "min(latency)")));
+        //blank keys are groups of their own
+        assertEquals(50, result.value(result.find("Zoë-host", null), "sum(bytes)"));
+        assertNull(result.key(result.find(null, 500), 0));
+        assertEquals(-1, result.find("10.0.0.3", 200));
+
+        parser.errors().reset();
+        AggregateResult ok = parser.aggregate(file, Event.class, GenericParser.ParsingMode.LENIENT,
+                ParseOptions.ALL.where("status", raw -> raw.toString().equals("200")), Aggregation.groupBy().count());
+        //only the filtered column is looked at, the blank bytes don't fail the last line here
+        assertEquals(1, ok.size());
+        assertEquals(3, ok.count(0));
+        //a blank status is filtered out like any other value, not failed
+        assertEquals(0, parser.errors().total());
+    }
+
+    @Test
+    void strictModeShouldFailAndPartialsShouldMerge() throws Exception {
+        Path good = writeTransactions(100);
+        Path bad = Files.writeString(Files.createTempFile("transactions", ".txt"),
+                "TX1 | 10 | 2024-01-01\nTX2 | ten | 2024-01-01\nTX3 | 5 | 2024-01-02\n");
+        GenericParser parser = new GenericParser();
+
+        ParsingException e = assertThrows(ParsingException.class,
+                () -> parser.aggregate(bad, Transaction.class, GenericParser.ParsingMode.STRICT, PER_DAY));
+        assertTrue(e.getMessage().startsWith("Parsing failed at line 2"), e.getMessage());
+
+        AggregateResult total = parser.aggregate(good, Transaction.class, GenericParser.ParsingMode.STRICT, PER_DAY);
+        double before = total.value(total.find(LocalDate.of(2024, 1, 1)), "sum(amount)");
+        total.merge(parser.aggregate(bad, Transaction.class, GenericParser.ParsingMode.LENIENT, PER_DAY));
+        assertEquals(before + 10, total.value(total.find(LocalDate.of(2024, 1, 1)), "sum(amount)"), 1e-9);
+        assertEquals(102, total.rows());
+
+        AggregateResult other = parser.aggregate(good, Transaction.class, GenericParser.ParsingMode.STRICT,
+                Aggregation.groupBy("timestamp").count());
+        assertThrows(IllegalArgumentException.class, () -> total.merge(other));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.aggregate(good, Transaction.class, GenericParser.ParsingMode.STRICT,
+                        Aggregation.groupBy("amount").sum("transactionId")));
+    }
+
+    @Test
+    void primitiveGroupsShouldNotAllocatePerRow() throws Exception {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            data.append("h").append(i % 50).append(',').append(200 + i % 3).append(',').append(i).append(',')
+                    .append(i % 10).append(".5\n");
+        }
+        Path file = Files.writeString(Files.createTempFile("events", ".txt"), data);
+        GenericParser parser = new GenericParser();
+        Aggregation aggregation = Aggregation.groupBy("status").count().sum("bytes").max("latency");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        //first run warms up the converters
+        parser.aggregate(file, Event.class, GenericParser.ParsingMode.STRICT, aggregation);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        AggregateResult result = parser.aggregate(file, Event.class, GenericParser.ParsingMode.STRICT, aggregation);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(3, result.size());
+        assertEquals(9.5, result.value(result.find(201), "max(latency)"));
+        //boxed Integer and Double fields are read as primitives, only the chunk buffers are allocated
+        assertTrue(allocated < 1 << 20, "allocated " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,79 @@
+package parser;
+
+import TaskClasses.Transaction;
+import com.viko.exception.ParsingException;
+import com.viko.parser.ColumnarBatch;
+import com.viko.parser.GenericParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarBatchTest {
+
+    @Test
+    void shouldSplitFileIntoFixedSizeBatches() throws Exception {
+        StringBuilder data = new StringBuilder("# transactions\n");
+        for (int i = 0; i < 10; i++) {
+            data.append("id").append(i % 3).append('|').append(i).append(".5|2024-01-").append(10 + i).append('\n');
+        }
+        Path file = Files.createTempFile("transactions", ".txt");
+        Files.writeString(file, data);
+
+        List<ColumnarBatch> batches = new ArrayList<>();
+        new GenericParser().forEachBatch(file, Transaction.class, GenericParser.ParsingMode.STRICT, 4, batches::add);
+
+        assertEquals(List.of(4, 4, 2), batches.stream().map(ColumnarBatch::size).toList());
+        ColumnarBatch first = batches.get(0);
+        assertEquals(List.of("transactionId", "amount", "timestamp"), first.columnNames());
+        assertArrayEquals(new double[]{0.5, 1.5, 2.5, 3.5}, first.doubles("amount"));
+        assertEquals(LocalDate.of(2024, 1, 10).toEpochDay(), first.epochDays("timestamp")[0]);
+        assertEquals(LocalDate.of(2024, 1, 13), first.date("timestamp", 3));
+
+        //four rows, three distinct ids
+        assertArrayEquals(new String[]{"id0", "id1", "id2"}, first.dictionary("transactionId"));
+        assertArrayEquals(new int[]{0, 1, 2, 0}, first.codes("transactionId"));
+        assertEquals("id2", batches.get(2).string("transactionId", 0));
+        assertEquals(2, batches.get(2).doubles("amount").length);
+    }
+
+    @Test
+    void shouldTrackNullsAndDropBadRows() throws Exception {
+        Path file = Files.createTempFile("transactions", ".txt");
+        Files.writeString(file, "a|oops|2024-02-01\n|2.0|2024-02-02\n|x|2024-02-03\nc|3.0|2024-02-04\n");
+
+        List<ColumnarBatch> batches = new ArrayList<>();
+        GenericParser parser = new GenericParser();
+        parser.forEachBatch(file, Transaction.class, GenericParser.ParsingMode.LENIENT, 100, batches::add);
+
+        ColumnarBatch batch = batches.get(0);
+        //rows with a bad amount are dropped
+        assertEquals(2, batch.size());
+        assertEquals(2, parser.errors().total());
+        assertTrue(batch.isNull("transactionId", 0));
+        assertNull(batch.string("transactionId", 0));
+        assertEquals(-1, batch.codes("transactionId")[0]);
+        //the dropped row at the same position must not leave its null bits behind
+        assertFalse(batch.isNull("transactionId", 1));
+        assertEquals("c", batch.string("transactionId", 1));
+        assertArrayEquals(new double[]{2.0, 3.0}, batch.doubles("amount"));
+        assertThrows(IllegalArgumentException.class, () -> batch.ints("amount"));
+    }
+
+    @Test
+    void shouldThrowWithLineNumberInStrictMode() throws Exception {
+        Path file = Files.createTempFile("transactions", ".txt");
+        Files.writeString(file, "a|1.0|2024-01-01\nb|2.0|2024-02-30\n");
+
+        ParsingException e = assertThrows(
+                ParsingException.class,
+                () -> new GenericParser().forEachBatch(file, Transaction.class, GenericParser.ParsingMode.STRICT, 10, b -> {})
+        );
+        assertEquals("Parsing failed at line 2: b|2.0|2024-02-30", e.getMessage());
+    }
+}
@@ -0,0 +1,193 @@
+package parser;
+
+import TaskClasses.Transaction;
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.annotations.Key;
+import com.viko.exception.DuplicateKeyException;
+import com.viko.exception.ErrorRecord;
+import com.viko.exception.ParsingException;
+import com.viko.parser.AggregateResult;
+import com.viko.parser.Aggregation;
+import com.viko.parser.DuplicateKeys;
+import com.viko.parser.GenericParser;
+import com.viko.parser.ParseOptions;
+import com.viko.parser.Sort;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DuplicateKeyTest {
+
+    private static final String FEED = """
+            TX1 | 10.00 | 2024-01-01
+            TX2 | 20.00 | 2024-01-01
+            TX1 | 30.00 | 2024-01-02
+            TX3 | 40.00 | 2024-01-02
+            TX2 | 50.00 | 2024-01-03
+            """;
+
+    @FileSource(delimiter = ",")
+    public static class Payment {
+        @Key
+        @Column(index = 0)
+        public UUID id;
+        @Column(index = 1)
+        public int cents;
+    }
+
+    @FileSource(delimiter = ",")
+    public static class Stock {
+        @Key
+        @Column(index = 0)
+        public String store;
+        @Key
+        @Column(index = 1)
+        public Integer item;
+        @Column(index = 2)
+        public int count;
+    }
+
+    @Test
+    void rejectShouldGoThroughLenientAndStrictHandling() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("transactions", ".txt"), FEED);
+        GenericParser parser = new GenericParser();
+        parser.setDuplicateKeys(new DuplicateKeys(DuplicateKeys.Action.REJECT));
+
+        List<Transaction> kept = parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT);
+        assertEquals(List.of(10.0, 20.0, 40.0), kept.stream().map(t -> t.amount).toList());
+        assertEquals(2L, parser.errors().counts().get("DuplicateKeyException"));
+        assertEquals("Duplicate key 'TX1' of transactionId", parser.errors().samples().get(0).message());
+        assertEquals(3, parser.errors().samples().get(0).lineNumber());
+
+        //every run starts with an empty index
+        ParsingException e = assertThrows(ParsingException.class,
+                () -> parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.STRICT));
+        assertTrue(e.getMessage().startsWith("Parsing failed at line 3"), e.getMessage());
+        assertInstanceOf(DuplicateKeyException.class, e.getCause());
+    }
+
+    @Test
+    void flagShouldKeepTheRows() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("transactions", ".txt"), FEED);
+        GenericParser parser = new GenericParser();
+        parser.setDuplicateKeys(new DuplicateKeys(DuplicateKeys.Action.FLAG, true, 0));
+
+        assertEquals(5, parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.STRICT).size());
+        assertEquals(5, parser.parseMapped(file, Transaction.class, GenericParser.ParsingMode.STRICT).size());
+        assertEquals(4L, parser.errors().counts().get("DuplicateKeyException"));
+
+        parser.setDuplicateKeys(null);
+        parser.errors().reset();
+        assertEquals(5, parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.STRICT).size());
+        assertEquals(0, parser.errors().total());
+    }
+
+    @Test
+    void everyPathShouldKeepTheFirstRowOfAKey() throws Exception {
+        //every 10th row repeats an earlier id, a few MB so the parallel runs get several chunks; the amount is the row
+        StringBuilder data = new StringBuilder();
+        int rows = 150_000;
+        for (int i = 0; i < rows; i++) {
+            int id = i % 10 == 9 ? i / 2 : i;
+            data.append("TX-").append(id).append(" | ").append(i).append(" | 2024-01-0").append(1 + i % 9).append('\n');
+        }
+        Path file = Files.writeString(Files.createTempFile("transactions", ".txt"), data);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        GenericParser.ParsingMode lenient = GenericParser.ParsingMode.LENIENT;
+
+        for (boolean offHeap : new boolean[]{false, true}) {
+            GenericParser parser = new GenericParser();
+            //no size hint, the tables have to grow a few times
+            parser.setDuplicateKeys(new DuplicateKeys(DuplicateKeys.Action.REJECT, offHeap, 0));
+            List<Double> kept = amounts(parser.parse(file.toString(), Transaction.class, lenient));
+            List<Long> dropped = errorLines(parser);
+            assertEquals(IntStream.range(0, rows).filter(i -> i % 10 != 9 || i / 2 % 10 == 9).count(), kept.size());
+
+            assertEquals(kept, amounts(parser.parse(file.toString(), Transaction.class, lenient,
+                    ParseOptions.columns("amount"))));
+            assertEquals(dropped, errorLines(parser));
+            assertEquals(kept, amounts(parser.parseMapped(file, Transaction.class, lenient)));
+            assertEquals(dropped, errorLines(parser));
+            assertEquals(kept, amounts(parser.parseParallel(file, Transaction.class, lenient, pool, 256 << 10)));
+            assertEquals(dropped, errorLines(parser));
+
+            List<Double> reused = Collections.synchronizedList(new ArrayList<>());
+            parser.forEachReusedParallel(file, Transaction.class, lenient, ParseOptions.ALL, pool,
+                    t -> reused.add(t.amount));
+            assertEquals(kept.stream().sorted().toList(), reused.stream().sorted().toList());
+            assertEquals(dropped, errorLines(parser));
+
+            double sum = kept.stream().mapToDouble(Double::doubleValue).sum();
+            Aggregation total = Aggregation.groupBy().count().sum("amount");
+            AggregateResult sequential = parser.aggregate(file, Transaction.class, lenient, total);
+            AggregateResult parallel = parser.aggregateParallel(file, Transaction.class, lenient, ParseOptions.ALL,
+                    total, pool);
+            for (AggregateResult result : new AggregateResult[]{sequential, parallel}) {
+                assertEquals(kept.size(), result.rows());
+                assertEquals(sum, result.value(0, 1));
+            }
+            parser.errors().reset();
+
+            try (Stream<Transaction> sorted = parser.sortedParallel(file, Transaction.class, lenient,
+                    Sort.by("amount").memoryBytes(1 << 20), pool)) {
+                assertEquals(kept.stream().sorted().toList(), sorted.map(t -> t.amount).toList());
+            }
+            assertEquals(dropped, errorLines(parser));
+
+            //the first duplicate in the file fails a STRICT run, whichever chunk gets to its key first
+            ParsingException e = assertThrows(ParsingException.class, () -> parser.parseParallel(file,
+                    Transaction.class, GenericParser.ParsingMode.STRICT, pool, 256 << 10));
+            assertTrue(e.getMessage().startsWith("Parsing failed at line 10:"), e.getMessage());
+        }
+    }
+
+    private static List<Double> amounts(List<Transaction> transactions) {
+        return transactions.stream().map(t -> t.amount).toList();
+    }
+
+    /**
+     * Func errorLines: Lines of the sampled errors since the last call, which resets the collector.
+     */
+    private static List<Long> errorLines(GenericParser parser) {
+        List<Long> lines = parser.errors().samples().stream().map(ErrorRecord::lineNumber).toList();
+        parser.errors().reset();
+        return lines;
+    }
+
+    @Test
+    void uuidCompositeAndBlankKeys() throws Exception {
+        UUID id = UUID.randomUUID();
+        Path payments = Files.writeString(Files.createTempFile("payments", ".txt"),
+                id + ",100\n" + UUID.randomUUID() + ",200\n" + id.toString().toUpperCase() + ",300\n,400\n,500\n");
+        Path stock = Files.writeString(Files.createTempFile("stock", ".txt"), """
+                north,1,5
+                north,2,6
+                north1,,7
+                north,1,8
+                north,12,9
+                """);
+        GenericParser parser = new GenericParser();
+        parser.setDuplicateKeys(new DuplicateKeys(DuplicateKeys.Action.REJECT));
+
+        //the same UUID in upper case is the same key, blank keys are never duplicates
+        List<Integer> cents = new ArrayList<>();
+        parser.forEach(payments, Payment.class, GenericParser.ParsingMode.LENIENT, p -> cents.add(p.cents));
+        assertEquals(List.of(100, 200, 400, 500), cents);
+
+        //a row with a blank key part is not checked, the other parts take it apart from "north", 1
+        List<Stock> kept = parser.parse(stock.toString(), Stock.class, GenericParser.ParsingMode.LENIENT);
+        assertEquals(List.of(5, 6, 7, 9), kept.stream().map(s -> s.count).toList());
+        assertEquals("Duplicate key 'north', '1' of store, item", parser.errors().samples().get(1).message());
+    }
+}
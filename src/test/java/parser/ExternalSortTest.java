@@ -0,0 +1,144 @@
+package parser;
+
+import TaskClasses.Transaction;
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.exception.ParsingException;
+import com.viko.parser.GenericParser;
+import com.viko.parser.Sort;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExternalSortTest {
+
+    @FileSource(delimiter = ",")
+    public static class Reading {
+        @Column(index = 0)
+        public String sensor;
+        @Column(index = 1)
+        public Double value;
+        @Column(index = 2)
+        public int sequence;
+    }
+
+    private static Path transactions(int rows) throws Exception {
+        return TransactionFiles.write(rows, i -> (i * 7919) % 1000 + "." + i % 100,
+                i -> LocalDate.of(2024, 1, 1).plusDays((i * 31) % 365));
+    }
+
+    private static String key(Transaction t) {
+        return t.timestamp + " " + t.amount;
+    }
+
+    private static long spillFiles(Path directory) throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void shouldMatchAnInMemorySortWhateverTheBudget() throws Exception {
+        Path file = transactions(20_000);
+        Path spill = Files.createTempDirectory("spill");
+        GenericParser parser = new GenericParser();
+        List<Transaction> all = parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.STRICT);
+        Comparator<Transaction> byDay = Comparator.comparing(t -> t.timestamp);
+        List<String> expected = all.stream().sorted(byDay.thenComparing(t -> -t.amount))
+                .map(ExternalSortTest::key).toList();
+
+        //everything in memory, a few runs, and so many runs that they are merged in more than one pass
+        for (long budget : new long[]{Sort.DEFAULT_MEMORY_BYTES, 200_000, 4_000}) {
+            Sort sort = Sort.by("timestamp").thenDescending("amount").memoryBytes(budget).tempDirectory(spill);
+            try (Stream<Transaction> sorted = parser.sorted(file, Transaction.class,
+                    GenericParser.ParsingMode.STRICT, sort)) {
+                assertEquals(expected, sorted.map(ExternalSortTest::key).toList(), "budget " + budget);
+            }
+            assertEquals(0, spillFiles(spill));
+        }
+    }
+
+    @Test
+    void equalRowsShouldKeepFileOrderAndBlanksComeLast() throws Exception {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            data.append("s").append(i % 3).append(',').append(i % 5 == 0 ? "" : String.valueOf(i % 4 - 1.5))
+                    .append(',').append(i).append('\n');
+        }
+        Path file = Files.writeString(Files.createTempFile("readings", ".txt"), data);
+        GenericParser parser = new GenericParser();
+
+        for (Sort sort : new Sort[]{Sort.byDescending("value"), Sort.byDescending("value").memoryBytes(10_000)}) {
+            try (Stream<Reading> sorted = parser.sorted(file, Reading.class, GenericParser.ParsingMode.STRICT, sort)) {
+                List<Reading> rows = sorted.toList();
+                assertEquals(5_000, rows.size());
+                for (int i = 1; i < rows.size(); i++) {
+                    Reading a = rows.get(i - 1);
+                    Reading b = rows.get(i);
+                    if (b.value == null) {
+                        if (a.value == null) assertTrue(a.sequence < b.sequence);
+                        continue;
+                    }
+                    assertNotNull(a.value, "blank value before " + b.sequence);
+                    assertTrue(a.value >= b.value);
+                    if (a.value.equals(b.value)) assertTrue(a.sequence < b.sequence);
+                }
+            }
+        }
+
+        //strings by their natural order, then a second column
+        try (Stream<Reading> sorted = parser.sorted(file, Reading.class, GenericParser.ParsingMode.STRICT,
+                Sort.byDescending("sensor").thenDescending("sequence").memoryBytes(10_000))) {
+            Reading first = sorted.findFirst().orElseThrow();
+            assertEquals("s2", first.sensor);
+            assertEquals(4_997, first.sequence);
+        }
+    }
+
+    @Test
+    void parallelRunsShouldGiveTheSameOrder() throws Exception {
+        Path file = transactions(60_000);
+        GenericParser parser = new GenericParser();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<Transaction> all = parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.STRICT);
+        List<Double> expected = all.stream().map(t -> t.amount).sorted().toList();
+
+        try (Stream<Transaction> sorted = parser.sortedParallel(file, Transaction.class,
+                GenericParser.ParsingMode.STRICT, Sort.by("amount").memoryBytes(100_000), pool)) {
+            assertEquals(expected, sorted.map(t -> t.amount).toList());
+        }
+    }
+
+    @Test
+    void failuresShouldSurfaceBeforeTheStream() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("transactions", ".txt"), """
+                TX1 | 10.00 | 2024-01-02
+                TX2 | ten | 2024-01-01
+                TX3 | 30.00 | 2024-01-01
+                """);
+        Path spill = Files.createTempDirectory("spill");
+        GenericParser parser = new GenericParser();
+        Sort sort = Sort.by("timestamp").memoryBytes(1).tempDirectory(spill);
+
+        ParsingException e = assertThrows(ParsingException.class,
+                () -> parser.sorted(file, Transaction.class, GenericParser.ParsingMode.STRICT, sort));
+        assertTrue(e.getMessage().startsWith("Parsing failed at line 2"), e.getMessage());
+        assertEquals(0, spillFiles(spill));
+
+        try (Stream<Transaction> sorted = parser.sorted(file, Transaction.class,
+                GenericParser.ParsingMode.LENIENT, sort)) {
+            assertEquals(List.of(30.0, 10.0), sorted.map(t -> t.amount).toList());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.sorted(file, Transaction.class, GenericParser.ParsingMode.STRICT, Sort.by("day")));
+        assertThrows(IllegalArgumentException.class, () -> Sort.by("amount").memoryBytes(0));
+    }
+}
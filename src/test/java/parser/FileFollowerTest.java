@@ -0,0 +1,102 @@
+package parser;
+
+import com.viko.exception.ParsingException;
+import com.viko.parser.FileFollower;
+import com.viko.parser.GenericParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileFollowerTest {
+
+    private static void append(Path file, String text) throws Exception {
+        Files.writeString(file, text, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    void shouldParseOnlyCompleteAppendedLinesAndResumeFromCheckpoint() throws Exception {
+        Path dir = Files.createTempDirectory("follow");
+        Path file = Files.writeString(dir.resolve("audit.txt"), "# header\nJohn,john@mail.com,30\nAnn,ann@");
+        Path checkpoint = dir.resolve("audit.checkpoint");
+        GenericParser parser = new GenericParser();
+        List<String> names = new ArrayList<>();
+
+        try (FileFollower<MockClass> follower = parser.follow(file, MockClass.class,
+                GenericParser.ParsingMode.STRICT, checkpoint)) {
+            assertEquals(2, follower.poll(r -> names.add(r.name)));
+            assertEquals(List.of("John"), names);
+            assertEquals(new FileFollower.Checkpoint(31, 2), follower.checkpoint());
+
+            //the rest of the partial line arrives
+            append(file, "mail.com,20\r\n");
+            assertEquals(1, follower.poll(r -> names.add(r.name)));
+            assertEquals(0, follower.poll(r -> names.add(r.name)));
+            assertEquals(List.of("John", "Ann"), names);
+        }
+
+        //a new follower continues after the last handled line
+        append(file, "Bob,bob@mail.com,40\n");
+        names.clear();
+        try (FileFollower<MockClass> follower = parser.follow(file, MockClass.class,
+                GenericParser.ParsingMode.STRICT, checkpoint)) {
+            assertEquals(new FileFollower.Checkpoint(Files.size(file) - 20, 3), follower.checkpoint());
+            follower.poll(r -> names.add(r.name));
+            assertEquals(List.of("Bob"), names);
+            assertEquals(4, follower.checkpoint().lineNumber());
+        }
+    }
+
+    @Test
+    void shouldKeepCheckpointBeforeBadLineInStrictMode() throws Exception {
+        Path dir = Files.createTempDirectory("follow");
+        Path file = Files.writeString(dir.resolve("audit.txt"), "John,john@mail.com,30\nBad,bad@mail.com,X\n");
+        Path checkpoint = dir.resolve("audit.checkpoint");
+        List<String> names = new ArrayList<>();
+
+        try (FileFollower<MockClass> follower = new GenericParser().follow(file, MockClass.class,
+                GenericParser.ParsingMode.STRICT, checkpoint)) {
+            ParsingException e = assertThrows(ParsingException.class, () -> follower.poll(r -> names.add(r.name)));
+            assertTrue(e.getMessage().contains("line 2"));
+        }
+        assertEquals(List.of("John"), names);
+        assertEquals("22 1", Files.readString(checkpoint).trim());
+    }
+
+    @Test
+    void shouldFollowUntilClosed() throws Exception {
+        Path dir = Files.createTempDirectory("follow");
+        Path file = Files.writeString(dir.resolve("audit.txt"), "");
+        GenericParser parser = new GenericParser();
+        List<String> names = new ArrayList<>();
+
+        FileFollower<MockClass> follower = parser.follow(file, MockClass.class, GenericParser.ParsingMode.LENIENT, null);
+        Thread thread = Thread.ofVirtual().start(() -> {
+            try {
+                follower.follow(r -> {
+                    synchronized (names) {
+                        names.add(r.name);
+                    }
+                }, Duration.ofMillis(5));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        append(file, "John,john@mail.com,30\nBad,bad@mail.com,X\n");
+        append(file, "Ann,ann@mail.com,20\n");
+        for (int i = 0; i < 200 && follower.checkpoint().lineNumber() < 3; i++) Thread.sleep(10);
+        follower.close();
+        thread.join(2000);
+
+        assertFalse(thread.isAlive());
+        synchronized (names) {
+            assertEquals(List.of("John", "Ann"), names);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package parser;
+
+import TaskClasses.Transaction;
+import com.viko.exception.ParsingException;
+import com.viko.parser.GenericParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MappedParserTest {
+
+    @Test
+    void shouldMatchReaderBasedParse() throws Exception {
+        Path file = Files.createTempFile("mock-data", ".txt");
+        Files.writeString(file, "# customers\r\n  Jörg , jörg@mail.com , 30 \r\n\r\nAnna,anna@mail.com,NOT_A_NUMBER\nZoë,zoe@mail.com,41");
+
+        GenericParser parser = new GenericParser();
+
+        List<MockClass> expected = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.LENIENT);
+        List<MockClass> actual = parser.parseMapped(file, MockClass.class, GenericParser.ParsingMode.LENIENT);
+
+        assertEquals(2, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).name, actual.get(i).name);
+            assertEquals(expected.get(i).email, actual.get(i).email);
+            assertEquals(expected.get(i).age, actual.get(i).age);
+        }
+        assertEquals("Jörg", actual.get(0).name);
+    }
+
+    @Test
+    void shouldConvertDecimalsAndDatesFromBytes() throws Exception {
+        String[] amounts = {"20.00", "-0.5", "1e3", "0.1", "123456789012345678", "99999999.99", "+7", ".25"};
+        StringBuilder data = new StringBuilder();
+        for (String amount : amounts) {
+            data.append("4d3be6b3-ff79-4e65-9571-8647e46991f1|").append(amount).append("|2024-02-29\n");
+        }
+        Path file = Files.createTempFile("transactions", ".txt");
+        Files.writeString(file, data);
+
+        List<Transaction> result = new GenericParser()
+                .parseMapped(file, Transaction.class, GenericParser.ParsingMode.STRICT);
+
+        for (int i = 0; i < amounts.length; i++) {
+            assertEquals(Double.parseDouble(amounts[i]), result.get(i).amount);
+            assertEquals(LocalDate.of(2024, 2, 29), result.get(i).timestamp);
+        }
+    }
+
+    @Test
+    void shouldReportLineNumberForBadDate() throws Exception {
+        Path file = Files.createTempFile("transactions", ".txt");
+        Files.writeString(file, "a|1.00|2024-01-01\n#comment\nb|2.00|2024-02-30\n");
+
+        ParsingException e = assertThrows(
+                ParsingException.class,
+                () -> new GenericParser().parseMapped(file, Transaction.class, GenericParser.ParsingMode.STRICT)
+        );
+        assertEquals("Parsing failed at line 3: b|2.00|2024-02-30", e.getMessage());
+    }
+
+    @Test
+    void shouldHandleLinesAcrossCopyBlocks() throws Exception {
+        //a line longer than a copy block, then CRLF rows
+        Path file = MockFiles.lines(5000, i -> (i == 0 ? "x".repeat(100_000) + ",long@mail.com,20\r\n" : "")
+                + MockFiles.row(i, i % 50) + "\r");
+
+        GenericParser parser = new GenericParser();
+        List<MockClass> expected = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+        List<MockClass> actual = parser.parseMapped(file, MockClass.class, GenericParser.ParsingMode.STRICT);
+
+        assertEquals(5001, actual.size());
+        assertEquals(100_000, actual.get(0).name.length());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).name, actual.get(i).name);
+            assertEquals(expected.get(i).age, actual.get(i).age);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package parser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+
+/**
+ * Class MockFiles: Temp files in the MockClass format shared by the parser tests.
+ */
+final class MockFiles {
+
+    private MockFiles() {
+    }
+
+    /**
+     * Func row: Text of row i, "Name&lt;i&gt;,name&lt;i&gt;@mail.com,age".
+     */
+    static String row(int i, Object age) {
+        return "Name" + i + ",name" + i + "@mail.com," + age;
+    }
+
+    /**
+     * Func write: Writes rows "Name&lt;i&gt;,name&lt;i&gt;@mail.com,age", one per line.
+     * @param age Age of row i
+     * @return Path of the new temp file
+     */
+    static Path write(int rows, IntFunction<?> age) throws Exception {
+        return lines(rows, i -> row(i, age.apply(i)));
+    }
+
+    /**
+     * Func lines: Writes a temp file of the given lines, each ended by '\n'.
+     * @param line Text of line i, may hold more than one line or end in '\r'
+     * @return Path of the new temp file
+     */
+    static Path lines(int rows, IntFunction<String> line) throws Exception {
+        return Files.writeString(Files.createTempFile("mock-data", ".txt"), text(rows, line));
+    }
+
+    /**
+     * Func text: Content of a file of the given lines, each ended by '\n'.
+     */
+    static String text(int rows, IntFunction<String> line) {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < rows; i++) data.append(line.apply(i)).append('\n');
+        return data.toString();
+    }
+}
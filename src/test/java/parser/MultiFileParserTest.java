@@ -0,0 +1,102 @@
+package parser;
+
+import com.viko.exception.ErrorCollector;
+import com.viko.exception.ErrorRecord;
+import com.viko.exception.ParsingException;
+import com.viko.parser.FileResult;
+import com.viko.parser.GenericParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiFileParserTest {
+
+    private Path writeFiles(int count, int badFile) throws Exception {
+        Path dir = Files.createTempDirectory("mock-files");
+        for (int f = 0; f < count; f++) {
+            //every row of a file is named after it
+            String name = "Name" + f;
+            boolean bad = f == badFile;
+            Files.writeString(dir.resolve(String.format("part-%02d.txt", f)), MockFiles.text(100,
+                    i -> bad && i == 50 ? "Bad,bad@mail.com,NOT_A_NUMBER" : name + ",name@mail.com," + i % 50));
+        }
+        Files.writeString(dir.resolve("notes.md"), "not a data file");
+        return dir;
+    }
+
+    @Test
+    void shouldParseEveryMatchingFileAndKeepFailuresPerFile() throws Exception {
+        Path dir = writeFiles(20, 7);
+        GenericParser parser = new GenericParser();
+
+        List<FileResult<MockClass>> results = parser.parseAll(dir, "*.txt", MockClass.class,
+                GenericParser.ParsingMode.STRICT);
+
+        assertEquals(20, results.size());
+        for (int f = 0; f < 20; f++) {
+            FileResult<MockClass> result = results.get(f);
+            assertEquals(String.format("part-%02d.txt", f), result.file().getFileName().toString());
+            if (f == 7) {
+                assertFalse(result.isSuccess());
+                assertInstanceOf(ParsingException.class, result.error());
+                assertTrue(result.records().isEmpty());
+                assertEquals(51, result.errors().get(0).lineNumber());
+            } else {
+                assertTrue(result.isSuccess());
+                assertEquals(100, result.records().size());
+                assertEquals("Name" + f, result.records().get(0).name);
+            }
+        }
+    }
+
+    @Test
+    void shouldSkipBadLinesInLenientMode() throws Exception {
+        Path dir = writeFiles(5, 2);
+        List<FileResult<MockClass>> results = new GenericParser().parseAll(dir, "*.txt", MockClass.class,
+                GenericParser.ParsingMode.LENIENT);
+
+        for (int f = 0; f < 5; f++) {
+            FileResult<MockClass> result = results.get(f);
+            assertNull(result.error());
+            assertEquals(f == 2 ? 99 : 100, result.records().size());
+            assertEquals(f == 2 ? 1 : 0, result.failedLines());
+            assertEquals(f != 2, result.isSuccess());
+        }
+        //the bad line is kept with its file, whatever the shared collector still samples
+        assertEquals(List.of(new ErrorRecord(51, 2, "NumberFormatException", "Invalid value 'NOT_A_NUMBER' for type int",
+                "Bad,bad@mail.com,NOT_A_NUMBER")), results.get(2).errors());
+        assertTrue(results.get(0).errors().isEmpty());
+    }
+
+    @Test
+    void lenientFilesShouldOnlyStopOnFilesThatCouldNotBeRead() throws Exception {
+        Path dir = writeFiles(4, 1);
+        List<FileResult<MockClass>> seen = new ArrayList<>();
+        new GenericParser(new ErrorCollector(0, 0, false)).parseAll(dir, "*.txt", MockClass.class,
+                GenericParser.ParsingMode.LENIENT, 1, true, seen::add);
+
+        assertEquals(4, seen.size());
+        assertEquals(1, seen.get(1).failedLines());
+        assertEquals(1, seen.get(1).errors().size());
+    }
+
+    @Test
+    void shouldStopAtFirstFailureWhenAsked() throws Exception {
+        Path dir = writeFiles(10, 3);
+        List<FileResult<MockClass>> seen = new ArrayList<>();
+
+        //one file at a time, so the files before the bad one are delivered in name order
+        ParsingException e = assertThrows(ParsingException.class,
+                () -> new GenericParser().parseAll(dir, "*.txt", MockClass.class, GenericParser.ParsingMode.STRICT,
+                        1, true, seen::add));
+
+        assertTrue(e.getMessage().contains("part-03.txt"));
+        assertEquals(3, seen.size());
+        assertEquals("part-02.txt", seen.get(2).file().getFileName().toString());
+    }
+}
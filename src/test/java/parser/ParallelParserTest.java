@@ -0,0 +1,55 @@
+package parser;
+
+import com.viko.exception.ParsingException;
+import com.viko.parser.GenericParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ParallelParserTest {
+
+    private Path writeFile(int badLine) throws Exception {
+        return MockFiles.lines(2000, index -> {
+            int i = index + 1;
+            if (i == badLine) return "Bad,bad@mail.com,NOT_A_NUMBER\r";
+            if (i % 10 == 0) return "# comment " + i;
+            if (i % 15 == 0) return "   ";
+            return MockFiles.row(i, i % 50);
+        });
+    }
+
+    @Test
+    void shouldMatchSequentialParseInSourceOrder() throws Exception {
+        Path file = writeFile(1234);
+        GenericParser parser = new GenericParser();
+
+        List<MockClass> expected = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.LENIENT);
+        List<MockClass> actual = parser.parseParallel(file, MockClass.class, GenericParser.ParsingMode.LENIENT,
+                new ForkJoinPool(4), 512);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).name, actual.get(i).name);
+            assertEquals(expected.get(i).age, actual.get(i).age);
+        }
+    }
+
+    @Test
+    void shouldReportAbsoluteLineNumber() throws Exception {
+        Path file = writeFile(1777);
+        GenericParser parser = new GenericParser();
+
+        ParsingException e = assertThrows(
+                ParsingException.class,
+                () -> parser.parseParallel(file, MockClass.class, GenericParser.ParsingMode.STRICT,
+                        new ForkJoinPool(4), 512)
+        );
+        assertEquals("Parsing failed at line 1777: Bad,bad@mail.com,NOT_A_NUMBER", e.getMessage());
+    }
+}
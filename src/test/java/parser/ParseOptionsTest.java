@@ -0,0 +1,181 @@
+package parser;
+
+import TaskClasses.Transaction;
+import com.viko.exception.ParsingException;
+import com.viko.metrics.MetricsListener;
+import com.viko.metrics.ParseMetrics;
+import com.viko.parser.GenericParser;
+import com.viko.parser.ParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseOptionsTest {
+
+    private static final ParseOptions ADULTS_OVER_40 = ParseOptions.columns("name", "age")
+            .where("age", raw -> Integer.parseInt(raw.toString()) > 40);
+
+    private Path writeMockFile() throws Exception {
+        //a comment header and a blank line after every 100th row
+        return MockFiles.lines(1000, i -> (i == 0 ? "# people\n" : "") + MockFiles.row(i, 18 + i % 33)
+                + (i % 100 == 0 ? "\n" : ""));
+    }
+
+    @Test
+    void shouldConvertOnlyProjectedColumnsOfRowsPassingTheFilter() throws Exception {
+        Path file = writeMockFile();
+        GenericParser parser = new GenericParser();
+
+        List<MockClass> all = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+        List<MockClass> selected = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT,
+                ADULTS_OVER_40);
+
+        List<MockClass> expected = all.stream().filter(m -> m.age > 40).toList();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), selected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).name, selected.get(i).name);
+            assertEquals(expected.get(i).age, selected.get(i).age);
+            //not projected, left at its default
+            assertNull(selected.get(i).email);
+        }
+    }
+
+    @Test
+    void everyPathShouldGiveTheSameRows() throws Exception {
+        Path file = writeMockFile();
+        GenericParser parser = new GenericParser();
+        GenericParser.ParsingMode mode = GenericParser.ParsingMode.STRICT;
+
+        List<String> expected = names(parser.parse(file.toString(), MockClass.class, mode, ADULTS_OVER_40));
+        assertEquals(expected, names(parser.parseMapped(file, MockClass.class, mode, ADULTS_OVER_40)));
+        assertEquals(expected, names(parser.parseParallel(file, MockClass.class, mode, ADULTS_OVER_40,
+                ForkJoinPool.commonPool(), 4096)));
+        try (Stream<MockClass> stream = parser.parseStream(file, MockClass.class, mode, ADULTS_OVER_40)) {
+            assertEquals(expected, names(stream.toList()));
+        }
+        List<MockClass> visited = new ArrayList<>();
+        parser.forEach(file, MockClass.class, mode, ADULTS_OVER_40, visited::add);
+        assertEquals(expected, names(visited));
+    }
+
+    @Test
+    void shouldNotConvertColumnsAfterTheLastNeededOne() throws Exception {
+        GenericParser parser = new GenericParser();
+        ParseOptions names = ParseOptions.columns("name");
+
+        //age is never looked at, so its bad value and a missing email can't fail the line
+        MockClass parsed = parser.parseLine("John,john@mail.com,NOT_A_NUMBER", MockClass.class, ",", names);
+        assertEquals("John", parsed.name);
+        assertEquals(0, parsed.age);
+        assertEquals("John", parser.parseLine("John", MockClass.class, ",", names).name);
+
+        assertThrows(ParsingException.class,
+                () -> parser.parseLine("John,john@mail.com,NOT_A_NUMBER", MockClass.class, ",", ParseOptions.ALL));
+    }
+
+    @Test
+    void limitedSplitShouldKeepTheTrailingEmptyFieldRules() throws Exception {
+        GenericParser parser = new GenericParser();
+        ParseOptions emails = ParseOptions.columns("email");
+
+        //trailing empty fields are dropped, so the email column is missing like in a full parse
+        for (String line : List.of("John,,", "John,", "John,,,,")) {
+            assertThrows(ParsingException.class, () -> parser.parseLine(line, MockClass.class, ",", emails), line);
+            assertThrows(ParsingException.class, () -> parser.parseLine(line, MockClass.class, ",", ParseOptions.ALL), line);
+        }
+        //an empty email followed by a value is blank, not missing
+        assertNull(parser.parseLine("John,,30", MockClass.class, ",", emails).email);
+        assertEquals("a@b.c", parser.parseLine("John, a@b.c ,", MockClass.class, ",", emails).email);
+    }
+
+    @Test
+    void filterShouldSeeTheTrimmedRawValue() throws Exception {
+        GenericParser parser = new GenericParser();
+        ParseOptions options = ParseOptions.columns("amount", "timestamp")
+                .where("amount", raw -> Double.parseDouble(raw.toString()) > 1000)
+                .where("timestamp", raw -> raw.length() == 10 && raw.charAt(0) == '2');
+
+        Transaction kept = parser.parseLine("T1 | 1500.50 | 2024-01-15", Transaction.class, "|", options);
+        assertEquals(1500.50, kept.amount);
+        assertEquals(LocalDate.of(2024, 1, 15), kept.timestamp);
+        assertNull(parser.parseLine("T2 | 999 | 2024-01-15", Transaction.class, "|", options));
+        assertNull(parser.parseLine("T3 | 2000 | 1999/01/15", Transaction.class, "|", options));
+
+        //a filter that throws fails the line like a bad value
+        ParsingException e = assertThrows(ParsingException.class,
+                () -> parser.parseLine("T4 | n/a | 2024-01-15", Transaction.class, "|", options));
+        assertEquals(1, e.getColumn());
+    }
+
+    @Test
+    void filterShouldSeeBlankValuesAsEmpty() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("transactions", ".txt"), """
+                T1 | 10.00 | 2024-01-15
+                T2 |    | 2024-01-16
+                T3 | | 2024-01-17
+                """);
+        GenericParser parser = new GenericParser();
+        List<Integer> lengths = new ArrayList<>();
+        ParseOptions blankAmount = ParseOptions.columns("timestamp").where("amount", raw -> {
+            lengths.add(raw.length());
+            return raw.toString().isEmpty();
+        });
+
+        List<Transaction> kept = parser.parse(file.toString(), Transaction.class, GenericParser.ParsingMode.LENIENT,
+                blankAmount);
+        assertEquals(List.of(LocalDate.of(2024, 1, 16), LocalDate.of(2024, 1, 17)),
+                kept.stream().map(t -> t.timestamp).toList());
+        assertEquals(List.of(5, 0, 0), lengths);
+        assertEquals(0, parser.errors().total());
+        assertEquals(2, parser.parseMapped(file, Transaction.class, GenericParser.ParsingMode.LENIENT, blankAmount)
+                .size());
+        assertEquals(0, parser.errors().total());
+    }
+
+    @Test
+    void shouldRejectUnknownColumns() {
+        GenericParser parser = new GenericParser();
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parse("missing.txt", MockClass.class, GenericParser.ParsingMode.STRICT,
+                        ParseOptions.columns("nickname")));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parseLine("a,b,20", MockClass.class, ",", ParseOptions.ALL.where("nickname", raw -> true)));
+    }
+
+    @Test
+    void filteredLinesShouldBeCounted() throws Exception {
+        Path file = writeMockFile();
+        GenericParser parser = new GenericParser();
+        List<ParseMetrics> runs = new ArrayList<>();
+        parser.setMetricsListener(new MetricsListener() {
+            @Override
+            public void parseFinished(ParseMetrics metrics) {
+                runs.add(metrics);
+            }
+        });
+
+        int rows = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT, ADULTS_OVER_40).size();
+        parser.parseMapped(file, MockClass.class, GenericParser.ParsingMode.STRICT, ADULTS_OVER_40);
+
+        assertEquals(2, runs.size());
+        for (ParseMetrics run : runs) {
+            assertEquals(rows, run.rows());
+            assertEquals(1000 - rows, run.filteredLines());
+            assertEquals(10, run.blankLines());
+            assertEquals(1, run.commentLines());
+        }
+    }
+
+    private static List<String> names(List<MockClass> records) {
+        return records.stream().map(m -> m.name + ":" + m.age).toList();
+    }
+}
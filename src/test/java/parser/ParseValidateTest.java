@@ -0,0 +1,79 @@
+package parser;
+
+import com.viko.exception.ParsingException;
+import com.viko.parser.GenericParser;
+import com.viko.parser.RejectedRecord;
+import com.viko.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ParseValidateTest {
+
+    private static final String DATA = """
+            # customers
+            Ana,ana@mail.com,30
+            ,nobody@mail.com,25
+            Bob,not-an-email,70
+
+            Cid,cid@mail.com,NOT_A_NUMBER
+            Dan,dan@mail.com,44
+            """;
+
+    @Test
+    void shouldRouteRecordsToSinks() throws Exception {
+        Path file = Files.createTempFile("mock-data", ".txt");
+        Files.writeString(file, DATA);
+
+        List<MockClass> accepted = new ArrayList<>();
+        List<RejectedRecord> rejected = new ArrayList<>();
+        new GenericParser().parseAndValidate(file, MockClass.class, GenericParser.ParsingMode.LENIENT,
+                new Validator(), accepted::add, rejected::add);
+
+        assertEquals(2, accepted.size());
+        assertEquals("Ana", accepted.get(0).name);
+        assertEquals("Dan", accepted.get(1).name);
+
+        assertEquals(3, rejected.size());
+        assertEquals(3, rejected.get(0).lineNumber());
+        assertEquals(List.of("name is required"), rejected.get(0).messages());
+        assertEquals(4, rejected.get(1).lineNumber());
+        assertEquals("Bob,not-an-email,70", rejected.get(1).line());
+        assertEquals(List.of("invalid email", "Out of range...."), rejected.get(1).messages());
+        assertEquals(6, rejected.get(2).lineNumber());
+    }
+
+    @Test
+    void shouldStopAtFirstViolationInFailFastMode() throws Exception {
+        Path file = Files.createTempFile("mock-data", ".txt");
+        Files.writeString(file, DATA);
+
+        List<RejectedRecord> rejected = new ArrayList<>();
+        new GenericParser().parseAndValidate(file, MockClass.class, GenericParser.ParsingMode.LENIENT,
+                new Validator(Validator.ValidationMode.FAIL_FAST), r -> {}, rejected::add);
+
+        assertEquals(List.of("invalid email"), rejected.get(1).messages());
+    }
+
+    @Test
+    void shouldThrowOnParseFailureInStrictMode() throws Exception {
+        Path file = Files.createTempFile("mock-data", ".txt");
+        Files.writeString(file, DATA);
+
+        List<RejectedRecord> rejected = new ArrayList<>();
+        ParsingException e = assertThrows(
+                ParsingException.class,
+                () -> new GenericParser().parseAndValidate(file, MockClass.class, GenericParser.ParsingMode.STRICT,
+                        new Validator(), r -> {}, rejected::add)
+        );
+        assertEquals("Parsing failed at line 6: Cid,cid@mail.com,NOT_A_NUMBER", e.getMessage());
+        //validation failures before the bad line still went to the sink
+        assertEquals(2, rejected.size());
+    }
+}
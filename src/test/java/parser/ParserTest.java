@@ -1,15 +1,21 @@
 package parser;
 
+import com.viko.exception.ErrorCollector;
+import com.viko.exception.ErrorRecord;
 import com.viko.exception.ParsingException;
 import com.viko.parser.GenericParser;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ParserTest {
 
@@ -49,4 +55,65 @@ public class ParserTest {
                 () -> parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT)
         );
     }
+
+    @Test
+    void shouldParseEveryLineWithCachedPlan() throws Exception {
+        Path file = Files.createTempFile("mock-data", ".txt");
+        Files.writeString(file, "First,first@mail.com,21\nSecond,second@mail.com,22\nThird,third@mail.com,23");
+
+        GenericParser parser = new GenericParser();
+
+        List<MockClass> result = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+
+        assertEquals(3, result.size());
+        assertEquals("Second", result.get(1).name);
+        assertEquals("third@mail.com", result.get(2).email);
+        assertEquals(23, result.get(2).age);
+    }
+
+    @Test
+    void shouldStreamRecordsLazily() throws Exception {
+        Path file = Files.createTempFile("mock-data", ".txt");
+        Files.writeString(file, "# header\nFirst,first@mail.com,21\n\nSecond,second@mail.com,NOT_A_NUMBER\nThird,third@mail.com,23");
+
+        GenericParser parser = new GenericParser();
+
+        try (Stream<MockClass> records = parser.parseStream(file, MockClass.class, GenericParser.ParsingMode.LENIENT)) {
+            List<String> names = records.map(record -> record.name).toList();
+            assertEquals(List.of("First", "Third"), names);
+        }
+    }
+
+    @Test
+    void shouldReportLineNumberWhenStreamingStrict() throws Exception {
+        Path file = Files.createTempFile("mock-data", ".txt");
+        Files.writeString(file, "First,first@mail.com,21\n\nSecond,second@mail.com,NOT_A_NUMBER");
+
+        GenericParser parser = new GenericParser();
+        List<String> names = new ArrayList<>();
+
+        ParsingException e = assertThrows(
+                ParsingException.class,
+                () -> parser.forEach(file, MockClass.class, record -> names.add(record.name))
+        );
+        assertEquals(List.of("First"), names);
+        assertTrue(e.getMessage().startsWith("Parsing failed at line 3"));
+    }
+
+    @Test
+    void shouldCollectStructuredErrorsInLenientMode() throws Exception {
+        Path file = MockFiles.write(50, i -> i % 5 == 0 ? "xx" : "30");
+
+        GenericParser parser = new GenericParser(new ErrorCollector(3, 0, false));
+        List<MockClass> result = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.LENIENT);
+
+        assertEquals(40, result.size());
+        assertEquals(10, parser.errors().total());
+        assertEquals(Map.of("NumberFormatException", 10L), parser.errors().counts());
+
+        List<ErrorRecord> samples = parser.errors().samples();
+        assertEquals(3, samples.size());
+        assertEquals(new ErrorRecord(6, 2, "NumberFormatException", "Invalid value 'xx' for type int",
+                "Name5,name5@mail.com,xx"), samples.get(1));
+    }
 }
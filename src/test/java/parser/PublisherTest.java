@@ -0,0 +1,209 @@
+package parser;
+
+import TaskClasses.Transaction;
+import com.viko.exception.ParsingException;
+import com.viko.metrics.MetricsListener;
+import com.viko.metrics.ParseMetrics;
+import com.viko.parser.GenericParser;
+import com.viko.parser.ParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PublisherTest {
+
+    /** Runs the drain loop on the calling thread, so every signal has happened once request returns. */
+    private static final Executor DIRECT = Runnable::run;
+
+    /**
+     * Subscriber that records what it gets and only requests when told to.
+     */
+    private static class Recording<I> implements Flow.Subscriber<I> {
+        final List<I> items = new ArrayList<>();
+        final CountDownLatch terminated = new CountDownLatch(1);
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(I item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+
+    private static Path transactions(int rows) throws Exception {
+        return TransactionFiles.write(rows, String::valueOf, i -> LocalDate.of(2024, 1, 1));
+    }
+
+    @Test
+    void shouldOnlyReadWhatWasRequested() throws Exception {
+        Path file = transactions(1_000);
+        GenericParser parser = new GenericParser();
+        AtomicReference<ParseMetrics> closed = new AtomicReference<>();
+        parser.setMetricsListener(new MetricsListener() {
+            @Override
+            public void parseFinished(ParseMetrics metrics) {
+                closed.set(metrics);
+            }
+        });
+        Recording<Transaction> subscriber = new Recording<>();
+        parser.publish(file, Transaction.class, GenericParser.ParsingMode.STRICT, DIRECT).subscribe(subscriber);
+
+        //nothing is opened before the first request
+        assertTrue(subscriber.items.isEmpty());
+        subscriber.subscription.request(2);
+        subscriber.subscription.request(1);
+        assertEquals(List.of(0.0, 1.0, 2.0), subscriber.items.stream().map(t -> t.amount).toList());
+        assertNull(closed.get());
+
+        //cancelling closes the file, which reports the rows read so far
+        subscriber.subscription.cancel();
+        assertEquals(3, closed.get().rows());
+        subscriber.subscription.request(5);
+        assertEquals(3, subscriber.items.size());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    void errorsShouldEndStrictSubscriptionsOnly() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("transactions", ".txt"), """
+                TX1 | 10.00 | 2024-01-01
+                TX2 | ten | 2024-01-01
+                TX3 | 30.00 | 2024-01-01
+                """);
+        GenericParser parser = new GenericParser();
+
+        Recording<Transaction> strict = new Recording<>();
+        parser.publish(file, Transaction.class, GenericParser.ParsingMode.STRICT, DIRECT).subscribe(strict);
+        strict.subscription.request(Long.MAX_VALUE);
+        assertEquals(1, strict.items.size());
+        assertInstanceOf(ParsingException.class, strict.error);
+        assertFalse(strict.completed);
+
+        Recording<Transaction> lenient = new Recording<>();
+        parser.errors().reset();
+        parser.publish(file, Transaction.class, GenericParser.ParsingMode.LENIENT, DIRECT).subscribe(lenient);
+        lenient.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(10.0, 30.0), lenient.items.stream().map(t -> t.amount).toList());
+        assertTrue(lenient.completed);
+        assertEquals(1, parser.errors().total());
+
+        Recording<Transaction> bad = new Recording<>();
+        parser.publish(file, Transaction.class, GenericParser.ParsingMode.LENIENT, DIRECT).subscribe(bad);
+        bad.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, bad.error);
+
+        Recording<Transaction> missing = new Recording<>();
+        parser.publish(file.resolveSibling("missing.txt"), Transaction.class, GenericParser.ParsingMode.LENIENT,
+                DIRECT).subscribe(missing);
+        missing.subscription.request(1);
+        assertNotNull(missing.error);
+    }
+
+    @Test
+    void batchesShouldCountAsOneUnitOfDemand() throws Exception {
+        Path file = transactions(10);
+        GenericParser parser = new GenericParser();
+        Recording<List<Transaction>> subscriber = new Recording<>();
+        parser.publishBatches(file, Transaction.class, GenericParser.ParsingMode.STRICT, 4, DIRECT)
+                .subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        assertEquals(List.of(4), subscriber.items.stream().map(List::size).toList());
+        subscriber.subscription.request(10);
+        assertEquals(List.of(4, 4, 2), subscriber.items.stream().map(List::size).toList());
+        assertTrue(subscriber.completed);
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.publishBatches(file, Transaction.class, GenericParser.ParsingMode.STRICT, 0, DIRECT));
+
+        //rows dropped by the filter don't count towards a batch
+        Recording<List<Transaction>> filtered = new Recording<>();
+        parser.publishBatches(file, Transaction.class, GenericParser.ParsingMode.STRICT,
+                ParseOptions.columns("amount").where("amount", raw -> raw.charAt(0) % 2 == 0), 3, DIRECT)
+                .subscribe(filtered);
+        filtered.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(List.of(0.0, 2.0, 4.0), List.of(6.0, 8.0)),
+                filtered.items.stream().map(batch -> batch.stream().map(t -> t.amount).toList()).toList());
+        assertNull(filtered.items.get(0).get(0).timestamp);
+    }
+
+    @Test
+    void slowSubscriberOnAnotherThreadShouldGetEveryRecordInOrder() throws Exception {
+        Path file = transactions(20_000);
+        GenericParser parser = new GenericParser();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            //requests one at a time from inside onNext, like a writer acknowledging every record
+            Recording<Transaction> subscriber = new Recording<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    super.onSubscribe(subscription);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(Transaction item) {
+                    super.onNext(item);
+                    subscription.request(1);
+                }
+            };
+            parser.publish(file, Transaction.class, GenericParser.ParsingMode.STRICT, executor).subscribe(subscriber);
+            assertTrue(subscriber.terminated.await(30, TimeUnit.SECONDS));
+            assertTrue(subscriber.completed);
+            assertEquals(20_000, subscriber.items.size());
+            for (int i = 0; i < 20_000; i++) assertEquals(i, subscriber.items.get(i).amount);
+
+            //the executor is gone, a late request of the ended subscription gets no second terminal signal
+            executor.shutdown();
+            subscriber.subscription.request(1);
+            subscriber.subscription.cancel();
+            assertNull(subscriber.error);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rejectedDrainShouldEndTheSubscriptionWithAnError() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        Recording<Transaction> subscriber = new Recording<>();
+        new GenericParser().publish(transactions(10), Transaction.class, GenericParser.ParsingMode.STRICT, executor)
+                .subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertInstanceOf(RejectedExecutionException.class, subscriber.error);
+        assertTrue(subscriber.items.isEmpty());
+    }
+}
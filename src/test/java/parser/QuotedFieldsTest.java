@@ -0,0 +1,161 @@
+package parser;
+
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.exception.ParsingException;
+import com.viko.parser.GenericParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuotedFieldsTest {
+
+    @FileSource(delimiter = ",", quote = '"')
+    public static class Person {
+        @Column(index = 0)
+        public int id;
+        @Column(index = 1)
+        public String name;
+        @Column(index = 2)
+        public String note;
+
+        @Override
+        public String toString() {
+            return id + "|" + name + "|" + note;
+        }
+    }
+
+    @FileSource(delimiter = ",", quote = '"', multiLine = true)
+    public static class Note {
+        @Column(index = 0)
+        public int id;
+        @Column(index = 1)
+        public String name;
+        @Column(index = 2)
+        public String note;
+    }
+
+    @FileSource(delimiter = "||", quote = '\'', escape = '\\')
+    public static class Escaped {
+        @Column(index = 0)
+        private int id;
+        @Column(index = 1)
+        private String name;
+        @Column(index = 2)
+        private String note;
+    }
+
+    /** Same file layout, quotes are plain text. */
+    @FileSource(delimiter = ",")
+    public static class Unquoted {
+        @Column(index = 0)
+        public int id;
+        @Column(index = 1)
+        public String name;
+    }
+
+    @Test
+    void quotedFieldsShouldKeepDelimitersAndDoubledQuotes() throws Exception {
+        GenericParser parser = new GenericParser();
+
+        Person person = parser.parseLine("1,\"Smith, John\",\"He said \"\"hi\"\", twice\"", Person.class, ",");
+        assertEquals("Smith, John", person.name);
+        assertEquals("He said \"hi\", twice", person.note);
+
+        //spaces around the quotes go, spaces inside them stay
+        person = parser.parseLine(" 2 ,  \" padded \" ,plain \"quote\" inside", Person.class, ",");
+        assertEquals(2, person.id);
+        assertEquals(" padded ", person.name);
+        assertEquals("plain \"quote\" inside", person.note);
+
+        //a doubled quote before the delimiter, the fields after it still line up
+        person = parser.parseLine("\"3\",\"\"\"\",last", Person.class, ",");
+        assertEquals("3|\"|last", person.toString());
+    }
+
+    @Test
+    void quotedEmptyFieldShouldNotBeDroppedAsTrailing() throws Exception {
+        GenericParser parser = new GenericParser();
+        assertNull(parser.parseLine("1,a,\"\"", Person.class, ",").note);
+        assertThrows(ParsingException.class, () -> parser.parseLine("1,a,", Person.class, ","));
+    }
+
+    @Test
+    void escapeCharAndMultiCharDelimiter() throws Exception {
+        GenericParser parser = new GenericParser();
+        Escaped escaped = parser.parseLine("7||'a || b'||'it\\'s \\\\ ''ok'''", Escaped.class, "||");
+        assertEquals(7, escaped.id);
+        assertEquals("a || b", escaped.name);
+        assertEquals("it's \\ 'ok'", escaped.note);
+    }
+
+    @Test
+    void malformedQuotesShouldFailTheLine() throws Exception {
+        Path file = Files.createTempFile("quoted", ".csv");
+        Files.writeString(file, "1,\"open,x\n2,\"closed\" extra,x\n3,ok,x\n");
+        GenericParser parser = new GenericParser();
+
+        ParsingException e = assertThrows(ParsingException.class,
+                () -> parser.parse(file.toString(), Person.class, GenericParser.ParsingMode.STRICT));
+        assertTrue(e.getCause().getMessage().startsWith("Unterminated quoted field"), e.getCause().getMessage());
+        List<Person> parsed = parser.parse(file.toString(), Person.class, GenericParser.ParsingMode.LENIENT);
+        assertEquals(List.of("3|ok|x"), parsed.stream().map(Person::toString).toList());
+    }
+
+    @Test
+    void multiLineRecordsShouldJoinLinesInsideQuotes() throws Exception {
+        Path file = Files.createTempFile("notes", ".csv");
+        Files.writeString(file, "1,\"Ann\",\"first line\r\n\r\nthird, \"\"quoted\"\"\r\nlast\"\r\n"
+                + "# comment with a \" quote\r\n"
+                + "2,Bob,single\r\n"
+                + "3x,Bad,\"not a number\nbelow\"\r\n"
+                + "oops,Cid,x\r\n");
+        GenericParser parser = new GenericParser();
+        List<Note> notes = parser.parse(file.toString(), Note.class, GenericParser.ParsingMode.LENIENT);
+
+        assertEquals(2, notes.size());
+        assertEquals("first line\n\nthird, \"quoted\"\nlast", notes.get(0).note);
+        assertEquals("single", notes.get(1).note);
+
+        //records are named by their first physical line
+        ParsingException e = assertThrows(ParsingException.class,
+                () -> parser.parse(file.toString(), Note.class, GenericParser.ParsingMode.STRICT));
+        assertTrue(e.getMessage().startsWith("Parsing failed at line 7"), e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parseMapped(file, Note.class, GenericParser.ParsingMode.STRICT));
+    }
+
+    @Test
+    void everyPathShouldSplitTheSameWay() throws Exception {
+        StringBuilder data = new StringBuilder("# id,name,note\n");
+        for (int i = 0; i < 2000; i++) {
+            data.append(i).append(",\"Zoë, ").append(i).append("\",");
+            data.append(i % 3 == 0 ? "\"say \"\"" + i + "\"\"\"" : "plain " + i).append('\n');
+        }
+        Path file = Files.createTempFile("quoted", ".csv");
+        Files.writeString(file, data);
+        GenericParser parser = new GenericParser();
+        GenericParser.ParsingMode mode = GenericParser.ParsingMode.STRICT;
+
+        List<String> expected = parser.parse(file.toString(), Person.class, mode).stream().map(Person::toString).toList();
+        assertEquals("3|Zoë, 3|say \"3\"", expected.get(3));
+        assertEquals(expected, parser.parseMapped(file, Person.class, mode).stream().map(Person::toString).toList());
+        assertEquals(expected, parser.parseParallel(file, Person.class, mode, ForkJoinPool.commonPool(), 4096)
+                .stream().map(Person::toString).toList());
+        List<String> reused = new ArrayList<>();
+        parser.forEachReused(file, Person.class, mode, p -> reused.add(p.toString()));
+        assertEquals(expected, reused);
+    }
+
+    @Test
+    void withoutQuoteCharQuotesShouldStayPlainText() throws Exception {
+        GenericParser parser = new GenericParser();
+        assertEquals("\"Smith", parser.parseLine("1,\"Smith, John\"", Unquoted.class, ",").name);
+    }
+}
@@ -0,0 +1,161 @@
+package parser;
+
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.exception.ParsingException;
+import com.viko.parser.GenericParser;
+import com.viko.parser.ParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReusedInstanceTest {
+
+    /** Public fields, filled by the generated parser. */
+    @FileSource(delimiter = ",")
+    public static class Reading {
+        @Column(index = 0)
+        public int sensor;
+        @Column(index = 1)
+        public long time;
+        @Column(index = 2)
+        public double value;
+        @Column(index = 3)
+        public boolean ok;
+        @Column(index = 4)
+        public Integer bonus;
+    }
+
+    /** Same mapping with private fields, filled through reflection. */
+    @FileSource(delimiter = ",")
+    public static class PrivateReading {
+        @Column(index = 0)
+        private int sensor;
+        @Column(index = 1)
+        private long time;
+        @Column(index = 2)
+        private double value;
+        @Column(index = 3)
+        private boolean ok;
+        @Column(index = 4)
+        private Integer bonus;
+    }
+
+    private Path writeReadings(int rows) throws Exception {
+        StringBuilder data = new StringBuilder("# sensor,time,value,ok,bonus\n");
+        for (int i = 0; i < rows; i++) {
+            data.append(i % 10).append(',').append(1_700_000_000_000L + i).append(',').append(i % 100).append(".5,")
+                    .append(i % 2 == 0).append(',').append(i % 3 == 0 ? "" : String.valueOf(i % 7)).append(",end\n");
+        }
+        Path file = Files.createTempFile("readings", ".txt");
+        Files.writeString(file, data);
+        return file;
+    }
+
+    @Test
+    void shouldHandOutTheSameInstanceForEveryRow() throws Exception {
+        Path file = writeReadings(1000);
+        GenericParser parser = new GenericParser();
+        List<Reading> parsed = parser.parse(file.toString(), Reading.class, GenericParser.ParsingMode.STRICT);
+
+        Set<Reading> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<String> seen = new ArrayList<>();
+        parser.forEachReused(file, Reading.class, GenericParser.ParsingMode.STRICT, r -> {
+            instances.add(r);
+            seen.add(r.sensor + "|" + r.time + "|" + r.value + "|" + r.ok + "|" + r.bonus);
+        });
+
+        assertEquals(1, instances.size());
+        assertEquals(parsed.stream().map(r -> r.sensor + "|" + r.time + "|" + r.value + "|" + r.ok + "|" + r.bonus).toList(),
+                seen);
+        //blank values overwrite what the previous row left
+        assertNull(parsed.get(3).bonus);
+        assertTrue(seen.get(3).endsWith("|null"), seen.get(3));
+    }
+
+    @Test
+    void reflectivePathShouldMatchTheGeneratedOne() throws Exception {
+        Path file = writeReadings(1000);
+        GenericParser parser = new GenericParser();
+        List<String> generated = new ArrayList<>();
+        List<String> reflective = new ArrayList<>();
+        parser.forEachReused(file, Reading.class, GenericParser.ParsingMode.STRICT,
+                r -> generated.add(r.sensor + "|" + r.time + "|" + r.value + "|" + r.ok + "|" + r.bonus));
+        parser.forEachReused(file, PrivateReading.class, GenericParser.ParsingMode.STRICT,
+                r -> reflective.add(r.sensor + "|" + r.time + "|" + r.value + "|" + r.ok + "|" + r.bonus));
+        assertEquals(generated, reflective);
+    }
+
+    @Test
+    void parallelShouldUseOneInstancePerChunk() throws Exception {
+        Path file = writeReadings(50_000);
+        GenericParser parser = new GenericParser();
+        LongAdder sum = new LongAdder();
+        LongAdder rows = new LongAdder();
+        Set<Reading> instances = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        parser.forEachReusedParallel(file, Reading.class, GenericParser.ParsingMode.STRICT,
+                ParseOptions.columns("sensor").where("ok", raw -> raw.charAt(0) == 't'), new ForkJoinPool(4), r -> {
+                    instances.add(r);
+                    sum.add(r.sensor);
+                    rows.increment();
+                });
+
+        long expected = parser.parse(file.toString(), Reading.class, GenericParser.ParsingMode.STRICT).stream()
+                .filter(r -> r.ok).mapToLong(r -> r.sensor).sum();
+        assertEquals(25_000, rows.sum());
+        assertEquals(expected, sum.sum());
+        assertTrue(instances.size() > 1);
+    }
+
+    @Test
+    void strictModeShouldStopAtTheBadLine() throws Exception {
+        Path file = Files.createTempFile("readings", ".txt");
+        Files.writeString(file, "1,2,3.0,true,4\n2,NOT_A_NUMBER,3.0,true,4\n3,2,3.0,true,4\n");
+        List<Integer> sensors = new ArrayList<>();
+        GenericParser parser = new GenericParser();
+
+        ParsingException e = assertThrows(ParsingException.class,
+                () -> parser.forEachReused(file, Reading.class, GenericParser.ParsingMode.STRICT, r -> sensors.add(r.sensor)));
+        assertTrue(e.getMessage().startsWith("Parsing failed at line 2"), e.getMessage());
+        assertEquals(List.of(1), sensors);
+
+        sensors.clear();
+        parser.forEachReused(file, Reading.class, GenericParser.ParsingMode.LENIENT, r -> sensors.add(r.sensor));
+        assertEquals(List.of(1, 3), sensors);
+    }
+
+    @Test
+    void primitiveRowsShouldNotAllocate() throws Exception {
+        Path file = writeReadings(200_000);
+        GenericParser parser = new GenericParser();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] total = new long[1];
+
+        //generated fill for every column (small Integers are cached), reflection for the primitive projection
+        List<Object[]> runs = List.of(new Object[]{Reading.class, ParseOptions.ALL},
+                new Object[]{PrivateReading.class, ParseOptions.columns("sensor", "time", "value", "ok")});
+        for (Object[] run : runs) {
+            Class<?> type = (Class<?>) run[0];
+            ParseOptions options = (ParseOptions) run[1];
+            //first run warms up the converters and method handles
+            parser.forEachReused(file, type, GenericParser.ParsingMode.STRICT, options, r -> total[0]++);
+            long before = threads.getCurrentThreadAllocatedBytes();
+            parser.forEachReused(file, type, GenericParser.ParsingMode.STRICT, options, r -> total[0]++);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            //a single object per row would be several MB, the chunk buffers are a few hundred KB
+            assertTrue(allocated < 1 << 20, type.getSimpleName() + " allocated " + allocated + " bytes");
+        }
+        assertEquals(800_000, total[0]);
+    }
+}
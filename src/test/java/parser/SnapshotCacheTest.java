@@ -0,0 +1,166 @@
+package parser;
+
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.metrics.MetricsListener;
+import com.viko.metrics.ParseMetrics;
+import com.viko.parser.GenericParser;
+import com.viko.parser.SnapshotCache;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotCacheTest {
+
+    @FileSource(delimiter = ";")
+    public static class Row {
+        @Column(index = 0)
+        public String name;
+        @Column(index = 1)
+        public Integer count;
+        @Column(index = 2)
+        public long id;
+        @Column(index = 3)
+        public double amount;
+        @Column(index = 4)
+        public Boolean active;
+        @Column(index = 5)
+        public LocalDate day;
+
+        @Override
+        public String toString() {
+            return name + "|" + count + "|" + id + "|" + amount + "|" + active + "|" + day;
+        }
+    }
+
+    private static Path writeMockFile(Path file, int rows) throws Exception {
+        return Files.writeString(file, MockFiles.text(rows, i -> MockFiles.row(i, 18 + i % 30)));
+    }
+
+    private static List<Path> snapshots(SnapshotCache cache) throws Exception {
+        try (Stream<Path> files = Files.list(cache.directory())) {
+            return files.filter(f -> f.toString().endsWith(".snap")).toList();
+        }
+    }
+
+    @Test
+    void secondParseShouldLoadTheSnapshot() throws Exception {
+        Path dir = Files.createTempDirectory("snapshots");
+        Path file = writeMockFile(dir.resolve("people.txt"), 500);
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), 1 << 20);
+        GenericParser parser = new GenericParser();
+        parser.setSnapshotCache(cache);
+        List<ParseMetrics> runs = new ArrayList<>();
+        parser.setMetricsListener(new MetricsListener() {
+            @Override
+            public void parseFinished(ParseMetrics metrics) {
+                runs.add(metrics);
+            }
+        });
+
+        List<MockClass> parsed = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+        assertEquals(1, snapshots(cache).size());
+        List<MockClass> loaded = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+
+        assertEquals(2, runs.size());
+        //the second run read the snapshot, not the text
+        assertEquals(Files.size(snapshots(cache).get(0)), runs.get(1).bytes());
+        assertEquals(Files.size(file), runs.get(0).bytes());
+        assertEquals(500, loaded.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            assertEquals(parsed.get(i).name, loaded.get(i).name);
+            assertEquals(parsed.get(i).email, loaded.get(i).email);
+            assertEquals(parsed.get(i).age, loaded.get(i).age);
+        }
+    }
+
+    @Test
+    void shouldKeepEveryColumnTypeAndNulls() throws Exception {
+        Path dir = Files.createTempDirectory("snapshots");
+        Path file = Files.writeString(dir.resolve("rows.txt"), """
+                Ann; 3; 10000000000; 1.25; true; 2024-02-29
+                ; ; 2; -0.5; ; 2000-01-01
+                Zoë ✓; 0; -1; 1e10; false; 1970-01-01
+                """);
+        GenericParser parser = new GenericParser();
+        parser.setSnapshotCache(new SnapshotCache(dir.resolve("cache"), 1 << 20));
+
+        List<String> parsed = parser.parse(file.toString(), Row.class, GenericParser.ParsingMode.STRICT)
+                .stream().map(Row::toString).toList();
+        List<String> loaded = parser.parse(file.toString(), Row.class, GenericParser.ParsingMode.STRICT)
+                .stream().map(Row::toString).toList();
+
+        assertEquals("null|null|2|-0.5|null|2000-01-01", parsed.get(1));
+        assertEquals(parsed, loaded);
+    }
+
+    @Test
+    void changedSourceShouldBeParsedAgain() throws Exception {
+        Path dir = Files.createTempDirectory("snapshots");
+        Path file = writeMockFile(dir.resolve("people.txt"), 100);
+        GenericParser parser = new GenericParser();
+        parser.setSnapshotCache(new SnapshotCache(dir.resolve("cache"), 1 << 20));
+
+        assertEquals(100, parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT).size());
+        Files.writeString(file, "Late,late@mail.com,40\n", java.nio.file.StandardOpenOption.APPEND);
+        List<MockClass> reparsed = parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+        assertEquals(101, reparsed.size());
+        assertEquals("Late", reparsed.get(100).name);
+        assertEquals(101, parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.STRICT).size());
+    }
+
+    @Test
+    void filesWithFailedLinesShouldNotBeCached() throws Exception {
+        Path dir = Files.createTempDirectory("snapshots");
+        Path file = Files.writeString(dir.resolve("people.txt"), "John,john@mail.com,30\nBad,bad@mail.com,abc\n");
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), 1 << 20);
+        GenericParser parser = new GenericParser();
+        parser.setSnapshotCache(cache);
+
+        assertEquals(1, parser.parse(file.toString(), MockClass.class, GenericParser.ParsingMode.LENIENT).size());
+        assertTrue(snapshots(cache).isEmpty());
+        assertEquals(1, parser.errors().total());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedSnapshots() throws Exception {
+        Path dir = Files.createTempDirectory("snapshots");
+        Path a = writeMockFile(dir.resolve("a.txt"), 200);
+        Path b = writeMockFile(dir.resolve("b.txt"), 200);
+        Path c = writeMockFile(dir.resolve("c.txt"), 200);
+
+        SnapshotCache probe = new SnapshotCache(dir.resolve("probe"), 1 << 20);
+        GenericParser parser = new GenericParser();
+        parser.setSnapshotCache(probe);
+        parser.parse(a.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+        long size = Files.size(snapshots(probe).get(0));
+
+        //room for two snapshots
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), size * 2 + size / 2);
+        parser.setSnapshotCache(cache);
+        parser.parse(a.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+        Path snapshotOfA = snapshots(cache).get(0);
+        parser.parse(b.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+        Path snapshotOfB = snapshots(cache).stream().filter(p -> !p.equals(snapshotOfA)).findFirst().orElseThrow();
+        //a is used after b, so b goes when c comes in
+        Files.setLastModifiedTime(snapshotOfB, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        Files.setLastModifiedTime(snapshotOfA, FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+        parser.parse(a.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+        parser.parse(c.toString(), MockClass.class, GenericParser.ParsingMode.STRICT);
+
+        List<Path> left = snapshots(cache);
+        assertEquals(2, left.size());
+        assertTrue(left.contains(snapshotOfA));
+        assertFalse(left.contains(snapshotOfB));
+        cache.clear();
+        assertTrue(snapshots(cache).isEmpty());
+    }
+}
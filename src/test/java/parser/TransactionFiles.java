@@ -0,0 +1,30 @@
+package parser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.function.IntFunction;
+
+/**
+ * Class TransactionFiles: Temp files in the TaskClasses.Transaction format shared by the parser tests.
+ */
+final class TransactionFiles {
+
+    private TransactionFiles() {
+    }
+
+    /**
+     * Func write: Writes rows "TX&lt;i&gt; | amount | day" under a comment header.
+     * @param amount Text of the amount of row i
+     * @param day Date of row i
+     * @return Path of the new temp file
+     */
+    static Path write(int rows, IntFunction<String> amount, IntFunction<LocalDate> day) throws Exception {
+        StringBuilder data = new StringBuilder("# id | amount | day\n");
+        for (int i = 0; i < rows; i++) {
+            data.append("TX").append(i).append(" | ").append(amount.apply(i)).append(" | ").append(day.apply(i))
+                    .append('\n');
+        }
+        return Files.writeString(Files.createTempFile("transactions", ".txt"), data);
+    }
+}
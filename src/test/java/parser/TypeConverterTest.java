@@ -0,0 +1,104 @@
+package parser;
+
+import com.viko.annotations.Column;
+import com.viko.annotations.FileSource;
+import com.viko.exception.ParsingException;
+import com.viko.parser.GenericParser;
+import com.viko.parser.TypeConverter;
+import com.viko.parser.TypeConverters;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypeConverterTest {
+
+    enum Status { OPEN, CLOSED }
+
+    public static class Cents implements TypeConverter.OfLong {
+        @Override
+        public long convertLong(CharSequence text, int start, int end) {
+            return new BigDecimal(text.subSequence(start, end).toString()).movePointRight(2).longValueExact();
+        }
+    }
+
+    @FileSource(delimiter = ";")
+    public static class Payment {
+        @Column(index = 0)
+        public UUID id;
+        @Column(index = 1)
+        public long sequence;
+        @Column(index = 2)
+        public BigDecimal amount;
+        @Column(index = 3)
+        public Status status;
+        @Column(index = 4)
+        public Instant at;
+        @Column(index = 5, converter = Cents.class)
+        public long fee;
+    }
+
+    record Code(String value) {}
+
+    @FileSource(delimiter = ",")
+    static class Coded {
+        @Column(index = 0)
+        Code code;
+    }
+
+    @Test
+    void shouldParseBuiltInAndCustomTypes() throws Exception {
+        Payment payment = new GenericParser().parseLine(
+                "4d3be6b3-ff79-4e65-9571-8647e46991f1; 9000000000 ;20.00;CLOSED;2024-02-29T23:59:59.5Z;1.25",
+                Payment.class, ";");
+
+        assertEquals(UUID.fromString("4d3be6b3-ff79-4e65-9571-8647e46991f1"), payment.id);
+        assertEquals(9_000_000_000L, payment.sequence);
+        assertEquals(new BigDecimal("20.00"), payment.amount);
+        assertEquals(Status.CLOSED, payment.status);
+        assertEquals(Instant.parse("2024-02-29T23:59:59.5Z"), payment.at);
+        assertEquals(125, payment.fee);
+    }
+
+    @Test
+    void shouldMatchJdkParsers() {
+        for (String value : new String[]{"20.00", "-0.5", "+7", ".25", "5.", "00.10", "-0", "1e3",
+                "123456789012345678", "1234567890123456789.5"}) {
+            assertEquals(new BigDecimal(value), convert(BigDecimal.class, value), value);
+        }
+        for (String value : new String[]{"2024-01-15T10:30:00Z", "1969-12-31T23:59:59.999999999Z",
+                "2024-01-15T10:30:00.1Z", "2024-01-15T10:30:00+02:00", "+12024-01-15T10:30:00Z"}) {
+            assertEquals(Instant.parse(value), convert(Instant.class, value), value);
+        }
+        for (String value : new String[]{"4D3BE6B3-FF79-4E65-9571-8647E46991F1", "00000000-0000-0000-0000-000000000000",
+                "ffffffff-ffff-ffff-ffff-ffffffffffff", "1-2-3-4-5"}) {
+            assertEquals(UUID.fromString(value), convert(UUID.class, value), value);
+        }
+        assertThrows(IllegalArgumentException.class, () -> convert(UUID.class, "4d3be6b3-ff79-4e65-9571-8647e46991fg"));
+        assertThrows(IllegalArgumentException.class, () -> convert(Status.class, "open"));
+    }
+
+    @Test
+    void shouldUseRegisteredConverter() throws Exception {
+        TypeConverters.register(Code.class, (text, start, end) -> new Code(text.subSequence(start, end).toString().toUpperCase()));
+
+        assertEquals(new Code("AB"), new GenericParser().parseLine("ab", Coded.class, ",").code);
+    }
+
+    @Test
+    void shouldReportInvalidValueForPrimitiveConverter() {
+        ParsingException e = assertThrows(
+                ParsingException.class,
+                () -> new GenericParser().parseLine("4d3be6b3-ff79-4e65-9571-8647e46991f1;x;1;OPEN;2024-01-01T00:00:00Z;1",
+                        Payment.class, ";")
+        );
+        assertEquals("Invalid value 'x' for type long", e.getCause().getMessage());
+    }
+
+    private static Object convert(Class<?> type, String value) {
+        return TypeConverters.find(type).convert(value, 0, value.length());
+    }
+}
@@ -0,0 +1,132 @@
+package validation;
+
+import com.viko.metrics.MetricsListener;
+import com.viko.metrics.ValidationMetrics;
+import com.viko.validation.ValidationReport;
+import com.viko.validation.ValidationStrategy;
+import com.viko.validation.Validator;
+import org.junit.jupiter.api.Test;
+import parser.MockClass;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelValidationTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public @interface Even {
+    }
+
+    public static class Counter {
+        @Even
+        public int value;
+    }
+
+    /**
+     * Keeps a plain counter, which would lose updates if two threads ran it at once.
+     */
+    public static class CountingStrategy implements ValidationStrategy {
+        int checked;
+
+        @Override
+        public Optional<String> validate(Object obj, Field field) {
+            checked++;
+            return ((Counter) obj).value % 2 == 0 ? Optional.empty() : Optional.of("odd");
+        }
+    }
+
+    private static List<MockClass> records(int count) {
+        List<MockClass> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MockClass record = new MockClass();
+            record.name = i % 7 == 0 ? null : "name" + i;
+            record.email = i % 11 == 0 ? "broken" : "user" + i + "@mail.com";
+            record.age = 10 + i % 50;
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test
+    void shouldMatchSequentialValidationInListOrder() {
+        List<MockClass> records = records(50_000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        for (Validator.ValidationMode mode : Validator.ValidationMode.values()) {
+            Validator validator = new Validator(mode);
+            Map<MockClass, Set<String>> expected = validator.validate(records);
+            Map<MockClass, Set<String>> errors = validator.validateParallel(records, pool);
+            assertEquals(expected, errors);
+            List<MockClass> invalid = records.stream().filter(expected::containsKey).toList();
+            assertEquals(invalid, new ArrayList<>(errors.keySet()));
+
+            //capped in the middle of a chunk, so the first chunks fill the report and the rest only count
+            for (int cap : new int[]{Integer.MAX_VALUE, 5_000}) {
+                ValidationReport sequential = validator.report(records, cap);
+                ValidationReport parallel = validator.reportParallel(records, cap, pool);
+                List<ValidationReport.Violation> violations = new ArrayList<>();
+                parallel.forEach(violations::add);
+                List<ValidationReport.Violation> expectedViolations = new ArrayList<>();
+                sequential.forEach(expectedViolations::add);
+                assertEquals(expectedViolations, violations);
+                assertEquals(sequential.totalViolations(), parallel.totalViolations());
+                assertEquals(sequential.rowsWithViolations(), parallel.rowsWithViolations());
+                assertEquals(sequential.countsByMessage(), parallel.countsByMessage());
+                assertEquals(sequential.topRules(3), parallel.topRules(3));
+                assertEquals(sequential.messagesOf(7), parallel.messagesOf(7));
+            }
+        }
+    }
+
+    @Test
+    void strategiesThatAreNotThreadSafeRunOneAtATime() {
+        List<Counter> counters = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            Counter counter = new Counter();
+            counter.value = i;
+            counters.add(counter);
+        }
+        CountingStrategy strategy = new CountingStrategy();
+        assertFalse(strategy.isThreadSafe());
+        Validator validator = new Validator();
+        assertTrue(validator.validate(counters).isEmpty());
+        validator.register(Even.class, strategy);
+
+        Map<Counter, Set<String>> errors = validator.validateParallel(counters, new ForkJoinPool(4));
+        assertEquals(100_000, errors.size());
+        assertEquals(Set.of("odd"), errors.get(counters.get(1)));
+        assertEquals(counters.size(), strategy.checked);
+    }
+
+    @Test
+    void workerTimingsShouldBeMerged() {
+        List<MockClass> records = records(20_000);
+        AtomicReference<ValidationMetrics> last = new AtomicReference<>();
+        Validator validator = new Validator();
+        validator.setMetricsListener(new MetricsListener() {
+            @Override
+            public void validationFinished(ValidationMetrics metrics) {
+                last.set(metrics);
+            }
+        });
+
+        Map<MockClass, Set<String>> errors = validator.validateParallel(records, new ForkJoinPool(4));
+        assertEquals(20_000, last.get().objects());
+        assertEquals(errors.size(), last.get().invalid());
+        assertEquals(20_000, last.get().latencies().get("NotNull").count());
+        assertEquals(20_000, last.get().latencies().get("Range").count());
+    }
+}
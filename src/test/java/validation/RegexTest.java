@@ -0,0 +1,62 @@
+package validation;
+
+import com.viko.annotations.Regex;
+import com.viko.validation.RegexStrategy;
+import com.viko.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RegexTest {
+
+    private static final String EMAIL = "^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$";
+
+    public static class Contact {
+        @Regex(pattern = EMAIL, message = "invalid email")
+        public String email;
+
+        @Regex(pattern = EMAIL, message = "invalid email", specialized = true)
+        public String specializedEmail;
+
+        @Regex(pattern = "(work|home):\\d+", message = "invalid phone", specialized = true)
+        public String phone;
+
+        Contact(String email, String phone) {
+            this.email = email;
+            this.specializedEmail = email;
+            this.phone = phone;
+        }
+    }
+
+    @Test
+    void shouldMatchLikePatternMatches() {
+        String[] emails = {"john@mail.com", "john@mail", "@mail.com", "jo hn@mail.com", "a@b.c", "a@b.c.d",
+                "a@@b.c", "a@b..c", "", "x", "zoë@mail.bg", "😀@mail.com", "a@b.c\n", "john.doe@mail.co.uk"};
+        List<Contact> contacts = new ArrayList<>();
+        for (String email : emails) contacts.add(new Contact(email, "work:123"));
+
+        Map<Contact, Set<String>> errors = new Validator().validate(contacts);
+
+        for (Contact contact : contacts) {
+            boolean expected = Pattern.matches(EMAIL, contact.email);
+            assertEquals(expected, !errors.containsKey(contact), contact.email);
+        }
+    }
+
+    @Test
+    void shouldFallBackToRegexForUnsupportedSpecializedPattern() throws Exception {
+        RegexStrategy strategy = new RegexStrategy();
+
+        Contact valid = new Contact("john@mail.com", "home:42");
+        Contact invalid = new Contact("john@mail.com", "office:42");
+
+        assertEquals(true, strategy.validate(valid, Contact.class.getField("phone")).isEmpty());
+        assertEquals("invalid phone", strategy.validate(invalid, Contact.class.getField("phone")).orElse(null));
+    }
+}
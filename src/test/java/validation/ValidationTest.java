@@ -3,11 +3,13 @@ package validation;
 import com.viko.annotations.NotNull;
 import com.viko.parser.GenericParser;
 import com.viko.validation.NotNullStrategy;
+import com.viko.validation.ValidationReport;
 import com.viko.validation.Validator;
 import org.junit.jupiter.api.Test;
 import parser.MockClass;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -42,4 +44,82 @@ public class ValidationTest {
 
         assertEquals(3, errors.get(mockClass).size());
     }
+
+    @Test
+    void shouldStopAtFirstViolationInFailFastMode() {
+        MockClass mockClass = new MockClass();
+
+        mockClass.email = "Invalidddd";
+        mockClass.age = 11;
+
+        Validator validator = new Validator(Validator.ValidationMode.FAIL_FAST);
+
+        Map<MockClass, Set<String>> errors = validator.validate(List.of(mockClass));
+
+        assertEquals(Set.of("name is required"), errors.get(mockClass));
+    }
+
+    @Test
+    void shouldReuseCompiledChecksAcrossObjects() {
+        MockClass valid = new MockClass();
+        valid.name = "John";
+        valid.email = "john@mail.com";
+        valid.age = 30;
+
+        MockClass tooOld = new MockClass();
+        tooOld.name = "Jane";
+        tooOld.email = "jane@mail.com";
+        tooOld.age = 51;
+
+        Validator validator = new Validator();
+
+        Map<MockClass, Set<String>> errors = validator.validate(List.of(valid, tooOld, valid));
+
+        assertEquals(1, errors.size());
+        assertEquals(Set.of("Out of range...."), errors.get(tooOld));
+    }
+
+    @Test
+    void shouldReportViolationsByRow() {
+        MockClass valid = new MockClass();
+        valid.name = "John";
+        valid.email = "john@mail.com";
+        valid.age = 30;
+
+        MockClass invalid = new MockClass();
+        invalid.email = "Invalidddd";
+        invalid.age = 11;
+
+        MockClass tooOld = new MockClass();
+        tooOld.name = "Jane";
+        tooOld.email = "jane@mail.com";
+        tooOld.age = 51;
+
+        ValidationReport report = new Validator().report(List.of(valid, invalid, tooOld, tooOld));
+
+        assertEquals(5, report.totalViolations());
+        assertEquals(3, report.rowsWithViolations());
+        assertEquals(List.of("name is required", "invalid email", "Out of range...."), report.messagesOf(1));
+        assertEquals(List.of(), report.messagesOf(0));
+        List<ValidationReport.Violation> violations = new ArrayList<>();
+        report.forEach(violations::add);
+        assertEquals(new ValidationReport.Violation(2, "age", "Out of range...."), violations.get(3));
+        assertEquals(3, report.countsByMessage().get("Out of range...."));
+        assertEquals(new ValidationReport.RuleCount("age", "Out of range....", 3), report.topRules(1).get(0));
+    }
+
+    @Test
+    void shouldCapKeptViolationsButCountAll() {
+        MockClass invalid = new MockClass();
+        invalid.email = "Invalidddd";
+        invalid.age = 11;
+
+        ValidationReport report = new Validator().report(List.of(invalid, invalid, invalid), 4);
+
+        assertEquals(4, report.size());
+        assertEquals(9, report.totalViolations());
+        assertTrue(report.isTruncated());
+        assertEquals(List.of("name is required"), report.messagesOf(1));
+        assertEquals(3, report.countsByMessage().get("invalid email"));
+    }
 }